@@ -0,0 +1,146 @@
+package org.jdyna;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.lang.SerializationUtils;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Shared, deterministic inputs for benchmarks: scripted games and snapshots of the game
+ * state taken in the middle of a scripted game (with bombs ticking and players spread
+ * over the board). Players follow {@link GameFixtures#SCRIPTS_WITH_IDLER}, the same
+ * scripts allocation tests use.
+ */
+public final class BenchmarkFixtures
+{
+    /**
+     * Scripted players' names are this prefix followed by the player's index.
+     */
+    private final static String PLAYER_NAME_PREFIX = "player-";
+
+    /**
+     * The frame at which snapshots are taken. Both bombs dropped by the scripts are
+     * ticking at this point.
+     */
+    public final static int SNAPSHOT_FRAME = 40;
+
+    /**
+     * A deep copy of the game's state at {@link #SNAPSHOT_FRAME}.
+     */
+    public final static class Snapshot
+    {
+        public final GameStartEvent start;
+        public final int frame;
+        public final GameStateEvent state;
+
+        Snapshot(GameStartEvent start, int frame, GameStateEvent state)
+        {
+            this.start = start;
+            this.frame = frame;
+            this.state = state;
+        }
+    }
+
+    /*
+     *
+     */
+    private BenchmarkFixtures()
+    {
+        // No instances.
+    }
+
+    /**
+     * Create a headless game (no frame delays) on a given board with scripted players.
+     */
+    public static Game scriptedGame(String boardName, GameConfiguration template)
+        throws IOException
+    {
+        final Game game = GameFixtures.newGame(boardName, template.clone());
+        GameFixtures.addScriptedPlayers(game, PLAYER_NAME_PREFIX,
+            GameFixtures.SCRIPTS_WITH_IDLER);
+        return game;
+    }
+
+    /**
+     * Name of the i-th scripted player.
+     */
+    public static String playerName(int i)
+    {
+        return PLAYER_NAME_PREFIX + i;
+    }
+
+    /**
+     * Run a scripted game until {@link #SNAPSHOT_FRAME} and return a deep copy of the
+     * game's start and state events.
+     */
+    public static Snapshot snapshot(String boardName) throws IOException
+    {
+        final Game game = scriptedGame(boardName, GameConfiguration.CLASSIC);
+        game.setFrameLimit(SNAPSHOT_FRAME + 1);
+
+        final Snapshot [] result = new Snapshot [1];
+        game.addListener(new IGameEventListener()
+        {
+            private GameStartEvent start;
+
+            public void onFrame(int frame, List<? extends GameEvent> events)
+            {
+                for (GameEvent e : events)
+                {
+                    if (e.type == GameEvent.Type.GAME_START)
+                    {
+                        start = (GameStartEvent) e;
+                    }
+
+                    if (e.type == GameEvent.Type.GAME_STATE && frame == SNAPSHOT_FRAME)
+                    {
+                        /*
+                         * Events reflect the live board, clone them.
+                         */
+                        result[0] = new Snapshot(
+                            (GameStartEvent) SerializationUtils.clone(start), frame,
+                            (GameStateEvent) SerializationUtils.clone(e));
+                    }
+                }
+            }
+        });
+        game.run(Game.Mode.INFINITE_DEATHMATCH);
+
+        if (result[0] == null)
+        {
+            throw new IllegalStateException("No game state at frame: " + SNAPSHOT_FRAME);
+        }
+        return result[0];
+    }
+
+    /**
+     * Run a scripted game and return deep copies of the game's states in
+     * <code>count</code> consecutive frames from {@link #SNAPSHOT_FRAME} on.
+     */
+    public static List<GameStateEvent> states(String boardName, final int count)
+        throws IOException
+    {
+        final Game game = scriptedGame(boardName, GameConfiguration.CLASSIC);
+        game.setFrameLimit(SNAPSHOT_FRAME + count);
+
+        final List<GameStateEvent> result = Lists.newArrayList();
+        game.addListener(new IGameEventListener()
+        {
+            public void onFrame(int frame, List<? extends GameEvent> events)
+            {
+                for (GameEvent e : events)
+                {
+                    if (e.type == GameEvent.Type.GAME_STATE && frame >= SNAPSHOT_FRAME
+                        && result.size() < count)
+                    {
+                        result.add((GameStateEvent) SerializationUtils.clone(e));
+                    }
+                }
+            }
+        });
+        game.run(Game.Mode.INFINITE_DEATHMATCH);
+        return result;
+    }
+}
@@ -0,0 +1,77 @@
+package org.jdyna;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Chain reaction explosions in {@link BoardUtilities#explode}. A ring of bombs is laid
+ * out along the border of the classic board so that detonating one bomb sets off all the
+ * others. The board is restored from a pristine copy before each explosion (included in
+ * the measured time; it is a plain copy of references).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ExplosionBenchmark
+{
+    /** Bomb positions: a ring along the border of the board. */
+    private final static int [][] BOMBS = {
+        {1, 1}, {4, 1}, {7, 1}, {10, 1}, {13, 1},
+        {13, 4}, {13, 7}, {13, 10},
+        {13, 11}, {10, 11}, {7, 11}, {4, 11}, {1, 11},
+        {1, 10}, {1, 7}, {1, 4}
+    };
+
+    private Board board;
+    private Cell [][] pristine;
+
+    private final List<ExplosionMetadata> explosions = new ArrayList<ExplosionMetadata>();
+    private final List<Point> crates = new ArrayList<Point>();
+
+    @Setup
+    public void setup() throws IOException
+    {
+        board = GameFixtures.board("classic-empty");
+        pristine = new Cell [board.width][board.height];
+        for (int x = 0; x < board.width; x++)
+        {
+            for (int y = 0; y < board.height; y++)
+            {
+                pristine[x][y] = board.cellAt(x, y);
+            }
+        }
+    }
+
+    @Benchmark
+    public int chainReaction()
+    {
+        for (int x = 0; x < board.width; x++)
+        {
+            for (int y = 0; y < board.height; y++)
+            {
+                board.cellAt(x, y, pristine[x][y]);
+            }
+        }
+
+        for (int [] xy : BOMBS)
+        {
+            board.cellAt(xy[0], xy[1], Cell.getInstance(CellType.CELL_BOMB));
+        }
+
+        explosions.clear();
+        crates.clear();
+        BoardUtilities.explode(board, explosions, crates, BOMBS[0][0], BOMBS[0][1]);
+        return explosions.size();
+    }
+}
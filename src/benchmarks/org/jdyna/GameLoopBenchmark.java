@@ -0,0 +1,51 @@
+package org.jdyna;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Game loop throughput: the average time of a single frame step of a headless game
+ * with scripted players. Each invocation plays {@link #FRAMES} frames of a new game; the
+ * game (and its board) is set up before the invocation, outside of the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GameLoopBenchmark
+{
+    /** Frames played per benchmark invocation. */
+    private final static int FRAMES = 1000;
+
+    @Param({"classic-empty", "classic-big"})
+    public String board;
+
+    private Game game;
+
+    /*
+     *
+     */
+    @Setup(Level.Invocation)
+    public void newGame() throws IOException
+    {
+        game = BenchmarkFixtures.scriptedGame(board, GameConfiguration.MORE_BONUSES);
+        game.setFrameLimit(FRAMES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public GameResult frameStep()
+    {
+        return game.run(Game.Mode.INFINITE_DEATHMATCH);
+    }
+}
@@ -0,0 +1,47 @@
+package org.jdyna;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Java serialization of a single {@link GameStateEvent}, as done for every frame by
+ * network broadcasts and game recordings.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GameStateSerializationBenchmark
+{
+    @Param({"classic-empty", "classic-big"})
+    public String board;
+
+    private GameStateEvent state;
+    private final ByteArrayOutputStream baos = new ByteArrayOutputStream(64 * 1024);
+
+    @Setup
+    public void setup() throws IOException
+    {
+        state = BenchmarkFixtures.snapshot(board).state;
+    }
+
+    @Benchmark
+    public int serialize() throws IOException
+    {
+        baos.reset();
+        final ObjectOutputStream oos = new ObjectOutputStream(baos);
+        oos.writeObject(state);
+        oos.close();
+        return baos.size();
+    }
+}
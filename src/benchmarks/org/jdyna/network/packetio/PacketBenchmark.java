@@ -0,0 +1,72 @@
+package org.jdyna.network.packetio;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.jdyna.BenchmarkFixtures;
+import org.jdyna.GameEvent;
+import org.jdyna.network.sockets.PacketIdentifiers;
+import org.jdyna.network.sockets.packets.FrameData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Network packet encoding: serialization of a frame's data into a
+ * {@link SerializablePacket}, compression of the send buffer and a full round trip
+ * (encode, decompress, deserialize) as done between the server and clients.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PacketBenchmark
+{
+    @Param({"classic-empty", "classic-big"})
+    public String board;
+
+    private FrameData frameData;
+
+    private final SerializablePacket sent = new SerializablePacket();
+    private final SerializablePacket received = new SerializablePacket();
+
+    @Setup
+    public void setup() throws IOException
+    {
+        final BenchmarkFixtures.Snapshot snapshot = BenchmarkFixtures.snapshot(board);
+        frameData = new FrameData(snapshot.frame,
+            Collections.<GameEvent> singletonList(snapshot.state));
+    }
+
+    /**
+     * Serialization and compression of a frame's data.
+     */
+    @Benchmark
+    public int encode() throws IOException
+    {
+        sent.serialize(PacketIdentifiers.GAME_FRAME_DATA, 0, frameData);
+        sent.getSendBuffer();
+        return sent.getLength();
+    }
+
+    /**
+     * Encoding, decoding and deserialization of a frame's data.
+     */
+    @Benchmark
+    public FrameData roundTrip() throws IOException
+    {
+        sent.serialize(PacketIdentifiers.GAME_FRAME_DATA, 0, frameData);
+        final byte [] buffer = sent.getSendBuffer();
+
+        received.read(new DataInputStream(new ByteArrayInputStream(buffer, sent.getStart(),
+            sent.getLength())));
+        return received.deserialize(FrameData.class);
+    }
+}
@@ -0,0 +1,84 @@
+package org.jdyna.players;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.jdyna.BenchmarkFixtures;
+import org.jdyna.BoardInfo;
+import org.jdyna.IPlayerSprite;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A frame of bot work on a {@link BitBoard} built from a game state snapshot with bombs
+ * ticking: updating planes, the danger of all bombs (with chain reactions) and cells
+ * reachable from the first player's cell.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BitBoardBenchmark
+{
+    @Param({"classic-empty", "classic-big"})
+    public String board;
+
+    private final BitBoard bitBoard = new BitBoard();
+    private BenchmarkFixtures.Snapshot snapshot;
+    private Point start;
+
+    private long [] seeds;
+    private long [] danger;
+    private long [] reachable;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        snapshot = BenchmarkFixtures.snapshot(board);
+        bitBoard.update(snapshot.state);
+
+        final BoardInfo boardInfo = snapshot.start.getBoardInfo();
+        for (IPlayerSprite player : snapshot.state.getPlayers())
+        {
+            if (player.getName().equals(BenchmarkFixtures.playerName(0)))
+            {
+                start = boardInfo.pixelToGrid(player.getPosition());
+            }
+        }
+
+        seeds = bitBoard.newPlane();
+        danger = bitBoard.newPlane();
+        reachable = bitBoard.newPlane();
+    }
+
+    @Benchmark
+    public long [] update()
+    {
+        bitBoard.update(snapshot.state);
+        return bitBoard.getWalkable();
+    }
+
+    @Benchmark
+    public long [] danger()
+    {
+        BitBoard.copy(bitBoard.getFlames(), danger);
+        bitBoard.chainBlast(bitBoard.getBombs(), danger);
+        return danger;
+    }
+
+    @Benchmark
+    public long [] reachable()
+    {
+        BitBoard.clear(seeds);
+        bitBoard.set(seeds, start.x, start.y);
+        bitBoard.floodFill(seeds, bitBoard.getWalkable(), reachable, bitBoard.getWidth()
+            * bitBoard.getHeight());
+        return reachable;
+    }
+}
@@ -0,0 +1,208 @@
+package org.jdyna.players;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jdyna.BenchmarkFixtures;
+import org.jdyna.ControllerState;
+import org.jdyna.Game;
+import org.jdyna.GameConfiguration;
+import org.jdyna.GameEvent;
+import org.jdyna.GameStateEvent;
+import org.jdyna.IGameEventListener;
+import org.jdyna.IPlayerController;
+import org.jdyna.IPlayerController2;
+import org.jdyna.IPlayerFactory;
+import org.jdyna.players.n00b.NoobFactory;
+import org.jdyna.players.rabbit.RabbitFactory;
+import org.jdyna.players.stalker.StalkerFactory;
+import org.jdyna.players.tyson.TysonFactory;
+import org.jdyna.serialization.GameReader;
+import org.jdyna.serialization.GameWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Per-frame think time of bots replaying a recorded game. Frames of a game saved with
+ * {@link GameWriter} are read with {@link GameReader} and fed to a bot as if it were one
+ * of the players of that game. A single operation is one frame: the bot's
+ * {@link IGameEventListener#onFrame(int, List)} followed by its decision. A fresh bot
+ * takes over when the replay starts again (the check is a part of the measured frame, a
+ * per-invocation setup would cost more than many frames). Fresh bots are built before
+ * each iteration, twice as many as the laps of the replay in the previous iteration, so
+ * bot construction is not measured (except in the first iterations, normally warmup).
+ * <p>
+ * Sample time mode reports percentiles of per-frame latency (the maximum shows the worst
+ * spikes) and the <code>gc</code> profiler reports allocation per frame, for example:
+ * 
+ * <pre>
+ * ant benchmark -Dbenchmarks.include=BotReplay -Dbenchmarks.args="-prof gc -p replay=game.log"
+ * </pre>
+ * 
+ * Without a replay file, a scripted game on a large board is recorded (in memory) and
+ * replayed, so the workload is the same on every run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BotReplayBenchmark
+{
+    /** The board and length of the default recorded game. */
+    private final static String RECORDED_BOARD = "classic-big";
+    private final static int RECORDED_FRAMES = 1500;
+
+    @Param({"tyson", "n00b", "stalker", "rabbit"})
+    public String bot;
+
+    /** A game log saved with {@link GameWriter}, empty for the default recorded game. */
+    @Param({""})
+    public String replay;
+
+    /** Index of the player (in the first game state) the bot replaces. */
+    @Param({"0"})
+    public int player;
+
+    private List<Integer> frames;
+    private List<List<GameEvent>> events;
+    private String playerName;
+
+    private IPlayerController controller;
+    private IPlayerController2 controller2;
+    private IGameEventListener listener;
+    private int next;
+
+    /** Fresh bots for the laps of the replay in the current iteration. */
+    private final ArrayDeque<IPlayerController> spares = new ArrayDeque<IPlayerController>();
+
+    /** The number of laps of the replay started in the current iteration. */
+    private int laps;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        frames = Lists.newArrayList();
+        events = Lists.newArrayList();
+
+        final InputStream is = (replay.length() == 0
+            ? new ByteArrayInputStream(record()) : new FileInputStream(replay));
+        final GameReader reader = new GameReader(is);
+        try
+        {
+            while (reader.nextFrame())
+            {
+                frames.add(reader.getFrame());
+                events.add(Lists.newArrayList(reader.getEvents()));
+                if (playerName == null)
+                {
+                    for (GameEvent e : reader.getEvents())
+                    {
+                        if (e.type == GameEvent.Type.GAME_STATE)
+                        {
+                            playerName = ((GameStateEvent) e).getPlayers().get(player)
+                                .getName();
+                        }
+                    }
+                }
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+
+        if (playerName == null)
+        {
+            throw new IOException("No game state in the replay.");
+        }
+        next = frames.size();
+    }
+
+    @Setup(Level.Iteration)
+    public void buildBots()
+    {
+        final int needed = Math.max(1, 2 * laps);
+        while (spares.size() < needed)
+        {
+            spares.addLast(factory(bot).getController(playerName));
+        }
+        laps = 0;
+    }
+
+    @Benchmark
+    public Object frame()
+    {
+        if (next == frames.size())
+        {
+            restart();
+        }
+
+        final int i = next++;
+        if (listener != null)
+        {
+            listener.onFrame(frames.get(i), events.get(i));
+        }
+
+        if (controller2 != null)
+        {
+            return controller2.getState();
+        }
+        return new ControllerState(controller.getCurrent(), controller.dropsBomb());
+    }
+
+    /**
+     * Start the replay with a fresh bot.
+     */
+    private void restart()
+    {
+        controller = (spares.isEmpty()
+            ? factory(bot).getController(playerName) : spares.removeFirst());
+        laps++;
+        controller2 = (controller instanceof IPlayerController2
+            ? (IPlayerController2) controller : null);
+        listener = (controller instanceof IGameEventListener
+            ? (IGameEventListener) controller : null);
+        next = 0;
+    }
+
+    /*
+     * 
+     */
+    private static IPlayerFactory factory(String bot)
+    {
+        if ("tyson".equals(bot)) return new TysonFactory();
+        if ("n00b".equals(bot)) return new NoobFactory();
+        if ("stalker".equals(bot)) return new StalkerFactory();
+        if ("rabbit".equals(bot)) return new RabbitFactory();
+        throw new IllegalArgumentException("Unknown bot: " + bot);
+    }
+
+    /**
+     * Record a scripted game to a game log.
+     */
+    private static byte [] record() throws IOException
+    {
+        final Game game = BenchmarkFixtures.scriptedGame(RECORDED_BOARD,
+            GameConfiguration.CLASSIC);
+        game.setFrameLimit(RECORDED_FRAMES);
+
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        game.addListener(new GameWriter(os));
+        game.run(Game.Mode.INFINITE_DEATHMATCH);
+        return os.toByteArray();
+    }
+}
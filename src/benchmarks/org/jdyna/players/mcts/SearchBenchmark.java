@@ -0,0 +1,70 @@
+package org.jdyna.players.mcts;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.jdyna.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Throughput of the Monte Carlo search player's rollouts, from a snapshot of a scripted
+ * game with bombs ticking. Searches of worker threads are independent, so the score of
+ * a single thread is rollouts per second per core; run with <code>-t</code> to see how
+ * it scales with cores, for example:
+ * 
+ * <pre>
+ * ant benchmark -Dbenchmarks.include=SearchBenchmark -Dbenchmarks.args="-t 4"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SearchBenchmark
+{
+    @Param({"classic-empty", "classic-big"})
+    public String board;
+
+    private Arena arena;
+    private Search search;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        final BenchmarkFixtures.Snapshot snapshot = BenchmarkFixtures.snapshot(board);
+        arena = new Arena(snapshot.start.getBoardInfo(), snapshot.start.getConfiguration());
+        arena.update(snapshot.frame, snapshot.state, BenchmarkFixtures.playerName(0));
+        search = new Search(arena, Thread.currentThread().getId());
+    }
+
+    @Setup(Level.Iteration)
+    public void newTree()
+    {
+        search.reset(arena);
+    }
+
+    /**
+     * A random game played out to the search's horizon.
+     */
+    @Benchmark
+    public double rollout()
+    {
+        return search.rollout();
+    }
+
+    /**
+     * An iteration of the search: selection and expansion in the tree and a rollout.
+     */
+    @Benchmark
+    public double iteration()
+    {
+        return search.iterate();
+    }
+}
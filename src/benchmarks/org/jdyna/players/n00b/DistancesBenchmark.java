@@ -0,0 +1,77 @@
+package org.jdyna.players.n00b;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.jdyna.BenchmarkFixtures;
+import org.jdyna.IPlayerController.Direction;
+import org.jdyna.players.n00b.state.GameState;
+import org.jdyna.players.n00b.state.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Computation of {@link Distances} of the <code>n00b</code> player (breadth-first
+ * searches to enemies, bonuses, crates and safe spaces) on a game state snapshot: from a
+ * single start and for all moves considered in a frame (staying in place and one step
+ * in every direction), derived from a single {@link DistanceField}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DistancesBenchmark
+{
+    @Param({"classic-empty", "classic-big"})
+    public String board;
+
+    private GameState state;
+    private Player me;
+    private Point start;
+
+    private final DistanceField field = new DistanceField();
+    private final Distances [] moves = new Distances [Direction.values().length + 1];
+
+    @Setup
+    public void setup() throws IOException
+    {
+        final BenchmarkFixtures.Snapshot snapshot = BenchmarkFixtures.snapshot(board);
+        state = new GameState(snapshot.start);
+        state.update(snapshot.frame, snapshot.state);
+
+        me = state.getPlayer(BenchmarkFixtures.playerName(0));
+        start = state.getPlayerSpace(me).toPoint();
+        for (int i = 0; i < moves.length; i++)
+        {
+            moves[i] = new Distances();
+        }
+    }
+
+    @Benchmark
+    public Distances distances()
+    {
+        return new Distances(start, state, me);
+    }
+
+    @Benchmark
+    public Distances [] allMoves()
+    {
+        field.compute(state, start);
+        moves[0].compute(field, null, state, me);
+        for (Direction direction : Direction.values())
+        {
+            if (!state.isPointOutsideBoard(Distances.getNeighbourPointByDirection(start,
+                direction)))
+            {
+                moves[direction.ordinal() + 1].compute(field, direction, state, me);
+            }
+        }
+        return moves;
+    }
+}
@@ -0,0 +1,48 @@
+package org.jdyna.players.tyson.emulator.gamestate;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.jdyna.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per-frame update of the <code>tyson</code> player's game state with a snapshot with
+ * bombs ticking. The cells do not change between frames, which is what most frames of a
+ * game look like: only bombs and zones threatened by them need an update.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GameStateBenchmark
+{
+    @Param({"classic-empty", "classic-big"})
+    public String board;
+
+    private BenchmarkFixtures.Snapshot snapshot;
+    private GameState gameState;
+    private int frame;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        snapshot = BenchmarkFixtures.snapshot(board);
+        frame = snapshot.frame;
+        gameState = new GameState(snapshot.start.getConfiguration(), frame,
+            snapshot.state, BenchmarkFixtures.playerName(0));
+    }
+
+    @Benchmark
+    public GameState update()
+    {
+        gameState.update(++frame, snapshot.state);
+        return gameState;
+    }
+}
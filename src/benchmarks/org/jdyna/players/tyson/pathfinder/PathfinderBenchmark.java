@@ -0,0 +1,91 @@
+package org.jdyna.players.tyson.pathfinder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jdyna.BenchmarkFixtures;
+import org.jdyna.IPlayerController.Direction;
+import org.jdyna.players.tyson.emulator.gamestate.GameState;
+import org.jdyna.players.tyson.emulator.gamestate.GridCoord;
+import org.jdyna.players.tyson.emulator.gamestate.PointCoord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Path searches of the <code>tyson</code> player on a game state snapshot with bombs
+ * ticking: shelter searches from the player's position (the second one assumes the
+ * player has just dropped a bomb, so a real escape must be found) and trips across the
+ * board: to the cell of an opponent (which can never be entered, so the search is
+ * answered by the reachability map) and to a cell next to it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PathfinderBenchmark
+{
+    @Param({"classic-empty", "classic-big"})
+    public String board;
+
+    private final Pathfinder pathfinder = new Pathfinder();
+    private GameState gameState;
+    private PointCoord position;
+    private GridCoord destination;
+    private GridCoord neighbor;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        final BenchmarkFixtures.Snapshot snapshot = BenchmarkFixtures.snapshot(board);
+        gameState = new GameState(snapshot.start.getConfiguration(), snapshot.frame,
+            snapshot.state, BenchmarkFixtures.playerName(0));
+        position = gameState.getPlayerPosition();
+
+        /*
+         * The destination is the scripted player 2's cell, far away from player 0.
+         */
+        destination = gameState.getPlayerCell(BenchmarkFixtures.playerName(2));
+        for (GridCoord cell : gameState.getBoard().getWalkableNeighbors(destination))
+        {
+            if (new Pathfinder().findTrip(gameState, position, cell) != null)
+            {
+                neighbor = cell;
+                break;
+            }
+        }
+        if (neighbor == null)
+        {
+            throw new IllegalStateException("No reachable cell next to the opponent.");
+        }
+    }
+
+    @Benchmark
+    public List<Direction> findShelter()
+    {
+        return pathfinder.findShelter(gameState, position);
+    }
+
+    @Benchmark
+    public List<Direction> findShelterWithMyBomb()
+    {
+        return pathfinder.findShelterWithMyBomb(gameState, position);
+    }
+
+    @Benchmark
+    public List<Direction> findTrip()
+    {
+        return pathfinder.findTrip(gameState, position, destination);
+    }
+
+    @Benchmark
+    public List<Direction> findTripNextToOpponent()
+    {
+        return pathfinder.findTrip(gameState, position, neighbor);
+    }
+}
@@ -0,0 +1,93 @@
+package org.jdyna.view.swing;
+
+import java.awt.Dimension;
+import java.awt.GraphicsConfiguration;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jdyna.BenchmarkFixtures;
+import org.jdyna.GameEvent;
+import org.jdyna.GameStateEvent;
+import org.jdyna.view.resources.ImagesFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Rendering of consecutive frames of a scripted game into the {@link BoardPanel}'s
+ * offscreen image (repainting the whole board or incrementally) and painting that image
+ * on a screen-sized image, at different magnifications. The panel is never displayed,
+ * the benchmark runs in headless mode.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(jvmArgsAppend = "-Djava.awt.headless=true")
+public class BoardPanelBenchmark
+{
+    /** Frames rendered in a cycle. */
+    private final static int FRAMES = 100;
+
+    @Param({"classic-empty", "classic-big"})
+    public String board;
+
+    @Param({"false", "true"})
+    public boolean incremental;
+
+    @Param({"TIMES_1", "TIMES_2", "TIMES_4"})
+    public Magnification magnification;
+
+    private BoardPanel panel;
+    private BufferedImage screen;
+    private List<GameStateEvent> states;
+    private int frame;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        /*
+         * Offscreen images are compatible with an in-memory image's configuration.
+         */
+        final Graphics2D g = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB)
+            .createGraphics();
+        final GraphicsConfiguration conf = g.getDeviceConfiguration();
+        g.dispose();
+
+        final BenchmarkFixtures.Snapshot snapshot = BenchmarkFixtures.snapshot(board);
+        panel = new BoardPanel(ImagesFactory.DYNA_CLASSIC, conf);
+        panel.setMagnification(magnification);
+        panel.onFrame(0, Collections.<GameEvent> singletonList(snapshot.start));
+        panel.setIncremental(incremental);
+        states = BenchmarkFixtures.states(board, FRAMES);
+
+        final Dimension size = panel.getViewSize();
+        screen = conf.createCompatibleImage(size.width, size.height);
+        panel.updateBoard(states.get(0));
+    }
+
+    @Benchmark
+    public BoardPanel updateBoard()
+    {
+        panel.updateBoard(states.get(frame++ % states.size()));
+        return panel;
+    }
+
+    @Benchmark
+    public BufferedImage paint()
+    {
+        final Graphics2D g = screen.createGraphics();
+        panel.paint(g);
+        g.dispose();
+        return screen;
+    }
+}
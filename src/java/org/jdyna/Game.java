@@ -6,6 +6,9 @@ import static java.lang.Math.min;
 
 import java.awt.Point;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.lang.StringUtils;
 import org.jdyna.IPlayerController.Direction;
@@ -13,13 +16,20 @@ import org.jdyna.ISprite.Type;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 /**
  * Game controller. The controller and <b>all the objects involved in the game</b> are
- * single-threaded and should be accessed from within the game loop only.
+ * single-threaded and should be accessed from within the game loop only. The exceptions
+ * are methods explicitly documented as safe to call from any thread, for example
+ * {@link #requestJoin(Player)} and {@link #requestLeave(String)}, which queue changes
+ * to the set of players until the start of the next frame.
+ * <p>
+ * Player controllers which listen to game events may be called in parallel, see
+ * {@link #setControllerPool(ForkJoinPool)}.
  */
 public final class Game implements IGameEventListenerHolder
 {
@@ -68,12 +78,104 @@ public final class Game implements IGameEventListenerHolder
      */
     private final List<PlayerInfo> playerInfos = Lists.newArrayList();
 
+    /**
+     * Names of players attached to the game (including players whose join requests are
+     * still pending) and join and leave requests queued for the next frame. Replaced
+     * atomically, so that requests are queued in the order in which names are added to
+     * and removed from the roster.
+     */
+    private final AtomicReference<Roster> roster = new AtomicReference<Roster>(Roster.EMPTY);
+
+    /**
+     * An immutable snapshot of player names and pending roster changes.
+     */
+    private final static class Roster
+    {
+        final static Roster EMPTY = new Roster(ImmutableList.<String> of(),
+            ImmutableList.<RosterChange> of());
+
+        final ImmutableList<String> names;
+        final ImmutableList<RosterChange> changes;
+
+        Roster(ImmutableList<String> names, ImmutableList<RosterChange> changes)
+        {
+            this.names = names;
+            this.changes = changes;
+        }
+
+        /**
+         * Return a roster with the name added and a change queued (if not <code>null</code>).
+         */
+        Roster join(String name, RosterChange change)
+        {
+            final ArrayList<String> names = Lists.newArrayList(this.names);
+            names.add(name);
+            return new Roster(ImmutableList.copyOf(names), queue(change));
+        }
+
+        /**
+         * Return a roster with the name removed and a change queued.
+         */
+        Roster leave(String name, RosterChange change)
+        {
+            final ArrayList<String> names = Lists.newArrayList(this.names);
+            names.remove(name);
+            return new Roster(ImmutableList.copyOf(names), queue(change));
+        }
+
+        private ImmutableList<RosterChange> queue(RosterChange change)
+        {
+            if (change == null) return changes;
+
+            final ArrayList<RosterChange> changes = Lists.newArrayList(this.changes);
+            changes.add(change);
+            return ImmutableList.copyOf(changes);
+        }
+    }
+
+    /**
+     * A pending join (<code>player != null</code>) or leave request.
+     */
+    private final static class RosterChange
+    {
+        final Player player;
+        final String name;
+
+        RosterChange(Player player, String name)
+        {
+            this.player = player;
+            this.name = name;
+        }
+    }
+
+    /**
+     * <code>true</code> once the game loop has started.
+     */
+    private volatile boolean started;
+
     /** Game listeners. */
     private final ArrayList<IGameEventListener> listeners = Lists.newArrayList();
 
     /** Frame listeners. */
     private final ArrayList<IFrameListener> frameListeners = Lists.newArrayList();
 
+    /**
+     * Listeners which are controllers of players (a subset of {@link #listeners}).
+     */
+    private final Set<IGameEventListener> controllerListeners = 
+        Collections.newSetFromMap(new IdentityHashMap<IGameEventListener, Boolean>());
+
+    /**
+     * Pool running {@link #controllerListeners} in parallel or <code>null</code> if all
+     * listeners are called on the game thread.
+     */
+    private ForkJoinPool controllerPool;
+
+    /**
+     * Reusable tasks of {@link #controllerListeners} dispatched in a frame.
+     */
+    private final ArrayList<ListenerTask> listenerTasks = Lists.newArrayList();
+
     /** Board dimensions. */
     private BoardInfo boardData;
 
@@ -139,6 +241,37 @@ public final class Game implements IGameEventListenerHolder
      */
     private IHighlightDetector highlightDetector;
 
+    /**
+     * Frame phase listener or null if none.
+     */
+    private IFramePhaseListener phaseListener;
+
+    /**
+     * Reusable lists of crates and explosions in {@link #processBoardCells()}.
+     */
+    private final ArrayList<Point> crates = Lists.newArrayList();
+    private final ArrayList<ExplosionMetadata> explosionMetadata = Lists.newArrayList();
+
+    /**
+     * Reusable array of cells excluded from random placement of bonuses and crates.
+     */
+    private boolean [] bannedCells;
+
+    /**
+     * Computes bomb threats if {@link GameConfiguration#ENABLE_THREAT_MAP} is set.
+     */
+    private final ThreatTracker threatTracker;
+
+    /**
+     * The most recent threats snapshot, if enabled.
+     */
+    private volatile ThreatMap threatMap;
+
+    /**
+     * Read-only view of {@link #events} passed to listeners.
+     */
+    private final List<GameEvent> eventsView = Collections.unmodifiableList(events);
+
     /**
      * Creates a single game.
      */
@@ -148,6 +281,8 @@ public final class Game implements IGameEventListenerHolder
         this.board = board;
         this.boardData = boardInfo;
         this.timer = new GameTimer(conf.DEFAULT_FRAME_RATE);
+        this.threatTracker = (conf.ENABLE_THREAT_MAP 
+            ? new ThreatTracker(board.width, board.height) : null);
         
         // TODO: Disable highlight detector for now.
         this.conf.ENABLE_HIGHLIGHTS_DATA = false;
@@ -164,41 +299,151 @@ public final class Game implements IGameEventListenerHolder
     }
 
     /**
-     * Dynamically attach a new player to an existing game. If the player with the
-     * given identifier already exists, an exception is thrown.
+     * Attach a new player to a game that has not been started yet. If the player with the
+     * given identifier already exists, an exception is thrown. Use
+     * {@link #requestJoin(Player)} to add players to a running game.
      */
-    public synchronized IPlayerSprite addPlayer(Player p)
+    public IPlayerSprite addPlayer(Player p)
     {
         return addPlayer(p, conf.DEFAULT_JOINING_IMMORTALITY_FRAMES);
     }
 
     /**
-     * Dynamically attach a new player to an existing game. If the player with the
-     * given identifier already exists, an exception is thrown.
+     * Attach a new player to a game that has not been started yet.
      */
-    private synchronized IPlayerSprite addPlayer(Player p, int immortalityCount)
+    private IPlayerSprite addPlayer(Player p, int immortalityCount)
     {
-        if (hasPlayer(p.name))
+        if (started)
         {
-            throw new IllegalArgumentException("Player already exists: " + p.name);            
+            throw new IllegalStateException("The game is running, use requestJoin: " + p.name);
         }
 
+        addToRoster(p.name, null);
         return setupPlayer(p, immortalityCount);
     }
 
     /**
-     * Check if there is a player named <code>name</code> attached to this game.
+     * Request a new player to be attached to the game at the start of the next frame.
+     * Safe to call from any thread, never blocks the game loop. If a player with the
+     * same name is already attached (or waiting to join), an exception is thrown.
      */
-    public synchronized boolean hasPlayer(String name)
+    public void requestJoin(Player p)
     {
-        for (PlayerInfo p2 : playerInfos)
+        addToRoster(p.name, new RosterChange(p, p.name));
+    }
+
+    /**
+     * Request a player to be removed from the game at the start of the next frame. Safe
+     * to call from any thread, never blocks the game loop.
+     * 
+     * @return Returns <code>false</code> if no such player is attached to the game.
+     */
+    public boolean requestLeave(String name)
+    {
+        final RosterChange change = new RosterChange(null, name);
+        Roster current;
+        do
         {
-            if (StringUtils.equals(p2.getName(), name))
+            current = roster.get();
+            if (!current.names.contains(name)) return false;
+        } 
+        while (!roster.compareAndSet(current, current.leave(name, change)));
+
+        return true;
+    }
+
+    /**
+     * Check if there is a player named <code>name</code> attached to this game (or
+     * waiting to join). Safe to call from any thread.
+     */
+    public boolean hasPlayer(String name)
+    {
+        return roster.get().names.contains(name);
+    }
+
+    /**
+     * @return Return an immutable snapshot of the names of players attached to this game
+     *         (or waiting to join). Safe to call from any thread.
+     */
+    public List<String> getPlayerNames()
+    {
+        return roster.get().names;
+    }
+
+    /**
+     * Atomically add a name to the {@link #roster} and queue a change (if not
+     * <code>null</code>), fail if the name is already there.
+     */
+    private void addToRoster(String name, RosterChange change)
+    {
+        Roster current;
+        do
+        {
+            current = roster.get();
+            if (current.names.contains(name))
             {
-                return true;
+                throw new IllegalArgumentException("Player already exists: " + name);
+            }
+        }
+        while (!roster.compareAndSet(current, current.join(name, change)));
+    }
+
+    /**
+     * Apply queued join and leave requests in the order they were made (game loop only).
+     */
+    private void processRosterChanges()
+    {
+        Roster current;
+        do
+        {
+            current = roster.get();
+            if (current.changes.isEmpty()) return;
+        }
+        while (!roster.compareAndSet(current, new Roster(current.names,
+            ImmutableList.<RosterChange> of())));
+
+        for (RosterChange change : current.changes)
+        {
+            if (change.player != null)
+            {
+                setupPlayer(change.player, conf.DEFAULT_JOINING_IMMORTALITY_FRAMES);
+            }
+            else
+            {
+                removePlayer(change.name);
+            }
+            dispatchPlayerStatuses = true;
+        }
+    }
+
+    /**
+     * Remove a player from the game (game loop only). Bombs already placed by the player
+     * remain on the board.
+     */
+    private void removePlayer(String name)
+    {
+        for (int i = 0; i < playerInfos.size(); i++)
+        {
+            final PlayerInfo pi = playerInfos.get(i);
+            if (StringUtils.equals(pi.getName(), name))
+            {
+                playerInfos.remove(i);
+                if (pi.player.controller instanceof IGameEventListener)
+                {
+                    removeListener((IGameEventListener) pi.player.controller);
+                    controllerListeners.remove(pi.player.controller);
+                }
+
+                /*
+                 * The controller won't see the end of the game, stop its thread now.
+                 */
+                if (pi.player.controller instanceof ThinkTimeController)
+                {
+                    ((ThinkTimeController) pi.player.controller).close();
+                }
+                return;
             }
         }
-        return false;
     }
 
     /**
@@ -208,6 +453,7 @@ public final class Game implements IGameEventListenerHolder
     public GameResult run(Mode mode)
     {
         this.mode = mode;
+        this.started = true;
 
         int frame = 0;
         GameResult result = null;
@@ -239,57 +485,78 @@ public final class Game implements IGameEventListenerHolder
                 break;
             }
 
+            firePreFrameEvent(frame);
+
             /*
-             * No player-related data structure fiddling while within frame processing.
+             * Players join and leave only at frame boundaries.
              */
-            firePreFrameEvent(frame);
-            synchronized (this)
-            {
-                this.currentFrame = frame;
+            processRosterChanges();
 
-                processBoardCells();
-                processPlayers(frame);
-                processBonuses(frame);
-                processCrates(frame);
+            this.currentFrame = frame;
 
-                events.add(new GameStateEvent(board.cells, playerInfos));
-                
-                /*
-                 * New highlight is detected, add this event to events stream.
-                 */
-                if (conf.ENABLE_HIGHLIGHTS_DATA && highlightDetector.isHighlightDetected()) {
-                    events.add(new HighlightEvent(highlightDetector.getHighlightFrameRange())); 
-                }
+            phaseStarted(frame, IFramePhaseListener.Phase.BOARD_CELLS);
+            processBoardCells();
+            phaseFinished(frame, IFramePhaseListener.Phase.BOARD_CELLS);
 
-                /*
-                 * Check if player status should be dispatched. Dispatch
-                 * every 50 frames or so anyway, so that clients that have
-                 * just joined the game have their status updated. 
-                 */
-                if (dispatchPlayerStatuses || (frame % 50) == 0)
-                {
-                    events.add(new GameStatusEvent(getPlayerStats(), getTeamStats()));
-                }
-                
-                /*
-                 * Fire frame events.
-                 */
+            phaseStarted(frame, IFramePhaseListener.Phase.PLAYERS);
+            processPlayers(frame);
+            phaseFinished(frame, IFramePhaseListener.Phase.PLAYERS);
 
-                fireFrameEvent(frame);
-                frame++;
+            phaseStarted(frame, IFramePhaseListener.Phase.BONUSES);
+            processBonuses(frame);
+            phaseFinished(frame, IFramePhaseListener.Phase.BONUSES);
 
-                /*
-                 * The game may be finished, but there are still
-                 * lingering frames we must replay.
-                 */
-                if (result == null)
-                {
-                    result = checkGameOver();
-                }
+            phaseStarted(frame, IFramePhaseListener.Phase.CRATES);
+            processCrates(frame);
+            phaseFinished(frame, IFramePhaseListener.Phase.CRATES);
+
+            phaseStarted(frame, IFramePhaseListener.Phase.EVENTS);
+            events.add(new GameStateEvent(board.cells, playerInfos));
 
-                events.clear();
-                this.dispatchPlayerStatuses = false;
+            if (threatTracker != null)
+            {
+                threatMap = threatTracker.compute(board, frame);
+                events.add(new ThreatMapEvent(threatMap));
             }
+            
+            /*
+             * New highlight is detected, add this event to events stream.
+             */
+            if (conf.ENABLE_HIGHLIGHTS_DATA && highlightDetector.isHighlightDetected()) {
+                events.add(new HighlightEvent(highlightDetector.getHighlightFrameRange())); 
+            }
+
+            /*
+             * Check if player status should be dispatched. Dispatch
+             * every 50 frames or so anyway, so that clients that have
+             * just joined the game have their status updated. 
+             */
+            if (dispatchPlayerStatuses || (frame % 50) == 0)
+            {
+                events.add(new GameStatusEvent(getPlayerStats(), getTeamStats()));
+            }
+            phaseFinished(frame, IFramePhaseListener.Phase.EVENTS);
+
+            /*
+             * Fire frame events.
+             */
+            phaseStarted(frame, IFramePhaseListener.Phase.LISTENERS);
+            fireFrameEvent(frame);
+            phaseFinished(frame, IFramePhaseListener.Phase.LISTENERS);
+            frame++;
+
+            /*
+             * The game may be finished, but there are still
+             * lingering frames we must replay.
+             */
+            if (result == null)
+            {
+                result = checkGameOver();
+            }
+
+            events.clear();
+            this.dispatchPlayerStatuses = false;
+
             firePostFrameEvent(frame);
 
         } while (result == null || lingerFrames-- > 0);
@@ -325,48 +592,75 @@ public final class Game implements IGameEventListenerHolder
              * by placing bonuses in equal or at least maximum distance from all
              * players, but it did not work that well in practice (I tried).
              */
-            final HashSet<Point> banned = Sets.newHashSet();
-            for (PlayerInfo pi : playerInfos)
+            final boolean [] banned = clearBannedCells();
+            for (int i = 0; i < playerInfos.size(); i++)
             {
-                if (!pi.isDead()) banned.add(boardData.pixelToGrid(pi.location));
+                final PlayerInfo pi = playerInfos.get(i);
+                if (!pi.isDead()) banned[gridX(pi) + gridY(pi) * board.width] = true;
             }
 
-            final Point p = randomEmptyCell(banned);
-            if (p != null)
+            final int cell = randomEmptyCell(banned);
+            if (cell >= 0)
             {
 				final CellType bonus = conf.randomizer.randomBonus();
-				board.cellAt(p, Cell.getInstance(bonus));
+				board.cellAt(cell % board.width, cell / board.width, Cell.getInstance(bonus));
             }
         }
     }
 
-    /*
-     * TODO: javadoc.
+    /**
+     * Return a cleared, reusable array of banned cells for
+     * {@link #randomEmptyCell(boolean[])}.
      */
-    private Point randomEmptyCell(Collection<Point> banned) {
-        final ArrayList<Point> positions = 
-            Lists.newArrayListWithExpectedSize(board.width * board.height / 2);
+    private boolean [] clearBannedCells()
+    {
+        if (bannedCells == null) bannedCells = new boolean [board.width * board.height];
+        Arrays.fill(bannedCells, false);
+        return bannedCells;
+    }
 
+    /**
+     * Pick a random empty cell, excluding banned cells. Cells are indexed as
+     * <code>x + y * board.width</code>. Returns the index of the picked cell or
+     * <code>-1</code> if there are no candidates.
+     */
+    private int randomEmptyCell(boolean [] banned)
+    {
+        int size = 0;
         for (int y = board.height - 1; y >= 0; y--)
         {
             for (int x = board.width - 1; x >= 0; x--)
             {
-                final Point p = new Point(x, y);
-                if (!banned.contains(p) 
-                    && board.cellAt(p).type == CellType.CELL_EMPTY)
-                {
-                    positions.add(p);
-                }
+                if (isCandidateCell(banned, x, y)) size++;
             }
         }
 
-        final int size = positions.size(); 
-        if (size > 0)
+        if (size == 0) return -1;
+
+        /*
+         * Pick the n-th candidate in the same order they were counted.
+         */
+        int n = random.nextInt(size);
+        for (int y = board.height - 1; y >= 0; y--)
         {
-            return positions.get(random.nextInt(size));
+            for (int x = board.width - 1; x >= 0; x--)
+            {
+                if (isCandidateCell(banned, x, y) && n-- == 0)
+                {
+                    return x + y * board.width;
+                }
+            }
         }
 
-        return null;
+        throw new RuntimeException(/* Unreachable. */);
+    }
+
+    /*
+     * 
+     */
+    private boolean isCandidateCell(boolean [] banned, int x, int y)
+    {
+        return !banned[x + y * board.width] && board.cellAt(x, y).type == CellType.CELL_EMPTY;
     }
 
     /**
@@ -396,10 +690,17 @@ public final class Game implements IGameEventListenerHolder
                 banned.addAll(BoardUtilities.findBlockingLocations(board, point));
             }
 
-            final Point p = randomEmptyCell(banned);
-            if (p != null)
+            final boolean [] bannedCells = clearBannedCells();
+            for (Point point : banned)
+            {
+                bannedCells[point.x + point.y * board.width] = true;
+            }
+
+            final int cell = randomEmptyCell(bannedCells);
+            if (cell >= 0)
             {
-                board.cellAt(p, Cell.getInstance(CellType.CELL_CRATE));
+                board.cellAt(cell % board.width, cell / board.width, 
+                    Cell.getInstance(CellType.CELL_CRATE));
             }
         }
     }
@@ -415,9 +716,9 @@ public final class Game implements IGameEventListenerHolder
         }
 
         int alive = 0;
-        for (PlayerInfo pi : playerInfos)
+        for (int i = 0; i < playerInfos.size(); i++)
         {
-            if (!pi.isStoneDead()) alive++;
+            if (!playerInfos.get(i).isStoneDead()) alive++;
         }
 
         /*
@@ -536,23 +837,159 @@ public final class Game implements IGameEventListenerHolder
         this.interrupted = true;
     }
 
+    /**
+     * @return Return the last fully rendered frame number. Safe to call from any thread.
+     */
+    public int getCurrentFrame()
+    {
+        return currentFrame;
+    }
+
+    /**
+     * Change the frame rate of a running game. Takes effect from the next frame. Safe to
+     * call from any thread.
+     * 
+     * @see GameTimer#setFrameRate(double)
+     */
+    public void setFrameRate(double framesPerSecond)
+    {
+        assert framesPerSecond >= 0;
+
+        timer.setFrameRate(framesPerSecond);
+    }
+
+    /**
+     * @return Return the current frame rate of the game.
+     */
+    public double getFrameRate()
+    {
+        return timer.getFrameRate();
+    }
+
+    /**
+     * @return Return bomb threats computed after the last frame or <code>null</code> if
+     *         {@link GameConfiguration#ENABLE_THREAT_MAP} is not set or the game has not
+     *         started yet. Safe to call from any thread.
+     */
+    public ThreatMap getThreatMap()
+    {
+        return threatMap;
+    }
+
+    /**
+     * Set a listener of frame processing phases (profiling). Must be called before the game
+     * is started.
+     */
+    void setPhaseListener(IFramePhaseListener listener)
+    {
+        this.phaseListener = listener;
+    }
+
+    /**
+     * Call {@link IGameEventListener#onFrame(int, List)} of player controllers in parallel
+     * on the given pool (or on the game thread if <code>null</code>). Other listeners are
+     * still called on the game thread, while controllers are running. The game waits for
+     * all listeners before it continues with the next frame, so controllers see the state
+     * of the board and players of the frame they are called for. Controllers must not
+     * share mutable state with each other or with other listeners. The pool is not shut
+     * down by the game. Must be called before the game is started.
+     */
+    public void setControllerPool(ForkJoinPool pool)
+    {
+        if (started)
+        {
+            throw new IllegalStateException("The game is running.");
+        }
+        this.controllerPool = pool;
+    }
+
+    /*
+     * 
+     */
+    private void phaseStarted(int frame, IFramePhaseListener.Phase phase)
+    {
+        if (phaseListener != null) phaseListener.phaseStarted(frame, phase);
+    }
+
+    /*
+     * 
+     */
+    private void phaseFinished(int frame, IFramePhaseListener.Phase phase)
+    {
+        if (phaseListener != null) phaseListener.phaseFinished(frame, phase);
+    }
+
     /**
      * Dispatch frame events to listeners.
      */
     private void fireFrameEvent(int frame)
     {
-        final List<GameEvent> e = Collections.unmodifiableList(events);
-        for (IGameEventListener gl : listeners)
+        final List<GameEvent> e = eventsView;
+        int tasks = 0;
+        for (int i = 0; i < listeners.size(); i++)
         {
-            try
+            final IGameEventListener gl = listeners.get(i);
+            if (controllerPool != null && controllerListeners.contains(gl))
             {
-                gl.onFrame(frame, e);
+                if (tasks == listenerTasks.size())
+                {
+                    listenerTasks.add(new ListenerTask());
+                }
+                final ListenerTask task = listenerTasks.get(tasks++);
+                task.reinitialize();
+                task.listener = gl;
+                task.frame = frame;
+                task.events = e;
+                controllerPool.execute(task);
             }
-            catch (Throwable t)
+            else
             {
-                logger.error("On-frame exception from listener: " + gl.getClass(), t);
+                fireFrameEvent(gl, frame, e);
             }
         }
+
+        /*
+         * Wait for controllers running in parallel.
+         */
+        for (int i = 0; i < tasks; i++)
+        {
+            final ListenerTask task = listenerTasks.get(i);
+            task.join();
+            task.listener = null;
+            task.events = null;
+        }
+    }
+
+    /**
+     * Dispatch frame events to a single listener.
+     */
+    private static void fireFrameEvent(IGameEventListener gl, int frame, List<GameEvent> e)
+    {
+        try
+        {
+            gl.onFrame(frame, e);
+        }
+        catch (Throwable t)
+        {
+            logger.error("On-frame exception from listener: " + gl.getClass(), t);
+        }
+    }
+
+    /**
+     * Dispatches frame events to a listener on {@link Game#controllerPool}.
+     */
+    @SuppressWarnings("serial")
+    private final static class ListenerTask extends RecursiveAction
+    {
+        IGameEventListener listener;
+        int frame;
+        List<GameEvent> events;
+
+        @Override
+        protected void compute()
+        {
+            fireFrameEvent(listener, frame, events);
+        }
     }
 
     /*
@@ -560,7 +997,7 @@ public final class Game implements IGameEventListenerHolder
      */
     private void firePostFrameEvent(int frame)
     {
-        for (IFrameListener l : frameListeners) l.postFrame(frame);
+        for (int i = 0; i < frameListeners.size(); i++) frameListeners.get(i).postFrame(frame);
     }
 
     /*
@@ -568,7 +1005,7 @@ public final class Game implements IGameEventListenerHolder
      */
     private void firePreFrameEvent(final int frame)
     {
-        for (IFrameListener l : frameListeners) l.preFrame(frame);
+        for (int i = 0; i < frameListeners.size(); i++) frameListeners.get(i).preFrame(frame);
     }
     
     /**
@@ -577,14 +1014,15 @@ public final class Game implements IGameEventListenerHolder
      */
     private void processPlayers(int frame)
     {
-        final ArrayList<PlayerInfo> killed = Lists.newArrayList();
+        int killed = 0;
 
         /*
          * Process controller direction signals, drop bombs, check collisions
          * and bring the dead back to life.  
          */
-        for (PlayerInfo pi : playerInfos)
+        for (int i = 0; i < playerInfos.size(); i++)
         {
+            final PlayerInfo pi = playerInfos.get(i);
             final IPlayerController c = pi.player.controller;
 
             final IPlayerController.Direction originalSignal = c.getCurrent();
@@ -630,7 +1068,7 @@ public final class Game implements IGameEventListenerHolder
             /*
              * check collisions against bombs and other active cells.
              */
-            checkCollisions(frame, killed, pi);
+            if (checkCollisions(frame, pi)) killed++;
             
             /*
              * execute bonuses that player doesn't have influence on.
@@ -641,9 +1079,9 @@ public final class Game implements IGameEventListenerHolder
         /*
          * Add sound effect to the queue, if any.
          */
-        if (killed.size() > 0)
+        if (killed > 0)
         {
-            events.add(new SoundEffectEvent(SoundEffect.DYING, killed.size()));
+            events.add(new SoundEffectEvent(SoundEffect.DYING, killed));
         }
 
         if (isDeathMatch())
@@ -651,8 +1089,9 @@ public final class Game implements IGameEventListenerHolder
             /*
              * Bring the dead back to life, if their time has come.
              */
-            for (PlayerInfo pi : playerInfos)
+            for (int i = 0; i < playerInfos.size(); i++)
             {
+                final PlayerInfo pi = playerInfos.get(i);
                 if (pi.isDead() && pi.shouldResurrect())
                 {
                     pi.location.setLocation(getRandomLocation());
@@ -667,27 +1106,29 @@ public final class Game implements IGameEventListenerHolder
 
     /**
      * Check collisions against bombs and other active cells.
+     * 
+     * @return Returns <code>true</code> if the player has been killed.
      */
-    private void checkCollisions(int frame, List<PlayerInfo> kills, PlayerInfo pi)
+    private boolean checkCollisions(int frame, PlayerInfo pi)
     {
         /*
          * Immortals have privileges, but cannot collect bonuses.
          */
-        if (pi.isImmortal()) return;
+        if (pi.isImmortal()) return false;
 
         /*
          * Check collisions against grid cells. We only care about the cell directly 
          * under the player.
          */
-        final Point xy = boardData.pixelToGrid(pi.location);
-        final Cell c = board.cellAt(xy);
+        final Cell c = board.cellAt(gridX(pi), gridY(pi));
+        boolean killed = false;
         
         // For whom the bell tolls...
         if (c.type.isLethal())
         {
             logger.debug("Killed: " + pi.getName());
             pi.kill();
-            kills.add(pi);
+            killed = true;
             dispatchPlayerStatuses = true;
 
             /*
@@ -696,8 +1137,9 @@ public final class Game implements IGameEventListenerHolder
             if (c.type.isExplosion())
             {
                 final ExplosionCell e = (ExplosionCell) c;
-                for (PlayerInfo sniper : e.flamesBy)
+                for (int i = 0; i < e.flamesBy.size(); i++)
                 {
+                    final PlayerInfo sniper = e.flamesBy.get(i);
                     // No points for killing yourself.
                     logger.debug(sniper.getName() + " killed " + pi.getName());
                     if (pi != sniper)
@@ -712,6 +1154,7 @@ public final class Game implements IGameEventListenerHolder
          * Process bonuses.
          */
 		processCollectedBonus(frame, pi, c.type);
+		return killed;
     }
     
     /**
@@ -722,8 +1165,6 @@ public final class Game implements IGameEventListenerHolder
      */    
     private void processCollectedBonus(int frame, PlayerInfo pi, CellType ct)
     {
-        final Point xy = boardData.pixelToGrid(pi.location);
-        
     	boolean bonusCollected = false;
         if (ct == CellType.CELL_BONUS_BOMB)
         {
@@ -781,7 +1222,7 @@ public final class Game implements IGameEventListenerHolder
 
             pi.speedMultiplier = ct == CellType.CELL_BONUS_SPEED_UP ?
                 conf.SPEED_UP_MULTIPLIER	: conf.SLOW_DOWN_MULTIPLIER;
-            pi.speed = new Point(
+            pi.speed.setLocation(
                 (int) (pi.speedMultiplier * Constants.DEFAULT_PLAYER_SPEED),
                 (int) (pi.speedMultiplier * Constants.DEFAULT_PLAYER_SPEED));
             bonusCollected = true;
@@ -826,7 +1267,7 @@ public final class Game implements IGameEventListenerHolder
         if (bonusCollected)
         {
             dispatchPlayerStatuses = true;
-            board.cellAt(xy, Cell.getInstance(CellType.CELL_EMPTY));
+            board.cellAt(gridX(pi), gridY(pi), Cell.getInstance(CellType.CELL_EMPTY));
             events.add(new SoundEffectEvent(SoundEffect.BONUS, 1));
         }    	
     }
@@ -850,15 +1291,14 @@ public final class Game implements IGameEventListenerHolder
         if ((pi.speedEndsAtFrame <= frame) && (pi.speedMultiplier != 1.0f))
         {
             pi.speedMultiplier = 1.0f;
-            pi.speed = new Point((int) (pi.speedMultiplier * Constants.DEFAULT_PLAYER_SPEED),
+            pi.speed.setLocation((int) (pi.speedMultiplier * Constants.DEFAULT_PLAYER_SPEED),
                 (int) (pi.speedMultiplier * Constants.DEFAULT_PLAYER_SPEED));
         }
 
         if ((pi.crateWalkingEndsAtFrame < frame) && (pi.canWalkCrates))
         {
         	pi.canWalkCrates = false;
-        	final Point xy = boardData.pixelToGrid(pi.location);
-        	if (!canWalkOn(pi, xy))
+        	if (!canWalkOn(pi, gridX(pi), gridY(pi)))
         	{
         		pi.kill();
         		events.add(new SoundEffectEvent(SoundEffect.DYING, 1));
@@ -869,8 +1309,7 @@ public final class Game implements IGameEventListenerHolder
         if ((pi.bombWalkingEndsAtFrame < frame) && (pi.canWalkBombs))
         {
             pi.canWalkBombs = false;
-            final Point xy = boardData.pixelToGrid(pi.location);
-            if (!canWalkOn(pi, xy))
+            if (!canWalkOn(pi, gridX(pi), gridY(pi)))
             {
                 pi.kill();
                 events.add(new SoundEffectEvent(SoundEffect.DYING, 1));
@@ -885,9 +1324,10 @@ public final class Game implements IGameEventListenerHolder
      */
     private void dropBombAttempt(int frame, PlayerInfo pi)
     {
-        final Point xy = boardData.pixelToGrid(pi.location);
+        final int x = gridX(pi);
+        final int y = gridY(pi);
 
-        final boolean canPlaceBomb = board.cellAt(xy).type == CellType.CELL_EMPTY;
+        final boolean canPlaceBomb = board.cellAt(x, y).type == CellType.CELL_EMPTY;
         final boolean hasBombs = pi.bombCount > 0;
         final boolean dropDelay = (pi.lastBombFrame + Constants.BOMB_DROP_DELAY > frame);
         final boolean noBombs = (pi.noBombsEndsAtFrame > frame);
@@ -901,7 +1341,7 @@ public final class Game implements IGameEventListenerHolder
             bomb.range = pi.bombRange;
             bomb.fuseCounter = conf.DEFAULT_FUSE_FRAMES;
             bomb.player = pi;
-            board.cellAt(xy, bomb);
+            board.cellAt(x, y, bomb);
 
             if (pi.isAhmed) {
                 bomb.fuseCounter = 1;
@@ -921,32 +1361,32 @@ public final class Game implements IGameEventListenerHolder
      */
     private void movePlayer(PlayerInfo pi, Direction signal)
     {
-        final Point xy = boardData.pixelToGrid(pi.location);
-        final Point txy;
+        final int x = gridX(pi);
+        final int y = gridY(pi);
+        final int tx, ty;
 
         switch (signal)
         {
             case LEFT:
-                txy = new Point(xy.x - 1, xy.y);
+                tx = x - 1; ty = y;
                 break;
             case RIGHT:
-                txy = new Point(xy.x + 1, xy.y);
+                tx = x + 1; ty = y;
                 break;
             case UP:
-                txy = new Point(xy.x, xy.y - 1);
+                tx = x; ty = y - 1;
                 break;
             case DOWN:
-                txy = new Point(xy.x, xy.y + 1);
+                tx = x; ty = y + 1;
                 break;
             default:
                 throw new RuntimeException(/* Unreachable. */);
         }
 
-        final Point p = boardData.gridToPixel(txy);
-
-        // Relative distance between the target cell and current position.
-        final int rx = p.x - pi.location.x;
-        final int ry = p.y - pi.location.y;
+        // Relative distance between the target cell's centerpoint and current position.
+        final int cellSize = boardData.cellSize;
+        final int rx = tx * cellSize + cellSize / 2 - pi.location.x;
+        final int ry = ty * cellSize + cellSize / 2 - pi.location.y;
 
         // Steps towards the target.
         int dx = (rx < 0 ? -1 : 1) * min(pi.speed.x, abs(rx));
@@ -954,35 +1394,36 @@ public final class Game implements IGameEventListenerHolder
 
         if (max(abs(rx), abs(ry)) <= boardData.cellSize)
         {
-            if (!canWalkOn(pi, txy))
+            if (!canWalkOn(pi, tx, ty))
             {
                 /*
                  * We try to perform 'easing', that is moving
                  * the player towards the cell from which he or she will
                  * be able to move further.
                  */
-                final Point offset = boardData.pixelToGridOffset(pi.location); 
+                final int offsetX = pi.location.x % cellSize;
+                final int offsetY = pi.location.y % cellSize;
 
                 final boolean easingApplied;
                 switch (signal)
                 {
                     case LEFT:
-                        easingApplied = ease(pi, xy, offset.y, 
+                        easingApplied = ease(pi, x, y, offsetY, 
                             0, 1, -1, 1, Direction.DOWN, 0, -1, -1, -1, Direction.UP);
                         break;
 
                     case RIGHT:
-                        easingApplied = ease(pi, xy, offset.y, 
+                        easingApplied = ease(pi, x, y, offsetY, 
                             0, 1, 1, 1, Direction.DOWN, 0, -1, 1, -1, Direction.UP);
                         break;
 
                     case DOWN:
-                        easingApplied = ease(pi, xy, offset.x, 
+                        easingApplied = ease(pi, x, y, offsetX, 
                             1, 0, 1, 1, Direction.RIGHT, -1, 0, -1, 1, Direction.LEFT);
                         break;
 
                     case UP:
-                        easingApplied = ease(pi, xy, offset.x, 
+                        easingApplied = ease(pi, x, y, offsetX, 
                             1, 0, 1, -1, Direction.RIGHT, -1, 0, -1, -1, Direction.LEFT);
                         break;
 
@@ -1010,23 +1451,23 @@ public final class Game implements IGameEventListenerHolder
      * so it may be vague a bit.
      */
     private boolean ease(
-        PlayerInfo pi, Point xy, int o,
+        PlayerInfo pi, int x, int y, int o,
         int x1, int y1, int x2, int y2, Direction d1,
         int x3, int y3, int x4, int y4, Direction d2)
     {
         final int easeMargin = boardData.cellSize / 3;
 
         if (o > boardData.cellSize - easeMargin
-            && canWalkOn(pi, new Point(xy.x + x1, xy.y + y1)) 
-            && canWalkOn(pi, new Point(xy.x + x2, xy.y + y2)))
+            && canWalkOn(pi, x + x1, y + y1) 
+            && canWalkOn(pi, x + x2, y + y2))
         {
             movePlayer(pi, d1);
             return true;
         }
 
         if (o < easeMargin
-            && canWalkOn(pi, new Point(xy.x + x3, xy.y + y3)) 
-            && canWalkOn(pi, new Point(xy.x + x4, xy.y + y4)))
+            && canWalkOn(pi, x + x3, y + y3) 
+            && canWalkOn(pi, x + x4, y + y4))
         {
             movePlayer(pi, d2);
             return true;
@@ -1039,18 +1480,37 @@ public final class Game implements IGameEventListenerHolder
      * Returns <code>true</code> if a player can walk on the grid's
      * given coordinates.
      */
-    private boolean canWalkOn(PlayerInfo pi, Point txy)
+    private boolean canWalkOn(PlayerInfo pi, int x, int y)
     {
         /*
          * Players in immortality mode can walk over bombs, but not anything else.
          */
-        CellType t = board.cellAt(txy).type;
+        CellType t = board.cellAt(x, y).type;
         return t.isWalkable() 
         || (pi.isImmortal() && t == CellType.CELL_BOMB) 
         || (pi.canWalkCrates && ((t == CellType.CELL_CRATE) ||(t == CellType.CELL_CRATE_OUT)))
         || (pi.canWalkBombs && t == CellType.CELL_BOMB);
     }
 
+    /**
+     * Grid column of the cell under the player (same as
+     * {@link BoardInfo#pixelToGrid(Point)}, without allocation).
+     */
+    private int gridX(PlayerInfo pi)
+    {
+        return pi.location.x / boardData.cellSize;
+    }
+
+    /**
+     * Grid row of the cell under the player.
+     * 
+     * @see #gridX(PlayerInfo)
+     */
+    private int gridY(PlayerInfo pi)
+    {
+        return pi.location.y / boardData.cellSize;
+    }
+
     /**
      * Add a player to the game.
      */
@@ -1068,28 +1528,44 @@ public final class Game implements IGameEventListenerHolder
         if (p.controller instanceof IGameEventListener)
         {
             addListener((IGameEventListener) p.controller);
+            controllerListeners.add((IGameEventListener) p.controller);
         }
 
-        final int playerIndex = playerInfos.size();
-        final ISprite.Type spriteType = getSpriteType(p, playerIndex);
+        final int slot = getFreeSlot();
+        final ISprite.Type spriteType = getSpriteType(p, slot);
 
-        final PlayerInfo pi = new PlayerInfo(conf, p, initialLives, spriteType, currentFrame);
+        final PlayerInfo pi = new PlayerInfo(conf, p, slot, initialLives, spriteType, currentFrame);
         pi.makeImmortal(immortalityCount);
-        pi.location.setLocation(getDefaultLocation(playerIndex));
+        pi.location.setLocation(getDefaultLocation(slot));
         playerInfos.add(pi);
 
         return pi;
     }
 
+    /**
+     * Return the lowest slot not held by any player in the game. Slots of players who
+     * left are reused, so a joining player does not take the sprite and starting position
+     * of a player who is still in the game (as long as there are enough of them).
+     */
+    private int getFreeSlot()
+    {
+        final BitSet taken = new BitSet();
+        for (PlayerInfo pi : playerInfos)
+        {
+            taken.set(pi.slot);
+        }
+        return taken.nextClearBit(0);
+    }
+
     /**
      * Return the sprite type (color and shape) for a given player. 
      */
-    private Type getSpriteType(Player p, int playerIndex)
+    private Type getSpriteType(Player p, int slot)
     {
         final ISprite.Type [] playerSprites = ISprite.Type.getPlayerSprites();
         if (StringUtils.isEmpty(p.team))
         {
-            return playerSprites[playerIndex % playerSprites.length]; 
+            return playerSprites[slot % playerSprites.length]; 
         }
         else
         {
@@ -1155,8 +1631,8 @@ public final class Game implements IGameEventListenerHolder
         /*
          * Detect and propagate explosions.
          */
-        final ArrayList<Point> crates = Lists.newArrayList();
-        final ArrayList<ExplosionMetadata> explosionMetadata = Lists.newArrayList();
+        crates.clear();
+        explosionMetadata.clear();
         for (int x = board.width - 1; x >= 0; x--)
         {
             for (int y = board.height - 1; y >= 0; y--)
@@ -1181,23 +1657,23 @@ public final class Game implements IGameEventListenerHolder
         if (explosionMetadata.size() > 0)
         {
             events.add(new SoundEffectEvent(SoundEffect.BOMB, explosionMetadata.size()));
-            events.add(new ExplosionEvent(explosionMetadata));
+            events.add(new ExplosionEvent(Lists.newArrayList(explosionMetadata)));
         }
 
         /*
          * Remove the crates that have been bombed out.
          */
-        for (Point p : crates)
+        for (int i = 0; i < crates.size(); i++)
         {
-            board.cellAt(p, Cell.getInstance(CellType.CELL_CRATE_OUT));
+            board.cellAt(crates.get(i), Cell.getInstance(CellType.CELL_CRATE_OUT));
         }
 
         /*
          * Update player bomb counters.
          */
-        for (ExplosionMetadata e : explosionMetadata)
+        for (int i = 0; i < explosionMetadata.size(); i++)
         {
-            final BombCell bomb = e.getBombCell();
+            final BombCell bomb = explosionMetadata.get(i).getBombCell();
             if (bomb.player != null)
             {
                 bomb.player.bombCount++;
@@ -205,6 +205,12 @@ public final class GameConfiguration implements Serializable, Cloneable
      * {@link IHighlightDetector} 
      */
     public boolean ENABLE_HIGHLIGHTS_DATA = true;
+
+    /**
+     * If enabled, the game computes bomb threats after each frame and dispatches them in
+     * a {@link ThreatMapEvent}. 
+     */
+    public boolean ENABLE_THREAT_MAP = false;
     
     /**
      * Bonus randomizer used for customizing bonuses' weights.
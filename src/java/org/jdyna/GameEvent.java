@@ -76,6 +76,11 @@ public abstract class GameEvent implements Serializable
          * Highlight data (detected during the game).
          */
         HIGHLIGHT_DATA,
+
+        /**
+         * Bomb threats on the board (optional, see {@link ThreatMap}).
+         */
+        THREAT_MAP,
     }
 
     /**
@@ -129,6 +129,42 @@ public final class GameStateEvent extends GameEvent
         /*
          * Write players and their positions.
          */
+        stream.writeObject(copyPlayers());
+    }
+
+    /**
+     * Return a copy of this event detached from the game's live board and players, so
+     * that it can be used on another thread while the game goes on. Only what is
+     * serialized is copied (cell types and counters, players' data), just like in
+     * {@link #writeObject(java.io.ObjectOutputStream)}.
+     */
+    public GameStateEvent copy()
+    {
+        final Cell [][] copy = new Cell [cells.length][];
+        for (int c = 0; c < cells.length; c++)
+        {
+            copy[c] = new Cell [cells[c].length];
+            for (int r = 0; r < cells[c].length; r++)
+            {
+                final Cell cell = cells[c][r];
+                final Cell cellCopy = Cell.getInstance(cell.type);
+                if (cellCopy != cell)
+                {
+                    // Shared instances (empty cells, walls) are never copied.
+                    cellCopy.counter = cell.counter;
+                }
+                copy[c][r] = cellCopy;
+            }
+        }
+
+        return new GameStateEvent(copy, Arrays.asList(copyPlayers()));
+    }
+
+    /**
+     * Copy the players' dynamic data.
+     */
+    private IPlayerSprite [] copyPlayers()
+    {
         final IPlayerSprite [] structs = new IPlayerSprite [players.size()];
         int index = 0;
         for (IPlayerSprite player : players)
@@ -158,6 +194,6 @@ public final class GameStateEvent extends GameEvent
             structs[index] = p;
             index++;
         }
-        stream.writeObject(structs);
+        return structs;
     }
 }
@@ -6,7 +6,10 @@ package org.jdyna;
 public final class GameTimer
 {
     /** Single frame delay, in milliseconds. */
-    private int framePeriod;
+    private volatile int framePeriod;
+
+    /** The frame rate requested in {@link #setFrameRate(double)}. */
+    private volatile double framesPerSecond;
 
     /** Timestamp of the last frame's start. */
     private long lastFrameTimestamp;
@@ -25,6 +28,14 @@ public final class GameTimer
      */
     public void waitForFrame() throws InterruptedException
     {
+        final int framePeriod = this.framePeriod;
+        if (framePeriod == 0)
+        {
+            // No delays, restart timing if the frame rate is changed later on.
+            lastFrameTimestamp = 0;
+            return;
+        }
+
         if (lastFrameTimestamp > 0)
         {
             final long nextFrameStart = lastFrameTimestamp + framePeriod;
@@ -47,6 +58,15 @@ public final class GameTimer
      */
     public void setFrameRate(double framesPerSecond)
     {
+        this.framesPerSecond = framesPerSecond;
         framePeriod = (framesPerSecond == 0 ? 0 : (int) (1000 / framesPerSecond));
     }
+
+    /**
+     * @return Return the current frame rate (zero means no delays).
+     */
+    public double getFrameRate()
+    {
+        return framesPerSecond;
+    }
 }
@@ -0,0 +1,41 @@
+package org.jdyna;
+
+/**
+ * A low-level hook into the phases of processing a single frame in {@link Game}, used by
+ * profiling and regression harnesses. Callbacks are invoked on the game thread, in pairs,
+ * around each {@link Phase} of every frame; keep them cheap.
+ * 
+ * @see Game#setPhaseListener(IFramePhaseListener)
+ */
+interface IFramePhaseListener
+{
+    /**
+     * Consecutive phases of a single frame, in the order of execution.
+     */
+    enum Phase
+    {
+        /** Animation counters, fuses and explosions. */
+        BOARD_CELLS,
+
+        /** Controller signals, movement, bombs, collisions and bonuses. */
+        PLAYERS,
+
+        /** Placing new bonuses on the board. */
+        BONUSES,
+
+        /** Placing new crates on the board. */
+        CRATES,
+
+        /** Creating the frame's state and status events. */
+        EVENTS,
+
+        /** Dispatching the frame's events to {@link IGameEventListener}s. */
+        LISTENERS
+    }
+
+    /** Invoked before a phase starts. */
+    void phaseStarted(int frame, Phase phase);
+
+    /** Invoked after a phase finished. */
+    void phaseFinished(int frame, Phase phase);
+}
@@ -0,0 +1,14 @@
+package org.jdyna;
+
+/**
+ * Implemented by player controllers which can cut their thinking short. When wrapped in a
+ * {@link ThinkTimeController}, such a controller receives the {@link ThinkDeadline} it
+ * should poll while thinking about a frame.
+ */
+public interface IThinkDeadlineAware
+{
+    /**
+     * Set the deadline object, called once, before any frame events are dispatched.
+     */
+    public void setThinkDeadline(ThinkDeadline deadline);
+}
@@ -17,6 +17,12 @@ final class PlayerInfo implements IPlayerSprite
     /* */
     public final ISprite.Type spriteType;
 
+    /**
+     * The player's slot in the game, held from joining until leaving. Determines the
+     * default sprite and the starting position.
+     */
+    final int slot;
+
     /**
      * Coordinates of this player (it's centerpoint). The rectangle actually taken by the
      * player and the position of the sprite is determined by the player's implementation.
@@ -167,11 +173,12 @@ final class PlayerInfo implements IPlayerSprite
     /*
      * 
      */
-    PlayerInfo(GameConfiguration conf, Player player, int lives, ISprite.Type spriteType, int joinedAtFrame)
+    PlayerInfo(GameConfiguration conf, Player player, int slot, int lives, ISprite.Type spriteType, int joinedAtFrame)
     {
         assert lives > 0 : "Number of lives must be > 0";
 
         this.player = player;
+        this.slot = slot;
         this.spriteType = spriteType;
         this.livesLeft = lives;
         this.joinedAtFrame = joinedAtFrame;
@@ -0,0 +1,119 @@
+package org.jdyna;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size window of the most recent <code>long</code> samples (durations, sizes).
+ * Samples are added by a single writer thread without allocation or locking; readers
+ * from other threads compute statistics on a copy of the window. Readers may observe a
+ * sample or two from an in-progress write, which is acceptable for monitoring purposes.
+ */
+public final class SampleWindow
+{
+    /** Circular buffer of samples. */
+    private final long [] samples;
+
+    /** Total number of samples ever added. */
+    private volatile long count;
+
+    /*
+     *
+     */
+    public SampleWindow(int size)
+    {
+        assert size > 0;
+        this.samples = new long [size];
+    }
+
+    /**
+     * Add a sample to the window, possibly overwriting the oldest one. Must be called from a
+     * single thread.
+     */
+    public void add(long value)
+    {
+        final long c = count;
+        samples[(int) (c % samples.length)] = value;
+        count = c + 1;
+    }
+
+    /**
+     * @return Return the total number of samples ever added to this window.
+     */
+    public long getCount()
+    {
+        return count;
+    }
+
+    /**
+     * @return Return the most recently added sample or zero if there are none.
+     */
+    public long getLast()
+    {
+        final long c = count;
+        if (c == 0) return 0;
+        return samples[(int) ((c - 1) % samples.length)];
+    }
+
+    /**
+     * Copy the most recent samples (at most <code>into.length</code>), oldest first.
+     * 
+     * @return Return the number of samples copied.
+     */
+    public int getRecent(long [] into)
+    {
+        final long c = count;
+        final int n = (int) Math.min(Math.min(c, samples.length), into.length);
+        for (int i = 0; i < n; i++)
+        {
+            into[i] = samples[(int) ((c - n + i) % samples.length)];
+        }
+        return n;
+    }
+
+    /**
+     * @return Return a sorted copy of the samples currently in the window.
+     */
+    public long [] getSorted()
+    {
+        final int size = (int) Math.min(count, samples.length);
+        final long [] copy = Arrays.copyOf(samples, size);
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    /**
+     * @return Return the given percentile (0-100) of samples in the window or zero if the
+     *         window is empty.
+     */
+    public long getPercentile(double percentile)
+    {
+        return percentile(getSorted(), percentile);
+    }
+
+    /**
+     * @return Return the arithmetic mean of samples in the window or zero if the window is
+     *         empty.
+     */
+    public double getMean()
+    {
+        final long [] sorted = getSorted();
+        if (sorted.length == 0) return 0;
+
+        double sum = 0;
+        for (long v : sorted) sum += v;
+        return sum / sorted.length;
+    }
+
+    /**
+     * Return the given percentile (0-100) of an array of sorted samples (nearest-rank
+     * method). Returns zero for an empty array.
+     */
+    public static long percentile(long [] sorted, double percentile)
+    {
+        assert percentile >= 0 && percentile <= 100;
+
+        if (sorted.length == 0) return 0;
+        final int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+}
@@ -0,0 +1,42 @@
+package org.jdyna;
+
+/**
+ * The end of the time a controller may spend thinking about the current frame, set by
+ * {@link ThinkTimeController} before each frame. Controllers poll it to cut their
+ * searches short and answer with the best decision found so far. Safe to poll from any
+ * thread (for example from helper threads of a controller).
+ */
+public final class ThinkDeadline
+{
+    /**
+     * The deadline, in {@link System#nanoTime()} units (far in the future until the first
+     * frame starts).
+     */
+    private volatile long deadline = System.nanoTime() + Long.MAX_VALUE / 2;
+
+    /**
+     * Start a new frame with the given budget.
+     */
+    void start(long now, long budgetNanos)
+    {
+        this.deadline = now + budgetNanos;
+    }
+
+    /**
+     * @return Return <code>true</code> if the time for thinking about the current frame
+     *         is over.
+     */
+    public boolean isExpired()
+    {
+        return getRemainingNanos() == 0;
+    }
+
+    /**
+     * @return Return the number of nanoseconds left until the deadline (zero if it has
+     *         passed).
+     */
+    public long getRemainingNanos()
+    {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+}
@@ -0,0 +1,463 @@
+package org.jdyna;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A wrapper around a player controller, which enforces a budget of think time per frame.
+ * Think time is the time the wrapped controller spends in
+ * {@link IGameEventListener#onFrame(int, List)} plus the time it takes to decide
+ * ({@link IPlayerController2#getState()} if implemented, otherwise
+ * {@link IPlayerController#getCurrent()} and {@link IPlayerController#dropsBomb()}).
+ * <p>
+ * The wrapped controller runs on its own thread. Frame events are handed over to it
+ * (with the game state detached from the game's live board and players) and the game
+ * waits for the decision only until the budget is used up. On overrun, the player keeps
+ * the last decision the controller took, without dropping a bomb again; the frame is not
+ * delayed. A late decision is used from the next frame on. If the controller falls more
+ * than a frame behind, game state events of the frames it missed are dropped (as in
+ * {@link org.jdyna.network.sockets.AsyncPlayerController}). Controllers which implement
+ * {@link IThinkDeadlineAware} get a {@link ThinkDeadline} to poll and cut their thinking
+ * short.
+ * <p>
+ * Think times of recent frames and the number of overruns are available for monitoring
+ * and are logged when the game is over.
+ * <p>
+ * The controller's thread ends with the game. If the player leaves earlier, call
+ * {@link #close()}.
+ */
+public final class ThinkTimeController implements IPlayerController, IPlayerController2,
+    IGameEventListener
+{
+    private final static Logger logger = LoggerFactory.getLogger(ThinkTimeController.class);
+
+    /**
+     * Default think time budget per frame (in milliseconds), a bit below the length of a
+     * frame at the default frame rate.
+     */
+    public final static int DEFAULT_BUDGET = 30;
+
+    /** Number of recent frames in {@link #getThinkTimes()}. */
+    public final static int STATISTICS_WINDOW = 1024;
+
+    /**
+     * Drop the following event types from frames the controller missed.
+     */
+    private final static EnumSet<GameEvent.Type> DROP_EVENT_TYPES = EnumSet.of(
+        GameEvent.Type.GAME_STATE, GameEvent.Type.THREAT_MAP);
+
+    /**
+     * A frame handed over to the controller's thread.
+     */
+    private final static class PendingFrame
+    {
+        final long sequence;
+        final int frame;
+        final GameEvent [] events;
+        final long start;
+
+        PendingFrame(long sequence, int frame, GameEvent [] events, long start)
+        {
+            this.sequence = sequence;
+            this.frame = frame;
+            this.events = events;
+            this.start = start;
+        }
+    }
+
+    private final IPlayerController delegate;
+    private final IPlayerController2 delegate2;
+    private final IGameEventListener delegateListener;
+
+    private final long budgetNanos;
+    private final ThinkDeadline deadline = new ThinkDeadline();
+
+    /** Think times (in nanoseconds) of recent frames, added by {@link #worker}. */
+    private final SampleWindow thinkTimes = new SampleWindow(STATISTICS_WINDOW);
+
+    /** The number of frames over budget. */
+    private volatile long overruns;
+
+    /**
+     * Monitor around {@link #pending}, {@link #submitted}, {@link #decided},
+     * {@link #decision}, {@link #lastState} and {@link #closed}.
+     */
+    private final Object monitor = new Object();
+
+    /** Frames not yet taken by {@link #worker}, oldest first. */
+    private final ArrayDeque<PendingFrame> pending = new ArrayDeque<PendingFrame>();
+
+    /** Sequence number of the last frame handed over. */
+    private long submitted;
+
+    /** Sequence number of the last frame the controller decided about. */
+    private long decided;
+
+    /** The controller's decision about frame {@link #decided}. */
+    private ControllerState decision;
+
+    /** The last decision taken by the controller, in time or not. */
+    private ControllerState lastState = ControllerState.DO_NOTHING;
+
+    /** Set by {@link #close()}. */
+    private boolean closed;
+
+    /**
+     * The answer to {@link #getState()} for the current frame (<code>null</code> means no
+     * change). Accessed by the game's thread only.
+     */
+    private ControllerState state;
+
+    /**
+     * The answer to {@link #getCurrent()} and {@link #dropsBomb()} for the current frame.
+     * Accessed by the game's thread only.
+     */
+    private ControllerState current = ControllerState.DO_NOTHING;
+
+    /**
+     * Runs the wrapped controller.
+     */
+    private final Thread worker;
+
+    /**
+     * @param controller The wrapped controller, may also implement
+     *            {@link IPlayerController2}, {@link IGameEventListener} and
+     *            {@link IThinkDeadlineAware}.
+     * @param budget Think time budget per frame.
+     */
+    public ThinkTimeController(IPlayerController controller, long budget, TimeUnit unit)
+    {
+        if (budget <= 0)
+        {
+            throw new IllegalArgumentException("Positive budget required: " + budget);
+        }
+
+        this.delegate = controller;
+        this.delegate2 = (controller instanceof IPlayerController2
+            ? (IPlayerController2) controller : null);
+        this.delegateListener = (controller instanceof IGameEventListener
+            ? (IGameEventListener) controller : null);
+        this.budgetNanos = unit.toNanos(budget);
+
+        if (controller instanceof IThinkDeadlineAware)
+        {
+            ((IThinkDeadlineAware) controller).setThinkDeadline(deadline);
+        }
+
+        worker = new Thread()
+        {
+            public void run()
+            {
+                think();
+            }
+        };
+        worker.setDaemon(true);
+        worker.setName("ThinkTime-" + controller.getClass().getSimpleName());
+        worker.start();
+    }
+
+    /**
+     * Hand the frame over to the controller and wait for its decision until the budget
+     * is used up.
+     */
+    @Override
+    public void onFrame(int frame, List<? extends GameEvent> events)
+    {
+        final long start = System.nanoTime();
+        deadline.start(start, budgetNanos);
+
+        synchronized (monitor)
+        {
+            final long sequence = ++submitted;
+            pending.addLast(new PendingFrame(sequence, frame, detach(events), start));
+            monitor.notifyAll();
+
+            try
+            {
+                long remaining = budgetNanos;
+                while (decided < sequence && remaining > 0)
+                {
+                    TimeUnit.NANOSECONDS.timedWait(monitor, remaining);
+                    remaining = start + budgetNanos - System.nanoTime();
+                }
+            }
+            catch (InterruptedException e)
+            {
+                // The game is being stopped, don't wait any longer.
+                Thread.currentThread().interrupt();
+            }
+
+            if (decided >= sequence)
+            {
+                state = decision;
+                current = lastState;
+                return;
+            }
+
+            // Keep going as decided last, but don't drop another bomb.
+            state = current = new ControllerState(lastState.direction, false,
+                lastState.validFrames);
+        }
+
+        overruns++;
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("Over budget in frame " + frame + ": "
+                + delegate.getClass().getName());
+        }
+    }
+
+    /**
+     * Copy frame events, detaching game state from the game's live board and players.
+     */
+    private static GameEvent [] detach(List<? extends GameEvent> events)
+    {
+        final GameEvent [] copy = new GameEvent [events.size()];
+        for (int i = 0; i < copy.length; i++)
+        {
+            final GameEvent event = events.get(i);
+            copy[i] = (event.type == GameEvent.Type.GAME_STATE
+                ? ((GameStateEvent) event).copy() : event);
+        }
+        return copy;
+    }
+
+    /**
+     * Dispatch frames from {@link #pending} to the controller and publish its decisions,
+     * until the game is over or the controller is closed.
+     */
+    private void think()
+    {
+        final ArrayList<PendingFrame> frames = new ArrayList<PendingFrame>();
+        boolean gameOver = false;
+        while (!gameOver)
+        {
+            synchronized (monitor)
+            {
+                while (pending.isEmpty() && !closed)
+                {
+                    try
+                    {
+                        monitor.wait();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        return;
+                    }
+                }
+
+                if (closed)
+                {
+                    return;
+                }
+                frames.addAll(pending);
+                pending.clear();
+            }
+
+            for (int i = 0; i < frames.size(); i++)
+            {
+                gameOver |= isGameOver(frames.get(i));
+            }
+
+            ControllerState d = null;
+            try
+            {
+                for (int i = 0; i < frames.size(); i++)
+                {
+                    dispatch(frames.get(i), i < frames.size() - 1);
+                }
+                d = decide();
+            }
+            catch (Throwable t)
+            {
+                // If the controller fails, it has not decided anything.
+                logger.error("Controller failure: " + delegate.getClass().getName(), t);
+            }
+
+            final PendingFrame last = frames.get(frames.size() - 1);
+            frames.clear();
+            thinkTimes.add(System.nanoTime() - last.start);
+
+            synchronized (monitor)
+            {
+                decided = last.sequence;
+                decision = d;
+                if (d != null)
+                {
+                    lastState = d;
+                }
+                monitor.notifyAll();
+            }
+        }
+
+        if (logger.isInfoEnabled())
+        {
+            logger.info(toString());
+        }
+    }
+
+    /**
+     * Dispatch a frame to the controller.
+     * 
+     * @param missed If <code>true</code>, the decision about this frame is not needed
+     *            anymore and game state events are dropped.
+     */
+    private void dispatch(PendingFrame f, boolean missed)
+    {
+        final GameEvent [] events = f.events;
+        int to = 0;
+        for (int from = 0; from < events.length; from++)
+        {
+            final GameEvent event = events[from];
+            if (!missed || !DROP_EVENT_TYPES.contains(event.type))
+            {
+                events[to++] = event;
+            }
+        }
+
+        if (delegateListener != null && (to > 0 || !missed))
+        {
+            delegateListener.onFrame(f.frame, Arrays.asList(events).subList(0, to));
+        }
+    }
+
+    /**
+     * Stop the controller's thread, interrupting the wrapped controller if it is thinking.
+     * The controller gets no more frames, the player keeps going as decided last (but
+     * does not drop bombs). Call this if the player leaves the game before it is over.
+     */
+    public void close()
+    {
+        synchronized (monitor)
+        {
+            closed = true;
+            monitor.notifyAll();
+        }
+        worker.interrupt();
+    }
+
+    /*
+     * 
+     */
+    private static boolean isGameOver(PendingFrame f)
+    {
+        for (GameEvent event : f.events)
+        {
+            if (event.type == GameEvent.Type.GAME_OVER) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Take the wrapped controller's decision.
+     */
+    private ControllerState decide()
+    {
+        if (delegate2 != null)
+        {
+            return delegate2.getState();
+        }
+        return new ControllerState(delegate.getCurrent(), delegate.dropsBomb());
+    }
+
+    /*
+     * 
+     */
+    @Override
+    public Direction getCurrent()
+    {
+        return current.direction;
+    }
+
+    /*
+     * 
+     */
+    @Override
+    public boolean dropsBomb()
+    {
+        return current.dropsBomb;
+    }
+
+    /*
+     * 
+     */
+    @Override
+    public ControllerState getState()
+    {
+        return state;
+    }
+
+    /**
+     * @return Return the wrapped controller.
+     */
+    public IPlayerController getDelegate()
+    {
+        return delegate;
+    }
+
+    /**
+     * @return Return think times (in nanoseconds) of recent frames. Safe to call from any
+     *         thread.
+     */
+    public SampleWindow getThinkTimes()
+    {
+        return thinkTimes;
+    }
+
+    /**
+     * @return Return the number of frames in which the controller went over its budget.
+     *         Safe to call from any thread.
+     */
+    public long getOverruns()
+    {
+        return overruns;
+    }
+
+    /**
+     * @return Return the think time budget per frame, in nanoseconds.
+     */
+    public long getBudgetNanos()
+    {
+        return budgetNanos;
+    }
+
+    /**
+     * @return Return the deadline handed to {@link IThinkDeadlineAware} controllers.
+     */
+    public ThinkDeadline getDeadline()
+    {
+        return deadline;
+    }
+
+    /**
+     * Think time percentiles and overruns.
+     */
+    @Override
+    public String toString()
+    {
+        final long [] sorted = thinkTimes.getSorted();
+        return String.format(Locale.US, "%s: frames: %d, think time [ms] "
+            + "p50: %.2f, p90: %.2f, p99: %.2f, max: %.2f, budget: %.2f, overruns: %d",
+            delegate.getClass().getSimpleName(), thinkTimes.getCount(),
+            toMillis(SampleWindow.percentile(sorted, 50)),
+            toMillis(SampleWindow.percentile(sorted, 90)),
+            toMillis(SampleWindow.percentile(sorted, 99)),
+            toMillis(SampleWindow.percentile(sorted, 100)), toMillis(budgetNanos), overruns);
+    }
+
+    /*
+     * 
+     */
+    private static double toMillis(long nanos)
+    {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,120 @@
+package org.jdyna;
+
+import java.io.Serializable;
+
+/**
+ * An immutable snapshot of bomb threats on the board, computed by the game after each
+ * frame (see {@link GameConfiguration#ENABLE_THREAT_MAP}). For every cell it holds the
+ * number of frames until the earliest flames engulf the cell (including chain reactions
+ * of bombs and crates bombed out by earlier explosions) and the number of frames until
+ * the last of these flames is gone.
+ * <p>
+ * All numbers are relative to {@link #getFrame()}: an offset of <code>k</code> refers
+ * to the state of the board in frame <code>getFrame() + k</code>. Offset zero means
+ * flames are on the cell right now. Only bombs already on the board are taken into
+ * account. If a cell is reached by several explosions, the dangerous period spans from
+ * the first to the last of them.
+ */
+public final class ThreatMap implements Serializable
+{
+    /**
+     * @see GameEvent#serialVersionUID
+     */
+    private static final long serialVersionUID = 0x201002101200L;
+
+    /**
+     * Returned for cells that are not threatened by any bomb.
+     */
+    public final static int NONE = Integer.MAX_VALUE;
+
+    /** Frame this map was computed in. */
+    private final int frame;
+
+    /** Board dimensions (cells). */
+    private final int width, height;
+
+    /**
+     * Frames until flames (indexed by <code>x + y * width</code>).
+     */
+    private final int [] explosions;
+
+    /**
+     * Frames until the cell is safe again, after flames.
+     */
+    private final int [] flamesEnd;
+
+    /*
+     * 
+     */
+    ThreatMap(int frame, int width, int height, int [] explosions, int [] flamesEnd)
+    {
+        this.frame = frame;
+        this.width = width;
+        this.height = height;
+        this.explosions = explosions;
+        this.flamesEnd = flamesEnd;
+    }
+
+    /**
+     * @return Return the frame number this map was computed in.
+     */
+    public int getFrame()
+    {
+        return frame;
+    }
+
+    /*
+     * 
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+    /*
+     * 
+     */
+    public int getHeight()
+    {
+        return height;
+    }
+
+    /**
+     * @return Return the number of frames until flames engulf cell <code>(x, y)</code>
+     *         or {@link #NONE} if the cell is not threatened.
+     */
+    public int getFramesToExplosion(int x, int y)
+    {
+        return explosions[x + y * width];
+    }
+
+    /**
+     * @return Return the number of frames until the flames on cell <code>(x, y)</code>
+     *         are gone (the first safe frame after explosions) or zero if the cell is
+     *         not threatened.
+     */
+    public int getFramesToFlamesEnd(int x, int y)
+    {
+        return flamesEnd[x + y * width];
+    }
+
+    /**
+     * @return Returns <code>true</code> if cell <code>(x, y)</code> is free of flames in
+     *         frame <code>getFrame() + frameOffset</code>.
+     */
+    public boolean isSafe(int x, int y, int frameOffset)
+    {
+        final int i = x + y * width;
+        return frameOffset < explosions[i] || frameOffset >= flamesEnd[i];
+    }
+
+    /**
+     * @return Returns <code>true</code> if cell <code>(x, y)</code> is free of flames for
+     *         all frames in the range <code>[from, to]</code> (offsets, inclusive).
+     */
+    public boolean isSafe(int x, int y, int from, int to)
+    {
+        final int i = x + y * width;
+        return to < explosions[i] || from >= flamesEnd[i];
+    }
+}
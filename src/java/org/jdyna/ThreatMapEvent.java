@@ -0,0 +1,31 @@
+package org.jdyna;
+
+/**
+ * Bomb threats on the board after the frame in which this event was dispatched.
+ * Dispatched only if {@link GameConfiguration#ENABLE_THREAT_MAP} is set.
+ */
+public final class ThreatMapEvent extends GameEvent
+{
+    /**
+     * @see GameEvent#serialVersionUID
+     */
+    private static final long serialVersionUID = 0x201002101200L;
+
+    /** Threats snapshot. */
+    private final ThreatMap threatMap;
+
+    /* */
+    ThreatMapEvent(ThreatMap threatMap)
+    {
+        super(GameEvent.Type.THREAT_MAP);
+        this.threatMap = threatMap;
+    }
+
+    /**
+     * @return Return the threats snapshot (immutable).
+     */
+    public ThreatMap getThreatMap()
+    {
+        return threatMap;
+    }
+}
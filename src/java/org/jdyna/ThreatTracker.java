@@ -0,0 +1,181 @@
+package org.jdyna;
+
+import java.util.Arrays;
+
+/**
+ * Computes {@link ThreatMap}s from the board, replaying the rules of
+ * {@link BoardUtilities#explode} ahead of time: bombs explode in the order of their fuse
+ * timers, flames propagate over empty cells, bonuses and other flames, stop at walls and
+ * crates and detonate other bombs in their range (in the same frame). Crates bombed out
+ * by an explosion no longer stop flames of explosions in subsequent frames.
+ * <p>
+ * Scratch arrays are reused between frames, the only allocation per call is the
+ * returned snapshot.
+ */
+final class ThreatTracker
+{
+    /** Board dimensions. */
+    private final int width, height;
+
+    /** Frames until explosion, flames end (exclusive), per cell. */
+    private final int [] explosions;
+    private final int [] flamesEnd;
+
+    /** Frames until each bomb explodes, per cell. */
+    private final int [] bombTimes;
+
+    /** Frame in which crates are bombed out, per cell. */
+    private final int [] crateTimes;
+
+    /** Indexes of cells with bombs and a flag for bombs already exploded. */
+    private final int [] bombs;
+    private final boolean [] exploded;
+
+    /** Flames duration (frames). */
+    private final int flamesDuration;
+
+    /*
+     * 
+     */
+    ThreatTracker(int width, int height)
+    {
+        this.width = width;
+        this.height = height;
+
+        final int cells = width * height;
+        this.explosions = new int [cells];
+        this.flamesEnd = new int [cells];
+        this.bombTimes = new int [cells];
+        this.crateTimes = new int [cells];
+        this.bombs = new int [cells];
+        this.exploded = new boolean [cells];
+
+        this.flamesDuration = CellType.CELL_BOOM_XY.getRemoveAtCounter();
+    }
+
+    /**
+     * Compute threats for the current state of the board (after frame
+     * <code>frame</code> has been processed).
+     */
+    ThreatMap compute(Board board, int frame)
+    {
+        assert board.width == width && board.height == height;
+
+        Arrays.fill(explosions, ThreatMap.NONE);
+        Arrays.fill(flamesEnd, 0);
+        Arrays.fill(bombTimes, ThreatMap.NONE);
+        Arrays.fill(crateTimes, ThreatMap.NONE);
+
+        /*
+         * Collect bombs and flames already on the board.
+         */
+        int bombCount = 0;
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                final Cell cell = board.cellAt(x, y);
+                final int i = x + y * width;
+                if (cell.type == CellType.CELL_BOMB)
+                {
+                    final int fuse = ((BombCell) cell).fuseCounter;
+                    bombTimes[i] = (fuse >= ThreatMap.NONE - 1 ? ThreatMap.NONE : Math.max(0, fuse) + 1);
+                    exploded[i] = false;
+                    bombs[bombCount++] = i;
+                }
+                else if (cell.type.isExplosion())
+                {
+                    explosions[i] = 0;
+                    flamesEnd[i] = Math.max(1, flamesDuration - cell.counter);
+                }
+            }
+        }
+
+        /*
+         * Explode bombs in the order of their explosion time. There are just a few bombs
+         * on the board, so a linear scan is fine.
+         */
+        while (true)
+        {
+            int next = -1;
+            for (int b = 0; b < bombCount; b++)
+            {
+                final int i = bombs[b];
+                if (!exploded[i] && bombTimes[i] != ThreatMap.NONE
+                    && (next < 0 || bombTimes[i] < bombTimes[next]))
+                {
+                    next = i;
+                }
+            }
+
+            if (next < 0) break;
+            explode(board, next % width, next / width, bombTimes[next]);
+        }
+
+        return new ThreatMap(frame, width, height, explosions.clone(), flamesEnd.clone());
+    }
+
+    /**
+     * Explode the bomb at <code>(x, y)</code> at time <code>t</code>.
+     */
+    private void explode(Board board, int x, int y, int t)
+    {
+        exploded[x + y * width] = true;
+        flames(x + y * width, t);
+
+        final int range = ((BombCell) board.cellAt(x, y)).range;
+        propagate(board, x, y, -1, 0, range, t);
+        propagate(board, x, y, +1, 0, range, t);
+        propagate(board, x, y, 0, -1, range, t);
+        propagate(board, x, y, 0, +1, range, t);
+    }
+
+    /**
+     * Propagate flames in one direction.
+     */
+    private void propagate(Board board, int x, int y, int dx, int dy, int range, int t)
+    {
+        for (int r = 1; r <= range; r++)
+        {
+            final int lx = x + r * dx;
+            final int ly = y + r * dy;
+            if (lx < 0 || ly < 0 || lx >= width || ly >= height) return;
+
+            final int i = lx + ly * width;
+            switch (board.cellAt(lx, ly).type)
+            {
+                case CELL_WALL:
+                    return;
+
+                case CELL_CRATE:
+                    if (crateTimes[i] >= t)
+                    {
+                        /*
+                         * The crate is still there: it stops the flames and is bombed out.
+                         */
+                        crateTimes[i] = t;
+                        return;
+                    }
+                    break;
+
+                case CELL_BOMB:
+                    if (!exploded[i] && bombTimes[i] > t)
+                    {
+                        bombTimes[i] = t;
+                    }
+                    break;
+            }
+
+            flames(i, t);
+        }
+    }
+
+    /**
+     * Mark flames on cell <code>i</code> starting at time <code>t</code>.
+     */
+    private void flames(int i, int t)
+    {
+        explosions[i] = Math.min(explosions[i], t);
+        flamesEnd[i] = Math.max(flamesEnd[i], t + flamesDuration);
+    }
+}
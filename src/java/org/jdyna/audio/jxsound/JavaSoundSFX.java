@@ -12,16 +12,33 @@ import com.google.common.collect.Maps;
 
 /**
  * Sound listener and player based on Java's built-in <code>javax.sound</code> package. 
+ * Samples are played either with pools of {@link Clip}s or mixed in software (see
+ * {@link SoftwareMixer}).
  */
 public final class JavaSoundSFX implements IGameEventListener
 {
     /**
-     * Audio manager for this listener.
+     * Default number of voices mixed at once by the software mixer.
+     */
+    public final static int DEFAULT_VOICES = 16;
+
+    /**
+     * Maximum number of voices mixed at once by the software mixer.
+     */
+    public final static int MAX_VOICES = 64;
+
+    /**
+     * Audio manager for this listener (if clips are used).
      */
     private ClipManager<SoundEffect> audioManager;
 
     /**
-     * Load the default samples. 
+     * Software mixer for this listener (if used).
+     */
+    private SoftwareMixer<SoundEffect> mixer;
+
+    /**
+     * Load the default samples into pools of clips. 
      */
     public JavaSoundSFX()
     {
@@ -34,6 +51,35 @@ public final class JavaSoundSFX implements IGameEventListener
         this.audioManager = new ClipManager<SoundEffect>(SoundEffect.class, clips);
     }
 
+    /**
+     * Decode the default samples and mix them in software into a single line, with at
+     * most <code>maxVoices</code> voices at once.
+     */
+    public JavaSoundSFX(int maxVoices)
+    {
+        if (maxVoices < 1 || maxVoices > MAX_VOICES)
+        {
+            throw new IllegalArgumentException("Voices must be between 1 and "
+                + MAX_VOICES + ": " + maxVoices);
+        }
+
+        final EnumMap<SoundEffect, short []> samples = Maps.newEnumMap(SoundEffect.class);
+
+        samples.put(SoundEffect.BOMB, decode("bomb.wav"));
+        samples.put(SoundEffect.BONUS, decode("bonus.wav"));
+        samples.put(SoundEffect.DYING, decode("dying.wav"));
+
+        this.mixer = new SoftwareMixer<SoundEffect>(SoundEffect.class, samples, maxVoices);
+        try
+        {
+            mixer.start();
+        }
+        catch (LineUnavailableException e)
+        {
+            throw new RuntimeException("Could not open audio line.", e);
+        }
+    }
+
     /*
      * 
      */
@@ -45,12 +91,20 @@ public final class JavaSoundSFX implements IGameEventListener
             {
                 final SoundEffectEvent event = (SoundEffectEvent) e;
 
-                /*
-                 * TODO: The count of events per frame is currently not used,
-                 * "fuzzification" (small delays) of replay of multiple events would
-                 * be probably a good idea, as reported by A. Kłopotek.
-                 */
-                audioManager.play(event.effect);
+                if (mixer != null)
+                {
+                    // Multiple events in a frame are played as a single, louder voice.
+                    mixer.play(event.effect, event.count);
+                }
+                else
+                {
+                    /*
+                     * TODO: The count of events per frame is currently not used,
+                     * "fuzzification" (small delays) of replay of multiple events would
+                     * be probably a good idea, as reported by A. Kłopotek.
+                     */
+                    audioManager.play(event.effect);
+                }
             }
         }
     }
@@ -60,8 +114,17 @@ public final class JavaSoundSFX implements IGameEventListener
      */
     public void dispose()
     {
-       this.audioManager.close();
-       this.audioManager = null;
+       if (audioManager != null)
+       {
+           this.audioManager.close();
+           this.audioManager = null;
+       }
+
+       if (mixer != null)
+       {
+           this.mixer.close();
+           this.mixer = null;
+       }
     }
      
     /*
@@ -79,6 +142,21 @@ public final class JavaSoundSFX implements IGameEventListener
         }
     }
 
+    /*
+     * 
+     */
+    private short [] decode(String resource)
+    {
+        try
+        {
+            return SoftwareMixer.decode(open(resource));
+        }
+        catch (Exception e)
+        {
+            throw new RuntimeException("Could not decode audio sample: " + resource, e);
+        }
+    }
+
     /*
      * 
      */
@@ -0,0 +1,332 @@
+package org.jdyna.audio.jxsound;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.EnumMap;
+
+import javax.sound.sampled.*;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Maps;
+
+/**
+ * A software mixer of audio samples. Samples are decoded once into PCM arrays and
+ * active voices are mixed into a single {@link SourceDataLine} on a dedicated thread,
+ * so no native line is reserved per sample or per voice.
+ * <p>
+ * At most a given number of voices is mixed at once; when all are busy, the voice
+ * closest to its end is replaced. Requests to play the same sample before the next
+ * mixed block (typically, multiple events in one game frame) are coalesced into a
+ * single, louder voice.
+ */
+public final class SoftwareMixer<T extends Enum<T>>
+{
+    private final static Logger logger = LoggerFactory.getLogger(SoftwareMixer.class);
+
+    /**
+     * The format of mixed samples: 16 bit signed, mono, little endian.
+     */
+    public final static AudioFormat FORMAT = new AudioFormat(22050, 16, 1, true, false);
+
+    /**
+     * Frames mixed at once (about 6 ms). The line buffers a few blocks, which bounds
+     * the latency of starting a voice.
+     */
+    final static int BLOCK_FRAMES = 128;
+    private final static int LINE_BLOCKS = 4;
+
+    /**
+     * The highest gain of coalesced voices.
+     */
+    private final static float MAX_GAIN = 2;
+
+    /**
+     * A sample being played.
+     */
+    private final static class Voice
+    {
+        short [] sample;
+        int position;
+        float gain;
+    }
+
+    /**
+     * Decoded samples.
+     */
+    private final EnumMap<T, short []> samples;
+
+    /**
+     * Requested plays (counts) not taken by the mixer yet.
+     */
+    private final EnumMap<T, Integer> pending;
+
+    /**
+     * Voices; accessed by the mixing thread only.
+     */
+    private final Voice [] voices;
+
+    /**
+     * Accumulated block of mixed frames and its bytes.
+     */
+    private final int [] accumulator = new int [BLOCK_FRAMES];
+    private final byte [] block = new byte [BLOCK_FRAMES * 2];
+
+    private SourceDataLine line;
+    private Thread thread;
+    private volatile boolean running;
+
+    /**
+     * Creates a mixer of samples decoded with {@link #decode(InputStream)}, attached to
+     * a particular enum constant for selecting samples to be played.
+     */
+    public SoftwareMixer(Class<T> keyType, EnumMap<T, short []> samples, int maxVoices)
+    {
+        if (maxVoices < 1)
+        {
+            throw new IllegalArgumentException("At least one voice required: " + maxVoices);
+        }
+
+        this.samples = new EnumMap<T, short []>(samples);
+        this.pending = Maps.newEnumMap(keyType);
+        this.voices = new Voice [maxVoices];
+        for (int i = 0; i < voices.length; i++)
+        {
+            voices[i] = new Voice();
+        }
+    }
+
+    /**
+     * Open the output line and start mixing.
+     */
+    public synchronized void start() throws LineUnavailableException
+    {
+        if (thread != null)
+        {
+            return;
+        }
+
+        line = AudioSystem.getSourceDataLine(FORMAT);
+        line.open(FORMAT, block.length * LINE_BLOCKS);
+        line.start();
+
+        running = true;
+        thread = new Thread("audio-mixer")
+        {
+            public void run()
+            {
+                mixLoop();
+            }
+        };
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Play a given sample <code>count</code> times at once (as a single voice, louder
+     * for higher counts).
+     */
+    public void play(T effect, int count)
+    {
+        if (count <= 0 || !samples.containsKey(effect))
+        {
+            return;
+        }
+
+        synchronized (pending)
+        {
+            final Integer previous = pending.get(effect);
+            pending.put(effect, previous == null ? count : previous + count);
+        }
+    }
+
+    /**
+     * Mix blocks and write them to the line until stopped. Writes block when the line's
+     * buffer is full, which paces the loop.
+     */
+    private void mixLoop()
+    {
+        try
+        {
+            while (running)
+            {
+                mix();
+                line.write(block, 0, block.length);
+            }
+        }
+        catch (RuntimeException e)
+        {
+            logger.warn("Audio mixing failed.", e);
+        }
+    }
+
+    /**
+     * Start pending voices and mix the next block into {@link #block}.
+     */
+    void mix()
+    {
+        startPending();
+
+        Arrays.fill(accumulator, 0);
+        for (Voice v : voices)
+        {
+            if (v.sample == null)
+            {
+                continue;
+            }
+
+            final int frames = Math.min(BLOCK_FRAMES, v.sample.length - v.position);
+            final float gain = v.gain;
+            for (int i = 0; i < frames; i++)
+            {
+                accumulator[i] += (int) (v.sample[v.position + i] * gain);
+            }
+
+            v.position += frames;
+            if (v.position >= v.sample.length)
+            {
+                v.sample = null;
+            }
+        }
+
+        for (int i = 0, j = 0; i < BLOCK_FRAMES; i++)
+        {
+            final int s = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE,
+                accumulator[i]));
+            block[j++] = (byte) s;
+            block[j++] = (byte) (s >> 8);
+        }
+    }
+
+    /**
+     * Take pending requests and start a voice for each.
+     */
+    private void startPending()
+    {
+        synchronized (pending)
+        {
+            if (pending.isEmpty())
+            {
+                return;
+            }
+
+            for (T effect : pending.keySet())
+            {
+                final Voice v = allocate();
+                v.sample = samples.get(effect);
+                v.position = 0;
+                v.gain = Math.min(MAX_GAIN, (float) Math.sqrt(pending.get(effect)));
+            }
+            pending.clear();
+        }
+    }
+
+    /**
+     * @return Return a free voice or the voice closest to its end if all are busy.
+     */
+    private Voice allocate()
+    {
+        Voice closest = voices[0];
+        for (Voice v : voices)
+        {
+            if (v.sample == null)
+            {
+                return v;
+            }
+
+            if (remaining(v) < remaining(closest))
+            {
+                closest = v;
+            }
+        }
+        return closest;
+    }
+
+    /*
+     *
+     */
+    private static int remaining(Voice v)
+    {
+        return v.sample.length - v.position;
+    }
+
+    /**
+     * @return Return the number of voices being played.
+     */
+    int getActiveVoices()
+    {
+        int active = 0;
+        for (Voice v : voices)
+        {
+            if (v.sample != null) active++;
+        }
+        return active;
+    }
+
+    /**
+     * @return Return the last mixed block (16 bit signed little endian frames).
+     */
+    byte [] getBlock()
+    {
+        return block;
+    }
+
+    /**
+     * Stop mixing and close the output line.
+     */
+    public synchronized void close()
+    {
+        running = false;
+        if (thread != null)
+        {
+            try
+            {
+                thread.join(1000);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+
+        if (line != null)
+        {
+            line.stop();
+            line.close();
+            line = null;
+        }
+    }
+
+    /**
+     * Decode a sample to {@link #FORMAT}, closing the input stream (always).
+     */
+    public static short [] decode(InputStream is)
+        throws IOException, UnsupportedAudioFileException
+    {
+        final byte [] sample;
+        try
+        {
+            sample = IOUtils.toByteArray(is);
+        }
+        finally
+        {
+            is.close();
+        }
+
+        final AudioInputStream source = AudioSystem.getAudioInputStream(
+            new ByteArrayInputStream(sample));
+        final byte [] pcm = IOUtils.toByteArray(
+            AudioSystem.getAudioInputStream(FORMAT, source));
+
+        final short [] frames = new short [pcm.length / 2];
+        for (int i = 0; i < frames.length; i++)
+        {
+            frames[i] = (short) ((pcm[2 * i] & 0xff) | (pcm[2 * i + 1] << 8));
+        }
+        return frames;
+    }
+}
@@ -3,6 +3,8 @@ package org.jdyna.frontend.swing;
 import java.awt.event.KeyEvent;
 import java.io.*;
 
+import org.jdyna.ThinkTimeController;
+import org.jdyna.audio.jxsound.JavaSoundSFX;
 import org.jdyna.network.sockets.Closeables;
 import org.jdyna.network.sockets.GameServer;
 import org.simpleframework.xml.*;
@@ -21,6 +23,7 @@ public class Configuration
     {
         NONE,
         JAVA_AUDIO,
+        JAVA_AUDIO_MIXER,
         OPEN_AL;
 
         public String toString()
@@ -29,6 +32,7 @@ public class Configuration
             {
                 case NONE: return "<disabled>";
                 case JAVA_AUDIO: return "Java Audio API";
+                case JAVA_AUDIO_MIXER: return "Java Audio API (software mixer)";
                 case OPEN_AL: return "OpenAL";
             }
             throw new RuntimeException("Unreachable.");
@@ -40,7 +44,9 @@ public class Configuration
      */
     static enum ViewType 
     {
-        SWING_VIEW("Swing (2D)");
+        SWING_VIEW("Swing (2D)"),
+        ACTIVE_VIEW("Swing (2D, active rendering)"),
+        SMOOTH_VIEW("Swing (2D, active rendering, smooth movement)");
 
         private final String name;
         
@@ -87,6 +93,25 @@ public class Configuration
     @Element(name = "sound-engine", required = true)
     public SoundEngine soundEngine = SoundEngine.OPEN_AL;
 
+    /**
+     * Maximum number of sound effects played at once (software mixer).
+     */
+    @Element(name = "sound-voices", required = false)
+    public int soundVoices = JavaSoundSFX.DEFAULT_VOICES;
+
+    /**
+     * Think time budget of computer players per frame (in milliseconds).
+     */
+    @Element(name = "bot-think-budget", required = false)
+    public int botThinkBudget = ThinkTimeController.DEFAULT_BUDGET;
+
+    /**
+     * Run computer players' frame callbacks in parallel (local games only). Off by
+     * default: controllers are then called one after another on the game thread.
+     */
+    @Element(name = "parallel-bots", required = false)
+    public boolean parallelBots = false;
+
     /**
      * Remember most recent board selection.
      */
@@ -163,7 +188,12 @@ public class Configuration
         try
         {
             final Serializer serializer = new Persister();
-            return serializer.read(Configuration.class, is);
+            final Configuration config = serializer.read(Configuration.class, is);
+
+            // The file may have been edited by hand.
+            config.soundVoices = Math.max(1, Math.min(JavaSoundSFX.MAX_VOICES,
+                config.soundVoices));
+            return config;
         }
         catch (Exception e)
         {
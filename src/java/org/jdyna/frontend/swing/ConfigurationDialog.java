@@ -13,17 +13,23 @@ import java.io.IOException;
 import java.util.HashSet;
 
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JComponent;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JSeparator;
+import javax.swing.JSpinner;
 import javax.swing.JTabbedPane;
 import javax.swing.JTextField;
+import javax.swing.SpinnerNumberModel;
 import javax.swing.event.CaretEvent;
 import javax.swing.event.CaretListener;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 
+import org.jdyna.audio.jxsound.JavaSoundSFX;
 import org.jdyna.frontend.swing.Configuration.KeyBinding;
 import org.jdyna.frontend.swing.Configuration.SoundEngine;
 import org.jdyna.frontend.swing.Configuration.ViewType;
@@ -94,6 +100,7 @@ final class ConfigurationDialog
         tabs.addTab("Audio", createAudioPanel());
         tabs.addTab("Network", createNetworkPanel());
         tabs.addTab("Controller", createControllerPanel());
+        tabs.addTab("Bots", createBotsPanel());
         return tabs;
     }
     
@@ -123,6 +130,14 @@ final class ConfigurationDialog
         swingViewPanel.add(new JLabel("no further options available"));
 
         modeSpecificConfig.add(swingViewPanel, ViewType.SWING_VIEW.toString());
+
+        final JPanel activeViewPanel = new JPanel();
+        activeViewPanel.add(new JLabel("no further options available"));
+        modeSpecificConfig.add(activeViewPanel, ViewType.ACTIVE_VIEW.toString());
+
+        final JPanel smoothViewPanel = new JPanel();
+        smoothViewPanel.add(new JLabel("no further options available"));
+        modeSpecificConfig.add(smoothViewPanel, ViewType.SMOOTH_VIEW.toString());
         modeSpecificConfigLayout.show(modeSpecificConfig, configClone.viewType.toString());
         builder.add(modeSpecificConfig, new CellConstraints().xywh(5, 1, 1, 2));
         
@@ -143,7 +158,48 @@ final class ConfigurationDialog
             }
         });
         builder.append("engine:", engine);
-        builder.append("no further options available");
+
+        final JSpinner voices = new JSpinner(new SpinnerNumberModel(
+            configClone.soundVoices, 1, JavaSoundSFX.MAX_VOICES, 1));
+        voices.addChangeListener(new ChangeListener()
+        {
+            public void stateChanged(ChangeEvent e)
+            {
+                configClone.soundVoices = (Integer) voices.getValue();
+            }
+        });
+        builder.append("voices:", voices);
+        builder.append("(software mixer only)");
+        addVerticalSeparator(builder);
+        return builder.getPanel();
+    }
+    
+    private JPanel createBotsPanel()
+    {
+        final DefaultFormBuilder builder = createFormBuilder();
+        final JSpinner budget = new JSpinner(new SpinnerNumberModel(
+            configClone.botThinkBudget, 1, 1000, 5));
+        budget.addChangeListener(new ChangeListener()
+        {
+            public void stateChanged(ChangeEvent e)
+            {
+                configClone.botThinkBudget = (Integer) budget.getValue();
+            }
+        });
+        builder.append("think time:", budget);
+        builder.append("ms per frame");
+
+        final JCheckBox parallel = new JCheckBox("in parallel", configClone.parallelBots);
+        parallel.addActionListener(new ActionListener()
+        {
+            public void actionPerformed(ActionEvent e)
+            {
+                configClone.parallelBots = parallel.isSelected();
+            }
+        });
+        builder.nextLine();
+        builder.append("threads:", parallel);
+        builder.append("(local games only)");
         addVerticalSeparator(builder);
         return builder.getPanel();
     }
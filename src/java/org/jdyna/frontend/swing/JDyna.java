@@ -21,6 +21,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.BorderFactory;
 import javax.swing.Box;
@@ -60,6 +62,7 @@ import org.jdyna.IPlayerSprite;
 import org.jdyna.IViewListener;
 import org.jdyna.Player;
 import org.jdyna.PlayerTeamName;
+import org.jdyna.ThinkTimeController;
 import org.jdyna.audio.jxsound.JavaSoundSFX;
 import org.jdyna.audio.openal.OpenALSFX;
 import org.jdyna.frontend.swing.Configuration.ViewType;
@@ -73,6 +76,7 @@ import org.jdyna.network.sockets.GameServerClient;
 import org.jdyna.network.sockets.PlayerHandle;
 import org.jdyna.network.sockets.packets.ServerInfo;
 import org.jdyna.players.CustomControllerPlayerFactory;
+import org.jdyna.players.mcts.MctsFactory;
 import org.jdyna.players.n00b.NoobFactory;
 import org.jdyna.players.rabbit.RabbitFactory;
 import org.jdyna.players.stalker.StalkerFactory;
@@ -137,6 +141,7 @@ public final class JDyna
         bots.put("stalker (fair)", new StalkerFactory());
         bots.put("n00b (good)", new NoobFactory());
         bots.put("tyson (very good)", new TysonFactory());
+        bots.put("mcts (looks ahead)", new MctsFactory());
     }
 
     /*
@@ -435,6 +440,8 @@ public final class JDyna
         switch (viewType)
         {
             case SWING_VIEW:
+            case ACTIVE_VIEW:
+            case SMOOTH_VIEW:
                 return new CustomControllerPlayerFactory(
                     AWTKeyboardController.getKeyboardController(playerNum, config), playerName);
             default:
@@ -654,6 +661,7 @@ public final class JDyna
                 gameEntry.server.UDPFeedbackPort);
 
             final GameClient gameClient = new GameClient(gameEntry.handle, gameEntry.server);
+            final ServerInfo serverInfo = gameEntry.server;
             final Thread gameClientThread = new Thread() {
                 public void run()
                 {
@@ -666,6 +674,9 @@ public final class JDyna
                         // Ignore, not much to do.
                     }
 
+                    /* Don't leave the player behind on the server. */
+                    GameServerClient.leaveGameQuietly(serverInfo, playerHandle);
+
                     cleanupListeners(gameClient);
                     SwingUtilities.invokeLater(new Runnable() {
                         public void run() { showMainGUI(); }
@@ -842,7 +853,7 @@ public final class JDyna
         for (IPlayerFactory pf : players)
         {
             final String name = pf.getDefaultPlayerName();
-            final IPlayerSprite player = game.addPlayer(new Player(name, pf.getController(name)));
+            final IPlayerSprite player = game.addPlayer(new Player(name, getController(pf, name)));
             if (StringUtils.isEmpty(highlightPlayer)
                 || StringUtils.equals(name, highlightPlayer))
             {
@@ -859,6 +870,12 @@ public final class JDyna
             game.addListener(audio);
         }
 
+        /*
+         * Let computer players think in parallel, if enabled.
+         */
+        final ForkJoinPool controllerPool = (config.parallelBots ? new ForkJoinPool() : null);
+        game.setControllerPool(controllerPool);
+
         /*
          * Attach a swing display view to the game.
          */
@@ -866,7 +883,14 @@ public final class JDyna
             @SuppressWarnings("unused")
             public void run()
             {
-                final GameResult result = game.run(Game.Mode.INFINITE_DEATHMATCH);
+                try
+                {
+                    final GameResult result = game.run(Game.Mode.INFINITE_DEATHMATCH);
+                }
+                finally
+                {
+                    if (controllerPool != null) controllerPool.shutdown();
+                }
             }
         };
 
@@ -934,6 +958,7 @@ public final class JDyna
             {
                 case NONE:  return null;
                 case JAVA_AUDIO: return new JavaSoundSFX();
+                case JAVA_AUDIO_MIXER: return new JavaSoundSFX(config.soundVoices);
                 case OPEN_AL: return new OpenALSFX();
                 default:
                     throw new RuntimeException("Unexpected audio engine: " + config.soundEngine);
@@ -949,18 +974,22 @@ public final class JDyna
     private IGameEventListener createView(String trackedPlayer, final IViewListener listener, IPlayerSprite... players) {
         switch (config.viewType) {
             case SWING_VIEW:
-                return createSwingView(trackedPlayer, listener, players);
+            case ACTIVE_VIEW:
+            case SMOOTH_VIEW:
+                return createSwingView(trackedPlayer, listener, config.viewType, players);
         }
         throw new RuntimeException("Unknown view: " + config.viewType);
     }
     
     /**
-     * Create a game view for the given player.
+     * Create a game view of the given type for the given player.
      */
     private IGameEventListener createSwingView(String trackedPlayer,
-        final IViewListener listener, IPlayerSprite... players)
+        final IViewListener listener, ViewType viewType, IPlayerSprite... players)
     {
-        final BoardFrame boardFrame = new BoardFrame();
+        final BoardFrame boardFrame = new BoardFrame(
+            ImageUtilities.getGraphicsConfiguration(), viewType != ViewType.SWING_VIEW);
+        boardFrame.setInterpolation(viewType == ViewType.SMOOTH_VIEW);
         boardFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
 
         if (!StringUtils.isEmpty(trackedPlayer))
@@ -994,6 +1023,20 @@ public final class JDyna
         return bots.get(bot);
     }
 
+    /**
+     * Create a player's controller. Bots think within the configured budget.
+     */
+    private IPlayerController getController(IPlayerFactory pf, String name)
+    {
+        final IPlayerController controller = pf.getController(name);
+        if (bots.containsValue(pf))
+        {
+            return new ThinkTimeController(controller, config.botThinkBudget,
+                TimeUnit.MILLISECONDS);
+        }
+        return controller;
+    }
+
     /*
      * 
      */
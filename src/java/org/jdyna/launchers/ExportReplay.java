@@ -0,0 +1,118 @@
+package org.jdyna.launchers;
+
+import java.io.*;
+import java.util.List;
+
+import org.jdyna.CmdLine;
+import org.jdyna.serialization.*;
+import org.jdyna.view.swing.Magnification;
+import org.jdyna.view.swing.ReplayExporter;
+import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.Option;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Export a game saved previously with {@link GameWriter} to numbered PNG images or an
+ * animated GIF, without a display.
+ *
+ * @see ReplayExporter
+ */
+public final class ExportReplay
+{
+    private final static Logger logger = LoggerFactory.getLogger(ExportReplay.class);
+
+    /**
+     * Output formats.
+     */
+    public static enum Format
+    {
+        PNG, GIF
+    }
+
+    @Argument(index = 0, metaVar = "file", required = true, usage = "Game log file.")
+    public File gameLog;
+
+    @Option(name = "-o", aliases = "--output", required = true, metaVar = "path", usage = "Output directory (PNG) or file (GIF).")
+    public File output;
+
+    @Option(name = "-f", aliases = "--format", required = false, metaVar = "format", usage = "Output format: PNG or GIF (default: GIF for *.gif outputs, PNG otherwise).")
+    public Format format;
+
+    @Option(name = "-m", aliases = "--magnification", required = false, metaVar = "level", usage = "Magnification: TIMES_1 to TIMES_4 (default: TIMES_2).")
+    public Magnification magnification = Magnification.TIMES_2;
+
+    @Option(name = "--from", required = false, metaVar = "frame", usage = "First game frame to export.")
+    public int fromFrame = 0;
+
+    @Option(name = "--to", required = false, metaVar = "frame", usage = "Game frame to export up to (exclusive).")
+    public int toFrame = Integer.MAX_VALUE;
+
+    @Option(name = "-t", aliases = "--threads", required = false, metaVar = "int", usage = "Rendering threads (default: the number of processors).")
+    public int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Read all frames and export them.
+     */
+    private void start() throws IOException
+    {
+        logger.info("Indexing frames.");
+        final GameReader reader = new GameReader(new FileInputStream(gameLog));
+        final List<FrameData> frames = Lists.newArrayList();
+        try
+        {
+            while (reader.nextFrame())
+            {
+                frames.add(new FrameData(reader.getFrame(), Lists.newArrayList(
+                    reader.getEvents())));
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+        logger.info("Frames: " + frames.size());
+
+        final ReplayExporter exporter = new ReplayExporter(frames);
+        exporter.setMagnification(magnification);
+        exporter.setThreads(threads);
+        exporter.setFrameRange(fromFrame, toFrame);
+
+        if (format == null)
+        {
+            format = (output.getName().toLowerCase().endsWith(".gif") ? Format.GIF
+                : Format.PNG);
+        }
+
+        final long start = System.currentTimeMillis();
+        final int written;
+        switch (format)
+        {
+            case GIF:
+                written = exporter.exportGIF(output);
+                break;
+            default:
+                written = exporter.exportPNG(output);
+        }
+        logger.info("Exported " + written + " frames to " + output + " in "
+            + (System.currentTimeMillis() - start) + " ms.");
+    }
+
+    /* Command-line entry point. */
+    public static void main(String [] args) throws IOException
+    {
+        // Rendering is offscreen, no display is needed.
+        if (System.getProperty("java.awt.headless") == null)
+        {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        final ExportReplay launcher = new ExportReplay();
+        if (CmdLine.parseArgs(launcher, args))
+        {
+            launcher.start();
+        }
+    }
+}
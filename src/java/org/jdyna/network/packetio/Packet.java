@@ -80,6 +80,11 @@ public class Packet
      */
     private int length;
     
+    /**
+     * Packet length in the buffer before compression (for statistics).
+     */
+    private int uncompressedLength;
+
     /**
      * Source address from which this packet arrived, if any.
      */
@@ -216,6 +221,7 @@ public class Packet
         this.buffer = baos.getBuffer();
         this.length = baos.size();
         this.start = 0;
+        this.uncompressedLength = length;
         int dataLength = length - headerLenght;
 
         /*
@@ -260,8 +266,16 @@ public class Packet
     /**
      * Total packet lenght.
      */
-    final int getLength()
+    public final int getLength()
     {
         return length;
     }
+
+    /**
+     * Total packet length before compression, valid after {@link #getSendBuffer()}.
+     */
+    public final int getUncompressedLength()
+    {
+        return uncompressedLength;
+    }
 }
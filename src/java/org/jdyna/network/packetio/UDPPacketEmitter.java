@@ -31,6 +31,11 @@ public final class UDPPacketEmitter
     private InetAddress defaultTarget;
     private int defaultPort;
 
+    /**
+     * Statistics: packets sent, bytes sent and bytes before compression.
+     */
+    private volatile long sentPackets, sentBytes, uncompressedBytes;
+
     /*
      * 
      */
@@ -73,9 +78,40 @@ public final class UDPPacketEmitter
             }
 
             socket.send(datagram);
+
+            sentPackets++;
+            sentBytes += length;
+            uncompressedBytes += packet.getUncompressedLength();
         }
     }
 
+    /**
+     * @return Return the number of packets sent so far.
+     */
+    public long getSentPackets()
+    {
+        return sentPackets;
+    }
+
+    /**
+     * @return Return the number of bytes sent so far.
+     */
+    public long getSentBytes()
+    {
+        return sentBytes;
+    }
+
+    /**
+     * @return Return the number of bytes sent so far, as if no compression was applied.
+     */
+    public long getUncompressedBytes()
+    {
+        return uncompressedBytes;
+    }
+
+    /*
+     * 
+     */
     public void close()
     {
         if (!socket.isClosed())
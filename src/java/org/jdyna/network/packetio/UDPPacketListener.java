@@ -26,6 +26,11 @@ public final class UDPPacketListener
      */
     private final DatagramPacket udpPacket;
 
+    /**
+     * Statistics: valid packets received and junk (non-packet) datagrams skipped.
+     */
+    private volatile long receivedPackets, junkDatagrams;
+
     /*
      * 
      */
@@ -84,15 +89,33 @@ public final class UDPPacketListener
                 packet.read(input);
                 packet.source = udpPacket.getAddress();
 
+                receivedPackets++;
                 return packet;
             }
             catch (StreamCorruptedException e)
             {
+                junkDatagrams++;
                 logger.debug("Not a packet on input.");
             }
         } while (true);
     }
 
+    /**
+     * @return Return the number of valid packets received so far.
+     */
+    public long getReceivedPackets()
+    {
+        return receivedPackets;
+    }
+
+    /**
+     * @return Return the number of datagrams that were not valid packets.
+     */
+    public long getJunkDatagrams()
+    {
+        return junkDatagrams;
+    }
+
     /*
      * 
      */
@@ -3,6 +3,7 @@ package org.jdyna.network.sockets;
 import java.net.DatagramSocket;
 import java.net.Inet4Address;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.jdyna.*;
 import org.jdyna.network.packetio.UDPPacketEmitter;
@@ -65,6 +66,13 @@ public class BotClient
     @Option(name = "--no-view", required = false, usage = "Disable local view.")
     public boolean noView;
 
+    /**
+     * Think time budget per frame.
+     */
+    @Option(name = "-tb", aliases = "--think-budget", required = false, metaVar = "millis", usage = "Think time budget per frame (milliseconds, default: "
+        + ThinkTimeController.DEFAULT_BUDGET + ").")
+    public int thinkBudget = ThinkTimeController.DEFAULT_BUDGET;
+
     /**
      * Player factory class.
      */
@@ -156,8 +164,9 @@ public class BotClient
         // Join the remote game.
         final PlayerHandle playerHandle = client.joinGame(handle, fullName);
 
-        // Create local asynchronous controller wrapper.
-        final IPlayerController localController = factory.getController(playerName);
+        // Create local asynchronous controller wrapper, thinking within the budget.
+        final ThinkTimeController localController = new ThinkTimeController(
+            factory.getController(playerName), thinkBudget, TimeUnit.MILLISECONDS);
 
         // Asynchronous mode.
         final AsyncPlayerController asyncController = new AsyncPlayerController(localController);
@@ -173,7 +182,15 @@ public class BotClient
         if (!noSound) gameClient.attachSound();
         if (!noView) gameClient.attachView(playerName);
 
-        gameClient.runLoop();
+        try
+        {
+            gameClient.runLoop();
+        }
+        finally
+        {
+            localController.close();
+            GameServerClient.leaveGameQuietly(server, playerHandle);
+        }
     }
 
     /**
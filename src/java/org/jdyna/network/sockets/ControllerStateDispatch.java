@@ -63,7 +63,7 @@ public final class ControllerStateDispatch implements IGameEventListener
                 logger.debug("Updating controller state: " + current);
 
                 final UpdateControllerState state = new UpdateControllerState(
-                    playerHandle.gameID, playerHandle.playerID, current);
+                    playerHandle.gameID, playerHandle.playerID, current, frame);
 
                 packet.serialize(PacketIdentifiers.PLAYER_CONTROLLER_STATE,
                     playerHandle.gameID, state);
@@ -40,6 +40,7 @@ final class FrameDataBroadcaster implements IFrameDataListener
             packet.serialize(PacketIdentifiers.GAME_FRAME_DATA,
                 gameContext.getHandle().gameID, fd);
             broadcaster.send(packet);
+            gameContext.frameSent(packet.getLength());
         }
         catch (IOException e)
         {
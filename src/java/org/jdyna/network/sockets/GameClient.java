@@ -14,6 +14,7 @@ import org.jdyna.network.packetio.UDPPacketListener;
 import org.jdyna.network.sockets.packets.FrameData;
 import org.jdyna.network.sockets.packets.ServerInfo;
 import org.jdyna.view.swing.BoardFrame;
+import org.jdyna.view.swing.PerformanceCounters;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -117,7 +118,20 @@ public class GameClient implements IGameEventListenerHolder
             if (p2 != null && p.getCustom1() == PacketIdentifiers.GAME_FRAME_DATA
                 && p.getCustom2() == gameHandle.gameID)
             {
+                final long start = System.nanoTime();
                 final FrameData fd = p.deserialize(FrameData.class);
+                if (boardFrame != null)
+                {
+                    final PerformanceCounters counters = boardFrame.getPerformanceCounters();
+                    for (GameEvent e : fd.events)
+                    {
+                        if (e.type == GameEvent.Type.GAME_START)
+                        {
+                            counters.gameStarted();
+                        }
+                    }
+                    counters.frameReceived(fd.frame, System.nanoTime() - start);
+                }
                 proxy.onFrame(fd.frame, fd.events);
 
                 retryDeadline = System.currentTimeMillis() + PACKET_TIMEOUT;
@@ -3,10 +3,14 @@ package org.jdyna.network.sockets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ObjectName;
 
 import org.jdyna.*;
 import org.jdyna.network.sockets.packets.FrameData;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
@@ -16,6 +20,11 @@ import com.google.common.collect.Maps;
  */
 final class GameContext
 {
+    /**
+     * How many recent frames to keep in timing and bandwidth statistics.
+     */
+    private final static int STATISTICS_WINDOW = 512;
+
     /**
      * A combination of player name and IP address.
      */
@@ -66,8 +75,37 @@ final class GameContext
     private final HashMap<Integer, PlayerHandle> playersByID = Maps.newHashMap();
     private final HashMap<Integer, ControllerState> controllerUpdates = Maps.newHashMap();
 
+    /**
+     * An immutable snapshot of {@link #playersByID} values, replaced on every change so
+     * that the game loop and monitoring threads can read it without locking.
+     */
+    private volatile ImmutableList<PlayerHandle> roster = ImmutableList.of();
+
     private GameThread thread;
 
+    /**
+     * Frame processing times (nanoseconds) and broadcast frame sizes (bytes).
+     */
+    private final SampleWindow tickTimes = new SampleWindow(STATISTICS_WINDOW);
+    private final SampleWindow frameBytes = new SampleWindow(STATISTICS_WINDOW);
+
+    /**
+     * Controller updates applied in the game loop and updates overwritten before they
+     * could be applied.
+     */
+    private final AtomicLong updatesApplied = new AtomicLong();
+    private final AtomicLong updatesDropped = new AtomicLong();
+
+    /**
+     * Name of the registered management bean, if any.
+     */
+    private ObjectName managementName;
+
+    /**
+     * The most recent status event dispatched by the game (scores).
+     */
+    private volatile GameStatusEvent lastStatus;
+
     /**
      * Broadcast frame data to all listeners.
      */
@@ -84,6 +122,26 @@ final class GameContext
         }
     };
 
+    /**
+     * Keep a reference to the most recent {@link GameStatusEvent}. Status events are
+     * created anew by the game, so they can be safely referenced.
+     */
+    private final IGameEventListener statusTracker = new IGameEventListener()
+    {
+        public void onFrame(int frame, List<? extends GameEvent> events)
+        {
+            for (int i = events.size() - 1; i >= 0; i--)
+            {
+                final GameEvent e = events.get(i);
+                if (e.type == GameEvent.Type.GAME_STATUS)
+                {
+                    lastStatus = (GameStatusEvent) e;
+                    break;
+                }
+            }
+        }
+    };
+
     /**
      * A hook listener attached to a running game and updating player controllers state
      * from the game thread. This ensures we have synchronous updates in the game and
@@ -101,16 +159,38 @@ final class GameContext
             /*
              * Apply pending controller updates.
              */
+            final List<PlayerHandle> handles = roster;
             synchronized (controllerUpdates)
             {
-                for (PlayerHandle ph : players.values())
+                for (int i = 0; i < handles.size(); i++)
                 {
-                    ph.controller.update(controllerUpdates.remove(ph.playerID));
+                    final PlayerHandle ph = handles.get(i);
+                    final ControllerState state = controllerUpdates.remove(ph.playerID);
+                    if (state != null) updatesApplied.incrementAndGet();
+                    ph.controller.update(state);
                 }
             }
         }
     };
 
+    /**
+     * Measures frame processing time (excluding the wait for the frame's start).
+     */
+    private final IFrameListener tickTimer = new IFrameListener()
+    {
+        private long frameStart;
+
+        public void preFrame(int frame)
+        {
+            frameStart = System.nanoTime();
+        }
+
+        public void postFrame(int frame)
+        {
+            tickTimes.add(System.nanoTime() - frameStart);
+        }
+    };
+
     /*
      * 
      */
@@ -139,7 +219,9 @@ final class GameContext
         }
 
         this.game.addListener(frameDataBroadcaster);
+        this.game.addListener(statusTracker);
         this.game.addListener(controllersUpdater);
+        this.game.addListener(tickTimer);
         this.thread = new GameThread(this);
         this.thread.start();
     }
@@ -160,11 +242,88 @@ final class GameContext
         this.listeners.add(l);
     }
 
+    /**
+     * Set the name of the management bean registered for this context (unregistered
+     * in {@link #dispose()}).
+     */
+    void setManagementName(ObjectName name)
+    {
+        this.managementName = name;
+    }
+
+    /**
+     * Record the size of a frame broadcast to clients. Invoked from the game thread.
+     */
+    void frameSent(int bytes)
+    {
+        frameBytes.add(bytes);
+    }
+
+    /**
+     * @return Frame processing times of recent frames, in nanoseconds.
+     */
+    public SampleWindow getTickTimes()
+    {
+        return tickTimes;
+    }
+
+    /**
+     * @return Sizes of recently broadcast frames, in bytes.
+     */
+    public SampleWindow getFrameBytes()
+    {
+        return frameBytes;
+    }
+
+    /**
+     * @return Number of controller updates applied to players.
+     */
+    public long getControllerUpdatesApplied()
+    {
+        return updatesApplied.get();
+    }
+
+    /**
+     * @return Number of controller updates overwritten before they could be applied.
+     */
+    public long getControllerUpdatesDropped()
+    {
+        return updatesDropped.get();
+    }
+
+    /**
+     * @return The most recent status event from the game or <code>null</code> if none.
+     */
+    public GameStatusEvent getLastStatus()
+    {
+        return lastStatus;
+    }
+
+    /**
+     * @return An immutable snapshot of players attached to this game. Safe to call from
+     *         any thread, never blocks.
+     */
+    public List<PlayerHandle> getPlayers()
+    {
+        return roster;
+    }
+
+    /**
+     * @return Number of players attached to this game.
+     */
+    public int getPlayerCount()
+    {
+        return roster.size();
+    }
+
     /**
      * Destroy the game and all associated resources.
      */
     public void dispose()
     {
+        ManagementBeans.unregister(managementName);
+        managementName = null;
+
         try
         {
             game.interrupt();
@@ -178,7 +337,8 @@ final class GameContext
     }
 
     /**
-     * Return the player handle of an existing (or new) player.
+     * Return the player handle of an existing (or new) player. New players join the game
+     * at the start of the next frame, this method does not wait for the game loop.
      */
     public PlayerHandle getOrCreatePlayer(String ip, String playerName)
     {
@@ -188,25 +348,57 @@ final class GameContext
             PlayerHandle playerHandle = players.get(address);
             if (playerHandle == null)
             {
-                if (game.hasPlayer(playerName))
+                playerHandle = new PlayerHandle(playerIdGenerator.incrementAndGet(),
+                    getHandle().gameID, playerName);
+                playerHandle.address = ip;
+
+                try
+                {
+                    game.requestJoin(new Player(playerName, playerHandle.controller));
+                }
+                catch (IllegalArgumentException e)
                 {
                     throw new FailureResponseException("This game already has"
                         + " a player named: " + playerName);
                 }
 
-                playerHandle = new PlayerHandle(playerIdGenerator.incrementAndGet(),
-                    getHandle().gameID, playerName);
-                playerHandle.address = ip;
-
-                game.addPlayer(new Player(playerName, playerHandle.controller));
                 players.put(address, playerHandle);
                 playersByID.put(playerHandle.playerID, playerHandle);
+                roster = ImmutableList.copyOf(playersByID.values());
             }
 
             return playerHandle;
         }
     }
 
+    /**
+     * Remove a player from the game. The player leaves the game at the start of the next
+     * frame, this method does not wait for the game loop.
+     * 
+     * @return Returns <code>false</code> if there is no such player in this game.
+     */
+    public boolean removePlayer(int playerID)
+    {
+        synchronized (this)
+        {
+            final PlayerHandle playerHandle = playersByID.remove(playerID);
+            if (playerHandle == null)
+            {
+                return false;
+            }
+
+            players.remove(new PlayerAddress(playerHandle.address, playerHandle.playerName));
+            roster = ImmutableList.copyOf(playersByID.values());
+            game.requestLeave(playerHandle.playerName);
+        }
+
+        synchronized (controllerUpdates)
+        {
+            controllerUpdates.remove(playerID);
+        }
+        return true;
+    }
+
     /**
      * Return the player handle associated with the given ID.
      */
@@ -235,12 +427,27 @@ final class GameContext
 
     /**
      * Update controller state of a given player in the subsequent frame.
+     * 
+     * @param clientFrame The last frame received by the client or <code>-1</code> if
+     *            unknown.
      */
-    public void updateControllerState(int playerID, ControllerState state)
+    public void updateControllerState(int playerID, ControllerState state, int clientFrame)
     {
+        if (clientFrame >= 0)
+        {
+            final PlayerHandle ph = getPlayer(playerID);
+            if (ph != null)
+            {
+                ph.frameLag.add(Math.max(0, game.getCurrentFrame() - clientFrame));
+            }
+        }
+
         synchronized (controllerUpdates)
         {
-            controllerUpdates.put(playerID, state);
+            if (controllerUpdates.put(playerID, state) != null)
+            {
+                updatesDropped.incrementAndGet();
+            }
         }
     }
 }
@@ -0,0 +1,62 @@
+package org.jdyna.network.sockets;
+
+/**
+ * JMX management interface of a single game running on the {@link GameServer}.
+ */
+public interface GameMXBean
+{
+    /** @return Unique game identifier. */
+    int getGameID();
+
+    /** @return Game name. */
+    String getGameName();
+
+    /** @return Board name. */
+    String getBoardName();
+
+    /** @return The last fully processed frame. */
+    int getFrame();
+
+    /** @return Current frame rate. */
+    double getFrameRate();
+
+    /** Change the frame rate of the running game (zero means no delays). */
+    void setFrameRate(double framesPerSecond);
+
+    /** @return Number of players attached to the game. */
+    int getPlayers();
+
+    /** @return Number of game event listeners. */
+    int getListeners();
+
+    /** @return Median frame processing time (recent frames), in microseconds. */
+    long getTickTimeP50();
+
+    /** @return 90th percentile of frame processing time, in microseconds. */
+    long getTickTimeP90();
+
+    /** @return 99th percentile of frame processing time, in microseconds. */
+    long getTickTimeP99();
+
+    /** @return Maximum frame processing time (recent frames), in microseconds. */
+    long getTickTimeMax();
+
+    /** @return Average number of bytes broadcast per frame (recent frames). */
+    double getBytesPerFrame();
+
+    /** @return Number of controller updates applied to players. */
+    long getControllerUpdatesApplied();
+
+    /**
+     * @return Number of controller updates overwritten by a newer update before they
+     *         could be applied.
+     */
+    long getControllerUpdatesDropped();
+
+    /**
+     * Interrupt the game.
+     * 
+     * @see org.jdyna.Game#interrupt()
+     */
+    void interrupt();
+}
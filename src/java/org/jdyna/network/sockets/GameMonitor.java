@@ -0,0 +1,115 @@
+package org.jdyna.network.sockets;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jdyna.SampleWindow;
+
+/**
+ * {@link GameMXBean} implementation exposing a {@link GameContext}. All statistics are
+ * computed on demand from counters maintained by the game loop.
+ */
+final class GameMonitor implements GameMXBean
+{
+    private final GameContext context;
+
+    /*
+     * 
+     */
+    GameMonitor(GameContext context)
+    {
+        this.context = context;
+    }
+
+    public int getGameID()
+    {
+        return context.getHandle().gameID;
+    }
+
+    public String getGameName()
+    {
+        return context.getHandle().gameName;
+    }
+
+    public String getBoardName()
+    {
+        return context.getHandle().boardName;
+    }
+
+    public int getFrame()
+    {
+        return context.getGame().getCurrentFrame();
+    }
+
+    public double getFrameRate()
+    {
+        return context.getGame().getFrameRate();
+    }
+
+    public void setFrameRate(double framesPerSecond)
+    {
+        if (framesPerSecond < 0)
+        {
+            throw new IllegalArgumentException("Frame rate must be positive or zero.");
+        }
+        context.getGame().setFrameRate(framesPerSecond);
+    }
+
+    public int getPlayers()
+    {
+        return context.getPlayerCount();
+    }
+
+    public int getListeners()
+    {
+        return context.getGame().getListeners().size();
+    }
+
+    public long getTickTimeP50()
+    {
+        return tickTime(50);
+    }
+
+    public long getTickTimeP90()
+    {
+        return tickTime(90);
+    }
+
+    public long getTickTimeP99()
+    {
+        return tickTime(99);
+    }
+
+    public long getTickTimeMax()
+    {
+        return tickTime(100);
+    }
+
+    public double getBytesPerFrame()
+    {
+        return context.getFrameBytes().getMean();
+    }
+
+    public long getControllerUpdatesApplied()
+    {
+        return context.getControllerUpdatesApplied();
+    }
+
+    public long getControllerUpdatesDropped()
+    {
+        return context.getControllerUpdatesDropped();
+    }
+
+    public void interrupt()
+    {
+        context.getGame().interrupt();
+    }
+
+    /**
+     * Frame processing time percentile, in microseconds.
+     */
+    private long tickTime(double percentile)
+    {
+        final SampleWindow w = context.getTickTimes();
+        return TimeUnit.NANOSECONDS.toMicros(w.getPercentile(percentile));
+    }
+}
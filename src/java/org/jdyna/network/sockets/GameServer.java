@@ -4,6 +4,8 @@ import java.io.File;
 import java.io.IOException;
 import java.net.*;
 
+import javax.management.ObjectName;
+
 import org.apache.commons.lang.ObjectUtils;
 import org.jdyna.CmdLine;
 import org.jdyna.network.packetio.SerializablePacket;
@@ -68,6 +70,12 @@ public final class GameServer
         + DEFAULT_UDP_BROADCAST + ").")
     public int UDPBroadcastPort = DEFAULT_UDP_BROADCAST;
 
+    /**
+     * Binding port for the HTTP status listener (disabled if zero).
+     */
+    @Option(name = "-hp", aliases = "--http-port", required = false, metaVar = "port", usage = "HTTP status and metrics port (default: disabled).")
+    public int HTTPport = 0;
+
     /**
      * Binding network interface for the TCP control and UDP feedback ports.
      */
@@ -96,7 +104,23 @@ public final class GameServer
     /**
      * Shared context object (all games, their progress, etc.).
      */
-    private GameServerContext context;
+    private volatile GameServerContext context;
+
+    /**
+     * Statistics: controller packets received and junk packets dropped on the feedback
+     * port.
+     */
+    private volatile long udpPacketsReceived, junkPacketsDropped;
+
+    /**
+     * Name of the registered management bean, if any.
+     */
+    private ObjectName managementName;
+
+    /**
+     * HTTP status listener, if enabled.
+     */
+    private StatusHttpServer statusServer;
 
     /**
      * Feedback UDP socket.
@@ -121,8 +145,10 @@ public final class GameServer
                         break;
                     }
 
+                    udpPacketsReceived++;
                     if (p.getCustom1() != PacketIdentifiers.PLAYER_CONTROLLER_STATE)
                     {
+                        junkPacketsDropped++;
                         logger.warn("Junk packet received on feedback port: "
                             + p);
                         continue;
@@ -215,7 +241,7 @@ public final class GameServer
             return;
         }
 
-        gameContext.updateControllerState(s.playerID, s.state);
+        gameContext.updateControllerState(s.playerID, s.state, s.frame);
     }
     
     /**
@@ -252,7 +278,20 @@ public final class GameServer
              * Start TCP control socket listener.
              */
             tcpProcessingThread.start();
-            
+
+            /*
+             * Start HTTP status listener, if requested.
+             */
+            if (HTTPport > 0)
+            {
+                statusServer = new StatusHttpServer(this, 
+                    new InetSocketAddress(serverAddress, HTTPport));
+                statusServer.start();
+            }
+
+            managementName = ManagementBeans.register(new GameServerMonitor(this),
+                "type=GameServer,port=" + TCPport);
+
             return serverInfo;
         }
         catch (IOException e)
@@ -267,6 +306,12 @@ public final class GameServer
      */
     public void stop()
     {
+        ManagementBeans.unregister(managementName);
+        managementName = null;
+
+        if (statusServer != null) statusServer.stop();
+        statusServer = null;
+
         try
         {
             Closeables.close(tcpSocket);
@@ -286,6 +331,32 @@ public final class GameServer
         }
     }
 
+    /**
+     * @return Return the server context or <code>null</code> if not started.
+     */
+    GameServerContext getContext()
+    {
+        return context;
+    }
+
+    /**
+     * @return Return the number of packets received on the feedback port.
+     */
+    long getUdpPacketsReceived()
+    {
+        return udpPacketsReceived;
+    }
+
+    /**
+     * @return Return the number of junk datagrams and packets dropped on the feedback
+     *         port.
+     */
+    long getJunkPacketsDropped()
+    {
+        final UDPPacketListener listener = udpPacketListener;
+        return junkPacketsDropped + (listener == null ? 0 : listener.getJunkDatagrams());
+    }
+
     /**
      * Command line entry point.
      */
@@ -17,6 +17,8 @@ import org.jdyna.network.sockets.packets.CreateGameResponse;
 import org.jdyna.network.sockets.packets.FailureResponse;
 import org.jdyna.network.sockets.packets.JoinGameRequest;
 import org.jdyna.network.sockets.packets.JoinGameResponse;
+import org.jdyna.network.sockets.packets.LeaveGameRequest;
+import org.jdyna.network.sockets.packets.LeaveGameResponse;
 import org.jdyna.network.sockets.packets.ListGamesRequest;
 import org.jdyna.network.sockets.packets.ListGamesResponse;
 import org.jdyna.network.sockets.packets.ServerInfo;
@@ -160,6 +162,43 @@ public class GameServerClient
         return response.handle;
     }
 
+    /**
+     * Remove a player from a game. The player leaves the game at the start of the next
+     * frame on the server.
+     */
+    public void leaveGame(PlayerHandle playerHandle) throws IOException
+    {
+        checkConnected();
+
+        sendReceive(LeaveGameResponse.class,
+            new LeaveGameRequest(playerHandle.gameID, playerHandle.playerID));
+    }
+
+    /**
+     * Connect to a server, remove a player from a game and disconnect. Failures are only
+     * logged, the server or the game may be gone already.
+     */
+    public static void leaveGameQuietly(ServerInfo server, PlayerHandle playerHandle)
+    {
+        final GameServerClient client = new GameServerClient(server);
+        try
+        {
+            client.connect();
+            try
+            {
+                client.leaveGame(playerHandle);
+            }
+            finally
+            {
+                client.disconnect();
+            }
+        }
+        catch (IOException e)
+        {
+            logger.debug("Could not leave the game: " + playerHandle.playerName, e);
+        }
+    }
+
     /**
      * Get an existing game handle or <code>null</code> if it does not exist. 
      */
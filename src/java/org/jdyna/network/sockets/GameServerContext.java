@@ -103,6 +103,11 @@ public final class GameServerContext
      */
     private File gameStateLogDir;
 
+    /**
+     * Number of open control connections.
+     */
+    private final AtomicInteger controlConnections = new AtomicInteger();
+
     /**
      * Initialize context.
      */
@@ -232,6 +237,9 @@ public final class GameServerContext
             }
 
             gameContext.startGame();
+            gameContext.setManagementName(ManagementBeans.register(
+                new GameMonitor(gameContext), "type=Game,server="
+                    + serverInfo.TCPControlPort + ",id=" + handle.gameID));
 
             logger.info("New game [" + handle.gameID + "]: " + handle.gameName);
 
@@ -299,6 +307,49 @@ public final class GameServerContext
         }
     }
 
+    /**
+     * @return A snapshot of all active game contexts.
+     */
+    List<GameContext> getGameContexts()
+    {
+        synchronized (this)
+        {
+            return Lists.newArrayList(games.values());
+        }
+    }
+
+    /**
+     * Shared broadcaster of frame data.
+     */
+    UDPPacketEmitter getBroadcaster()
+    {
+        return udpBroadcaster;
+    }
+
+    /**
+     * Invoked by control connection handlers when they start and finish.
+     */
+    void controlConnectionOpened()
+    {
+        controlConnections.incrementAndGet();
+    }
+
+    /*
+     * @see #controlConnectionOpened()
+     */
+    void controlConnectionClosed()
+    {
+        controlConnections.decrementAndGet();
+    }
+
+    /**
+     * @return Return the number of open control connections.
+     */
+    public int getControlConnections()
+    {
+        return controlConnections.get();
+    }
+
     /**
      * Set game state logging directory or disable logging if null.
      */
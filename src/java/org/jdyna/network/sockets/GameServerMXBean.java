@@ -0,0 +1,34 @@
+package org.jdyna.network.sockets;
+
+/**
+ * JMX management interface of a running {@link GameServer}.
+ */
+public interface GameServerMXBean
+{
+    /** @return Number of active games. */
+    int getActiveGames();
+
+    /** @return Names of active games. */
+    String [] getGameNames();
+
+    /** @return Number of currently open TCP control connections. */
+    int getControlConnections();
+
+    /** @return Number of UDP packets received on the feedback port. */
+    long getUdpPacketsReceived();
+
+    /** @return Number of junk datagrams and packets dropped on the feedback port. */
+    long getJunkPacketsDropped();
+
+    /** @return Number of UDP packets broadcast to clients. */
+    long getUdpPacketsSent();
+
+    /** @return Number of bytes broadcast to clients. */
+    long getUdpBytesSent();
+
+    /**
+     * @return Ratio of bytes broadcast to bytes that would have been broadcast without
+     *         compression (lower is better).
+     */
+    double getCompressionRatio();
+}
@@ -0,0 +1,77 @@
+package org.jdyna.network.sockets;
+
+import java.util.List;
+
+/**
+ * {@link GameServerMXBean} implementation exposing a running {@link GameServer}.
+ */
+final class GameServerMonitor implements GameServerMXBean
+{
+    private final GameServer server;
+
+    /*
+     * 
+     */
+    GameServerMonitor(GameServer server)
+    {
+        this.server = server;
+    }
+
+    public int getActiveGames()
+    {
+        final GameServerContext context = server.getContext();
+        return context == null ? 0 : context.getGameHandles().size();
+    }
+
+    public String [] getGameNames()
+    {
+        final GameServerContext context = server.getContext();
+        if (context == null) return new String [0];
+
+        final List<GameHandle> handles = context.getGameHandles();
+        final String [] names = new String [handles.size()];
+        for (int i = 0; i < names.length; i++)
+        {
+            names[i] = handles.get(i).gameName;
+        }
+        return names;
+    }
+
+    public int getControlConnections()
+    {
+        final GameServerContext context = server.getContext();
+        return context == null ? 0 : context.getControlConnections();
+    }
+
+    public long getUdpPacketsReceived()
+    {
+        return server.getUdpPacketsReceived();
+    }
+
+    public long getJunkPacketsDropped()
+    {
+        return server.getJunkPacketsDropped();
+    }
+
+    public long getUdpPacketsSent()
+    {
+        final GameServerContext context = server.getContext();
+        return context == null ? 0 : context.getBroadcaster().getSentPackets();
+    }
+
+    public long getUdpBytesSent()
+    {
+        final GameServerContext context = server.getContext();
+        return context == null ? 0 : context.getBroadcaster().getSentBytes();
+    }
+
+    public double getCompressionRatio()
+    {
+        final GameServerContext context = server.getContext();
+        if (context == null) return 1;
+
+        final long uncompressed = context.getBroadcaster().getUncompressedBytes();
+        if (uncompressed == 0) return 1;
+        return context.getBroadcaster().getSentBytes() / (double) uncompressed;
+    }
+}
@@ -0,0 +1,68 @@
+package org.jdyna.network.sockets;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registration of JMX management beans in the platform MBean server. Failures are
+ * logged and otherwise ignored; management is never essential to run the server.
+ */
+final class ManagementBeans
+{
+    private final static Logger logger = LoggerFactory.getLogger(ManagementBeans.class);
+
+    /**
+     * JMX domain of all beans.
+     */
+    public final static String DOMAIN = "org.jdyna";
+
+    /*
+     * 
+     */
+    private ManagementBeans()
+    {
+        // no instances.
+    }
+
+    /**
+     * Register a bean under the given properties (<code>key=value,...</code>) in
+     * {@link #DOMAIN}. Returns the object name or <code>null</code> on failure.
+     */
+    public static ObjectName register(Object bean, String properties)
+    {
+        try
+        {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(DOMAIN + ":" + properties);
+            server.registerMBean(bean, name);
+            return name;
+        }
+        catch (Exception e)
+        {
+            logger.warn("Could not register management bean: " + properties, e);
+            return null;
+        }
+    }
+
+    /**
+     * Unregister a bean registered with {@link #register(Object, String)}.
+     */
+    public static void unregister(ObjectName name)
+    {
+        if (name == null) return;
+
+        try
+        {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+        catch (Exception e)
+        {
+            logger.debug("Could not unregister management bean: " + name, e);
+        }
+    }
+}
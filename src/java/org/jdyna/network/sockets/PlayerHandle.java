@@ -2,6 +2,8 @@ package org.jdyna.network.sockets;
 
 import java.io.Serializable;
 
+import org.jdyna.SampleWindow;
+
 /**
  * Unique player identifier, game identifier and other player-related information. Player
  * names should be unique within one game.
@@ -25,6 +27,12 @@ public final class PlayerHandle implements Serializable
      */
     transient String address;
 
+    /**
+     * Recent differences (in frames) between the server's current frame and the frame
+     * reported by the client in controller updates (only on the server side).
+     */
+    transient SampleWindow frameLag = new SampleWindow(64);
+
     /*
      * Serialization.
      */
@@ -13,6 +13,8 @@ import org.jdyna.network.sockets.packets.CreateGameResponse;
 import org.jdyna.network.sockets.packets.FailureResponse;
 import org.jdyna.network.sockets.packets.JoinGameRequest;
 import org.jdyna.network.sockets.packets.JoinGameResponse;
+import org.jdyna.network.sockets.packets.LeaveGameRequest;
+import org.jdyna.network.sockets.packets.LeaveGameResponse;
 import org.jdyna.network.sockets.packets.ListGamesRequest;
 import org.jdyna.network.sockets.packets.ListGamesResponse;
 import org.slf4j.Logger;
@@ -63,6 +65,7 @@ final class ServerControlConnectionHandler extends Thread
     public void run()
     {
         logger.info("Control connection started.");
+        context.controlConnectionOpened();
 
         try
         {
@@ -92,6 +95,10 @@ final class ServerControlConnectionHandler extends Thread
                         final JoinGameRequest req = (JoinGameRequest) o;
                         handleRequest(req);
                     }
+                    else if (o instanceof LeaveGameRequest)
+                    {
+                        handleRequest((LeaveGameRequest) o);
+                    }
                     else if (o instanceof ListGamesRequest)
                     {
                         handleRequest((ListGamesRequest) o);
@@ -116,6 +123,7 @@ final class ServerControlConnectionHandler extends Thread
         {
             if (pe != null) pe.close();
             pe = null;
+            context.controlConnectionClosed();
         }
 
         logger.info("Control connection closed.");
@@ -153,6 +161,24 @@ final class ServerControlConnectionHandler extends Thread
         send(new JoinGameResponse(player));
     }
 
+    /*
+     * 
+     */
+    private void handleRequest(LeaveGameRequest req) throws IOException
+    {
+        if (!context.hasGame(req.gameID))
+        {
+            throw new FailureResponseException("Game does not exists: " + req.gameID);
+        }
+
+        if (!context.getGameContext(req.gameID).removePlayer(req.playerID))
+        {
+            throw new FailureResponseException("No such player: " + req.playerID);
+        }
+
+        send(new LeaveGameResponse(req.playerID));
+    }
+
     /*
      * 
      */
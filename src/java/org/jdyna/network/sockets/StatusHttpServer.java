@@ -0,0 +1,435 @@
+package org.jdyna.network.sockets;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Locale;
+import java.util.Map;
+
+import org.jdyna.GameStatusEvent;
+import org.jdyna.PlayerStatus;
+import org.jdyna.SampleWindow;
+import org.jdyna.TeamStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Maps;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An embedded HTTP listener serving the server's status for monitoring tools:
+ * <ul>
+ * <li><code>/games</code> - active games, their live metrics, players and scores (JSON),</li>
+ * <li><code>/metrics</code> - the same numbers in a plain-text format suitable for
+ * scraping (Prometheus exposition format).</li>
+ * </ul>
+ * All numbers are computed on request from counters and snapshots maintained by the
+ * game loop, so serving them does not take any locks on the game loop and costs nothing
+ * when nobody is asking.
+ */
+final class StatusHttpServer
+{
+    private final static Logger logger = LoggerFactory.getLogger(StatusHttpServer.class);
+
+    private final GameServer server;
+    private final HttpServer http;
+
+    /*
+     *
+     */
+    StatusHttpServer(GameServer server, InetSocketAddress address) throws IOException
+    {
+        this.server = server;
+        this.http = HttpServer.create(address, 0);
+
+        http.createContext("/games", new HttpHandler()
+        {
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                respond(exchange, "application/json", gamesJson());
+            }
+        });
+
+        http.createContext("/metrics", new HttpHandler()
+        {
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                respond(exchange, "text/plain; version=0.0.4", metrics());
+            }
+        });
+    }
+
+    /**
+     * Start serving requests on a background thread.
+     */
+    public void start()
+    {
+        http.start();
+        logger.info("HTTP status listener bound to: " + http.getAddress());
+    }
+
+    /**
+     * Stop serving requests.
+     */
+    public void stop()
+    {
+        http.stop(0);
+    }
+
+    /**
+     * Send a response with the given body.
+     */
+    private static void respond(HttpExchange exchange, String contentType, String body)
+        throws IOException
+    {
+        try
+        {
+            final byte [] bytes = body.getBytes("UTF-8");
+            exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=UTF-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            final OutputStream os = exchange.getResponseBody();
+            os.write(bytes);
+            os.close();
+        }
+        finally
+        {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Active games as a JSON document.
+     */
+    private String gamesJson()
+    {
+        final StringBuilder b = new StringBuilder();
+        b.append("{\"games\":[");
+
+        final GameServerContext context = server.getContext();
+        if (context != null)
+        {
+            boolean first = true;
+            for (GameContext gc : context.getGameContexts())
+            {
+                if (!first) b.append(',');
+                first = false;
+                gameJson(b, gc);
+            }
+        }
+
+        b.append("]}");
+        return b.toString();
+    }
+
+    /**
+     * A single game as a JSON object.
+     */
+    private void gameJson(StringBuilder b, GameContext gc)
+    {
+        final GameMonitor m = new GameMonitor(gc);
+        final GameHandle handle = gc.getHandle();
+
+        b.append('{');
+        field(b, "id", handle.gameID).append(',');
+        field(b, "name", handle.gameName).append(',');
+        field(b, "board", handle.boardName).append(',');
+        field(b, "frame", m.getFrame()).append(',');
+        field(b, "frameRate", m.getFrameRate()).append(',');
+        b.append("\"tickTimeMicros\":{");
+        field(b, "p50", m.getTickTimeP50()).append(',');
+        field(b, "p90", m.getTickTimeP90()).append(',');
+        field(b, "p99", m.getTickTimeP99()).append(',');
+        field(b, "max", m.getTickTimeMax()).append("},");
+        field(b, "bytesPerFrame", m.getBytesPerFrame()).append(',');
+        field(b, "bytesPerSecond", m.getBytesPerFrame() * m.getFrameRate()).append(',');
+        field(b, "controllerUpdatesApplied", m.getControllerUpdatesApplied()).append(',');
+        field(b, "controllerUpdatesDropped", m.getControllerUpdatesDropped()).append(',');
+
+        b.append("\"players\":[");
+        boolean first = true;
+        for (PlayerHandle ph : gc.getPlayers())
+        {
+            if (!first) b.append(',');
+            first = false;
+
+            final long [] lag = ph.frameLag.getSorted();
+            b.append('{');
+            field(b, "name", ph.playerName).append(',');
+            field(b, "id", ph.playerID).append(',');
+            field(b, "latencyMillisP50",
+                framesToMillis(SampleWindow.percentile(lag, 50), m.getFrameRate())).append(',');
+            field(b, "latencyMillisMax",
+                framesToMillis(SampleWindow.percentile(lag, 100), m.getFrameRate()));
+            b.append('}');
+        }
+        b.append("],");
+
+        b.append("\"scores\":[");
+        final GameStatusEvent status = gc.getLastStatus();
+        if (status != null)
+        {
+            first = true;
+            for (PlayerStatus ps : status.stats)
+            {
+                if (!first) b.append(',');
+                first = false;
+
+                b.append('{');
+                field(b, "name", ps.getPlayerName()).append(',');
+                field(b, "kills", ps.getKilledEnemies()).append(',');
+                field(b, "lives", ps.getLivesLeft()).append(',');
+                field(b, "dead", ps.isDead()).append(',');
+                field(b, "immortal", ps.isImmortal()).append(',');
+                field(b, "deathFrame", ps.getDeathFrame());
+                b.append('}');
+            }
+        }
+        b.append("],");
+
+        b.append("\"teams\":[");
+        if (status != null)
+        {
+            first = true;
+            for (TeamStatus ts : status.teamStats)
+            {
+                if (!first) b.append(',');
+                first = false;
+
+                b.append('{');
+                field(b, "name", ts.getTeamName()).append(',');
+                field(b, "kills", ts.getKilledEnemies()).append(',');
+                field(b, "lives", ts.getLivesLeft()).append(',');
+                field(b, "playersLeft", ts.getPlayersLeft()).append(',');
+                field(b, "playersTotal", ts.getPlayersTotal());
+                b.append('}');
+            }
+        }
+        b.append("]}");
+    }
+
+    /**
+     * Server and game metrics in Prometheus exposition format.
+     */
+    private String metrics()
+    {
+        final Exposition e = new Exposition();
+        final GameServerMonitor s = new GameServerMonitor(server);
+
+        e.gauge("jdyna_server_games", "Active games.", "", s.getActiveGames());
+        e.gauge("jdyna_server_control_connections", "Open control connections.", "",
+            s.getControlConnections());
+        e.counter("jdyna_server_udp_packets_received_total", "UDP packets received.", "",
+            s.getUdpPacketsReceived());
+        e.counter("jdyna_server_junk_packets_dropped_total",
+            "Received packets that could not be decoded.", "", s.getJunkPacketsDropped());
+        e.counter("jdyna_server_udp_packets_sent_total", "UDP packets sent.", "",
+            s.getUdpPacketsSent());
+        e.counter("jdyna_server_udp_bytes_sent_total", "UDP bytes sent.", "",
+            s.getUdpBytesSent());
+        e.gauge("jdyna_server_compression_ratio",
+            "Compressed to uncompressed size of sent game state.", "",
+            s.getCompressionRatio());
+
+        final GameServerContext context = server.getContext();
+        if (context == null) return e.toString();
+
+        for (GameContext gc : context.getGameContexts())
+        {
+            final GameMonitor m = new GameMonitor(gc);
+            final String game = "game=\"" + label(gc.getHandle().gameName)
+                + "\",id=\"" + gc.getHandle().gameID + "\"";
+
+            e.gauge("jdyna_game_frame", "Current frame.", game, m.getFrame());
+            e.gauge("jdyna_game_frame_rate", "Configured frames per second.", game,
+                m.getFrameRate());
+            e.gauge("jdyna_game_players", "Players in the game.", game, m.getPlayers());
+            e.gauge("jdyna_game_tick_micros_p50", "Median game tick time over recent frames.",
+                game, m.getTickTimeP50());
+            e.gauge("jdyna_game_tick_micros_p90",
+                "90th percentile of game tick time over recent frames.", game,
+                m.getTickTimeP90());
+            e.gauge("jdyna_game_tick_micros_p99",
+                "99th percentile of game tick time over recent frames.", game,
+                m.getTickTimeP99());
+            e.gauge("jdyna_game_tick_micros_max", "Longest game tick time over recent frames.",
+                game, m.getTickTimeMax());
+            e.gauge("jdyna_game_bytes_per_frame", "Average bytes sent per frame.", game,
+                m.getBytesPerFrame());
+            e.gauge("jdyna_game_bytes_per_second", "Average bytes sent per second.", game,
+                m.getBytesPerFrame() * m.getFrameRate());
+            e.counter("jdyna_game_controller_updates_applied_total",
+                "Controller updates applied to players.", game,
+                m.getControllerUpdatesApplied());
+            e.counter("jdyna_game_controller_updates_dropped_total",
+                "Controller updates overwritten before they could be applied.", game,
+                m.getControllerUpdatesDropped());
+
+            for (PlayerHandle ph : gc.getPlayers())
+            {
+                final String player = game + ",player=\"" + label(ph.playerName) + "\"";
+                final long [] lag = ph.frameLag.getSorted();
+                e.gauge("jdyna_player_latency_millis_p50",
+                    "Median player latency over recent controller updates.", player,
+                    framesToMillis(SampleWindow.percentile(lag, 50), m.getFrameRate()));
+                e.gauge("jdyna_player_latency_millis_max",
+                    "Longest player latency over recent controller updates.", player,
+                    framesToMillis(SampleWindow.percentile(lag, 100), m.getFrameRate()));
+            }
+
+            final GameStatusEvent status = gc.getLastStatus();
+            if (status != null)
+            {
+                for (PlayerStatus ps : status.stats)
+                {
+                    final String player = game + ",player=\"" + label(ps.getPlayerName()) + "\"";
+                    e.gauge("jdyna_player_kills", "Enemies killed by the player.", player,
+                        ps.getKilledEnemies());
+                    e.gauge("jdyna_player_lives", "Lives the player has left.", player,
+                        ps.getLivesLeft());
+                    e.gauge("jdyna_player_dead", "1 if the player is dead, 0 otherwise.",
+                        player, ps.isDead() ? 1 : 0);
+                }
+            }
+        }
+
+        return e.toString();
+    }
+
+    /**
+     * Convert a frame count to milliseconds at the given frame rate.
+     */
+    private static double framesToMillis(long frames, double frameRate)
+    {
+        return frameRate > 0 ? frames * 1000 / frameRate : 0;
+    }
+
+    /**
+     * Samples grouped by metric, each metric preceded by its <code>HELP</code> and
+     * <code>TYPE</code> lines (the exposition format requires all samples of a metric to
+     * be in one group, while we collect them game by game).
+     */
+    private static final class Exposition
+    {
+        private final Map<String, StringBuilder> metrics = Maps.newLinkedHashMap();
+
+        /*
+         *
+         */
+        void gauge(String name, String help, String labels, double value)
+        {
+            sample(name, "gauge", help, labels, value);
+        }
+
+        /*
+         *
+         */
+        void counter(String name, String help, String labels, long value)
+        {
+            sample(name, "counter", help, labels, value);
+        }
+
+        /*
+         *
+         */
+        private void sample(String name, String type, String help, String labels,
+            double value)
+        {
+            StringBuilder b = metrics.get(name);
+            if (b == null)
+            {
+                b = new StringBuilder();
+                b.append("# HELP ").append(name).append(' ').append(help).append('\n');
+                b.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+                metrics.put(name, b);
+            }
+
+            b.append(name);
+            if (labels.length() > 0) b.append('{').append(labels).append('}');
+            b.append(' ');
+            if (value == Math.rint(value) && !Double.isInfinite(value))
+                b.append((long) value);
+            else
+                b.append(String.format(Locale.ENGLISH, "%.3f", value));
+            b.append('\n');
+        }
+
+        /*
+         *
+         */
+        @Override
+        public String toString()
+        {
+            final StringBuilder b = new StringBuilder();
+            for (StringBuilder metric : metrics.values())
+            {
+                b.append(metric);
+            }
+            return b.toString();
+        }
+    }
+
+    /**
+     * Escape a label value.
+     */
+    private static String label(String value)
+    {
+        if (value == null) return "";
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /*
+     *
+     */
+    private static StringBuilder field(StringBuilder b, String name, Object value)
+    {
+        b.append('"').append(name).append("\":");
+        if (value == null)
+        {
+            b.append("null");
+        }
+        else if (value instanceof Number || value instanceof Boolean)
+        {
+            if (value instanceof Double)
+            {
+                b.append(String.format(Locale.ENGLISH, "%.3f", (Double) value));
+            }
+            else
+            {
+                b.append(value);
+            }
+        }
+        else
+        {
+            json(b, value.toString());
+        }
+        return b;
+    }
+
+    /**
+     * Append a quoted and escaped JSON string.
+     */
+    private static void json(StringBuilder b, String value)
+    {
+        b.append('"');
+        for (int i = 0; i < value.length(); i++)
+        {
+            final char c = value.charAt(i);
+            switch (c)
+            {
+                case '"':  b.append("\\\""); break;
+                case '\\': b.append("\\\\"); break;
+                case '\n': b.append("\\n"); break;
+                case '\r': b.append("\\r"); break;
+                case '\t': b.append("\\t"); break;
+                default:
+                    if (c < 0x20)
+                        b.append(String.format("\\u%04x", (int) c));
+                    else
+                        b.append(c);
+            }
+        }
+        b.append('"');
+    }
+}
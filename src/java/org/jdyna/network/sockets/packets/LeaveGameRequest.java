@@ -0,0 +1,32 @@
+package org.jdyna.network.sockets.packets;
+
+import java.io.Serializable;
+
+/**
+ * Request to remove a player from a game. 
+ */
+public class LeaveGameRequest implements Serializable
+{
+    /** Keep the default here. */
+    private static final long serialVersionUID = 1L;
+
+    /** */
+    public int gameID;
+
+    /** */
+    public int playerID;
+
+    protected LeaveGameRequest()
+    {
+        // Serialization.
+    }
+    
+    /*
+     * 
+     */
+    public LeaveGameRequest(int gameID, int playerID)
+    {
+        this.gameID = gameID;
+        this.playerID = playerID;
+    }
+}
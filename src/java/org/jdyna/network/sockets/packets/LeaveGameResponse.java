@@ -0,0 +1,32 @@
+package org.jdyna.network.sockets.packets;
+
+import java.io.Serializable;
+
+/**
+ * Confirmation of a {@link LeaveGameRequest}. The player leaves the game at the start of
+ * the next frame.
+ */
+public class LeaveGameResponse implements Serializable
+{
+    /** Keep the default here. */
+    private static final long serialVersionUID = 1L;
+
+    /** Player ID. */
+    public int playerID;
+
+    /*
+     * 
+     */
+    protected LeaveGameResponse()
+    {
+        // For deserialization.
+    }
+
+    /*
+     * 
+     */
+    public LeaveGameResponse(int playerID)
+    {
+        this.playerID = playerID;
+    }
+}
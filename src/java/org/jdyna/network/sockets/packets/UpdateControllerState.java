@@ -1,5 +1,7 @@
 package org.jdyna.network.sockets.packets;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 import org.jdyna.ControllerState;
@@ -8,9 +10,14 @@ import org.jdyna.ControllerState;
 /**
  *  A message indicating change in the controller state.
  */
-@SuppressWarnings("serial")
 public class UpdateControllerState implements Serializable
 {
+    /**
+     * The default UID of this class before {@link #frame} was added, so that clients and
+     * servers from before and after the change can still exchange updates.
+     */
+    private static final long serialVersionUID = 6219905849362971795L;
+
     /** Game identifier. */
     public int gameID;
 
@@ -22,6 +29,12 @@ public class UpdateControllerState implements Serializable
      */
     public ControllerState state;
 
+    /**
+     * The most recent frame the client had received when it issued this update (used to
+     * estimate player latency), or <code>-1</code> if unknown.
+     */
+    public int frame = -1;
+
     /*
      * 
      */
@@ -39,4 +52,26 @@ public class UpdateControllerState implements Serializable
         this.playerID = playerID;
         this.state = state;
     }
+
+    /*
+     * 
+     */
+    public UpdateControllerState(int gameID, int playerID, ControllerState state, int frame)
+    {
+        this(gameID, playerID, state);
+        this.frame = frame;
+    }
+
+    /*
+     * Updates from older clients carry no frame number.
+     */
+    private void readObject(ObjectInputStream in) throws IOException,
+        ClassNotFoundException
+    {
+        final ObjectInputStream.GetField fields = in.readFields();
+        gameID = fields.get("gameID", 0);
+        playerID = fields.get("playerID", 0);
+        state = (ControllerState) fields.get("state", null);
+        frame = fields.get("frame", -1);
+    }
 }
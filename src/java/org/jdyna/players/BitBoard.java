@@ -0,0 +1,558 @@
+package org.jdyna.players;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import org.jdyna.Cell;
+import org.jdyna.CellType;
+import org.jdyna.GameConfiguration;
+import org.jdyna.GameStateEvent;
+
+/**
+ * A bitboard model of the arena shared by bots. Every property of cells (walls, crates,
+ * bombs, flames, bonuses, walkability) is a <i>plane</i>: a <code>long[]</code> with one
+ * bit per cell, cell <code>(x, y)</code> being bit <code>x + y * width</code>. Moving a
+ * whole plane one cell in any direction is a shift of its words, so blast rays, flood
+ * fills and walkability of the entire board take a few hundred bit operations.
+ * <p>
+ * Planes returned by getters are owned by the board and change with every
+ * {@link #update(GameStateEvent)}; bots should not modify them. Planes for results are
+ * allocated with {@link #newPlane()} and reused. All operations are allocation-free
+ * once the board knows the arena's size. Instances are not thread-safe.
+ * <p>
+ * Game states do not tell bombs' ranges, so all bombs are assumed to have the same
+ * range unless a bot which tracks players' bonuses {@link #setBombRange sets} them.
+ */
+public final class BitBoard
+{
+    /** Bits in a plane's word. */
+    private final static int WORD_BITS = 64;
+
+    /** Cells which stop flames (the flames do not enter them). */
+    private final static EnumSet<CellType> WALLS = EnumSet.of(CellType.CELL_WALL);
+
+    /** Cells which stop flames (bombing them out). */
+    private final static EnumSet<CellType> CRATES = EnumSet.of(CellType.CELL_CRATE);
+
+    /** Bonus cells of all kinds. */
+    private final static EnumSet<CellType> BONUSES = EnumSet.of(CellType.CELL_BONUS_BOMB,
+        CellType.CELL_BONUS_RANGE, CellType.CELL_BONUS_DIARRHEA,
+        CellType.CELL_BONUS_IMMORTALITY, CellType.CELL_BONUS_MAXRANGE,
+        CellType.CELL_BONUS_NO_BOMBS, CellType.CELL_BONUS_SPEED_UP,
+        CellType.CELL_BONUS_SLOW_DOWN, CellType.CELL_BONUS_CRATE_WALKING,
+        CellType.CELL_BONUS_BOMB_WALKING, CellType.CELL_BONUS_CONTROLLER_REVERSE,
+        CellType.CELL_BONUS_AHMED, CellType.CELL_BONUS_SURPRISE);
+
+    /** Range of bombs found on the board. */
+    private final int bombRange;
+
+    private int width;
+    private int height;
+    private int words;
+
+    /*
+     * Planes of the board's cells.
+     */
+    private long [] walls = new long [0];
+    private long [] crates = new long [0];
+    private long [] bombs = new long [0];
+    private long [] flames = new long [0];
+    private long [] bonuses = new long [0];
+    private long [] walkable = new long [0];
+
+    /** Ranges of bombs (indexed by cell). */
+    private int [] bombRanges = new int [0];
+
+    /*
+     * Masks of all cells and of cells outside the first and last column.
+     */
+    private long [] all = new long [0];
+    private long [] notFirstColumn = new long [0];
+    private long [] notLastColumn = new long [0];
+
+    /*
+     * Scratch planes of blasts and flood fills.
+     */
+    private long [] scratchSources = new long [0];
+    private long [] scratchRay = new long [0];
+    private long [] scratchBlast = new long [0];
+    private long [] scratchGrown = new long [0];
+    private long [] scratchShifted = new long [0];
+
+    /**
+     * Assumes bombs have the default range.
+     */
+    public BitBoard()
+    {
+        this(GameConfiguration._DEFAULT_BOMB_RANGE);
+    }
+
+    /**
+     * @param bombRange Range of bombs found on the board (see
+     *            {@link GameConfiguration#DEFAULT_BOMB_RANGE}).
+     */
+    public BitBoard(int bombRange)
+    {
+        this.bombRange = bombRange;
+    }
+
+    /**
+     * Update planes to the cells of a game state.
+     */
+    public void update(GameStateEvent event)
+    {
+        update(event.getCells());
+    }
+
+    /**
+     * Update planes to the given cells (indexed by <code>[x][y]</code>).
+     */
+    public void update(Cell [][] cells)
+    {
+        resize(cells.length, cells[0].length);
+
+        clear(walls);
+        clear(crates);
+        clear(bombs);
+        clear(flames);
+        clear(bonuses);
+        clear(walkable);
+
+        for (int x = 0; x < width; x++)
+        {
+            for (int y = 0; y < height; y++)
+            {
+                final CellType type = cells[x][y].type;
+                final int index = x + y * width;
+
+                if (WALLS.contains(type)) set(walls, index);
+                if (CRATES.contains(type)) set(crates, index);
+                if (BONUSES.contains(type)) set(bonuses, index);
+                if (type.isExplosion()) set(flames, index);
+                if (type.isWalkable()) set(walkable, index);
+                if (type == CellType.CELL_BOMB)
+                {
+                    set(bombs, index);
+                    bombRanges[index] = bombRange;
+                }
+            }
+        }
+    }
+
+    /*
+     *
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+    /*
+     *
+     */
+    public int getHeight()
+    {
+        return height;
+    }
+
+    /**
+     * @return A new, empty plane of this board's size.
+     */
+    public long [] newPlane()
+    {
+        return new long [words];
+    }
+
+    /*
+     *
+     */
+    public long [] getWalls()
+    {
+        return walls;
+    }
+
+    /**
+     * @return Solid crates (crates being bombed out are neither crates nor walkable).
+     */
+    public long [] getCrates()
+    {
+        return crates;
+    }
+
+    /*
+     *
+     */
+    public long [] getBombs()
+    {
+        return bombs;
+    }
+
+    /*
+     *
+     */
+    public long [] getFlames()
+    {
+        return flames;
+    }
+
+    /*
+     *
+     */
+    public long [] getBonuses()
+    {
+        return bonuses;
+    }
+
+    /**
+     * @return Cells players can walk on (flames are walkable, although not safe).
+     */
+    public long [] getWalkable()
+    {
+        return walkable;
+    }
+
+    /**
+     * @return Range of the bomb in a cell (undefined if there is no bomb there).
+     */
+    public int getBombRange(int x, int y)
+    {
+        return bombRanges[x + y * width];
+    }
+
+    /**
+     * Set the range of the bomb in a cell until the next update.
+     */
+    public void setBombRange(int x, int y, int range)
+    {
+        bombRanges[x + y * width] = range;
+    }
+
+    /**
+     * @return <code>true</code> if the cell's bit is set in the plane.
+     */
+    public boolean get(long [] plane, int x, int y)
+    {
+        final int index = x + y * width;
+        return (plane[index / WORD_BITS] & (1L << index)) != 0;
+    }
+
+    /**
+     * Set the cell's bit in the plane.
+     */
+    public void set(long [] plane, int x, int y)
+    {
+        set(plane, x + y * width);
+    }
+
+    /**
+     * Cells reached by the flames of a bomb of the given range placed at
+     * <code>(x, y)</code> are added to <code>result</code>. Flames stop at walls and
+     * at the first crate in each direction (the crate is included), as in the game.
+     * Other bombs are not set off.
+     */
+    public void blast(int x, int y, int range, long [] result)
+    {
+        clear(scratchSources);
+        set(scratchSources, x + y * width);
+        ray(scratchSources, range, result);
+    }
+
+    /**
+     * Cells reached by the flames of all bombs in <code>sources</code> (a subset of
+     * {@link #getBombs()}, each with its own range) are added to <code>result</code>.
+     * Other bombs are not set off.
+     */
+    public void blast(long [] sources, long [] result)
+    {
+        /*
+         * Rays of bombs with equal ranges are cast together: pick the range of any
+         * remaining bomb, collect all bombs of that range and cast their rays.
+         */
+        copy(sources, scratchBlast);
+        and(scratchBlast, bombs);
+        for (int word = 0; word < words; word++)
+        {
+            while (scratchBlast[word] != 0)
+            {
+                final int index = word * WORD_BITS
+                    + Long.numberOfTrailingZeros(scratchBlast[word]);
+                final int range = bombRanges[index];
+
+                clear(scratchSources);
+                for (int w = word; w < words; w++)
+                {
+                    long bits = scratchBlast[w];
+                    while (bits != 0)
+                    {
+                        final long lowest = bits & -bits;
+                        bits ^= lowest;
+                        if (bombRanges[w * WORD_BITS + Long.numberOfTrailingZeros(lowest)] == range)
+                        {
+                            scratchSources[w] |= lowest;
+                        }
+                    }
+                }
+
+                andNot(scratchBlast, scratchSources);
+                ray(scratchSources, range, result);
+            }
+        }
+    }
+
+    /**
+     * Like {@link #blast(long[], long[])}, but bombs reached by flames are set off too
+     * (chain reactions). The timing of explosions is not modeled: crates bombed out by
+     * one bomb still stop flames of the others.
+     *
+     * @return The number of bombs which explode.
+     */
+    public int chainBlast(long [] sources, long [] result)
+    {
+        final long [] exploding = scratchGrown;
+        copy(sources, exploding);
+        and(exploding, bombs);
+
+        final long [] flamed = scratchShifted;
+        clear(flamed);
+        int count = count(exploding);
+        while (true)
+        {
+            blast(exploding, flamed);
+            int added = 0;
+            for (int i = 0; i < words; i++)
+            {
+                final long reached = flamed[i] & bombs[i] & ~exploding[i];
+                exploding[i] |= reached;
+                added += Long.bitCount(reached);
+            }
+            if (added == 0)
+            {
+                break;
+            }
+            count += added;
+        }
+
+        or(result, flamed);
+        return count;
+    }
+
+    /**
+     * Cells reachable from <code>seeds</code> through <code>passable</code> cells in at
+     * most <code>maxSteps</code> steps (seeds included, even if not passable) are stored
+     * in <code>result</code>.
+     *
+     * @return The number of steps after which no more cells could be reached or
+     *         <code>maxSteps</code>.
+     */
+    public int floodFill(long [] seeds, long [] passable, long [] result, int maxSteps)
+    {
+        copy(seeds, result);
+        for (int step = 0; step < maxSteps; step++)
+        {
+            neighbors(result, scratchGrown);
+            boolean changed = false;
+            for (int i = 0; i < words; i++)
+            {
+                final long grown = result[i] | (scratchGrown[i] & passable[i]);
+                changed |= grown != result[i];
+                result[i] = grown;
+            }
+            if (!changed)
+            {
+                return step;
+            }
+        }
+        return maxSteps;
+    }
+
+    /**
+     * Cells adjacent to any cell of <code>plane</code> are stored in <code>result</code>.
+     */
+    public void neighbors(long [] plane, long [] result)
+    {
+        shift(plane, 1, notFirstColumn, result);
+        shift(plane, -1, notLastColumn, scratchShifted);
+        or(result, scratchShifted);
+        shift(plane, width, all, scratchShifted);
+        or(result, scratchShifted);
+        shift(plane, -width, all, scratchShifted);
+        or(result, scratchShifted);
+    }
+
+    /**
+     * Cast rays of the given range in all directions from all cells of
+     * <code>sources</code> and add them (and the sources) to <code>result</code>.
+     */
+    private void ray(long [] sources, int range, long [] result)
+    {
+        or(result, sources);
+        ray(sources, range, 1, notFirstColumn, result);
+        ray(sources, range, -1, notLastColumn, result);
+        ray(sources, range, width, all, result);
+        ray(sources, range, -width, all, result);
+    }
+
+    /*
+     *
+     */
+    private void ray(long [] sources, int range, int bits, long [] mask, long [] result)
+    {
+        final long [] front = scratchRay;
+        copy(sources, front);
+        for (int step = 0; step < range; step++)
+        {
+            shift(front, bits, mask, front);
+            andNot(front, walls);
+            or(result, front);
+            andNot(front, crates);
+        }
+    }
+
+    /**
+     * Shift all bits of a plane by <code>bits</code> positions (towards higher cell
+     * indices if positive) and keep those in <code>mask</code>. <code>source</code>
+     * and <code>result</code> may be the same plane.
+     */
+    private void shift(long [] source, int bits, long [] mask, long [] result)
+    {
+        if (bits >= 0)
+        {
+            final int wordShift = bits / WORD_BITS;
+            final int bitShift = bits % WORD_BITS;
+            for (int i = words - 1; i >= 0; i--)
+            {
+                final int from = i - wordShift;
+                final long word = from >= 0 ? source[from] : 0;
+                final long carry = (bitShift != 0 && from - 1 >= 0)
+                    ? source[from - 1] >>> (WORD_BITS - bitShift) : 0;
+                result[i] = ((word << bitShift) | carry) & mask[i];
+            }
+        }
+        else
+        {
+            final int wordShift = -bits / WORD_BITS;
+            final int bitShift = -bits % WORD_BITS;
+            for (int i = 0; i < words; i++)
+            {
+                final int from = i + wordShift;
+                final long word = from < words ? source[from] : 0;
+                final long carry = (bitShift != 0 && from + 1 < words)
+                    ? source[from + 1] << (WORD_BITS - bitShift) : 0;
+                result[i] = ((word >>> bitShift) | carry) & mask[i];
+            }
+        }
+    }
+
+    /**
+     * Reallocate planes if the arena's size changed.
+     */
+    private void resize(int width, int height)
+    {
+        if (width == this.width && height == this.height)
+        {
+            return;
+        }
+
+        this.width = width;
+        this.height = height;
+        this.words = (width * height + WORD_BITS - 1) / WORD_BITS;
+
+        walls = newPlane();
+        crates = newPlane();
+        bombs = newPlane();
+        flames = newPlane();
+        bonuses = newPlane();
+        walkable = newPlane();
+        bombRanges = new int [width * height];
+
+        all = newPlane();
+        notFirstColumn = newPlane();
+        notLastColumn = newPlane();
+        for (int x = 0; x < width; x++)
+        {
+            for (int y = 0; y < height; y++)
+            {
+                final int index = x + y * width;
+                set(all, index);
+                if (x > 0) set(notFirstColumn, index);
+                if (x < width - 1) set(notLastColumn, index);
+            }
+        }
+
+        scratchSources = newPlane();
+        scratchRay = newPlane();
+        scratchBlast = newPlane();
+        scratchGrown = newPlane();
+        scratchShifted = newPlane();
+    }
+
+    /**
+     * @return The number of cells in a plane.
+     */
+    public static int count(long [] plane)
+    {
+        int count = 0;
+        for (long word : plane)
+        {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /*
+     *
+     */
+    public static void clear(long [] plane)
+    {
+        Arrays.fill(plane, 0L);
+    }
+
+    /*
+     *
+     */
+    public static void copy(long [] source, long [] result)
+    {
+        System.arraycopy(source, 0, result, 0, source.length);
+    }
+
+    /*
+     *
+     */
+    public static void and(long [] result, long [] plane)
+    {
+        for (int i = 0; i < result.length; i++)
+        {
+            result[i] &= plane[i];
+        }
+    }
+
+    /*
+     *
+     */
+    public static void or(long [] result, long [] plane)
+    {
+        for (int i = 0; i < result.length; i++)
+        {
+            result[i] |= plane[i];
+        }
+    }
+
+    /*
+     *
+     */
+    public static void andNot(long [] result, long [] plane)
+    {
+        for (int i = 0; i < result.length; i++)
+        {
+            result[i] &= ~plane[i];
+        }
+    }
+
+    /*
+     *
+     */
+    private static void set(long [] plane, int index)
+    {
+        plane[index / WORD_BITS] |= 1L << index;
+    }
+}
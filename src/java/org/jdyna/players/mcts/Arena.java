@@ -0,0 +1,703 @@
+package org.jdyna.players.mcts;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.Map;
+
+import org.jdyna.BoardInfo;
+import org.jdyna.Cell;
+import org.jdyna.CellType;
+import org.jdyna.Constants;
+import org.jdyna.GameConfiguration;
+import org.jdyna.GameStateEvent;
+import org.jdyna.IPlayerSprite;
+import org.jdyna.ISprite;
+
+import com.google.common.collect.Maps;
+
+/**
+ * A compact, copyable forward model of the arena. Cells and players are kept in flat
+ * arrays (cells numbered <code>x + y * width</code>), so a copy is a handful of
+ * {@link System#arraycopy} calls and a simulated frame allocates nothing.
+ * <p>
+ * {@link #step(int[])} follows the rules of {@link org.jdyna.Game}: cell animations and
+ * bomb fuses are advanced first (explosions propagate as in
+ * {@link org.jdyna.BoardUtilities}), then players move (with the same easing around
+ * corners), drop bombs, die in flames and collect bonuses. Explosions of all shapes are
+ * a single kind of cell here. Bonuses other than extra bombs and range are consumed
+ * without effect and the dead stay dead.
+ * <p>
+ * {@link #update(int, GameStateEvent, String)} takes the state from a game event. Game states
+ * do not tell who dropped a bomb and when a player dropped its last one; these are
+ * inferred from bombs appearing under players. Instances are not thread-safe.
+ */
+final class Arena
+{
+    /*
+     * Kinds of cells.
+     */
+    final static byte EMPTY = 0;
+    final static byte WALL = 1;
+    final static byte CRATE = 2;
+    final static byte CRATE_OUT = 3;
+    final static byte BOMB = 4;
+    final static byte FLAME = 5;
+    final static byte BONUS_BOMB = 6;
+    final static byte BONUS_RANGE = 7;
+    final static byte BONUS_OTHER = 8;
+
+    /*
+     * Actions (directions and bomb drops). Actions from {@link #BOMB_ACTION} on drop a
+     * bomb and move in the direction of <code>action - BOMB_ACTION</code>.
+     */
+    final static int STAY = 0;
+    final static int LEFT = 1;
+    final static int RIGHT = 2;
+    final static int UP = 3;
+    final static int DOWN = 4;
+    final static int BOMB_ACTION = 5;
+    final static int ACTIONS = 10;
+
+    /**
+     * Frames of explosion and crate animations (the same as in {@link CellType}, where
+     * they are not public).
+     */
+    final static int ANIMATION_FRAMES = 7 * 2;
+
+    /** The game's configuration of bombs. */
+    private final int fuseFrames;
+    private final int defaultRange;
+
+    final int width;
+    final int height;
+    final int cellSize;
+
+    /** The frame of the state. */
+    int frame;
+
+    /*
+     * Cells: kinds, frames animations end in, bomb fuses, ranges and owners.
+     */
+    final byte [] kinds;
+    private final int [] expires;
+    private final int [] fuses;
+    private final int [] ranges;
+    private final byte [] owners;
+
+    /** Bombs (in no particular order) and animated cells. */
+    private final int [] bombs;
+    private int bombsCount;
+    private final int [] animated;
+    private final boolean [] isAnimated;
+    private int animatedCount;
+
+    /** Crates hit by the current frame's explosions. */
+    private final int [] hitCrates;
+    private final byte [] hitCrateOwners;
+    private int hitCratesCount;
+
+    /*
+     * Players (the one we play for is at {@link #me}).
+     */
+    int players;
+    int me = -1;
+    final int [] xs;
+    final int [] ys;
+    final boolean [] dead;
+    private final int [] bombCounts;
+    private final int [] bombRanges;
+    private final int [] speeds;
+    private final int [] immortalityEnds;
+    private final int [] lastBombs;
+
+    /** Crates burnt by players' bombs since the last update. */
+    final int [] burntCrates;
+
+    /*
+     * Tracking of players between updates: the frames players joined in and dropped
+     * their last bomb in (by name).
+     */
+    private final Map<String, Integer> joinedFrames = Maps.newHashMap();
+    private final Map<String, Integer> lastBombFrames = Maps.newHashMap();
+
+    /*
+     *
+     */
+    Arena(BoardInfo boardInfo, GameConfiguration conf)
+    {
+        this(boardInfo.gridSize.width, boardInfo.gridSize.height, boardInfo.cellSize,
+            conf.DEFAULT_FUSE_FRAMES, conf.DEFAULT_BOMB_RANGE);
+    }
+
+    /*
+     *
+     */
+    private Arena(int width, int height, int cellSize, int fuseFrames, int defaultRange)
+    {
+        this.width = width;
+        this.height = height;
+        this.cellSize = cellSize;
+        this.fuseFrames = fuseFrames;
+        this.defaultRange = defaultRange;
+
+        final int cells = width * height;
+        kinds = new byte [cells];
+        expires = new int [cells];
+        fuses = new int [cells];
+        ranges = new int [cells];
+        owners = new byte [cells];
+        bombs = new int [cells];
+        animated = new int [cells];
+        isAnimated = new boolean [cells];
+        hitCrates = new int [4 * cells];
+        hitCrateOwners = new byte [4 * cells];
+
+        final int maxPlayers = ISprite.Type.getPlayerSprites().length * 4;
+        xs = new int [maxPlayers];
+        ys = new int [maxPlayers];
+        dead = new boolean [maxPlayers];
+        bombCounts = new int [maxPlayers];
+        bombRanges = new int [maxPlayers];
+        speeds = new int [maxPlayers];
+        immortalityEnds = new int [maxPlayers];
+        lastBombs = new int [maxPlayers];
+        burntCrates = new int [maxPlayers];
+    }
+
+    /**
+     * Create an arena of the same size and rules (to be filled with
+     * {@link #copyFrom(Arena)}).
+     */
+    Arena newCopy()
+    {
+        final Arena copy = new Arena(width, height, cellSize, fuseFrames, defaultRange);
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    /**
+     * Copy the state of another arena of the same size.
+     */
+    void copyFrom(Arena other)
+    {
+        final int cells = kinds.length;
+        frame = other.frame;
+        System.arraycopy(other.kinds, 0, kinds, 0, cells);
+        System.arraycopy(other.expires, 0, expires, 0, cells);
+        System.arraycopy(other.fuses, 0, fuses, 0, cells);
+        System.arraycopy(other.ranges, 0, ranges, 0, cells);
+        System.arraycopy(other.owners, 0, owners, 0, cells);
+        System.arraycopy(other.isAnimated, 0, isAnimated, 0, cells);
+        bombsCount = other.bombsCount;
+        System.arraycopy(other.bombs, 0, bombs, 0, bombsCount);
+        animatedCount = other.animatedCount;
+        System.arraycopy(other.animated, 0, animated, 0, animatedCount);
+
+        players = other.players;
+        me = other.me;
+        System.arraycopy(other.xs, 0, xs, 0, players);
+        System.arraycopy(other.ys, 0, ys, 0, players);
+        System.arraycopy(other.dead, 0, dead, 0, players);
+        System.arraycopy(other.bombCounts, 0, bombCounts, 0, players);
+        System.arraycopy(other.bombRanges, 0, bombRanges, 0, players);
+        System.arraycopy(other.speeds, 0, speeds, 0, players);
+        System.arraycopy(other.immortalityEnds, 0, immortalityEnds, 0, players);
+        System.arraycopy(other.lastBombs, 0, lastBombs, 0, players);
+        System.arraycopy(other.burntCrates, 0, burntCrates, 0, players);
+    }
+
+    /**
+     * Take the state of the arena from a game event of the given frame.
+     *
+     * @param name The name of the player we play for (or <code>null</code>).
+     */
+    void update(int frame, GameStateEvent event, String name)
+    {
+        final List<? extends IPlayerSprite> sprites = event.getPlayers();
+        players = Math.min(sprites.size(), xs.length);
+        me = -1;
+        for (int i = 0; i < players; i++)
+        {
+            final IPlayerSprite p = sprites.get(i);
+            final Point position = p.getPosition();
+            if (!joinedFrames.containsKey(p.getName()))
+            {
+                joinedFrames.put(p.getName(), frame);
+            }
+            if (p.getName().equals(name))
+            {
+                me = i;
+            }
+
+            xs[i] = position.x;
+            ys[i] = position.y;
+            dead[i] = p.isDead();
+            bombCounts[i] = p.getBombCount();
+            bombRanges[i] = p.getBombRange();
+            burntCrates[i] = 0;
+
+            speeds[i] = Constants.DEFAULT_PLAYER_SPEED;
+            if (p.getSpeedUpEndsAtFrame() > frame)
+            {
+                speeds[i] = (int) (1.5f * Constants.DEFAULT_PLAYER_SPEED);
+            }
+            else if (p.getSlowDownEndsAtFrame() > frame)
+            {
+                speeds[i] = (int) (0.5f * Constants.DEFAULT_PLAYER_SPEED);
+            }
+
+            /*
+             * Players count frames since they joined and are immortal until their
+             * counter reaches the end of immortality.
+             */
+            immortalityEnds[i] = (p.isImmortal()
+                ? p.getImmortalityEndsAtFrame() + joinedFrames.get(p.getName()) - 1
+                : Integer.MIN_VALUE);
+        }
+
+        final Cell [][] cells = event.getCells();
+        bombsCount = 0;
+        animatedCount = 0;
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                final int cell = x + y * width;
+                final Cell c = cells[x][y];
+                final byte kind = kindOf(c.type);
+                final boolean newBomb = (kind == BOMB && kinds[cell] != BOMB);
+
+                kinds[cell] = kind;
+                isAnimated[cell] = false;
+                if (kind == FLAME || kind == CRATE_OUT)
+                {
+                    expires[cell] = frame + ANIMATION_FRAMES - c.counter;
+                    isAnimated[cell] = true;
+                    animated[animatedCount++] = cell;
+                }
+                else if (kind == BOMB)
+                {
+                    bombs[bombsCount++] = cell;
+                    updateBomb(frame, cell, c, newBomb, sprites);
+                }
+            }
+        }
+
+        for (int i = 0; i < players; i++)
+        {
+            final Integer last = lastBombFrames.get(sprites.get(i).getName());
+            lastBombs[i] = (last == null ? Integer.MIN_VALUE / 2 : last);
+        }
+        this.frame = frame;
+    }
+
+    /**
+     * Take the fuse, range and owner of a bomb from the event. Bombs' counters start at
+     * zero when they are dropped and advance with their fuses.
+     */
+    private void updateBomb(int frame, int cell, Cell c, boolean newBomb,
+        List<? extends IPlayerSprite> sprites)
+    {
+        fuses[cell] = fuseFrames - c.counter;
+        if (!newBomb)
+        {
+            return;
+        }
+
+        owners[cell] = -1;
+        ranges[cell] = defaultRange;
+        for (int i = 0; i < players; i++)
+        {
+            if (!dead[i] && gridX(i) + gridY(i) * width == cell)
+            {
+                owners[cell] = (byte) i;
+                ranges[cell] = bombRanges[i];
+                lastBombFrames.put(sprites.get(i).getName(), frame);
+            }
+        }
+    }
+
+    /**
+     * Advance the arena by one frame, players taking the given actions.
+     */
+    void step(int [] actions)
+    {
+        frame++;
+        processCells();
+        for (int i = 0; i < players; i++)
+        {
+            if (dead[i])
+            {
+                continue;
+            }
+
+            final int action = actions[i];
+            final int direction = (action >= BOMB_ACTION ? action - BOMB_ACTION : action);
+            if (direction != STAY)
+            {
+                move(i, direction);
+            }
+
+            if (action >= BOMB_ACTION && !isImmortal(i))
+            {
+                dropBomb(i);
+            }
+
+            if (!isImmortal(i))
+            {
+                collide(i);
+            }
+        }
+    }
+
+    /**
+     * End animations and explode bombs whose fuses burnt out.
+     */
+    private void processCells()
+    {
+        int j = 0;
+        for (int i = 0; i < animatedCount; i++)
+        {
+            final int cell = animated[i];
+            if (expires[cell] == frame)
+            {
+                kinds[cell] = EMPTY;
+                isAnimated[cell] = false;
+            }
+            else
+            {
+                animated[j++] = cell;
+            }
+        }
+        animatedCount = j;
+
+        hitCratesCount = 0;
+        for (int i = 0; i < bombsCount; i++)
+        {
+            final int cell = bombs[i];
+            if (kinds[cell] == BOMB && fuses[cell]-- <= 0)
+            {
+                explode(cell);
+            }
+        }
+
+        // Exploded bombs are flames now.
+        j = 0;
+        for (int i = 0; i < bombsCount; i++)
+        {
+            if (kinds[bombs[i]] == BOMB)
+            {
+                bombs[j++] = bombs[i];
+            }
+        }
+        bombsCount = j;
+
+        for (int i = 0; i < hitCratesCount; i++)
+        {
+            final int cell = hitCrates[i];
+            if (kinds[cell] == CRATE)
+            {
+                setAnimated(cell, CRATE_OUT);
+                if (hitCrateOwners[i] >= 0)
+                {
+                    burntCrates[hitCrateOwners[i]]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Explode a bomb, recursively exploding bombs in range.
+     */
+    private void explode(int cell)
+    {
+        final int x = cell % width;
+        final int y = cell / width;
+        final int range = ranges[cell];
+        final byte owner = owners[cell];
+
+        if (owner >= 0)
+        {
+            bombCounts[owner]++;
+        }
+        setAnimated(cell, FLAME);
+
+        ray(x, y, range, owner, -1, 0);
+        ray(x, y, range, owner, 1, 0);
+        ray(x, y, range, owner, 0, -1);
+        ray(x, y, range, owner, 0, 1);
+    }
+
+    /**
+     * Propagate an explosion in one direction.
+     */
+    private void ray(int x, int y, int range, byte owner, int dx, int dy)
+    {
+        int nx = x + dx;
+        int ny = y + dy;
+        for (int distance = 1; distance <= range && nx >= 0 && ny >= 0 && nx < width
+            && ny < height; distance++)
+        {
+            final int cell = nx + ny * width;
+            switch (kinds[cell])
+            {
+                case CRATE:
+                    hitCrates[hitCratesCount] = cell;
+                    hitCrateOwners[hitCratesCount++] = owner;
+                    return;
+
+                case WALL:
+                    return;
+
+                case BOMB:
+                    explode(cell);
+                    break;
+            }
+            setAnimated(cell, FLAME);
+            nx += dx;
+            ny += dy;
+        }
+    }
+
+    /*
+     *
+     */
+    private void setAnimated(int cell, byte kind)
+    {
+        kinds[cell] = kind;
+        expires[cell] = frame + ANIMATION_FRAMES;
+        if (!isAnimated[cell])
+        {
+            isAnimated[cell] = true;
+            animated[animatedCount++] = cell;
+        }
+    }
+
+    /**
+     * Drop a bomb, if the player can.
+     */
+    private void dropBomb(int i)
+    {
+        final int cell = gridX(i) + gridY(i) * width;
+        if (kinds[cell] == EMPTY && bombCounts[i] > 0
+            && lastBombs[i] + Constants.BOMB_DROP_DELAY <= frame)
+        {
+            bombCounts[i]--;
+            lastBombs[i] = frame;
+
+            kinds[cell] = BOMB;
+            fuses[cell] = fuseFrames;
+            ranges[cell] = bombRanges[i];
+            owners[cell] = (byte) i;
+            bombs[bombsCount++] = cell;
+        }
+    }
+
+    /**
+     * Kill the player in flames or collect a bonus.
+     */
+    private void collide(int i)
+    {
+        final int cell = gridX(i) + gridY(i) * width;
+        switch (kinds[cell])
+        {
+            case FLAME:
+                dead[i] = true;
+                break;
+
+            case BONUS_BOMB:
+                bombCounts[i]++;
+                kinds[cell] = EMPTY;
+                break;
+
+            case BONUS_RANGE:
+                bombRanges[i]++;
+                kinds[cell] = EMPTY;
+                break;
+
+            case BONUS_OTHER:
+                kinds[cell] = EMPTY;
+                break;
+        }
+    }
+
+    /**
+     * Move a player towards the next cell in a given direction (see
+     * <code>Game.movePlayer</code>).
+     */
+    private void move(int i, int direction)
+    {
+        final int x = gridX(i);
+        final int y = gridY(i);
+        final int tx = x + (direction == LEFT ? -1 : direction == RIGHT ? 1 : 0);
+        final int ty = y + (direction == UP ? -1 : direction == DOWN ? 1 : 0);
+
+        // Relative distance between the target cell's centerpoint and current position.
+        final int rx = tx * cellSize + cellSize / 2 - xs[i];
+        final int ry = ty * cellSize + cellSize / 2 - ys[i];
+
+        // Steps towards the target.
+        int dx = (rx < 0 ? -1 : 1) * Math.min(speeds[i], Math.abs(rx));
+        int dy = (ry < 0 ? -1 : 1) * Math.min(speeds[i], Math.abs(ry));
+
+        if (Math.max(Math.abs(rx), Math.abs(ry)) <= cellSize && !canWalkOn(i, tx, ty))
+        {
+            final int offsetX = xs[i] % cellSize;
+            final int offsetY = ys[i] % cellSize;
+
+            final boolean easingApplied;
+            switch (direction)
+            {
+                case LEFT:
+                    easingApplied = ease(i, x, y, offsetY, 0, 1, -1, 1, DOWN, 0, -1, -1, -1, UP);
+                    break;
+                case RIGHT:
+                    easingApplied = ease(i, x, y, offsetY, 0, 1, 1, 1, DOWN, 0, -1, 1, -1, UP);
+                    break;
+                case DOWN:
+                    easingApplied = ease(i, x, y, offsetX, 1, 0, 1, 1, RIGHT, -1, 0, -1, 1, LEFT);
+                    break;
+                default:
+                    easingApplied = ease(i, x, y, offsetX, 1, 0, 1, -1, RIGHT, -1, 0, -1, -1, LEFT);
+                    break;
+            }
+
+            if (easingApplied) return;
+
+            dx = 0;
+            dy = 0;
+        }
+
+        xs[i] += dx;
+        ys[i] += dy;
+    }
+
+    /**
+     * Move towards a cell from which the player can go further (see
+     * <code>Game.ease</code>).
+     */
+    private boolean ease(int i, int x, int y, int o, int x1, int y1, int x2, int y2, int d1,
+        int x3, int y3, int x4, int y4, int d2)
+    {
+        final int easeMargin = cellSize / 3;
+
+        if (o > cellSize - easeMargin && canWalkOn(i, x + x1, y + y1)
+            && canWalkOn(i, x + x2, y + y2))
+        {
+            move(i, d1);
+            return true;
+        }
+
+        if (o < easeMargin && canWalkOn(i, x + x3, y + y3) && canWalkOn(i, x + x4, y + y4))
+        {
+            move(i, d2);
+            return true;
+        }
+
+        return false;
+    }
+
+    /*
+     *
+     */
+    private boolean canWalkOn(int i, int x, int y)
+    {
+        if (x < 0 || y < 0 || x >= width || y >= height)
+        {
+            return false;
+        }
+
+        final byte kind = kinds[x + y * width];
+        return kind == EMPTY || kind == FLAME || kind >= BONUS_BOMB
+            || (kind == BOMB && isImmortal(i));
+    }
+
+    /**
+     * @return Return <code>true</code> if the player is immortal in the current frame.
+     */
+    boolean isImmortal(int i)
+    {
+        return frame < immortalityEnds[i];
+    }
+
+    /**
+     * @return Return the column of the cell under the player.
+     */
+    int gridX(int i)
+    {
+        return xs[i] / cellSize;
+    }
+
+    /**
+     * @return Return the row of the cell under the player.
+     */
+    int gridY(int i)
+    {
+        return ys[i] / cellSize;
+    }
+
+    /**
+     * @return Return <code>true</code> if the player can step on the cell next to it in
+     *         the given direction (without looking at easing).
+     */
+    boolean isOpen(int i, int direction)
+    {
+        final int x = gridX(i) + (direction == LEFT ? -1 : direction == RIGHT ? 1 : 0);
+        final int y = gridY(i) + (direction == UP ? -1 : direction == DOWN ? 1 : 0);
+        return canWalkOn(i, x, y) && kinds[x + y * width] != FLAME;
+    }
+
+    /**
+     * @return Return the number of fuse frames left of a bomb.
+     */
+    int getFuse(int x, int y)
+    {
+        return fuses[x + y * width];
+    }
+
+    /*
+     *
+     */
+    private static byte kindOf(CellType type)
+    {
+        switch (type)
+        {
+            case CELL_EMPTY:
+                return EMPTY;
+            case CELL_WALL:
+                return WALL;
+            case CELL_CRATE:
+            case CELL_RANDOM_CRATE:
+                return CRATE;
+            case CELL_CRATE_OUT:
+                return CRATE_OUT;
+            case CELL_BOMB:
+                return BOMB;
+            case CELL_BONUS_BOMB:
+                return BONUS_BOMB;
+            case CELL_BONUS_RANGE:
+                return BONUS_RANGE;
+            default:
+                return type.isExplosion() ? FLAME : BONUS_OTHER;
+        }
+    }
+
+    /**
+     * @return Return cells as a string (one character per cell, one row per line).
+     */
+    @Override
+    public String toString()
+    {
+        final char [] codes = {' ', '#', 'X', 'x', 'b', '+', '@', '*', '?'};
+        final StringBuilder b = new StringBuilder();
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                b.append(codes[kinds[x + y * width]]);
+            }
+            b.append('\n');
+        }
+        return b.toString();
+    }
+}
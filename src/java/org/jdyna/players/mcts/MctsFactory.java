@@ -0,0 +1,28 @@
+package org.jdyna.players.mcts;
+
+import org.jdyna.IPlayerController;
+import org.jdyna.IPlayerFactory;
+
+/**
+ * A player which looks ahead with Monte Carlo tree search.
+ */
+public final class MctsFactory implements IPlayerFactory
+{
+    @Override
+    public IPlayerController getController(String playerName)
+    {
+        return new MctsPlayer(playerName);
+    }
+
+    @Override
+    public String getDefaultPlayerName()
+    {
+        return "mcts";
+    }
+
+    @Override
+    public String getVendorName()
+    {
+        return "JDyna";
+    }
+}
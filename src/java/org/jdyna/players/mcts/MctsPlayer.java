@@ -0,0 +1,207 @@
+package org.jdyna.players.mcts;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+import org.jdyna.BoardInfo;
+import org.jdyna.GameConfiguration;
+import org.jdyna.GameEvent;
+import org.jdyna.GameStartEvent;
+import org.jdyna.GameStateEvent;
+import org.jdyna.IGameEventListener;
+import org.jdyna.IPlayerController;
+import org.jdyna.IThinkDeadlineAware;
+import org.jdyna.ThinkDeadline;
+
+/**
+ * A player which looks ahead with Monte Carlo tree search over a forward model of the
+ * arena ({@link Arena}). Every frame, searches run on all worker threads until the think
+ * time is up and the most visited of our first actions is taken.
+ * <p>
+ * Think time is the {@link ThinkDeadline} (less a safety margin) if the player runs with
+ * one, otherwise {@link #DEFAULT_THINK_TIME} milliseconds.
+ */
+public final class MctsPlayer implements IPlayerController, IGameEventListener,
+    IThinkDeadlineAware
+{
+    /** Think time (in milliseconds) without a deadline. */
+    public final static int DEFAULT_THINK_TIME = 20;
+
+    /** Think time left to the rest of the frame, before a deadline. */
+    private final static long DEADLINE_MARGIN = TimeUnit.MILLISECONDS.toNanos(2);
+
+    /** Worker threads shared by all players. */
+    private final static ForkJoinPool WORKERS = new ForkJoinPool(Runtime.getRuntime()
+        .availableProcessors());
+
+    /** This player's name. */
+    private final String name;
+
+    private volatile ThinkDeadline deadline;
+
+    private BoardInfo boardInfo;
+    private GameConfiguration conf;
+
+    /** The current state of the game and searches (one per worker). */
+    private Arena arena;
+    private Search [] searches;
+    private final ForkJoinTask<?> [] tasks = new ForkJoinTask<?> [WORKERS.getParallelism()];
+    private final int [] visits = new int [Arena.ACTIONS];
+
+    /** Iterations in the last frame. */
+    private volatile int iterations;
+
+    private volatile Direction direction;
+    private volatile boolean dropsBomb;
+
+    /*
+     *
+     */
+    public MctsPlayer(String name)
+    {
+        this.name = name;
+    }
+
+    /*
+     *
+     */
+    @Override
+    public void setThinkDeadline(ThinkDeadline deadline)
+    {
+        this.deadline = deadline;
+    }
+
+    /*
+     *
+     */
+    @Override
+    public void onFrame(int frame, List<? extends GameEvent> events)
+    {
+        for (GameEvent e : events)
+        {
+            if (e.type == GameEvent.Type.GAME_START)
+            {
+                final GameStartEvent gse = (GameStartEvent) e;
+                boardInfo = gse.getBoardInfo();
+                conf = gse.getConfiguration();
+                arena = null;
+            }
+
+            if (e.type == GameEvent.Type.GAME_STATE && boardInfo != null)
+            {
+                if (arena == null)
+                {
+                    arena = new Arena(boardInfo, conf);
+                    searches = new Search [tasks.length];
+                    for (int i = 0; i < searches.length; i++)
+                    {
+                        searches[i] = new Search(arena, System.nanoTime() + i);
+                    }
+                }
+
+                arena.update(frame, (GameStateEvent) e, name);
+                think();
+            }
+        }
+    }
+
+    /**
+     * Search for the best action until the think time is up.
+     */
+    private void think()
+    {
+        final int me = arena.me;
+        if (me < 0 || arena.dead[me])
+        {
+            direction = null;
+            dropsBomb = false;
+            return;
+        }
+
+        final ThinkDeadline deadline = this.deadline;
+        final long now = System.nanoTime();
+        final long end = (deadline == null
+            ? now + TimeUnit.MILLISECONDS.toNanos(DEFAULT_THINK_TIME)
+            : now + deadline.getRemainingNanos() - DEADLINE_MARGIN);
+
+        for (int i = 0; i < searches.length; i++)
+        {
+            final Search search = searches[i];
+            search.reset(arena);
+            tasks[i] = WORKERS.submit(new Runnable()
+            {
+                public void run()
+                {
+                    search.run(end);
+                }
+            });
+        }
+
+        int total = 0;
+        Arrays.fill(visits, 0);
+        for (int i = 0; i < searches.length; i++)
+        {
+            tasks[i].join();
+            searches[i].addRootVisits(visits);
+            total += searches[i].getIterations();
+        }
+        iterations = total;
+
+        int best = Arena.STAY;
+        for (int a = 0; a < visits.length; a++)
+        {
+            if (visits[a] > visits[best])
+            {
+                best = a;
+            }
+        }
+
+        dropsBomb = (best >= Arena.BOMB_ACTION);
+        direction = toDirection(dropsBomb ? best - Arena.BOMB_ACTION : best);
+    }
+
+    /*
+     *
+     */
+    private static Direction toDirection(int action)
+    {
+        switch (action)
+        {
+            case Arena.LEFT: return Direction.LEFT;
+            case Arena.RIGHT: return Direction.RIGHT;
+            case Arena.UP: return Direction.UP;
+            case Arena.DOWN: return Direction.DOWN;
+            default: return null;
+        }
+    }
+
+    /*
+     *
+     */
+    @Override
+    public Direction getCurrent()
+    {
+        return direction;
+    }
+
+    /*
+     *
+     */
+    @Override
+    public boolean dropsBomb()
+    {
+        return dropsBomb;
+    }
+
+    /**
+     * @return Return the number of search iterations (rollouts) in the last frame, on
+     *         all threads.
+     */
+    public int getIterations()
+    {
+        return iterations;
+    }
+}
@@ -0,0 +1,341 @@
+package org.jdyna.players.mcts;
+
+/**
+ * Monte Carlo tree search (UCT) over {@link Arena} states, one search per thread. The
+ * tree's nodes are our actions, each held for {@link #MACRO_FRAMES} frames (a bomb is
+ * dropped in the first one only); other players take random actions. Below the tree,
+ * all players play randomly until {@link #HORIZON_FRAMES} frames after the root, long
+ * enough for bombs dropped in the tree to go off.
+ * <p>
+ * Searches of different threads are independent (each has its own tree, copy of the
+ * arena and random generator) and their statistics of the root's actions are summed up
+ * (root parallelization), so threads never wait for each other.
+ */
+final class Search
+{
+    /** Frames an action of the tree is held for. */
+    final static int MACRO_FRAMES = 4;
+
+    /** Maximum depth of the tree (in actions). */
+    final static int MAX_DEPTH = 6;
+
+    /** Frames simulated after the root. */
+    final static int HORIZON_FRAMES = 96;
+
+    /** Exploration constant of UCB1. */
+    private final static double EXPLORATION = 0.7;
+
+    /** Probability (in 1/256) of dropping a bomb in a random action. */
+    private final static int BOMB_PROBABILITY = 24;
+
+    /**
+     * A node of the tree: the action leading to it and its statistics.
+     */
+    private final static class Node
+    {
+        final int action;
+        final Node [] children = new Node [Arena.ACTIONS];
+
+        /** Actions which looked sensible when the node was first visited. */
+        int legal = -1;
+        int expanded;
+        int visits;
+        double reward;
+
+        Node(int action)
+        {
+            this.action = action;
+        }
+    }
+
+    /** The state of the arena searched from. */
+    private Arena root;
+
+    /** The state being simulated. */
+    private final Arena sim;
+
+    /** Actions of players in a frame and in the current macro step. */
+    private final int [] actions;
+    private final int [] macroActions;
+
+    /** Nodes visited in the current iteration. */
+    private final Node [] path = new Node [MAX_DEPTH + 1];
+
+    private Node tree;
+    private long seed;
+
+    /** The number of iterations (rollouts) since the last {@link #reset(Arena)}. */
+    private int iterations;
+
+    /*
+     *
+     */
+    Search(Arena template, long seed)
+    {
+        this.sim = template.newCopy();
+        this.actions = new int [template.xs.length];
+        this.macroActions = new int [template.xs.length];
+        this.seed = (seed == 0 ? 1 : seed);
+    }
+
+    /**
+     * Start a new search from the given state (which must not change during the
+     * search).
+     */
+    void reset(Arena root)
+    {
+        this.root = root;
+        this.tree = new Node(-1);
+        this.iterations = 0;
+    }
+
+    /**
+     * Run iterations until the given time (in {@link System#nanoTime()} units), at least
+     * one.
+     */
+    void run(long endNanos)
+    {
+        do
+        {
+            iterate();
+        }
+        while (System.nanoTime() < endNanos);
+    }
+
+    /**
+     * Run a single iteration: select a path in the tree, expand it by one node, play
+     * the game out randomly and update statistics along the path.
+     */
+    double iterate()
+    {
+        sim.copyFrom(root);
+        final int me = sim.me;
+        final int end = root.frame + HORIZON_FRAMES;
+
+        Node node = tree;
+        int depth = 0;
+        path[depth++] = node;
+        while (depth <= MAX_DEPTH && !sim.dead[me])
+        {
+            if (node.legal < 0)
+            {
+                node.legal = legalActions(me);
+            }
+
+            final Node child;
+            if (Integer.bitCount(node.expanded) < Integer.bitCount(node.legal))
+            {
+                child = expand(node);
+            }
+            else
+            {
+                child = select(node);
+            }
+
+            applyMacro(me, child.action);
+            path[depth++] = child;
+            node = child;
+            if (child.visits == 0)
+            {
+                break;
+            }
+        }
+
+        while (sim.frame < end && !sim.dead[me])
+        {
+            applyMacro(me, randomAction(me));
+        }
+
+        final double reward = evaluate(me);
+        for (int i = 0; i < depth; i++)
+        {
+            path[i].visits++;
+            path[i].reward += reward;
+        }
+        iterations++;
+        return reward;
+    }
+
+    /**
+     * Play a random game out from the root (no tree), for benchmarks.
+     */
+    double rollout()
+    {
+        sim.copyFrom(root);
+        final int me = sim.me;
+        final int end = root.frame + HORIZON_FRAMES;
+        while (sim.frame < end && !sim.dead[me])
+        {
+            applyMacro(me, randomAction(me));
+        }
+        return evaluate(me);
+    }
+
+    /**
+     * Add the visits of the root's actions to the given array.
+     */
+    void addRootVisits(int [] visits)
+    {
+        for (int a = 0; a < Arena.ACTIONS; a++)
+        {
+            if (tree.children[a] != null)
+            {
+                visits[a] += tree.children[a].visits;
+            }
+        }
+    }
+
+    /**
+     * @return Return the number of iterations since the last {@link #reset(Arena)}.
+     */
+    int getIterations()
+    {
+        return iterations;
+    }
+
+    /*
+     *
+     */
+    private Node expand(Node node)
+    {
+        final int untried = node.legal & ~node.expanded;
+        int pick = nextInt(Integer.bitCount(untried));
+        int a = Integer.numberOfTrailingZeros(untried);
+        while (pick-- > 0)
+        {
+            a = Integer.numberOfTrailingZeros(untried & (-1 << (a + 1)));
+        }
+
+        node.expanded |= 1 << a;
+        return node.children[a] = new Node(a);
+    }
+
+    /*
+     *
+     */
+    private Node select(Node node)
+    {
+        final double logVisits = Math.log(node.visits + 1);
+        Node best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (Node child : node.children)
+        {
+            if (child == null)
+            {
+                continue;
+            }
+
+            final double score = child.reward / child.visits + EXPLORATION
+                * Math.sqrt(logVisits / child.visits);
+            if (score > bestScore)
+            {
+                bestScore = score;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Hold actions for a macro step: ours given, random for other players.
+     */
+    private void applyMacro(int me, int action)
+    {
+        for (int i = 0; i < sim.players; i++)
+        {
+            macroActions[i] = (i == me ? action : randomAction(i));
+        }
+
+        for (int f = 0; f < MACRO_FRAMES; f++)
+        {
+            for (int i = 0; i < sim.players; i++)
+            {
+                final int a = macroActions[i];
+                actions[i] = (f > 0 && a >= Arena.BOMB_ACTION ? a - Arena.BOMB_ACTION : a);
+            }
+            sim.step(actions);
+        }
+    }
+
+    /**
+     * @return Return a bit mask of actions moving towards open cells or staying (with
+     *         and without bombs).
+     */
+    private int legalActions(int player)
+    {
+        int mask = 1 << Arena.STAY;
+        for (int d = Arena.LEFT; d <= Arena.DOWN; d++)
+        {
+            if (sim.isOpen(player, d))
+            {
+                mask |= 1 << d;
+            }
+        }
+        return mask | (mask << Arena.BOMB_ACTION);
+    }
+
+    /**
+     * @return Return a random action: a move towards an open cell (staying if there are
+     *         none), sometimes with a bomb.
+     */
+    private int randomAction(int player)
+    {
+        final int open = legalActions(player) & ((1 << Arena.BOMB_ACTION) - 2);
+        int action = Arena.STAY;
+        if (open != 0)
+        {
+            int pick = nextInt(Integer.bitCount(open));
+            action = Integer.numberOfTrailingZeros(open);
+            while (pick-- > 0)
+            {
+                action = Integer.numberOfTrailingZeros(open & (-1 << (action + 1)));
+            }
+        }
+
+        if (nextInt(256) < BOMB_PROBABILITY)
+        {
+            action += Arena.BOMB_ACTION;
+        }
+        return action;
+    }
+
+    /**
+     * The reward of a played-out game: nothing for our death, then a little more for
+     * opponents killed and crates burnt.
+     */
+    private double evaluate(int me)
+    {
+        if (sim.dead[me])
+        {
+            return 0;
+        }
+
+        int opponents = 0;
+        int killed = 0;
+        for (int i = 0; i < sim.players; i++)
+        {
+            if (i != me && !root.dead[i])
+            {
+                opponents++;
+                if (sim.dead[i])
+                {
+                    killed++;
+                }
+            }
+        }
+
+        return 0.5 + 0.3 * killed / Math.max(1, opponents) + 0.2
+            * Math.min(4, sim.burntCrates[me]) / 4;
+    }
+
+    /**
+     * A xorshift generator (no contention, no allocation).
+     */
+    private int nextInt(int bound)
+    {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return (int) ((seed >>> 33) % bound);
+    }
+}
@@ -0,0 +1,295 @@
+package org.jdyna.players.n00b;
+
+import java.awt.Point;
+import java.util.Arrays;
+
+import org.jdyna.IPlayerController.Direction;
+
+import org.jdyna.players.n00b.state.GameState;
+import org.jdyna.players.n00b.state.Space;
+import org.jdyna.players.n00b.state.Space.SpaceType;
+
+/**
+ * Breadth-first distances from a space (the origin, usually the one occupied by n00b)
+ * to all spaces on the board. Every space is labeled with the first steps of its
+ * shortest paths from the origin, so distances from the origin's neighbors follow from
+ * a single search: a neighbor on a shortest path is one step closer, any other neighbor
+ * is one step farther (the board is bipartite and the way back leads through the
+ * origin). If the origin cannot be walked over (n00b stands on a bomb), distances from
+ * a neighbor are searched separately.
+ * <p>
+ * Spaces are numbered <code>x + y * width</code>. Distances, labels, flags of spaces and
+ * the search queue are primitive arrays reused between frames. Instances are not
+ * thread-safe.
+ */
+public final class DistanceField
+{
+    /**
+     * Distance to spaces which cannot be reached.
+     */
+    public final static int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final static Direction [] DIRECTIONS = Direction.values();
+    private final static int NONE = -1;
+
+    /*
+     * Flags of spaces.
+     */
+    private final static byte WALKABLE = 1 << 0;
+    private final static byte BONUS = 1 << 1;
+    private final static byte SAFE = 1 << 2;
+
+    private int width;
+    private int height;
+    private Point origin;
+    private int originIndex;
+
+    private byte [] flags = new byte [0];
+    private int [] queue = new int [0];
+
+    /**
+     * Distances from the origin and the first steps (bits of direction ordinals) of
+     * shortest paths leading to each space.
+     */
+    private int [] distances = new int [0];
+    private byte [] firstSteps = new byte [0];
+
+    /**
+     * Distances from the selected neighbor, if they could not be derived from labels.
+     */
+    private int [] neighborDistances = new int [0];
+
+    /**
+     * The selected first step ({@link #NONE} for the origin itself) and the way of
+     * answering queries for it.
+     */
+    private int selected = NONE;
+    private boolean derived;
+
+    /**
+     * Search distances from <code>origin</code> (grid coordinates) in the given state
+     * of the game. Queries are answered for the origin until another start is
+     * {@link #select(Direction) selected}.
+     */
+    public void compute(GameState state, Point origin)
+    {
+        this.width = state.getBoardWidth();
+        this.height = state.getBoardHeight();
+        this.origin = origin;
+        this.originIndex = origin.x + origin.y * width;
+
+        final int spaces = width * height;
+        if (flags.length != spaces)
+        {
+            flags = new byte [spaces];
+            queue = new int [spaces];
+            distances = new int [spaces];
+            firstSteps = new byte [spaces];
+            neighborDistances = new int [spaces];
+        }
+
+        for (int x = 0; x < width; x++)
+        {
+            for (int y = 0; y < height; y++)
+            {
+                flags[x + y * width] = flags(state.spaceAt(x, y));
+            }
+        }
+
+        search(originIndex, distances, firstSteps);
+        selected = NONE;
+    }
+
+    /**
+     * Answer queries for a start one step away from the origin in the given direction
+     * or for the origin itself if <code>firstStep</code> is <code>null</code>.
+     */
+    public void select(Direction firstStep)
+    {
+        if (firstStep == null)
+        {
+            selected = NONE;
+            return;
+        }
+
+        selected = firstStep.ordinal();
+        final int neighbor = neighbor(originIndex, selected);
+        if (neighbor == NONE)
+        {
+            throw new IllegalArgumentException("No space " + firstStep + " of " + origin);
+        }
+
+        derived = isWalkable(originIndex) && isWalkable(neighbor);
+        if (!derived)
+        {
+            search(neighbor, neighborDistances, null);
+        }
+    }
+
+    /**
+     * @return The distance from the selected start to the given space or
+     *         {@link #UNREACHABLE}.
+     */
+    public int distance(int x, int y)
+    {
+        final int index = x + y * width;
+        if (selected == NONE)
+        {
+            return distances[index];
+        }
+        if (!derived)
+        {
+            return neighborDistances[index];
+        }
+
+        final int distance = distances[index];
+        if (distance == UNREACHABLE)
+        {
+            return UNREACHABLE;
+        }
+        return (firstSteps[index] & (1 << selected)) != 0 ? distance - 1 : distance + 1;
+    }
+
+    /**
+     * @return The origin of the last search.
+     */
+    public Point getOrigin()
+    {
+        return origin;
+    }
+
+    /**
+     * @return <code>true</code> if the space holds a bonus.
+     */
+    public boolean isBonus(int x, int y)
+    {
+        return (flags[x + y * width] & BONUS) != 0;
+    }
+
+    /**
+     * @return <code>true</code> if the space is neither a wall nor a crate and no
+     *         explosions are going on or expected there.
+     */
+    public boolean isSafe(int x, int y)
+    {
+        return (flags[x + y * width] & SAFE) != 0;
+    }
+
+    /*
+     *
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+    /*
+     *
+     */
+    public int getHeight()
+    {
+        return height;
+    }
+
+    /**
+     * Breadth-first search from <code>source</code> over walkable spaces (the source
+     * itself does not have to be walkable). First steps are labeled if
+     * <code>labels</code> is not <code>null</code>.
+     */
+    private void search(int source, int [] result, byte [] labels)
+    {
+        Arrays.fill(result, UNREACHABLE);
+        result[source] = 0;
+        if (labels != null)
+        {
+            labels[source] = 0;
+        }
+
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        while (head < tail)
+        {
+            final int current = queue[head++];
+            final int distance = result[current] + 1;
+            for (int direction = 0; direction < DIRECTIONS.length; direction++)
+            {
+                final int next = neighbor(current, direction);
+                if (next == NONE || !isWalkable(next))
+                {
+                    continue;
+                }
+
+                if (result[next] == UNREACHABLE)
+                {
+                    result[next] = distance;
+                    queue[tail++] = next;
+                    if (labels != null)
+                    {
+                        labels[next] = current == source ? (byte) (1 << direction)
+                            : labels[current];
+                    }
+                }
+                else if (labels != null && result[next] == distance)
+                {
+                    // another shortest path
+                    labels[next] |= current == source ? (byte) (1 << direction)
+                        : labels[current];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Index of the neighbor in the given direction or {@link #NONE} if it is
+     *         outside the board.
+     */
+    private int neighbor(int index, int direction)
+    {
+        final int x = index % width;
+        final int y = index / width;
+        switch (DIRECTIONS[direction])
+        {
+            case LEFT:
+                return x > 0 ? index - 1 : NONE;
+            case RIGHT:
+                return x + 1 < width ? index + 1 : NONE;
+            case UP:
+                return y > 0 ? index - width : NONE;
+            default:
+                return y + 1 < height ? index + width : NONE;
+        }
+    }
+
+    /*
+     *
+     */
+    private boolean isWalkable(int index)
+    {
+        return (flags[index] & WALKABLE) != 0;
+    }
+
+    /*
+     *
+     */
+    private static byte flags(Space space)
+    {
+        byte result = 0;
+        if (space.isWalkable())
+        {
+            result |= WALKABLE;
+        }
+
+        final SpaceType type = space.getType();
+        if (type == SpaceType.BONUS_BOMB || type == SpaceType.BONUS_RANGE)
+        {
+            result |= BONUS;
+        }
+        if (type != SpaceType.CRATE && type != SpaceType.WALL && !space.isHot()
+            && space.isSafe())
+        {
+            result |= SAFE;
+        }
+        return result;
+    }
+}
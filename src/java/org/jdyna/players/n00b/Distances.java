@@ -1,12 +1,8 @@
 package org.jdyna.players.n00b;
 
 import java.awt.Point;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
-import java.util.Queue;
-import java.util.concurrent.LinkedBlockingQueue;
 
 import org.jdyna.BoardUtilities;
 import org.jdyna.IPlayerController.Direction;
@@ -23,20 +19,17 @@ import org.jdyna.players.n00b.state.Space.SpaceType;
  * <p>
  * All fields of type <code>Integer</code> can be <code>null</code>. This means that there
  * is no enemy/bonus/etc... on board.
+ * <p>
+ * Distances are looked up in a {@link DistanceField}, so the distances of all moves
+ * considered in a frame can be computed after a single search and instances can be
+ * reused between frames.
  */
 public class Distances
 {
     /**
      * Starting point.
      */
-    private final Point start;
-
-    /**
-     * Distances from {@link #start} in grid dimension.
-     */
-    private final int [][] distances;
-    private final int width;
-    private final int height;
+    private Point start;
 
     /**
      * Distance to the nearest killable enemy.
@@ -68,38 +61,47 @@ public class Distances
      */
     private int escapeRoutesCount;
 
-    private final Player me;
-    private final GameState state;
+    private Player me;
+    private GameState state;
+
+    /**
+     * Creates distances to be {@link #compute computed} later on.
+     */
+    Distances()
+    {
+    }
 
     /*
      * 
      */
     public Distances(Point start, GameState state, Player me)
+    {
+        final DistanceField field = new DistanceField();
+        field.compute(state, start);
+        compute(field, null, state, me);
+    }
+
+    /**
+     * Computes distances from a start one step away from the field's origin in the
+     * given direction (or from the origin itself if <code>firstStep</code> is
+     * <code>null</code>).
+     */
+    void compute(DistanceField field, Direction firstStep, GameState state, Player me)
     {
         this.me = me;
         this.state = state;
-        this.start = start;
-        width = state.getBoardWidth();
-        height = state.getBoardHeight();
-        distances = new int [width] [height];
-        for (int i = 0; i < width; i++)
-        {
-            Arrays.fill(distances[i], Integer.MAX_VALUE);
-        }
-        int x = start.x;
-        int y = start.y;
-
-        distances[x][y] = 0;
-        calculateDistances();
-        findClosestEnemy();
-        setDistancesToInterestingSpaces(width, height);
+        this.start = getNeighbourPointByDirection(field.getOrigin(), firstStep);
 
+        field.select(firstStep);
+        findClosestEnemy(field);
+        setDistancesToInterestingSpaces(field);
+        findClosestCrate(field);
     }
 
     /**
      * Finds the closest killable enemy.
      */
-    private void findClosestEnemy()
+    private void findClosestEnemy(DistanceField field)
     {
         List<Player> players = state.getPlayers();
         if (players == null || players.size() == 0)
@@ -108,7 +110,7 @@ public class Distances
         }
         else
         {
-            distToEnemy = Integer.MAX_VALUE;
+            int closest = DistanceField.UNREACHABLE;
 
             for (Player player : players)
             {
@@ -116,20 +118,17 @@ public class Distances
                 {
                     continue;
                 }
-                Point p = state.getPlayerSpace(player).toPoint();
+                Space s = state.getPlayerSpace(player);
 
-                int distance = distances[p.x][p.y];
-                if (distance < distToEnemy)
+                int distance = field.distance(s.x, s.y);
+                if (distance < closest)
                 {
-                    distToEnemy = distance;
+                    closest = distance;
                 }
             }
 
             // all enemies are immortal
-            if (distToEnemy == Integer.MAX_VALUE)
-            {
-                distToEnemy = null;
-            }
+            distToEnemy = (closest == DistanceField.UNREACHABLE ? null : closest);
         }
 
     }
@@ -137,60 +136,46 @@ public class Distances
     /**
      * Computes distances to the interesting spaces on the board.
      */
-    private void setDistancesToInterestingSpaces(int width, int height)
+    private void setDistancesToInterestingSpaces(DistanceField field)
     {
         distToBonus = null;
-        distToCrate = null;
         distToSafe = null;
         distToSafeIfBombPlaced = null;
         escapeRoutesCount = 0;
-        for (int x = 0; x < width; x++)
+        for (int x = 0; x < field.getWidth(); x++)
         {
-            for (int y = 0; y < height; y++)
+            for (int y = 0; y < field.getHeight(); y++)
             {
-                Space s = (state.spaceAt(x, y));
-                if (distances[x][y] == Integer.MAX_VALUE)
+                final int distance = field.distance(x, y);
+                if (distance == DistanceField.UNREACHABLE)
                 {
-                    // crate
-                    if (s.getType() == SpaceType.CRATE
-                        && noBarrierBetween(s, state.getPlayerSpace(me)))
-                    {
-                        int dist = BoardUtilities.manhattanDistance(state.getPlayerSpace(
-                            me).toPoint(), s.toPoint());
-                        if (distToCrate == null || distToCrate > dist)
-                        {
-                            distToCrate = dist;
-                        }
-                    }
                     continue;
                 }
-                if (distances[x][y] == 1)
+                if (distance == 1)
                 {
                     escapeRoutesCount++;
                 }
 
                 // bonus
-                if (s.getType() == SpaceType.BONUS_BOMB
-                    || s.getType() == SpaceType.BONUS_RANGE)
+                if (field.isBonus(x, y))
                 {
-                    if (distToBonus == null || distToBonus > distances[x][y])
+                    if (distToBonus == null || distToBonus > distance)
                     {
-                        distToBonus = distances[x][y];
+                        distToBonus = distance;
                     }
                 }
 
                 // safe
-                if (s.getType() != SpaceType.CRATE && s.getType() != SpaceType.WALL
-                    && !s.isHot() && s.isSafe())
+                if (field.isSafe(x, y))
                 {
-                    if (distToSafe == null || distToSafe > distances[x][y])
+                    if (distToSafe == null || distToSafe > distance)
                     {
-                        distToSafe = distances[x][y];
+                        distToSafe = distance;
                     }
 
                     // check if not within range of possibly placed bomb
                     boolean flag = true;
-                    if (distances[x][y] <= me.getRange())
+                    if (distance <= me.getRange())
                     {
                         if (x == start.x || y == start.y)
                         {
@@ -201,9 +186,9 @@ public class Distances
                     {
 
                         if (distToSafeIfBombPlaced == null
-                            || distToSafeIfBombPlaced > distances[x][y])
+                            || distToSafeIfBombPlaced > distance)
                         {
-                            distToSafeIfBombPlaced = distances[x][y];
+                            distToSafeIfBombPlaced = distance;
                         }
                     }
                 }
@@ -213,47 +198,41 @@ public class Distances
     }
 
     /**
-     * Calculates distances using the BFS algorithm.
+     * Finds the closest unreachable crate with no barrier between it and n00b. Such
+     * crates are in n00b's row or column, so only these are scanned.
      */
-    private void calculateDistances()
+    private void findClosestCrate(DistanceField field)
     {
-        Queue<Point> queue = new LinkedBlockingQueue<Point>();
-        queue.addAll(getNeighbours(start));
-        int count;
-        int d = 0;
-        while (!queue.isEmpty())
+        distToCrate = null;
+        final Space mySpace = state.getPlayerSpace(me);
+        for (int x = 0; x < field.getWidth(); x++)
+        {
+            checkCrate(field, state.spaceAt(x, mySpace.y), mySpace);
+        }
+        for (int y = 0; y < field.getHeight(); y++)
         {
-            d++;
-            count = queue.size();
-            for (int i = 0; i < count; i++)
+            if (y != mySpace.y)
             {
-                Point point = queue.remove();
-                if (distances[point.x][point.y] > d)
-                {
-                    distances[point.x][point.y] = d;
-                    queue.addAll(getNeighbours(point));
-                }
+                checkCrate(field, state.spaceAt(mySpace.x, y), mySpace);
             }
         }
-
     }
 
-    /**
-     * Returns a list of walkable neighbours of the given point.
+    /*
+     * 
      */
-    private List<Point> getNeighbours(Point p)
+    private void checkCrate(DistanceField field, Space s, Space mySpace)
     {
-        ArrayList<Point> ret = new ArrayList<Point>();
-        for (Direction direction : Direction.values())
+        if (s.getType() == SpaceType.CRATE
+            && field.distance(s.x, s.y) == DistanceField.UNREACHABLE
+            && noBarrierBetween(s, mySpace))
         {
-            Point pp = getNeighbourPointByDirection(p, direction);
-            if (state.isPointOutsideBoard(pp) || !state.spaceAt(pp).isWalkable())
+            int dist = BoardUtilities.manhattanDistance(mySpace.toPoint(), s.toPoint());
+            if (distToCrate == null || distToCrate > dist)
             {
-                continue;
+                distToCrate = dist;
             }
-            ret.add(pp);
         }
-        return ret;
     }
 
     /**
@@ -350,25 +329,10 @@ public class Distances
     @Override
     public String toString()
     {
-        StringBuilder builder = new StringBuilder('\n');
-        for (int i = 0; i < width; i++)
-        {
-            for (int j = 0; j < height; j++)
-            {
-                if (distances[i][j] == Integer.MAX_VALUE)
-                {
-                    builder.append("XX");
-
-                }
-                else
-                {
-                    builder.append(String.format(Locale.US, "%2d", distances[i][j]));
-                }
-                builder.append(" ");
-            }
-            builder.append('\n');
-        }
-        return builder.toString();
+        return String.format(Locale.US,
+            "start=%s enemy=%s bonus=%s crate=%s safe=%s safeIfBombPlaced=%s routes=%d",
+            start, distToEnemy, distToBonus, distToCrate, distToSafe,
+            distToSafeIfBombPlaced, escapeRoutesCount);
     }
 
     public Integer getDistToEnemy()
@@ -70,11 +70,26 @@ public class NoobPlayer implements IPlayerController, IGameEventListener
      */
     private GameConfiguration conf;
 
+    /**
+     * Distances from n00b's space, searched once per frame.
+     */
+    private final DistanceField field = new DistanceField();
+
+    /**
+     * Distances of moves considered in a frame: one for every direction and one for
+     * staying in place.
+     */
+    private final Distances [] candidates = new Distances [Direction.values().length + 1];
+
     public NoobPlayer(String name)
     {
         this.name = name;
         drops = false;
         direction = null;
+        for (int i = 0; i < candidates.length; i++)
+        {
+            candidates[i] = new Distances();
+        }
     }
 
     @Override
@@ -131,11 +146,13 @@ public class NoobPlayer implements IPlayerController, IGameEventListener
         possibleMoves.add(null);
         Point toGo = null;
         Distances dist = null;
+        field.compute(state, mySpace.toPoint());
 
         for (int i = 0; i < possibleMoves.size(); i++)
         {
             Point dest = getNeighbourPointByDirection(mySpace, possibleMoves.get(i));
-            Distances d = new Distances(dest, state, me);
+            Distances d = candidates[i];
+            d.compute(field, possibleMoves.get(i), state, me);
             int val = rateMove(dest, d);
             if (val < best)
             {
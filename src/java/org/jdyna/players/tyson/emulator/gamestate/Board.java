@@ -1,6 +1,7 @@
 package org.jdyna.players.tyson.emulator.gamestate;
 
 import java.util.List;
+import java.util.ListIterator;
 
 import org.jdyna.Cell;
 import org.jdyna.CellType;
@@ -21,6 +22,13 @@ public final class Board
     private final ExtendedCell [][] cells;
     private final List<GridCoord> bonusCells = Lists.newLinkedList();
 
+    /**
+     * Cells (numbered <code>x + y * width</code>) whose type changed during the last
+     * update.
+     */
+    private final int [] changedCells;
+    private int changedCellsCount;
+
     /**
      * @param src Source of information about cells.
      */
@@ -37,9 +45,13 @@ public final class Board
             for (int j = 0; j < height; j++)
             {
                 cells[i][j] = new ExtendedCell(src[i][j]);
+                if (isBonus(cells[i][j].getType()))
+                {
+                    bonusCells.add(new GridCoord(i, j));
+                }
             }
         }
-
+        changedCells = new int [width * height];
     }
 
     /**
@@ -154,28 +166,91 @@ public final class Board
     }
 
     /**
-     * Updates state of game board.
+     * @return Number of cells whose type changed during the last update.
+     */
+    public int getChangedCellsCount()
+    {
+        return changedCellsCount;
+    }
+
+    /**
+     * @return The <code>i</code>-th cell (numbered <code>x + y * width</code>) whose type
+     *         changed during the last update.
+     */
+    public int getChangedCell(final int i)
+    {
+        return changedCells[i];
+    }
+
+    /**
+     * Updates state of game board. Only cells whose type changed are updated and
+     * remembered as changed.
      * 
      * @param src Source of data.
      */
     void update(final Cell [][] src)
     {
+        // forget changes of the previous update
+        for (int k = 0; k < changedCellsCount; k++)
+        {
+            cells[changedCells[k] % width][changedCells[k] / width].clearTypeChanged();
+        }
+        changedCellsCount = 0;
+
         // update cells
-        bonusCells.clear();
-        for (int i = 0; i < cells.length; i++)
+        for (int i = 0; i < width; i++)
         {
-            for (int j = 0; j < cells[i].length; j++)
+            for (int j = 0; j < height; j++)
             {
-                cells[i][j].update(src[i][j]);
-                if (cells[i][j].getType() == CellType.CELL_BONUS_BOMB
-                    || cells[i][j].getType() == CellType.CELL_BONUS_RANGE)
+                final ExtendedCell cell = cells[i][j];
+                final CellType oldType = cell.getType();
+                if (oldType != src[i][j].type)
                 {
-                    bonusCells.add(new GridCoord(i, j));
+                    cell.update(src[i][j]);
+                    changedCells[changedCellsCount++] = i + j * width;
+                    if (isBonus(oldType) || isBonus(cell.getType()))
+                    {
+                        updateBonusCell(i, j, isBonus(cell.getType()));
+                    }
                 }
             }
         }
     }
 
+    /**
+     * Adds or removes a bonus cell, keeping the list ordered by columns.
+     */
+    private void updateBonusCell(final int x, final int y, final boolean bonus)
+    {
+        final ListIterator<GridCoord> i = bonusCells.listIterator();
+        while (i.hasNext())
+        {
+            final GridCoord next = i.next();
+            if (next.x == x && next.y == y)
+            {
+                if (!bonus)
+                {
+                    i.remove();
+                }
+                return;
+            }
+            if (next.x > x || (next.x == x && next.y > y))
+            {
+                i.previous();
+                break;
+            }
+        }
+        if (bonus)
+        {
+            i.add(new GridCoord(x, y));
+        }
+    }
+
+    private static boolean isBonus(final CellType type)
+    {
+        return type == CellType.CELL_BONUS_BOMB || type == CellType.CELL_BONUS_RANGE;
+    }
+
     private GridCoord leftCell(final GridCoord location)
     {
         if (location.x > 0)
@@ -11,7 +11,7 @@ import org.jdyna.CellType;
 public final class ExtendedCell
 {
     private CellType type;
-    private TypeChangedEvent typeChangedEvent;
+    private TypeChangedEvent typeChangedEvent = TypeChangedEvent.NONE;
 
     /**
      * Describes event of changing type of this cell during last update.
@@ -38,6 +38,14 @@ public final class ExtendedCell
         type = cell.type;
     }
 
+    /**
+     * Marks the type of this cell as not changed during the last update.
+     */
+    void clearTypeChanged()
+    {
+        typeChangedEvent = TypeChangedEvent.NONE;
+    }
+
     /**
      * @return type Type of cell.
      */
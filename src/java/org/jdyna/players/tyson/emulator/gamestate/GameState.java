@@ -148,6 +148,15 @@ public class GameState
         return board.getBonusCells();
     }
 
+    /**
+     * @return Number of the frame this state was last updated with. The state does not
+     *         change until it is updated with a later frame.
+     */
+    public int getFrame()
+    {
+        return lastFrame;
+    }
+
     public Collection<ExtendedPlayer> getOpponents()
     {
         return players.getOpponents();
@@ -313,7 +322,14 @@ public class GameState
      */
     public boolean isSafe(final PointCoord point, final int framesShift)
     {
-        final GridCoord grid = Utils.pixelToGrid(point);
+        return isSafe(Utils.pixelToGrid(point), framesShift);
+    }
+
+    /**
+     * @see #isSafe(PointCoord, int)
+     */
+    public boolean isSafe(final GridCoord grid, final int framesShift)
+    {
         return bombs.isSafe(grid, framesShift);
     }
 
@@ -325,7 +341,14 @@ public class GameState
      */
     public boolean isSafeWithOppAndMyBombs(final PointCoord point, final int framesShift)
     {
-        final GridCoord grid = Utils.pixelToGrid(point);
+        return isSafeWithOppAndMyBombs(Utils.pixelToGrid(point), framesShift);
+    }
+
+    /**
+     * @see #isSafeWithOppAndMyBombs(PointCoord, int)
+     */
+    public boolean isSafeWithOppAndMyBombs(final GridCoord grid, final int framesShift)
+    {
         return allPossibleBombs.isSafe(grid, framesShift);
     }
 
@@ -337,7 +360,14 @@ public class GameState
      */
     public boolean isSafeWithOppBombs(final PointCoord point, final int framesShift)
     {
-        final GridCoord grid = Utils.pixelToGrid(point);
+        return isSafeWithOppBombs(Utils.pixelToGrid(point), framesShift);
+    }
+
+    /**
+     * @see #isSafeWithOppBombs(PointCoord, int)
+     */
+    public boolean isSafeWithOppBombs(final GridCoord grid, final int framesShift)
+    {
         return opponentsPossibleBombs.isSafe(grid, framesShift);
     }
 
@@ -360,7 +390,15 @@ public class GameState
      */
     public boolean isUltimatelySafe(final PointCoord point, final int framesShift)
     {
-        return bombs.isUltimatelySafe(Utils.pixelToGrid(point), framesShift);
+        return isUltimatelySafe(Utils.pixelToGrid(point), framesShift);
+    }
+
+    /**
+     * @see #isUltimatelySafe(PointCoord, int)
+     */
+    public boolean isUltimatelySafe(final GridCoord grid, final int framesShift)
+    {
+        return bombs.isUltimatelySafe(grid, framesShift);
     }
 
     /**
@@ -371,7 +409,15 @@ public class GameState
      */
     public boolean isUltimatelySafeWithOppAndMyBombs(final PointCoord point)
     {
-        return allPossibleBombs.isUltimatelySafe(Utils.pixelToGrid(point));
+        return isUltimatelySafeWithOppAndMyBombs(Utils.pixelToGrid(point));
+    }
+
+    /**
+     * @see #isUltimatelySafeWithOppAndMyBombs(PointCoord)
+     */
+    public boolean isUltimatelySafeWithOppAndMyBombs(final GridCoord grid)
+    {
+        return allPossibleBombs.isUltimatelySafe(grid);
     }
 
     /**
@@ -382,7 +428,15 @@ public class GameState
      */
     public boolean isUltimatelySafeWithOppBombs(final PointCoord point)
     {
-        return opponentsPossibleBombs.isUltimatelySafe(Utils.pixelToGrid(point));
+        return isUltimatelySafeWithOppBombs(Utils.pixelToGrid(point));
+    }
+
+    /**
+     * @see #isUltimatelySafeWithOppBombs(PointCoord)
+     */
+    public boolean isUltimatelySafeWithOppBombs(final GridCoord grid)
+    {
+        return opponentsPossibleBombs.isUltimatelySafe(grid);
     }
 
     /**
@@ -1,65 +1,107 @@
 package org.jdyna.players.tyson.emulator.gamestate.bombs;
 
-import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
-import java.util.Map.Entry;
 
 import org.jdyna.CellType;
 import org.jdyna.GameConfiguration;
 
 import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
 import org.jdyna.players.tyson.emulator.gamestate.Board;
 import org.jdyna.players.tyson.emulator.gamestate.ExtendedPlayer;
 import org.jdyna.players.tyson.emulator.gamestate.GridCoord;
 import org.jdyna.players.tyson.emulator.gamestate.IPlayersInformationListener;
-import org.jdyna.players.tyson.emulator.gamestate.bombs.BombState.BombStatus;
 
 /**
  * <p>
  * Manages information about bombs on board. Remembers state of bombs and time of start
  * and end of their explosions.
  * </p>
- * 
+ * <p>
+ * Bombs are kept in flat arrays indexed by cell (numbered <code>x + y * width</code>).
+ * Times are absolute (counted in frames since this object was created), so bombs which
+ * did not change need no update when time passes and only the cells that changed on the
+ * board are looked at.
+ * </p>
+ *
  * @author Michał Kozłowski
  */
 public class Bombs implements IPlayersInformationListener
 {
-    // TODO: We rely on the default game setup here (Dyna Classic). 
+    // TODO: We rely on the default game setup here (Dyna Classic).
     public final static int EXPLOSION_FRAMES = 14;
     public final static int BOMB_LIFETIME = GameConfiguration._DEFAULT_FUSE_FRAMES + EXPLOSION_FRAMES;
 
-    protected final Map<GridCoord, BombState> bombs = new HashMap<GridCoord, BombState>();
-    private final ZoneSafetyUpdater zoneSafetyUpdater;
+    /*
+     * Statuses of cells.
+     */
+    final static byte NONE = 0;
+    final static byte READY = 1;
+    final static byte EXPLODED = 2;
 
     protected final GameConfiguration conf;
 
+    final int width;
+    final int height;
+
+    /** The current frame (absolute). */
+    int now;
+
+    /**
+     * Status of each cell and the (absolute) frame its state ends in: for
+     * {@link #READY} bombs the frame of explosion, for {@link #EXPLODED} bombs the
+     * frame of the end of explosion.
+     */
+    final byte [] status;
+    final int [] timers;
+    final int [] ranges;
+
+    /** Cells with bombs in no particular order and their positions in that list. */
+    final int [] bombCells;
+    private final int [] bombSlots;
+    int bombsCount;
+
+    private final ZoneSafetyUpdater zoneSafetyUpdater;
+
+    /**
+     * Changed cells already updated during the current update.
+     */
+    private final int [] updated;
+    private int updateStamp;
+
     /**
      * @param board Source of information about board.
      */
     public Bombs(final Board board, GameConfiguration conf)
     {
         this.conf = conf;
+        this.width = board.getWidth();
+        this.height = board.getHeight();
 
-        for (int i = 0; i < board.getWidth(); i++)
+        final int cells = width * height;
+        status = new byte [cells];
+        timers = new int [cells];
+        ranges = new int [cells];
+        bombCells = new int [cells];
+        bombSlots = new int [cells];
+        updated = new int [cells];
+
+        for (int i = 0; i < width; i++)
         {
-            for (int j = 0; j < board.getHeight(); j++)
+            for (int j = 0; j < height; j++)
             {
                 final CellType type = board.cellAt(i, j).getType();
                 if (type == CellType.CELL_BOMB)
                 {
-                    bombs.put(new GridCoord(i, j), new BombState(conf,
-                        conf.DEFAULT_FUSE_FRAMES, BombStatus.READY));
+                    put(i + j * width, READY, conf.DEFAULT_FUSE_FRAMES,
+                        conf.DEFAULT_BOMB_RANGE);
                 }
                 else if (type == CellType.CELL_BOOM_XY)
                 {
-                    bombs.put(new GridCoord(i, j), 
-                        new BombState(conf, EXPLOSION_FRAMES, BombStatus.EXPLODED));
+                    put(i + j * width, EXPLODED, EXPLOSION_FRAMES, conf.DEFAULT_BOMB_RANGE);
                 }
             }
         }
-        zoneSafetyUpdater = new ZoneSafetyUpdater();
+        zoneSafetyUpdater = new ZoneSafetyUpdater(this);
     }
 
     /**
@@ -69,15 +111,8 @@ public class Bombs implements IPlayersInformationListener
      */
     public boolean hasBomb(final GridCoord grid, final int framesShift)
     {
-        final BombState bs = bombs.get(grid);
-        if (bs == null)
-        {
-            return false;
-        }
-        else
-        {
-            return bombExists(bs, framesShift);
-        }
+        final int cell = cell(grid);
+        return cell >= 0 && status[cell] != NONE && bombExists(cell, framesShift);
     }
 
     /**
@@ -88,14 +123,18 @@ public class Bombs implements IPlayersInformationListener
      */
     public boolean isSafe(final GridCoord grid, final int framesShift)
     {
-        final BombState b = bombs.get(grid);
-        if (b != null && !b.isSafe(framesShift))
+        final int cell = cell(grid);
+        if (cell < 0)
+        {
+            return true;
+        }
+        if (status[cell] != NONE && !isSafe(cell, framesShift))
         {
             return false;
         }
         else
         {
-            return (zoneSafetyUpdater.isSafe(grid, framesShift));
+            return (zoneSafetyUpdater.isSafe(cell, framesShift));
         }
     }
 
@@ -106,14 +145,18 @@ public class Bombs implements IPlayersInformationListener
      */
     public boolean isUltimatelySafe(final GridCoord grid)
     {
-        final BombState b = bombs.get(grid);
-        if (b != null)
+        final int cell = cell(grid);
+        if (cell < 0)
+        {
+            return true;
+        }
+        if (status[cell] != NONE)
         {
             return false;
         }
         else
         {
-            return (zoneSafetyUpdater.isUltimatelySafe(grid));
+            return (zoneSafetyUpdater.isUltimatelySafe(cell));
         }
     }
 
@@ -125,37 +168,48 @@ public class Bombs implements IPlayersInformationListener
      */
     public boolean isUltimatelySafe(final GridCoord grid, final int framesShift)
     {
-        final BombState b = bombs.get(grid);
-        if (b != null && bombExists(b, framesShift))
+        final int cell = cell(grid);
+        if (cell < 0)
+        {
+            return true;
+        }
+        if (status[cell] != NONE && bombExists(cell, framesShift))
         {
             return false;
         }
         else
         {
-            return (zoneSafetyUpdater.isUltimatelySafe(grid, framesShift));
+            return (zoneSafetyUpdater.isUltimatelySafe(cell, framesShift));
         }
     }
 
-    /** Updates information about bombs on board. */
+    /**
+     * Updates information about bombs on board. Only cells which changed since the last
+     * update and cells with bombs are looked at.
+     */
     public void updateBombs(final int nrOfFrames, final Board board)
     {
-        for (int i = 0; i < board.getWidth(); i++)
+        now += nrOfFrames;
+        updateStamp++;
+
+        for (int i = 0; i < board.getChangedCellsCount(); i++)
         {
-            for (int j = 0; j < board.getHeight(); j++)
+            final int cell = board.getChangedCell(i);
+            updated[cell] = updateStamp;
+            updateCell(cell, board.cellAt(cell % width, cell / width).getType());
+        }
+
+        // bombs on cells that did not change may still change their state
+        for (int i = 0; i < bombsCount; i++)
+        {
+            final int cell = bombCells[i];
+            if (updated[cell] != updateStamp)
             {
-                final GridCoord cell = new GridCoord(i, j);
-                final CellType type = board.cellAt(cell).getType();
-                if (type == CellType.CELL_BOMB)
-                {
-                    updateBombCell(nrOfFrames, cell);
-                }
-                else if (type == CellType.CELL_BOOM_XY)
-                {
-                    updateExplosionCell(nrOfFrames, cell);
-                }
-                else
+                updateCell(cell, board.cellAt(cell % width, cell / width).getType());
+                if (status[cell] == NONE)
                 {
-                    bombs.remove(cell);
+                    // removed, another bomb took its place in the list
+                    i--;
                 }
             }
         }
@@ -163,13 +217,13 @@ public class Bombs implements IPlayersInformationListener
 
     /**
      * Updates information about cells threatened by bombs explosions.
-     * 
+     *
      * @param nrOfFrames Number of frames from last update.
      * @param board Source of information about board.
      */
     public void updateZoneSafety(final int nrOfFrames, final Board board)
     {
-        zoneSafetyUpdater.update(nrOfFrames, board, this);
+        zoneSafetyUpdater.update(board);
     }
 
     /**
@@ -177,7 +231,8 @@ public class Bombs implements IPlayersInformationListener
      */
     public boolean someBombZoneWillExploded(final GridCoord grid, final int framesShift)
     {
-        return zoneSafetyUpdater.someBombZoneWillExploded(grid, framesShift);
+        final int cell = cell(grid);
+        return cell >= 0 && zoneSafetyUpdater.someBombZoneWillExploded(cell, framesShift);
     }
 
     /**
@@ -186,12 +241,12 @@ public class Bombs implements IPlayersInformationListener
     public Map<GridCoord, Integer> getReadyBombsWithTimers()
     {
         final Map<GridCoord, Integer> result = Maps.newHashMap();
-        for (Entry<GridCoord, BombState> entry : bombs.entrySet())
+        for (int i = 0; i < bombsCount; i++)
         {
-            final BombState v = entry.getValue();
-            if (v.getStatus() == BombStatus.READY)
+            final int cell = bombCells[i];
+            if (status[cell] == READY)
             {
-                result.put(entry.getKey(), v.getTimer());
+                result.put(new GridCoord(cell % width, cell / width), timers[cell] - now);
             }
         }
         return result;
@@ -201,93 +256,126 @@ public class Bombs implements IPlayersInformationListener
     public void update(ExtendedPlayer exPl)
     {
         // set bomb range
-        final BombState bs = bombs.get(exPl.getCell());
-        if (bs != null)
+        final int cell = cell(exPl.getCell());
+        if (cell >= 0 && status[cell] != NONE)
         {
-            bs.setRange(exPl.getRange());
+            ranges[cell] = exPl.getRange();
         }
     }
 
-    BombState getBombState(final GridCoord grid)
+    /**
+     * @return <code>true</code> if the bomb in the given cell will exist
+     *         <code>framesShift</code> frames from now.
+     */
+    final boolean bombExists(final int cell, final int framesShift)
     {
-        return bombs.get(grid);
+        final int timer = timers[cell] - now;
+        if (status[cell] == EXPLODED)
+        {
+            return timer >= framesShift;
+        }
+        else
+        {
+            return timer + EXPLOSION_FRAMES >= framesShift;
+        }
     }
 
-    Set<GridCoord> getExplosions()
+    /**
+     * @return <code>true</code> if standing on cells threatened by the bomb in the given
+     *         cell will be safe <code>framesShift</code> frames from now.
+     */
+    final boolean isSafe(final int cell, final int framesShift)
     {
-        final Set<GridCoord> result = Sets.newHashSet();
-        for (Entry<GridCoord, BombState> entry : bombs.entrySet())
+        final int timer = timers[cell] - now;
+        if (status[cell] == READY)
         {
-            final BombState v = entry.getValue();
-            if (v.getStatus() == BombStatus.EXPLODED)
-            {
-                result.add(entry.getKey());
-            }
+            return ((framesShift <= timer) || (framesShift > (timer + EXPLOSION_FRAMES)));
+        }
+        else
+        {
+            return (framesShift > timer);
         }
-        return result;
     }
 
-    boolean isBombReady(final GridCoord grid)
+    /**
+     * Puts a bomb (replacing any previous one) in a cell.
+     *
+     * @param timer Frames from now the new state ends in.
+     */
+    final void put(final int cell, final byte newStatus, final int timer, final int range)
     {
-        final BombState b = bombs.get(grid);
-        return (b != null && b.getStatus() == BombStatus.READY);
+        if (status[cell] == NONE)
+        {
+            bombSlots[cell] = bombsCount;
+            bombCells[bombsCount++] = cell;
+        }
+        status[cell] = newStatus;
+        timers[cell] = now + timer;
+        ranges[cell] = range;
     }
 
-    boolean updateTimerIfSmaller(final GridCoord grid, final int newTimer)
+    /**
+     * Removes all bombs.
+     */
+    final void clear()
     {
-        final BombState b = bombs.get(grid);
-        if (b != null)
+        for (int i = 0; i < bombsCount; i++)
         {
-            if (b.getTimer() > newTimer)
-            {
-                b.setTimer(newTimer);
-                return true;
-            }
+            status[bombCells[i]] = NONE;
         }
-        return false;
+        bombsCount = 0;
     }
 
-    static boolean bombExists(final BombState rs, final int framesShift)
+    /**
+     * @return Index of the cell or <code>-1</code> if it is outside the board.
+     */
+    final int cell(final GridCoord grid)
     {
-        if (rs.getStatus() == BombStatus.EXPLODED)
+        if (grid.x < 0 || grid.y < 0 || grid.x >= width || grid.y >= height)
         {
-            return rs.getTimer() >= framesShift;
-        }
-        else
-        {
-            return rs.getTimer() + EXPLOSION_FRAMES >= framesShift;
+            return -1;
         }
+        return grid.x + grid.y * width;
     }
 
-    private void updateBombCell(final int nrOfFrames, final GridCoord grid)
+    private void remove(final int cell)
     {
-        BombState bomb = bombs.get(grid);
-        if (bomb == null || bomb.getStatus() != BombStatus.READY)
+        if (status[cell] != NONE)
         {
-            bomb = new BombState(conf, conf.DEFAULT_FUSE_FRAMES, BombStatus.READY);
-            bombs.put(grid, bomb);
-        }
-        else
-        {
-            bomb.setTimer(bomb.getTimer() - nrOfFrames);
+            status[cell] = NONE;
+            final int last = bombCells[--bombsCount];
+            bombCells[bombSlots[cell]] = last;
+            bombSlots[last] = bombSlots[cell];
         }
     }
 
-    private void updateExplosionCell(final int nrOfFrames, final GridCoord grid)
+    /**
+     * Updates the state of a cell of the given type.
+     */
+    private void updateCell(final int cell, final CellType type)
     {
-        BombState bomb = bombs.get(grid);
-        if (bomb == null)
+        if (type == CellType.CELL_BOMB)
         {
-            bombs.put(grid, new BombState(conf, EXPLOSION_FRAMES, BombStatus.READY));
+            if (status[cell] != READY)
+            {
+                put(cell, READY, conf.DEFAULT_FUSE_FRAMES, conf.DEFAULT_BOMB_RANGE);
+            }
         }
-        else if (bomb.getStatus() == BombStatus.READY)
+        else if (type == CellType.CELL_BOOM_XY)
         {
-            bomb.setStatus(BombStatus.EXPLODED);
-            bomb.setTimer(EXPLOSION_FRAMES);
+            if (status[cell] == NONE)
+            {
+                put(cell, READY, EXPLOSION_FRAMES, conf.DEFAULT_BOMB_RANGE);
+            }
+            else if (status[cell] == READY)
+            {
+                status[cell] = EXPLODED;
+                timers[cell] = now + EXPLOSION_FRAMES;
+            }
         }
         else
         {
-            bomb.setTimer(bomb.getTimer() - nrOfFrames);
+            remove(cell);
         }
     }
 }
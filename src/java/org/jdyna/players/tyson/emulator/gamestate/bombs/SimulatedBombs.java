@@ -1,14 +1,10 @@
 package org.jdyna.players.tyson.emulator.gamestate.bombs;
 
-import java.util.Map.Entry;
-
 import org.jdyna.GameConfiguration;
 
 import org.jdyna.players.tyson.emulator.gamestate.Board;
 import org.jdyna.players.tyson.emulator.gamestate.ExtendedPlayer;
-import org.jdyna.players.tyson.emulator.gamestate.GridCoord;
 import org.jdyna.players.tyson.emulator.gamestate.IPlayersInformationListener;
-import org.jdyna.players.tyson.emulator.gamestate.bombs.BombState.BombStatus;
 
 /**
  * <p>
@@ -30,17 +26,22 @@ public abstract class SimulatedBombs extends Bombs implements
     @Override
     public void update(final ExtendedPlayer exPl)
     {
-        bombs.put(exPl.getCell(), new BombState(conf.DEFAULT_FUSE_FRAMES, exPl
-            .getRange(), BombStatus.READY));
+        final int cell = cell(exPl.getCell());
+        if (cell >= 0)
+        {
+            put(cell, READY, conf.DEFAULT_FUSE_FRAMES, exPl.getRange());
+        }
     }
 
     @Override
     public void update(final Bombs src)
     {
-        bombs.clear();
-        for (Entry<GridCoord, BombState> b : src.bombs.entrySet())
+        clear();
+        now = src.now;
+        for (int i = 0; i < src.bombsCount; i++)
         {
-            bombs.put(b.getKey(), new BombState(b.getValue()));
+            final int cell = src.bombCells[i];
+            put(cell, src.status[cell], src.timers[cell] - now, src.ranges[cell]);
         }
     }
 }
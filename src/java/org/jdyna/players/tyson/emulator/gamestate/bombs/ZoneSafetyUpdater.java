@@ -1,286 +1,305 @@
 package org.jdyna.players.tyson.emulator.gamestate.bombs;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Arrays;
 
-import org.apache.log4j.Logger;
 import org.jdyna.CellType;
-import org.jdyna.Constants;
-import org.jdyna.IPlayerController.Direction;
 
 import org.jdyna.players.tyson.emulator.gamestate.Board;
-import org.jdyna.players.tyson.emulator.gamestate.GridCoord;
-import org.jdyna.players.tyson.emulator.gamestate.bombs.BombState.BombStatus;
 
 /**
  * <p>
  * Updates information on cells threatened by bomb explosion, that don't contain that
  * bomb.
  * </p>
- * 
+ * <p>
+ * Bombs threatening a cell are kept in singly linked lists stored in flat arrays: the
+ * head of each cell's list and, for every threat, the cell of the bomb and the next
+ * threat. Threats are recomputed from the bombs on every update, so the cost of an
+ * update depends on the number of bombs (and their ranges), not on the size of the
+ * board. Ready bombs are visited in the order of their explosions (a binary heap keyed
+ * by the frame of explosion), so chain reactions are propagated in a single pass.
+ * </p>
+ *
  * @author Michał Kozłowski
  */
 final class ZoneSafetyUpdater
 {
-    private final static Logger logger = Logger.getLogger(ZoneSafetyUpdater.class);
-    private int nrOfFrames;
-    private Board board;
-    private Bombs bombs;
-    private final Map<GridCoord, ZoneSafety> zoneSafety = new HashMap<GridCoord, ZoneSafety>();
+    private final static int NONE = -1;
 
-    /**
-     * Updates information about grids threatened by bombs.
-     * 
-     * @param nrOfFrames Describes future in number of frames.
-     * @param board Source of information about bombs.
-     * @param bombs Source of information about board.
+    /*
+     * Directions of rays: left, right, up, down.
      */
-    public void update(final int nrOfFrames, final Board board, final Bombs bombs)
+    private final static int [] DX = {-1, 1, 0, 0};
+    private final static int [] DY = {0, 0, -1, 1};
+
+    private final Bombs bombs;
+
+    /** The first threat of each cell or {@link #NONE}. */
+    private final int [] threats;
+
+    /** Cells of bombs and links of threats. */
+    private int [] threatBombs = new int [64];
+    private int [] nextThreats = new int [64];
+    private int threatsCount;
+
+    /** Cells with threats, to be cleared on the next update. */
+    private final int [] threatened;
+    private int threatenedCount;
+
+    /** Ready bombs to be exploded, ordered by the frame of explosion. */
+    private final int [] queue;
+    private final int [] queueIndex;
+    private int queueSize;
+
+    ZoneSafetyUpdater(final Bombs bombs)
     {
-        this.nrOfFrames = nrOfFrames;
-        this.board = board;
         this.bombs = bombs;
 
-        // get bombs to update zone around them
-        final Map<GridCoord, Integer> uncheckedBombs = this.bombs
-            .getReadyBombsWithTimers();
+        final int cells = bombs.width * bombs.height;
+        threats = new int [cells];
+        threatened = new int [cells];
+        queue = new int [cells];
+        queueIndex = new int [cells];
+        Arrays.fill(threats, NONE);
+        Arrays.fill(queueIndex, NONE);
+    }
 
-        // update zones around grids with bombs
-        while (!uncheckedBombs.isEmpty())
+    /**
+     * Updates information about grids threatened by bombs.
+     *
+     * @param board Source of information about board.
+     */
+    public void update(final Board board)
+    {
+        // remove bombs and explosions of the previous update
+        for (int i = 0; i < threatenedCount; i++)
         {
-            final GridCoord nearest = getNearestExplosion(uncheckedBombs);
-            uncheckedBombs.keySet().remove(nearest);
-            setBombRadius(nearest);
+            threats[threatened[i]] = NONE;
         }
+        threatenedCount = 0;
+        threatsCount = 0;
 
-        // update zones around grids with explosions
-        for (GridCoord p : this.bombs.getExplosions())
+        // update zones around grids with bombs, the earliest explosions first
+        for (int i = 0; i < bombs.bombsCount; i++)
         {
-            setExplosionRadius(p);
+            final int cell = bombs.bombCells[i];
+            if (bombs.status[cell] == Bombs.READY)
+            {
+                queue[queueSize] = cell;
+                queueIndex[cell] = queueSize++;
+            }
+        }
+        for (int i = (queueSize >>> 1) - 1; i >= 0; i--)
+        {
+            siftDown(i);
+        }
+        while (queueSize > 0)
+        {
+            setBombRadius(board, poll());
         }
 
-        // remove bombs and explosions that don't result from given state of board
-        removeOutOfDate();
+        // update zones around grids with explosions
+        for (int i = 0; i < bombs.bombsCount; i++)
+        {
+            final int cell = bombs.bombCells[i];
+            if (bombs.status[cell] == Bombs.EXPLODED)
+            {
+                setExplosionRadius(board, cell);
+            }
+        }
     }
 
     /**
-     * @param grid To check bomb on this location.
+     * @param cell To check bomb on this location.
      * @param framesShift Describes future in number of frames.
      * @return <code>true</code> if at least one bomb that threaten this cell will be
      *         after explosion.
      */
-    public boolean someBombZoneWillExploded(final GridCoord grid, final int framesShift)
+    public boolean someBombZoneWillExploded(final int cell, final int framesShift)
     {
-        final ZoneSafety zs = zoneSafety.get(grid);
-        if (zs == null)
+        for (int t = threats[cell]; t != NONE; t = nextThreats[t])
         {
-            return false;
+            if (!bombs.bombExists(threatBombs[t], framesShift))
+            {
+                return true;
+            }
         }
-        return zs.willExploded(framesShift);
+        return false;
     }
 
-    boolean isSafe(final GridCoord grid, final int framesShift)
+    boolean isSafe(final int cell, final int framesShift)
     {
-        final ZoneSafety zs = zoneSafety.get(grid);
-        if (zs == null)
-        {
-            return true;
-        }
-        else
+        for (int t = threats[cell]; t != NONE; t = nextThreats[t])
         {
-            return zs.isSafe(framesShift);
+            if (!bombs.isSafe(threatBombs[t], framesShift))
+            {
+                return false;
+            }
         }
+        return true;
     }
 
-    boolean isUltimatelySafe(final GridCoord grid)
+    boolean isUltimatelySafe(final int cell)
     {
-        final ZoneSafety zs = zoneSafety.get(grid);
-        if (zs == null)
-        {
-            return true;
-        }
-        else
-        {
-            return zs.isUltimatelySafe();
-        }
+        return threats[cell] == NONE;
     }
 
-    boolean isUltimatelySafe(final GridCoord grid, final int framesShift)
+    boolean isUltimatelySafe(final int cell, final int framesShift)
     {
-        final ZoneSafety zs = zoneSafety.get(grid);
-        if (zs == null)
-        {
-            return true;
-        }
-        else
+        for (int t = threats[cell]; t != NONE; t = nextThreats[t])
         {
-            return zs.isUltimatelySafe(framesShift);
+            if (bombs.bombExists(threatBombs[t], framesShift))
+            {
+                return false;
+            }
         }
+        return true;
     }
 
-    private void removeOutOfDate()
+    private void addBombZone(final int cell, final int bombCell)
     {
-        for (ZoneSafety zs : zoneSafety.values())
+        if (threatsCount == threatBombs.length)
         {
-            zs.removeOutOfDate();
+            threatBombs = Arrays.copyOf(threatBombs, threatsCount * 2);
+            nextThreats = Arrays.copyOf(nextThreats, threatsCount * 2);
         }
-    }
-
-    private void addBombZone(final GridCoord grid, final GridCoord bombLocation,
-        final BombState bzs)
-    {
-        if (zoneSafety.get(grid) == null)
+        if (threats[cell] == NONE)
         {
-            zoneSafety.put(grid, new ZoneSafety());
+            threatened[threatenedCount++] = cell;
         }
-        zoneSafety.get(grid).addZoneBomb(bombLocation, bzs);
+        threatBombs[threatsCount] = bombCell;
+        nextThreats[threatsCount] = threats[cell];
+        threats[cell] = threatsCount++;
     }
 
-    private void checkBombDirection(final GridCoord grid, final int range,
-        final Direction direction)
+    private void setBombRadius(final Board board, final int bombCell)
     {
-        GridCoord next = board.nextCell(grid, direction);
-        while (next != null && distance(grid, next, direction) <= range)
+        final int range = bombs.ranges[bombCell];
+        final int x = bombCell % bombs.width;
+        final int y = bombCell / bombs.width;
+        for (int d = 0; d < DX.length; d++)
         {
-            final CellType type = board.cellAt(next).getType();
-            // break before wall
-            if (type == CellType.CELL_WALL)
-            {
-                break;
-            }
-            else
+            int nx = x + DX[d];
+            int ny = y + DY[d];
+            for (int distance = 1; distance <= range && isOnBoard(nx, ny); distance++)
             {
-                updateReadyBomb(nrOfFrames, next, grid);
+                final CellType type = board.cellAt(nx, ny).getType();
+                // break before wall
+                if (type == CellType.CELL_WALL)
+                {
+                    break;
+                }
+
+                final int next = nx + ny * bombs.width;
+                addBombZone(next, bombCell);
+                // check if recursive explosion will occur
+                if (bombs.status[next] == Bombs.READY
+                    && bombs.timers[next] > bombs.timers[bombCell])
+                {
+                    bombs.timers[next] = bombs.timers[bombCell];
+                    siftUp(queueIndex[next]);
+                }
                 // break after detonating crate
                 if (type == CellType.CELL_CRATE)
                 {
                     break;
                 }
-                next = board.nextCell(next, direction);
+                nx += DX[d];
+                ny += DY[d];
             }
         }
     }
 
-    private void checkExplosionDirection(final GridCoord gird, final int range,
-        final Direction direction)
+    private void setExplosionRadius(final Board board, final int bombCell)
     {
-        GridCoord next = board.nextCell(gird, direction);
-        while (next != null && distance(gird, next, direction) <= range)
+        final int range = bombs.ranges[bombCell];
+        final int x = bombCell % bombs.width;
+        final int y = bombCell / bombs.width;
+        for (int d = 0; d < DX.length; d++)
         {
-            final CellType type = board.cellAt(next).getType();
-            if (!type.isExplosion())
-            {
-                break;
-            }
-            else
+            int nx = x + DX[d];
+            int ny = y + DY[d];
+            for (int distance = 1; distance <= range && isOnBoard(nx, ny); distance++)
             {
-                updateExplodedBomb(nrOfFrames, next, gird);
-                next = board.nextCell(next, direction);
+                if (!board.cellAt(nx, ny).getType().isExplosion())
+                {
+                    break;
+                }
+                addBombZone(nx + ny * bombs.width, bombCell);
+                nx += DX[d];
+                ny += DY[d];
             }
         }
     }
 
-    private void updateExplodedBomb(final int nrOfFrames, final GridCoord gird,
-        final GridCoord bombLocation)
-    {
-        addBombZone(gird, bombLocation, bombs.getBombState(bombLocation));
-    }
-
-    private void updateReadyBomb(final int nrOfFrames, final GridCoord grid,
-        final GridCoord bombLocation)
-    {
-        final BombState bs = bombs.getBombState(bombLocation);
-        addBombZone(grid, bombLocation, bs);
-        // check if recursive explosion will occur
-        if (bombs.isBombReady(grid))
-        {
-            bombs.updateTimerIfSmaller(grid, bs.getTimer());
-        }
-    }
-
-    private void setBombRadius(final GridCoord grid)
+    private boolean isOnBoard(final int x, final int y)
     {
-        final int range = getRange(grid, BombStatus.READY);
-        // check up
-        checkBombDirection(grid, range, Direction.UP);
-        // check down
-        checkBombDirection(grid, range, Direction.DOWN);
-        // check left
-        checkBombDirection(grid, range, Direction.LEFT);
-        // check right
-        checkBombDirection(grid, range, Direction.RIGHT);
+        return x >= 0 && y >= 0 && x < bombs.width && y < bombs.height;
     }
 
-    private void setExplosionRadius(final GridCoord grid)
-    {
-        final int range = getRange(grid, BombStatus.EXPLODED);
-        // check up
-        checkExplosionDirection(grid, range, Direction.UP);
-        // check down
-        checkExplosionDirection(grid, range, Direction.DOWN);
-        // check left
-        checkExplosionDirection(grid, range, Direction.LEFT);
-        // check right
-        checkExplosionDirection(grid, range, Direction.RIGHT);
-    }
-
-    private int getRange(final GridCoord grid, final BombStatus state)
+    /*
+     *
+     */
+    private int poll()
     {
-        final BombState bs = bombs.getBombState(grid);
-        if (bs == null || bs.getStatus() != state)
+        final int result = queue[0];
+        queueIndex[result] = NONE;
+        if (--queueSize > 0)
         {
-            logger.error("Unexpected bomb state inside cell");
-            return Constants.DEFAULT_CELL_SIZE;
-        }
-        else
-        {
-            return bs.getRange();
+            queue[0] = queue[queueSize];
+            queueIndex[queue[0]] = 0;
+            siftDown(0);
         }
+        return result;
     }
 
-    private int distance(final GridCoord first, final GridCoord second,
-        final Direction direction)
+    /*
+     *
+     */
+    private void siftUp(int i)
     {
-        final int dist;
-        switch (direction)
+        final int cell = queue[i];
+        final int timer = bombs.timers[cell];
+        while (i > 0)
         {
-            case DOWN:
-                dist = second.y - first.y;
-                break;
-            case UP:
-                dist = first.y - second.y;
-                break;
-            case LEFT:
-                dist = first.x - second.x;
-                break;
-            case RIGHT:
-                dist = second.x - first.x;
+            final int parent = (i - 1) >>> 1;
+            if (bombs.timers[queue[parent]] <= timer)
+            {
                 break;
-            default:
-                dist = 0;
+            }
+            queue[i] = queue[parent];
+            queueIndex[queue[i]] = i;
+            i = parent;
         }
-        return dist;
+        queue[i] = cell;
+        queueIndex[cell] = i;
     }
 
-    /**
-     * @param unchecked pairs: location of bomb, and its timer.
-     * @return Location of bomb that will explode first.
+    /*
+     *
      */
-    private GridCoord getNearestExplosion(final Map<GridCoord, Integer> unchecked)
+    private void siftDown(int i)
     {
-        Entry<GridCoord, Integer> min = null;
-        for (Entry<GridCoord, Integer> entry : unchecked.entrySet())
+        final int cell = queue[i];
+        final int timer = bombs.timers[cell];
+        final int half = queueSize >>> 1;
+        while (i < half)
         {
-            if (min == null)
+            int child = 2 * i + 1;
+            if (child + 1 < queueSize
+                && bombs.timers[queue[child + 1]] < bombs.timers[queue[child]])
             {
-                min = entry;
+                child++;
             }
-            if (entry.getValue() < min.getValue())
+            if (timer <= bombs.timers[queue[child]])
             {
-                min = entry;
+                break;
             }
+            queue[i] = queue[child];
+            queueIndex[queue[i]] = i;
+            i = child;
         }
-        return min.getKey();
+        queue[i] = cell;
+        queueIndex[cell] = i;
     }
 }
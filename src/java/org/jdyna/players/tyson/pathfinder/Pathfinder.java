@@ -1,41 +1,76 @@
 package org.jdyna.players.tyson.pathfinder;
 
-import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Set;
 
+import org.jdyna.Constants;
 import org.jdyna.IPlayerController.Direction;
 
-import com.google.common.collect.Lists;
-import com.google.common.collect.Sets;
 import org.jdyna.players.tyson.emulator.gamestate.GameState;
 import org.jdyna.players.tyson.emulator.gamestate.GridCoord;
 import org.jdyna.players.tyson.emulator.gamestate.PointCoord;
 
 /**
- * Very versatile path finder implementing A* algorithm.
+ * Very versatile path finder implementing A* algorithm. Searches run on reusable
+ * {@link SearchSpace}s and memoized {@link SafetyTable}s, so a path finder does not
+ * allocate anything but the returned paths once it is warmed up. Searches which cannot
+ * succeed (destinations out of reach, no shelter around) are answered from a
+ * {@link ReachabilityMap} kept across frames. Instances are not thread-safe.
+ * <p>
+ * Unlike the original implementation, every search is bounded by the number of nodes it
+ * may expand (see {@link #Pathfinder(int)}). Within the bound, shelter searches return
+ * the same paths the original implementation did; trips, guided by tighter estimates
+ * from the map, are as short but may take another of equally short routes. A search
+ * exceeding the bound returns <code>null</code> even if an unbounded search would have
+ * found a path.
  * 
  * @author Bartosz Wesołowski
  */
 public final class Pathfinder
 {
-    // neighborhood generators- some of them taking into account artificial bombs
-    private final INeighborhoodGenerator standardNeighborhood = new StandardNeighborhoodGenerator();
-    private final INeighborhoodGenerator opponentsNeighborhood = new OpponentsBombsNeighborhoodGenerator();
-    private final INeighborhoodGenerator myAndOpponentsNeihgborhood = new MyAndOpponentsBombsNeighborhoodGenerator();
+    /**
+     * Default maximum number of nodes a single search may expand. Searches on the
+     * default boards expand a few thousand nodes at most.
+     */
+    public final static int DEFAULT_MAX_EXPANDED_NODES = 20000;
+
+    // safety tables- some of them taking into account artificial bombs
+    private final SafetyTable standardSafety = new SafetyTable.Standard();
+    private final SafetyTable opponentsSafety = new SafetyTable.OpponentsBombs();
+    private final SafetyTable myAndOpponentsSafety = new SafetyTable.MyAndOpponentsBombs();
+
+    // search spaces- trips check for shelters at their destinations
+    private final SearchSpace trips;
+    private final SearchSpace shelters;
+
+    // lower bounds on arrival frames, walking as in the tables excluding opponents
+    private final ReachabilityMap reachability = new ReachabilityMap();
+
+    public Pathfinder()
+    {
+        this(DEFAULT_MAX_EXPANDED_NODES);
+    }
 
-    // safety checkers- some of them taking into assount artificial bombs
-    private final ISafetyChecker safetyCheckerStandard = new SafetyCheckerStandard();
-    private final ISafetyChecker safetyCheckerWithOppBombs = new SafetyCheckerWithOppBombs();
-    private final ISafetyChecker safetyCheckerWithMyAndOppBombs = new SafetyCheckerWithMyAndOppBombs();
+    /**
+     * @param maxExpandedNodes Maximum number of nodes a single search may expand. If a
+     *            search exceeds this limit, it gives up and returns <code>null</code>,
+     *            even if a path exists; callers treat it the same as no path at all.
+     */
+    public Pathfinder(final int maxExpandedNodes)
+    {
+        if (maxExpandedNodes <= 0)
+        {
+            throw new IllegalArgumentException("Positive limit of nodes required: "
+                + maxExpandedNodes);
+        }
+
+        this.trips = new SearchSpace(maxExpandedNodes);
+        this.shelters = new SearchSpace(maxExpandedNodes);
+    }
 
     /** Finds a shelter regarding opponents as bombs. */
     public List<Direction> findShelter(final GameState gs, final PointCoord start)
     {
-        return findShelter(gs, start, 0, opponentsNeighborhood, safetyCheckerWithOppBombs);
+        return findShelter(gs, start, 0, opponentsSafety);
     }
 
     /**
@@ -47,23 +82,21 @@ public final class Pathfinder
     public List<Direction> findShelter(final GameState gs, final PointCoord start,
         final int startFrame)
     {
-        return findShelter(gs, start, startFrame, opponentsNeighborhood,
-            safetyCheckerWithOppBombs);
+        return findShelter(gs, start, startFrame, opponentsSafety);
     }
 
     /** Finds a shelter when walking through opponents is allowed. */
     public List<Direction> findShelterDesperately(final GameState gs,
         final PointCoord start)
     {
-        return findShelter(gs, start, 0, standardNeighborhood, safetyCheckerStandard);
+        return findShelter(gs, start, 0, standardSafety);
     }
 
     /** Finds a shelter after a simulated bomb drop. */
     public List<Direction> findShelterWithMyBomb(final GameState gs,
         final PointCoord start)
     {
-        return findShelter(gs, start, 1, myAndOpponentsNeihgborhood,
-            safetyCheckerWithMyAndOppBombs);
+        return findShelter(gs, start, 1, myAndOpponentsSafety);
     }
 
     /** Finds a path between a point and a cell. */
@@ -83,135 +116,72 @@ public final class Pathfinder
     public List<Direction> findTrip(final GameState gs, final PointCoord from,
         final GridCoord to, final int maxFrames)
     {
-        final RetrievablePriorityQueue<Node> open = new RetrievablePriorityQueue<Node>();
-        final Map<PointWithStopList, Integer> closed = new HashMap<PointWithStopList, Integer>();
+        opponentsSafety.reset(gs);
+        if (!isReachable(gs, from, to, maxFrames, opponentsSafety))
+        {
+            return null;
+        }
 
-        final Node startNode = new Node(from, 0, INeighborhoodGenerator.COST_FRAME
-            * Utils.estimateCost(from, to));
-        open.add(startNode);
+        reachability.updateDistances(to.x, to.y);
+        final int node = trips.findTrip(opponentsSafety, from.x, from.y, to.x, to.y,
+            maxFrames, shelters, reachability);
+        return node == SearchSpace.NONE ? null : trips.createPath(node);
+    }
 
-        while (!open.isEmpty())
+    /** Finds the closest cell not endangered by any bombs after the bot had entered it. */
+    private List<Direction> findShelter(final GameState gs, final PointCoord start,
+        final int startFrame, final SafetyTable table)
+    {
+        table.reset(gs);
+        if (table != standardSafety && !isShelterReachable(gs, start, startFrame, table))
         {
-            final Node current = open.poll();
-
-            // if the trip was found
-            if (Utils.isPointInsideCell(current, to)
-                && findShelter(gs, current, current.getElapsedFrames() + 1) != null)
-            {
-                return createPath(current);
-            }
-
-            // for each neighbor repeat
-            for (Node neighbor : opponentsNeighborhood.getNeighbors(gs, current, to))
-            {
-                // don't accept points that are too far
-                if (neighbor.getElapsedFrames() > maxFrames)
-                {
-                    continue;
-                }
-
-                // remove neighbor from closed if it is present there and is worse
-                if (closed.containsKey(neighbor))
-                {
-                    if (closed.get(neighbor) > neighbor.getCost())
-                    {
-                        closed.remove(neighbor);
-                    }
-                    else
-                    {
-                        continue;
-                    }
-                }
-
-                // modify neighbor in open if it is present there and is worse
-                if (open.contains(neighbor))
-                {
-                    final Node oldNode = open.get(neighbor);
-                    if (oldNode.getCost() > neighbor.getCost())
-                    {
-                        oldNode.update(neighbor);
-                    }
-                }
-                else
-                {
-                    open.add(neighbor);
-                }
-            }
-
-            closed.put(current, current.getCost());
+            return null;
         }
 
-        return null;
+        final int node = shelters.findShelter(table, start.x, start.y, startFrame);
+        return node == SearchSpace.NONE ? null : shelters.createPath(node);
     }
 
     /**
-     * Recreates a path starting from <code>node</code> and walking through all his
-     * predecessors.
+     * @return <code>false</code> if the destination cell certainly cannot be reached
+     *         within <code>maxFrames</code> frames or no shelter can be found after
+     *         reaching it.
      */
-    private List<Direction> createPath(Node node)
+    private boolean isReachable(final GameState gs, final PointCoord from,
+        final GridCoord to, final int maxFrames, final SafetyTable table)
     {
-        final LinkedList<Direction> result = Lists.newLinkedList();
-        while (node.getParent() != null)
-        {
-            if (node.stoppedAt(node.getParent()))
-            { // there was a stop in parent point
-                result.addFirst(node.getDirection());
-                for (int i = 0; i < node.getElapsedFrames()
-                    - node.getParent().getElapsedFrames() - 1; i++)
-                {
-                    result.addFirst(null);
-                }
-            }
-            else
-            { // there was no stop in parent point
-                for (int i = 0; i < node.getElapsedFrames()
-                    - node.getParent().getElapsedFrames(); i++)
-                {
-                    result.addFirst(node.getDirection());
-                }
-            }
-            node = node.getParent();
-        }
-        return result;
+        updateReachability(gs, from, table);
+        final int bound = reachability.getBound(to.x, to.y);
+        return bound != ReachabilityMap.UNREACHABLE && bound <= maxFrames
+            && reachability.hasShelter(table);
     }
 
-    /** Finds the closest cell not endangered by any bombs after the bot had entered it. */
-    private List<Direction> findShelter(final GameState gs, final PointCoord start,
-        final int startFrame, final INeighborhoodGenerator n, final ISafetyChecker s)
+    /**
+     * @return <code>false</code> if no shelter can be found from the start point, leaving
+     *         it in <code>startFrame</code>. The map only knows shelters of tables in which
+     *         ultimate safety does not depend on time.
+     */
+    private boolean isShelterReachable(final GameState gs, final PointCoord start,
+        final int startFrame, final SafetyTable table)
     {
-        final Set<PointWithStopList> checked = Sets.newHashSet();
-        final PriorityQueue<Node> toCheck = new PriorityQueue<Node>();
-        final Node startNode = new Node(start, startFrame, 0);
-        final GridCoord dummyDestination = new GridCoord(0, 0);
-        toCheck.add(startNode);
-
-        while (!toCheck.isEmpty())
+        final int x = start.x / Constants.DEFAULT_CELL_SIZE;
+        final int y = start.y / Constants.DEFAULT_CELL_SIZE;
+        if (table.isUltimatelySafe(x, y, startFrame))
         {
-            final Node current = toCheck.peek();
-
-            // if the trip was found
-            if (s.isUltimatelySafe(gs, current, current.getElapsedFrames()))
-            {
-                return createPath(current);
-            }
-
-            // add all neighbors to "toCheck" list
-            for (Node node : n.getNeighbors(gs, current, dummyDestination))
-            {
-                if (!checked.contains(node) && !toCheck.contains(node))
-                {
-                    if (!checked.contains(node))
-                    {
-                        toCheck.add(node);
-                    }
-                }
-            }
-
-            checked.add(current);
-            toCheck.poll();
+            return true;
         }
 
-        return null;
+        updateReachability(gs, start, table);
+        return reachability.hasShelter(table);
     }
 
+    /*
+     *
+     */
+    private void updateReachability(final GameState gs, final PointCoord from,
+        final SafetyTable table)
+    {
+        reachability.update(gs, table, from.x / Constants.DEFAULT_CELL_SIZE, from.y
+            / Constants.DEFAULT_CELL_SIZE);
+    }
 }
@@ -0,0 +1,572 @@
+package org.jdyna.players.tyson.pathfinder;
+
+import java.util.Arrays;
+
+import org.jdyna.Constants;
+import org.jdyna.players.tyson.emulator.gamestate.GameState;
+
+/**
+ * A space-time reachability map of the board: for every cell, a lower bound on the
+ * number of frames after which the player (standing in a given start cell) can enter
+ * it, or {@link #UNREACHABLE}. Cells blocked by bombs or crates open up in the frame
+ * the bomb (or the crate) disappears, walls and cells of opponents never open.
+ * <p>
+ * The bounds are a relaxation of the path finder's movement model (safety of cells is
+ * ignored and entering a cell followed by leaving it through another side takes at least
+ * {@link #CELL_TRANSIT_FRAMES} frames), so if a cell is unreachable or reachable too late
+ * in the map, no path to it exists. Path searches that are bound to fail are answered
+ * by a lookup.
+ * <p>
+ * The map is kept across frames and repaired incrementally, in the style of Lifelong
+ * Planning A* (LPA*) without a heuristic: when cells open or close (bombs appear or
+ * explode, crates are destroyed, opponents move) or when the player enters another cell,
+ * only vertices whose bounds are no longer consistent with their neighbors are
+ * recomputed. Bounds are relative to the current frame, so the cells affected by the
+ * passage of time are only those which open up in the future.
+ * <p>
+ * The map also bounds the way from any point to a destination cell (see
+ * {@link #updateDistances(int, int)}), ignoring when cells open but telling turns from
+ * crossing cells straight. Trip searches use these bounds as their heuristic.
+ */
+final class ReachabilityMap
+{
+    /** Bound of cells which cannot be reached. */
+    final static int UNREACHABLE = Integer.MAX_VALUE;
+
+    /**
+     * The minimum number of frames between entering a cell and entering another
+     * neighbor: cells are entered in the middle of one side and the closest edge
+     * point of another side is half a cell (minus one pixel) away, moving two pixels a
+     * frame, then one frame is needed to cross the edge.
+     */
+    final static int CELL_TRANSIT_FRAMES = (Constants.DEFAULT_CELL_SIZE / 2 - 1) / 2 + 1;
+
+    /**
+     * The minimum number of frames between entering a cell and entering the next cell
+     * in the same direction: from one edge of the cell to the other, then across.
+     */
+    private final static int STRAIGHT_TRANSIT_FRAMES =
+        (Constants.DEFAULT_CELL_SIZE - 1) / 2 + 1;
+
+    /**
+     * The minimum number of frames between entering a cell and going back: a frame
+     * across the edge, after having stopped.
+     */
+    private final static int REVERSE_TRANSIT_FRAMES = 1;
+
+    /*
+     * Directions of entering cells on the way to a destination: left, right, up, down.
+     */
+    private final static int DIRECTIONS = 4;
+    private final static int [] DX = {-1, 1, 0, 0};
+    private final static int [] DY = {0, 0, -1, 1};
+    private final static int [] OPPOSITE = {1, 0, 3, 2};
+
+    /** Buckets of the search for bounds to a destination, more than the longest edge. */
+    private final static int BUCKETS = STRAIGHT_TRANSIT_FRAMES + 1;
+
+    /**
+     * Cells are checked to open up to this frame (relative to the current one), cells
+     * opening later are assumed to open right after it. Bombs explode well before.
+     */
+    private final static int OPENING_HORIZON = 127;
+
+    /** A frame in which every cell which is ever going to open is open. */
+    private final static int END_OF_TIME = 1 << 20;
+
+    private GameState gs;
+    private int frame;
+    private int width;
+    private int height;
+    private int start = -1;
+
+    /** The first frame (relative to the current one) a cell can be entered in. */
+    private int [] opening = new int [0];
+
+    /** LPA* bounds: current (g) and one-step lookahead (rhs). */
+    private int [] g = new int [0];
+    private int [] rhs = new int [0];
+
+    /** LPA* priority queue: an indexed binary heap of inconsistent cells. */
+    private int [] heap = new int [0];
+    private int [] heapIndex = new int [0];
+    private int heapSize;
+
+    /**
+     * Lower bounds on the number of frames between entering a cell in a direction
+     * (indexed by <code>cell * DIRECTIONS + direction</code>) and entering
+     * {@link #destination}, or {@link #UNREACHABLE}. Valid while
+     * <code>destination</code> is not negative.
+     */
+    private int [] framesTo = new int [0];
+    private int destination = -1;
+
+    /** Dial's bucket queue of the search for {@link #framesTo}: lists of entries. */
+    private final int [] bucketHead = new int [BUCKETS];
+    private int [] entryState = new int [0];
+    private int [] entryNext = new int [0];
+
+    /**
+     * Bring the map up to date with the game state (as seen through a safety table
+     * already reset to it) and a start cell.
+     */
+    void update(GameState gs, SafetyTable table, int startX, int startY)
+    {
+        final int newStart = startX + startY * table.getWidth();
+
+        if (this.gs != gs || width != table.getWidth() || height != table.getHeight())
+        {
+            rebuild(gs, table, newStart);
+            return;
+        }
+
+        if (frame != gs.getFrame())
+        {
+            frame = gs.getFrame();
+            for (int cell = 0; cell < opening.length; cell++)
+            {
+                final int o = opening(table, cell);
+                if (o != opening[cell])
+                {
+                    if ((o == UNREACHABLE) != (opening[cell] == UNREACHABLE))
+                    {
+                        destination = -1;
+                    }
+                    opening[cell] = o;
+                    updateVertex(cell);
+                }
+            }
+        }
+
+        if (newStart != start)
+        {
+            final int oldStart = start;
+            start = newStart;
+
+            /*
+             * Edges leaving the start cell are special, so both start cells and their
+             * neighbors need to be updated.
+             */
+            updateVertex(oldStart);
+            updateNeighbors(oldStart);
+            updateVertex(newStart);
+            updateNeighbors(newStart);
+        }
+
+        computeBounds();
+    }
+
+    /**
+     * @return A lower bound on the number of frames after which the player can enter a
+     *         cell or {@link #UNREACHABLE}.
+     */
+    int getBound(int x, int y)
+    {
+        return g[x + y * width];
+    }
+
+    /**
+     * @return <code>true</code> if any reachable cell is ultimately safe according to
+     *         the given table. Ultimate safety in the table must not depend on time.
+     */
+    boolean hasShelter(SafetyTable table)
+    {
+        for (int cell = 0; cell < g.length; cell++)
+        {
+            if (g[cell] != UNREACHABLE
+                && table.isUltimatelySafe(cell % width, cell / width, 0))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Bring the bounds on the way to a destination cell up to date. The bounds only
+     * change when cells close or open for good, so they are kept until then or until
+     * another destination is asked for.
+     */
+    void updateDistances(int toX, int toY)
+    {
+        final int target = toX + toY * width;
+        if (target == destination)
+        {
+            return;
+        }
+        destination = target;
+
+        /*
+         * Dijkstra's search backwards from the destination, through cells which ever
+         * open. Edges are a few frames long at most, so Dial's buckets suffice for the
+         * priority queue.
+         */
+        Arrays.fill(framesTo, UNREACHABLE);
+        Arrays.fill(bucketHead, -1);
+        int entries = 0;
+        int pending = 0;
+        for (int direction = 0; direction < DIRECTIONS; direction++)
+        {
+            final int state = target * DIRECTIONS + direction;
+            framesTo[state] = 0;
+            entryState[entries] = state;
+            entryNext[entries] = bucketHead[0];
+            bucketHead[0] = entries++;
+            pending++;
+        }
+
+        for (int frames = 0; pending > 0; frames++)
+        {
+            final int bucket = frames % BUCKETS;
+            while (bucketHead[bucket] >= 0)
+            {
+                final int entry = bucketHead[bucket];
+                bucketHead[bucket] = entryNext[entry];
+                pending--;
+
+                final int state = entryState[entry];
+                if (framesTo[state] != frames)
+                {
+                    continue; // superseded by a shorter way
+                }
+
+                // cells from which this one is entered in this direction
+                final int out = state % DIRECTIONS;
+                final int x = state / DIRECTIONS % width - DX[out];
+                final int y = state / DIRECTIONS / width - DY[out];
+                final int cell = x + y * width;
+                if (x < 0 || x >= width || y < 0 || y >= height || cell == target
+                    || opening[cell] == UNREACHABLE)
+                {
+                    continue;
+                }
+
+                for (int in = 0; in < DIRECTIONS; in++)
+                {
+                    final int previous = cell * DIRECTIONS + in;
+                    final int bound = frames + transitFrames(in, out);
+                    if (bound < framesTo[previous])
+                    {
+                        framesTo[previous] = bound;
+                        entryState[entries] = previous;
+                        entryNext[entries] = bucketHead[bound % BUCKETS];
+                        bucketHead[bound % BUCKETS] = entries++;
+                        pending++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The minimum number of frames between entering a cell in direction
+     *         <code>in</code> and entering its neighbor in direction <code>out</code>.
+     */
+    private static int transitFrames(int in, int out)
+    {
+        if (in == out)
+        {
+            return STRAIGHT_TRANSIT_FRAMES;
+        }
+        return in == OPPOSITE[out] ? REVERSE_TRANSIT_FRAMES : CELL_TRANSIT_FRAMES;
+    }
+
+    /**
+     * @return A lower bound on the number of frames after which the player, standing at
+     *         a given point, can enter the destination of the last
+     *         {@link #updateDistances(int, int)} or {@link #UNREACHABLE}. Moves in the
+     *         player's cell take as many frames as in the path finder; crossing cells on
+     *         the way is bounded by the bounds of entering them.
+     */
+    int getFramesTo(int px, int py)
+    {
+        final int x = px / Constants.DEFAULT_CELL_SIZE;
+        final int y = py / Constants.DEFAULT_CELL_SIZE;
+        if (x + y * width == destination)
+        {
+            return 0;
+        }
+
+        int best = UNREACHABLE;
+        for (int direction = 0; direction < DIRECTIONS; direction++)
+        {
+            final int nextX = x + DX[direction];
+            final int nextY = y + DY[direction];
+            if (nextX < 0 || nextX >= width || nextY < 0 || nextY >= height)
+            {
+                continue;
+            }
+
+            final int rest = framesTo[(nextX + nextY * width) * DIRECTIONS + direction];
+            if (rest == UNREACHABLE)
+            {
+                continue;
+            }
+
+            // move to the edge of the cell (two pixels a frame), then across it
+            final int offset = (DX[direction] != 0 ? px : py)
+                % Constants.DEFAULT_CELL_SIZE;
+            final int toEdge = (direction == 0 || direction == 2 ? offset
+                : Constants.DEFAULT_CELL_SIZE - 1 - offset);
+            best = Math.min(best, toEdge / 2 + 1 + rest);
+        }
+        return best;
+    }
+
+    /**
+     * Compute the map from scratch.
+     */
+    private void rebuild(GameState gs, SafetyTable table, int start)
+    {
+        this.gs = gs;
+        this.frame = gs.getFrame();
+        this.width = table.getWidth();
+        this.height = table.getHeight();
+        this.start = start;
+
+        final int cells = width * height;
+        if (opening.length != cells)
+        {
+            opening = new int [cells];
+            g = new int [cells];
+            rhs = new int [cells];
+            heap = new int [cells];
+            heapIndex = new int [cells];
+            framesTo = new int [cells * DIRECTIONS];
+
+            // each state is settled once and updates at most as many states
+            entryState = new int [cells * DIRECTIONS * (DIRECTIONS + 1)];
+            entryNext = new int [entryState.length];
+        }
+        destination = -1;
+
+        heapSize = 0;
+        Arrays.fill(g, UNREACHABLE);
+        Arrays.fill(rhs, UNREACHABLE);
+        Arrays.fill(heapIndex, -1);
+        for (int cell = 0; cell < cells; cell++)
+        {
+            opening[cell] = opening(table, cell);
+        }
+
+        rhs[start] = 0;
+        heapInsert(start);
+        computeBounds();
+    }
+
+    /**
+     * Find the first frame in which a cell can be walked on. Walkability can only
+     * change from blocked to walkable as time passes (bombs disappear, crates are
+     * destroyed), so binary search is used.
+     */
+    private int opening(SafetyTable table, int cell)
+    {
+        final int x = cell % width;
+        final int y = cell / width;
+        if (table.canWalkOn(x, y, 1))
+        {
+            return 1;
+        }
+        if (!table.canWalkOn(x, y, OPENING_HORIZON))
+        {
+            return table.canWalkOn(x, y, END_OF_TIME) ? OPENING_HORIZON + 1 : UNREACHABLE;
+        }
+
+        int blocked = 1;
+        int walkable = OPENING_HORIZON;
+        while (walkable - blocked > 1)
+        {
+            final int middle = (blocked + walkable) >>> 1;
+            if (table.canWalkOn(x, y, middle))
+            {
+                walkable = middle;
+            }
+            else
+            {
+                blocked = middle;
+            }
+        }
+        return walkable;
+    }
+
+    /**
+     * LPA* main loop: settle inconsistent vertices in the order of their keys.
+     */
+    private void computeBounds()
+    {
+        while (heapSize > 0)
+        {
+            final int u = heapPoll();
+            if (g[u] > rhs[u])
+            { // overconsistent: the bound got better
+                g[u] = rhs[u];
+                updateNeighbors(u);
+            }
+            else
+            { // underconsistent: the bound got worse
+                g[u] = UNREACHABLE;
+                updateVertex(u);
+                updateNeighbors(u);
+            }
+        }
+    }
+
+    /*
+     *
+     */
+    private void updateNeighbors(int cell)
+    {
+        final int x = cell % width;
+        final int y = cell / width;
+        if (x > 0) updateVertex(cell - 1);
+        if (x + 1 < width) updateVertex(cell + 1);
+        if (y > 0) updateVertex(cell - width);
+        if (y + 1 < height) updateVertex(cell + width);
+    }
+
+    /**
+     * Recompute the lookahead bound of a cell and (re)queue it if it is inconsistent.
+     */
+    private void updateVertex(int cell)
+    {
+        if (cell != start)
+        {
+            int best = UNREACHABLE;
+            final int x = cell % width;
+            final int y = cell / width;
+            if (x > 0) best = Math.min(best, edge(cell - 1, cell));
+            if (x + 1 < width) best = Math.min(best, edge(cell + 1, cell));
+            if (y > 0) best = Math.min(best, edge(cell - width, cell));
+            if (y + 1 < height) best = Math.min(best, edge(cell + width, cell));
+            rhs[cell] = best;
+        }
+        else
+        {
+            rhs[cell] = 0;
+        }
+
+        if (heapIndex[cell] >= 0)
+        {
+            heapRemove(cell);
+        }
+        if (g[cell] != rhs[cell])
+        {
+            heapInsert(cell);
+        }
+    }
+
+    /**
+     * The earliest frame of entering <code>to</code> from <code>from</code>.
+     */
+    private int edge(int from, int to)
+    {
+        if (opening[to] == UNREACHABLE)
+        {
+            return UNREACHABLE;
+        }
+        if (from == start)
+        {
+            return Math.max(1, opening[to]);
+        }
+        if (g[from] == UNREACHABLE)
+        {
+            return UNREACHABLE;
+        }
+        return Math.max(g[from] + CELL_TRANSIT_FRAMES, opening[to]);
+    }
+
+    /*
+     *
+     */
+    private int key(int cell)
+    {
+        return Math.min(g[cell], rhs[cell]);
+    }
+
+    /*
+     *
+     */
+    private void heapInsert(int cell)
+    {
+        heap[heapSize] = cell;
+        heapIndex[cell] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    /*
+     *
+     */
+    private int heapPoll()
+    {
+        final int result = heap[0];
+        heapRemove(result);
+        return result;
+    }
+
+    /*
+     *
+     */
+    private void heapRemove(int cell)
+    {
+        final int i = heapIndex[cell];
+        heapIndex[cell] = -1;
+
+        final int last = heap[--heapSize];
+        if (i < heapSize)
+        {
+            heap[i] = last;
+            heapIndex[last] = i;
+            siftDown(i);
+            siftUp(heapIndex[last]);
+        }
+    }
+
+    /*
+     *
+     */
+    private void siftUp(int i)
+    {
+        final int cell = heap[i];
+        final int key = key(cell);
+        while (i > 0)
+        {
+            final int parent = (i - 1) >>> 1;
+            if (key(heap[parent]) <= key)
+            {
+                break;
+            }
+            heap[i] = heap[parent];
+            heapIndex[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = cell;
+        heapIndex[cell] = i;
+    }
+
+    /*
+     *
+     */
+    private void siftDown(int i)
+    {
+        final int cell = heap[i];
+        final int key = key(cell);
+        final int half = heapSize >>> 1;
+        while (i < half)
+        {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && key(heap[child + 1]) < key(heap[child]))
+            {
+                child++;
+            }
+            if (key <= key(heap[child]))
+            {
+                break;
+            }
+            heap[i] = heap[child];
+            heapIndex[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = cell;
+        heapIndex[cell] = i;
+    }
+}
@@ -0,0 +1,328 @@
+package org.jdyna.players.tyson.pathfinder;
+
+import java.util.Arrays;
+
+import org.jdyna.players.tyson.emulator.gamestate.GameState;
+import org.jdyna.players.tyson.emulator.gamestate.GridCoord;
+import org.jdyna.players.tyson.emulator.gamestate.bombs.Bombs;
+
+/**
+ * Movement and safety queries used in path finding, memoized in a table keyed by (cell,
+ * frame). Searches ask about the same cells and frames over and over again, so every
+ * query is forwarded to the {@link GameState} at most once per game state's frame.
+ * Entries are stamped with a generation number, so invalidating the whole table (when
+ * the game state changes) costs nothing.
+ * <p>
+ * Subclasses decide which variant of the game state's queries is used: some of them
+ * place artificial bombs to help simulate opponents behavior.
+ *
+ * @see Standard
+ * @see OpponentsBombs
+ * @see MyAndOpponentsBombs
+ */
+abstract class SafetyTable
+{
+    /** Initial number of frames (counting from the current one) kept in the table. */
+    private final static int INITIAL_FRAMES = 128;
+
+    /** Maximum number of frames kept in the table, later frames are not memoized. */
+    private final static int MAX_FRAMES = 4096;
+
+    /*
+     * Bits of a table entry, the rest of the entry is the generation.
+     */
+    private final static int WALKABLE_KNOWN = 1 << 0;
+    private final static int WALKABLE = 1 << 1;
+    private final static int SAFE_KNOWN = 1 << 2;
+    private final static int SAFE = 1 << 3;
+    private final static int ULTIMATELY_SAFE_KNOWN = 1 << 4;
+    private final static int ULTIMATELY_SAFE = 1 << 5;
+    private final static int GENERATION_SHIFT = 6;
+    private final static int MAX_GENERATION = Integer.MAX_VALUE >>> GENERATION_SHIFT;
+
+    /** Reused argument for the game state's queries. */
+    private final GridCoord cell = new GridCoord(0, 0);
+
+    private int [] entries = new int [0];
+    private int frames;
+    private int generation;
+
+    private GameState gs;
+    private int frame;
+    private int width;
+    private int height;
+
+    /**
+     * Start answering queries about a given game state. Previous answers are discarded
+     * unless they concern the same state in the same frame.
+     */
+    final void reset(GameState gs)
+    {
+        if (this.gs == gs && this.frame == gs.getFrame())
+        {
+            return;
+        }
+
+        this.gs = gs;
+        this.frame = gs.getFrame();
+        this.width = gs.getBoard().getWidth();
+        this.height = gs.getBoard().getHeight();
+
+        final int size = width * height * INITIAL_FRAMES;
+        if (entries.length < size || entries.length % (width * height) != 0)
+        {
+            entries = new int [size];
+            frames = INITIAL_FRAMES;
+            generation = 0;
+        }
+        else
+        {
+            frames = entries.length / (width * height);
+        }
+
+        if (++generation > MAX_GENERATION)
+        {
+            Arrays.fill(entries, 0);
+            generation = 1;
+        }
+    }
+
+    final int getWidth()
+    {
+        return width;
+    }
+
+    final int getHeight()
+    {
+        return height;
+    }
+
+    /**
+     * @return <code>true</code> if a player can walk on the cell in a given frame.
+     */
+    final boolean canWalkOn(int x, int y, int frame)
+    {
+        return query(x, y, frame, WALKABLE_KNOWN, WALKABLE);
+    }
+
+    /**
+     * @return <code>true</code> if the cell is safe in a given frame.
+     */
+    final boolean isSafe(int x, int y, int frame)
+    {
+        return query(x, y, frame, SAFE_KNOWN, SAFE);
+    }
+
+    /**
+     * @return <code>true</code> if the cell is not threatened by any bombs from a given
+     *         frame on.
+     */
+    final boolean isUltimatelySafe(int x, int y, int frame)
+    {
+        return query(x, y, frame, ULTIMATELY_SAFE_KNOWN, ULTIMATELY_SAFE);
+    }
+
+    /**
+     * Returns <code>true</code> if frames from given period are safe. Mirrors
+     * {@link GameState#isPeriodSafe}.
+     *
+     * @param from First frame of period (inclusive).
+     * @param to One before last frame of period.
+     */
+    final boolean isPeriodSafe(int x, int y, int from, int to)
+    {
+        final int timeDiff = to - 1 - from;
+        if (timeDiff <= Bombs.EXPLOSION_FRAMES)
+        {
+            return isSafe(x, y, from) && isSafe(x, y, to - 1);
+        }
+        for (int frame = from; frame < to; frame = frame + Bombs.EXPLOSION_FRAMES)
+        {
+            if (!isSafe(x, y, frame))
+            {
+                return false;
+            }
+        }
+        return isSafe(x, y, to - 1);
+    }
+
+    /**
+     * Stores first safe frames after explosions in <code>result</code> and returns their
+     * number. Mirrors {@link GameState#safeFrames}; <code>result</code> must have room
+     * for at least {@link #maxSafeFrames(int)} elements.
+     */
+    final int safeFrames(int x, int y, int elapsedFrames, int [] result)
+    {
+        int count = 0;
+        int lastExplosion = elapsedFrames;
+        final int maxFrame = maxFrame(elapsedFrames);
+        for (int frame = elapsedFrames + 1; frame <= maxFrame; frame++)
+        {
+            if (isSafe(x, y, frame))
+            {
+                if (frame == lastExplosion + 1)
+                {
+                    result[count++] = frame;
+                }
+            }
+            else
+            {
+                lastExplosion = frame;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return The maximum number of frames {@link #safeFrames} may return.
+     */
+    static int maxSafeFrames(int elapsedFrames)
+    {
+        return maxFrame(elapsedFrames) - elapsedFrames;
+    }
+
+    /*
+     *
+     */
+    private static int maxFrame(int elapsedFrames)
+    {
+        return Math.max(elapsedFrames + 1, Bombs.BOMB_LIFETIME + 1);
+    }
+
+    /**
+     * Look up a query's answer in the table, asking the game state if it is not there.
+     * Frames beyond the table are forwarded directly.
+     */
+    private boolean query(int x, int y, int frame, int knownBit, int valueBit)
+    {
+        if (frame >= frames && frame < MAX_FRAMES)
+        {
+            // grow the table, entries of earlier frames stay where they were
+            while (frames <= frame)
+            {
+                frames *= 2;
+            }
+            entries = Arrays.copyOf(entries, width * height * frames);
+        }
+
+        if (frame < 0 || frame >= frames)
+        {
+            return ask(x, y, frame, knownBit);
+        }
+
+        final int index = (frame * height + y) * width + x;
+        int entry = entries[index];
+        if ((entry >>> GENERATION_SHIFT) != generation)
+        {
+            entry = generation << GENERATION_SHIFT;
+        }
+
+        if ((entry & knownBit) == 0)
+        {
+            entry |= knownBit;
+            if (ask(x, y, frame, knownBit))
+            {
+                entry |= valueBit;
+            }
+            entries[index] = entry;
+        }
+
+        return (entry & valueBit) != 0;
+    }
+
+    /*
+     *
+     */
+    private boolean ask(int x, int y, int frame, int knownBit)
+    {
+        cell.setLocation(x, y);
+        switch (knownBit)
+        {
+            case WALKABLE_KNOWN:
+                return canWalkOn(gs, cell, frame);
+            case SAFE_KNOWN:
+                return isSafe(gs, cell, frame);
+            default:
+                return isUltimatelySafe(gs, cell, frame);
+        }
+    }
+
+    protected abstract boolean canWalkOn(GameState gs, GridCoord cell, int frame);
+
+    protected abstract boolean isSafe(GameState gs, GridCoord cell, int frame);
+
+    protected abstract boolean isUltimatelySafe(GameState gs, GridCoord cell, int frame);
+
+    /**
+     * Queries which do not place any artificial bombs.
+     */
+    static final class Standard extends SafetyTable
+    {
+        @Override
+        protected boolean canWalkOn(GameState gs, GridCoord cell, int frame)
+        {
+            return gs.canWalkOn(cell, frame);
+        }
+
+        @Override
+        protected boolean isSafe(GameState gs, GridCoord cell, int frame)
+        {
+            return gs.isSafe(cell, frame);
+        }
+
+        @Override
+        protected boolean isUltimatelySafe(GameState gs, GridCoord cell, int frame)
+        {
+            return gs.isUltimatelySafe(cell, frame);
+        }
+    }
+
+    /**
+     * Queries which place artificial bombs in opponents' cells.
+     */
+    static final class OpponentsBombs extends SafetyTable
+    {
+        @Override
+        protected boolean canWalkOn(GameState gs, GridCoord cell, int frame)
+        {
+            return gs.canWalkOnExcludeOpponents(cell, frame);
+        }
+
+        @Override
+        protected boolean isSafe(GameState gs, GridCoord cell, int frame)
+        {
+            return gs.isSafeWithOppBombs(cell, frame);
+        }
+
+        @Override
+        protected boolean isUltimatelySafe(GameState gs, GridCoord cell, int frame)
+        {
+            return gs.isUltimatelySafeWithOppBombs(cell);
+        }
+    }
+
+    /**
+     * Queries which place artificial bombs in opponents' cells as well as in the
+     * player's cell.
+     */
+    static final class MyAndOpponentsBombs extends SafetyTable
+    {
+        @Override
+        protected boolean canWalkOn(GameState gs, GridCoord cell, int frame)
+        {
+            return gs.canWalkOnExcludeOpponents(cell, frame);
+        }
+
+        @Override
+        protected boolean isSafe(GameState gs, GridCoord cell, int frame)
+        {
+            return gs.isSafeWithOppAndMyBombs(cell, frame);
+        }
+
+        @Override
+        protected boolean isUltimatelySafe(GameState gs, GridCoord cell, int frame)
+        {
+            return gs.isUltimatelySafeWithOppAndMyBombs(cell);
+        }
+    }
+}
@@ -0,0 +1,761 @@
+package org.jdyna.players.tyson.pathfinder;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import org.jdyna.Constants;
+import org.jdyna.IPlayerController.Direction;
+
+import com.google.common.collect.Lists;
+
+/**
+ * The search core of {@link Pathfinder}. Path nodes live in a preallocated arena of
+ * primitive arrays, the open list is an array-based binary heap of node indices and
+ * open/closed membership is kept in an open-addressing table, so a search does not
+ * allocate anything once the arrays have grown to the size of the searched space. All
+ * the arrays are reused by subsequent searches.
+ * <p>
+ * Nodes are identified the same way the original object-based implementation
+ * identified them: by their point and the list of points where the player stopped on
+ * the way. Stop lists are interned (a list is its predecessor list plus one node), so
+ * comparing them is comparing two integers. The heap repeats the exact sequence of
+ * operations of {@link java.util.PriorityQueue} (including updating costs of nodes
+ * already in the open list in place), so ties are broken the same way and searches
+ * return the same paths.
+ * <p>
+ * Every search is bounded by the number of nodes it may expand; if the bound is
+ * exceeded, the search gives up and returns {@link #NONE} as if there was no path,
+ * even where the unbounded original implementation would have found one.
+ * <p>
+ * Trip searches tighten the original heuristic with the lower bounds of a
+ * {@link ReachabilityMap} and drop nodes which cannot reach the destination (in time).
+ * The heuristic stays admissible, so trips cost the same as in the original
+ * implementation, but of paths of equal cost another one may be returned.
+ */
+final class SearchSpace
+{
+    /** The cost of one frame. */
+    final static int COST_FRAME = 100;
+    /** The cost of a turn. */
+    final static int COST_TURN = 5;
+    /** The cost of moving straight. */
+    final static int COST_STRAIGHT = 2;
+    /** The cost of waiting in one place. */
+    final static int COST_STAY = 0;
+    /**
+     * Number of frames you can miss and still stay alive. This value is used in path
+     * finding, when we have to determine whether a path is safe or not. E.g. if you can
+     * stay in a cell for another 3 frames and then there will be an explosion and
+     * MARGIN==5 then the path finder will not allow such a move.
+     */
+    final static int MARGIN = 5;
+
+    /** Returned when no path was found. */
+    final static int NONE = -1;
+
+    /*
+     * Node move types.
+     */
+    private final static byte MOVE_NONE = 0;
+    private final static byte MOVE_IN_CELL = 1;
+    private final static byte MOVE_EXITING_CELL = 2;
+
+    /*
+     * Key states: in the open list and in the closed (checked) set.
+     */
+    private final static byte OPEN = 1;
+    private final static byte CLOSED = 2;
+
+    private final static Direction [] DIRECTIONS = Direction.values();
+    private final static int LEFT = Direction.LEFT.ordinal();
+    private final static int RIGHT = Direction.RIGHT.ordinal();
+    private final static int UP = Direction.UP.ordinal();
+    private final static int DOWN = Direction.DOWN.ordinal();
+    private final static int [] OPPOSITE = new int [DIRECTIONS.length];
+    static
+    {
+        OPPOSITE[LEFT] = RIGHT;
+        OPPOSITE[RIGHT] = LEFT;
+        OPPOSITE[UP] = DOWN;
+        OPPOSITE[DOWN] = UP;
+    }
+
+    private final static int HALF_CELL = Constants.DEFAULT_CELL_SIZE / 2;
+    private final static int INITIAL_CAPACITY = 1024;
+
+    /** Maximum number of nodes a single search may expand. */
+    private final int maxExpandedNodes;
+
+    /*
+     * Nodes: the point is stored with the node's key.
+     */
+    private int nodeCount;
+    private int [] nodeKey = new int [INITIAL_CAPACITY];
+    private int [] nodeParent = new int [INITIAL_CAPACITY];
+    private int [] nodeCostFromStart = new int [INITIAL_CAPACITY];
+    private int [] nodeCostToGoal = new int [INITIAL_CAPACITY];
+    private int [] nodeElapsed = new int [INITIAL_CAPACITY];
+    private byte [] nodeDirection = new byte [INITIAL_CAPACITY];
+    private byte [] nodeMoveType = new byte [INITIAL_CAPACITY];
+
+    /*
+     * Node keys (point and stop list), their open/closed state, the node in the open
+     * list and the cost with which the key was closed.
+     */
+    private int keyCount;
+    private int [] keyX = new int [INITIAL_CAPACITY];
+    private int [] keyY = new int [INITIAL_CAPACITY];
+    private int [] keyStops = new int [INITIAL_CAPACITY];
+    private byte [] keyState = new byte [INITIAL_CAPACITY];
+    private int [] keyOpenNode = new int [INITIAL_CAPACITY];
+    private int [] keyClosedCost = new int [INITIAL_CAPACITY];
+    private int [] keyBuckets = new int [INITIAL_CAPACITY * 2];
+    private int [] keyBucketStamps = new int [INITIAL_CAPACITY * 2];
+
+    /*
+     * Interned stop lists: a list is its previous list plus one node key. List zero is
+     * the empty list.
+     */
+    private int stopCount;
+    private int [] stopPrevious = new int [INITIAL_CAPACITY];
+    private int [] stopKey = new int [INITIAL_CAPACITY];
+    private int [] stopBuckets = new int [INITIAL_CAPACITY * 2];
+    private int [] stopBucketStamps = new int [INITIAL_CAPACITY * 2];
+
+    /** Stamp of valid hash buckets, incremented by every search. */
+    private int generation;
+
+    /** The open list: a binary heap of nodes ordered by their cost. */
+    private int heapSize;
+    private int [] heap = new int [INITIAL_CAPACITY];
+
+    /** Bounds on the way to the destination of the current trip search. */
+    private ReachabilityMap reachability;
+
+    /** Safe frames of a cell being entered. */
+    private int [] safeFrames = new int [SafetyTable.maxSafeFrames(0)];
+
+    /*
+     *
+     */
+    SearchSpace(int maxExpandedNodes)
+    {
+        this.maxExpandedNodes = maxExpandedNodes;
+    }
+
+    /**
+     * A* search for a path from a point to a cell, after which a shelter can be found.
+     * Nodes more than <code>maxFrames</code> away are not accepted.
+     *
+     * @param reachability A map updated to the table with distances to the destination.
+     * @return The last node of the path or {@link #NONE}.
+     */
+    int findTrip(SafetyTable table, int fromX, int fromY, int toX, int toY,
+        int maxFrames, SearchSpace shelters, ReachabilityMap reachability)
+    {
+        reset();
+        this.reachability = reachability;
+
+        final int start = addNode(key(fromX, fromY, 0), NONE, 0, COST_FRAME
+            * Math.max(estimateCost(fromX, fromY, toX, toY), reachability.getFramesTo(
+                fromX, fromY)), 0, NONE, MOVE_NONE);
+        open(start);
+
+        int expanded = 0;
+        while (heapSize > 0)
+        {
+            if (++expanded > maxExpandedNodes)
+            {
+                return NONE;
+            }
+
+            final int current = poll();
+            final int key = nodeKey[current];
+            keyState[key] &= ~OPEN;
+
+            // if the trip was found
+            if (keyX[key] / Constants.DEFAULT_CELL_SIZE == toX
+                && keyY[key] / Constants.DEFAULT_CELL_SIZE == toY
+                && shelters.findShelter(table, keyX[key], keyY[key],
+                    nodeElapsed[current] + 1) != NONE)
+            {
+                return current;
+            }
+
+            expand(table, current, toX, toY, true, maxFrames);
+
+            keyState[key] |= CLOSED;
+            keyClosedCost[key] = cost(current);
+        }
+
+        return NONE;
+    }
+
+    /**
+     * Finds the closest cell not endangered by any bombs after the bot had entered it.
+     *
+     * @return The last node of the path or {@link #NONE}.
+     */
+    int findShelter(SafetyTable table, int fromX, int fromY, int startFrame)
+    {
+        reset();
+
+        final int start = addNode(key(fromX, fromY, 0), NONE, startFrame, 0,
+            startFrame, NONE, MOVE_NONE);
+        open(start);
+
+        int expanded = 0;
+        while (heapSize > 0)
+        {
+            if (++expanded > maxExpandedNodes)
+            {
+                return NONE;
+            }
+
+            final int current = heap[0];
+            final int key = nodeKey[current];
+
+            // if the shelter was found
+            if (table.isUltimatelySafe(keyX[key] / Constants.DEFAULT_CELL_SIZE, keyY[key]
+                / Constants.DEFAULT_CELL_SIZE, nodeElapsed[current]))
+            {
+                return current;
+            }
+
+            // add all unchecked neighbors to the open list
+            expand(table, current, 0, 0, false, Integer.MAX_VALUE);
+
+            // the head may have changed, remove whatever is there now
+            keyState[key] |= CLOSED;
+            keyState[nodeKey[poll()]] &= ~OPEN;
+        }
+
+        return NONE;
+    }
+
+    /**
+     * Recreates a path ending at <code>node</code> by walking through all its
+     * predecessors. Waiting frames are <code>null</code> directions.
+     */
+    LinkedList<Direction> createPath(int node)
+    {
+        final LinkedList<Direction> result = Lists.newLinkedList();
+        while (nodeParent[node] != NONE)
+        {
+            final int parent = nodeParent[node];
+            final Direction direction = DIRECTIONS[nodeDirection[node]];
+            final int frames = nodeElapsed[node] - nodeElapsed[parent];
+            if (stoppedAt(node, parent))
+            { // there was a stop in parent point
+                result.addFirst(direction);
+                for (int i = 0; i < frames - 1; i++)
+                {
+                    result.addFirst(null);
+                }
+            }
+            else
+            { // there was no stop in parent point
+                for (int i = 0; i < frames; i++)
+                {
+                    result.addFirst(direction);
+                }
+            }
+            node = parent;
+        }
+        return result;
+    }
+
+    /**
+     * A node stopped at its parent if the parent is the last element of its stop list.
+     * Stop lists only grow, so the parent cannot be found anywhere else in the list.
+     */
+    private boolean stoppedAt(int node, int parent)
+    {
+        final int stops = keyStops[nodeKey[node]];
+        return stops != 0 && stopKey[stops] == nodeKey[parent];
+    }
+
+    /**
+     * Generate all nodes you can move to from the given node and offer them to the
+     * search. Neighbors that lead to death are forbidden, so are neighbors that change
+     * direction to opposite without waiting.
+     */
+    private void expand(SafetyTable table, int node, int destX, int destY,
+        boolean trip, int maxFrames)
+    {
+        final int key = nodeKey[node];
+        final int x = keyX[key];
+        final int y = keyY[key];
+        final int cellX = x / Constants.DEFAULT_CELL_SIZE;
+        final int cellY = y / Constants.DEFAULT_CELL_SIZE;
+        final int centerX = cellX * Constants.DEFAULT_CELL_SIZE + HALF_CELL;
+        final int centerY = cellY * Constants.DEFAULT_CELL_SIZE + HALF_CELL;
+        final int elapsed = nodeElapsed[node];
+
+        if (cellX > 0 && table.canWalkOn(cellX - 1, cellY, elapsed + 1))
+        {
+            expand(table, node, destX, destY, trip, maxFrames, LEFT, centerX
+                - HALF_CELL, centerY, -1, 0);
+        }
+        if (cellX + 1 < table.getWidth() && table.canWalkOn(cellX + 1, cellY, elapsed + 1))
+        {
+            expand(table, node, destX, destY, trip, maxFrames, RIGHT, centerX
+                + HALF_CELL - 1, centerY, 1, 0);
+        }
+        if (cellY > 0 && table.canWalkOn(cellX, cellY - 1, elapsed + 1))
+        {
+            expand(table, node, destX, destY, trip, maxFrames, UP, centerX, centerY
+                - HALF_CELL, 0, -1);
+        }
+        if (cellY + 1 < table.getHeight() && table.canWalkOn(cellX, cellY + 1, elapsed + 1))
+        {
+            expand(table, node, destX, destY, trip, maxFrames, DOWN, centerX, centerY
+                + HALF_CELL - 1, 0, 1);
+        }
+    }
+
+    /**
+     * Generate nodes reached by moving in one direction: either to the edge of the
+     * current cell or (if already there) to the next cell.
+     */
+    private void expand(SafetyTable table, int node, int destX, int destY,
+        boolean trip, int maxFrames, int direction, int edgeX, int edgeY, int dx, int dy)
+    {
+        final int key = nodeKey[node];
+        final int x = keyX[key];
+        final int y = keyY[key];
+        final int elapsed = nodeElapsed[node];
+        final int nodeDirection = this.nodeDirection[node];
+
+        int cost = nodeCostFromStart[node];
+        // there is a different cost of turning and going straight to enable
+        // preference between them
+        if (nodeDirection != NONE && direction != nodeDirection
+            && direction != OPPOSITE[nodeDirection])
+        {
+            cost += COST_TURN;
+        }
+        else
+        {
+            cost += COST_STRAIGHT;
+        }
+
+        final int frames = Math.abs(dx != 0 ? edgeX - x : edgeY - y) / 2;
+        if (edgeX != x || edgeY != y)
+        { // move inside the cell
+            if (nodeMoveType[node] == MOVE_IN_CELL)
+            {
+                return;
+            }
+            // changing direction to opposite is forbidden
+            if (nodeDirection != NONE && direction == OPPOSITE[nodeDirection])
+            {
+                return;
+            }
+            // period bot is staying in the cell has to be safe
+            final int cellX = x / Constants.DEFAULT_CELL_SIZE;
+            final int cellY = y / Constants.DEFAULT_CELL_SIZE;
+            if (!table.isPeriodSafe(cellX, cellY, elapsed + 1, elapsed + frames + 1
+                + MARGIN))
+            {
+                return;
+            }
+            offer(trip, maxFrames, node, edgeX, edgeY, keyStops[key], cost + frames
+                * COST_FRAME, COST_FRAME * estimateCost(edgeX, edgeY, destX, destY),
+                elapsed + frames, direction, MOVE_IN_CELL);
+        }
+        else
+        { // move to the next cell
+            final int nextX = edgeX + dx;
+            final int nextY = edgeY + dy;
+            final int nextFrames = frames + 1;
+            final int cellX = x / Constants.DEFAULT_CELL_SIZE;
+            final int cellY = y / Constants.DEFAULT_CELL_SIZE;
+            final int costToGoal = COST_FRAME * estimateCost(nextX, nextY, destX, destY);
+
+            // get safe moments in which bot can enter the new cell
+            if (safeFrames.length < SafetyTable.maxSafeFrames(elapsed))
+            {
+                safeFrames = new int [SafetyTable.maxSafeFrames(elapsed)];
+            }
+            final int [] safeFrames = this.safeFrames;
+            final int count = table.safeFrames(nextX / Constants.DEFAULT_CELL_SIZE, nextY
+                / Constants.DEFAULT_CELL_SIZE, elapsed, safeFrames);
+
+            int lastSafeFrame = elapsed;
+            for (int i = 0; i < count; i++)
+            { // for each safe moment
+                final int safeFrame = safeFrames[i];
+                // waiting period has to be spent in a safe cell
+                if (!table.isPeriodSafe(cellX, cellY, lastSafeFrame + 1, safeFrame
+                    + MARGIN))
+                {
+                    break;
+                }
+
+                // waiting before entering the next cell is a stop in this node
+                final int stops;
+                if (safeFrame > elapsed + nextFrames)
+                {
+                    stops = stops(keyStops[key], key);
+                }
+                else
+                {
+                    stops = keyStops[key];
+                }
+
+                offer(trip, maxFrames, node, nextX, nextY, stops, cost
+                    + (COST_FRAME + COST_STAY) * (safeFrame - elapsed) - COST_STAY,
+                    costToGoal, safeFrame, direction, MOVE_EXITING_CELL);
+                lastSafeFrame = safeFrame;
+            }
+        }
+    }
+
+    /**
+     * Offer a neighbor to the open list.
+     */
+    private void offer(boolean trip, int maxFrames, int parent, int x, int y, int stops,
+        int costFromStart, int costToGoal, int elapsed, int direction, byte moveType)
+    {
+        if (trip)
+        {
+            offerTrip(maxFrames, parent, x, y, stops, costFromStart, costToGoal,
+                elapsed, direction, moveType);
+        }
+        else
+        {
+            final int key = key(x, y, stops);
+            if ((keyState[key] & (OPEN | CLOSED)) == 0)
+            {
+                open(addNode(key, parent, costFromStart, costToGoal, elapsed, direction,
+                    moveType));
+            }
+        }
+    }
+
+    /**
+     * Offer a neighbor to the open list of an A* search.
+     */
+    private void offerTrip(int maxFrames, int parent, int x, int y, int stops,
+        int costFromStart, int costToGoal, int elapsed, int direction, byte moveType)
+    {
+        // don't accept points that are too far
+        if (elapsed > maxFrames)
+        {
+            return;
+        }
+
+        // nor points from which the destination cannot be entered (in time)
+        final int frames = reachability.getFramesTo(x, y);
+        if (frames == ReachabilityMap.UNREACHABLE || frames > maxFrames - elapsed)
+        {
+            return;
+        }
+
+        final int tightCostToGoal = Math.max(costToGoal, COST_FRAME * frames);
+        final int key = key(x, y, stops);
+        final int cost = costFromStart + tightCostToGoal;
+
+        // remove neighbor from closed if it is present there and is worse
+        if ((keyState[key] & CLOSED) != 0)
+        {
+            if (keyClosedCost[key] > cost)
+            {
+                keyState[key] &= ~CLOSED;
+            }
+            else
+            {
+                return;
+            }
+        }
+
+        // modify neighbor in open if it is present there and is worse
+        if ((keyState[key] & OPEN) != 0)
+        {
+            final int old = keyOpenNode[key];
+            if (cost(old) > cost)
+            {
+                nodeCostFromStart[old] = costFromStart;
+                nodeElapsed[old] = elapsed;
+                nodeDirection[old] = (byte) direction;
+                nodeParent[old] = parent;
+                nodeMoveType[old] = moveType;
+            }
+        }
+        else
+        {
+            open(addNode(key, parent, costFromStart, tightCostToGoal, elapsed, direction,
+                moveType));
+        }
+    }
+
+    /**
+     * Estimates the cost of movement between a point and a cell.
+     *
+     * @see Utils#estimateCost
+     */
+    private static int estimateCost(int x, int y, int cellX, int cellY)
+    {
+        final int dx = Math.abs(x - (cellX * Constants.DEFAULT_CELL_SIZE + HALF_CELL)) / 2
+            - Constants.DEFAULT_CELL_SIZE / 4;
+        final int dy = Math.abs(y - (cellY * Constants.DEFAULT_CELL_SIZE + HALF_CELL)) / 2
+            - Constants.DEFAULT_CELL_SIZE / 4;
+        return Math.max(dx, dy);
+    }
+
+    /*
+     *
+     */
+    private int cost(int node)
+    {
+        return nodeCostFromStart[node] + nodeCostToGoal[node];
+    }
+
+    /**
+     * Discard all nodes, keys and stop lists of the previous search.
+     */
+    private void reset()
+    {
+        nodeCount = 0;
+        keyCount = 0;
+        stopCount = 1;
+        heapSize = 0;
+
+        if (++generation == Integer.MAX_VALUE)
+        {
+            Arrays.fill(keyBucketStamps, 0);
+            Arrays.fill(stopBucketStamps, 0);
+            generation = 1;
+        }
+    }
+
+    /*
+     *
+     */
+    private int addNode(int key, int parent, int costFromStart, int costToGoal,
+        int elapsed, int direction, byte moveType)
+    {
+        if (nodeCount == nodeKey.length)
+        {
+            final int capacity = nodeCount * 2;
+            nodeKey = Arrays.copyOf(nodeKey, capacity);
+            nodeParent = Arrays.copyOf(nodeParent, capacity);
+            nodeCostFromStart = Arrays.copyOf(nodeCostFromStart, capacity);
+            nodeCostToGoal = Arrays.copyOf(nodeCostToGoal, capacity);
+            nodeElapsed = Arrays.copyOf(nodeElapsed, capacity);
+            nodeDirection = Arrays.copyOf(nodeDirection, capacity);
+            nodeMoveType = Arrays.copyOf(nodeMoveType, capacity);
+            heap = Arrays.copyOf(heap, capacity);
+        }
+
+        final int node = nodeCount++;
+        nodeKey[node] = key;
+        nodeParent[node] = parent;
+        nodeCostFromStart[node] = costFromStart;
+        nodeCostToGoal[node] = costToGoal;
+        nodeElapsed[node] = elapsed;
+        nodeDirection[node] = (byte) direction;
+        nodeMoveType[node] = moveType;
+        return node;
+    }
+
+    /**
+     * Add a node to the open list.
+     */
+    private void open(int node)
+    {
+        final int key = nodeKey[node];
+        keyState[key] |= OPEN;
+        keyOpenNode[key] = node;
+
+        // sift up, exactly as java.util.PriorityQueue does
+        final int cost = cost(node);
+        int k = heapSize++;
+        while (k > 0)
+        {
+            final int parent = (k - 1) >>> 1;
+            final int e = heap[parent];
+            if (cost >= cost(e))
+            {
+                break;
+            }
+            heap[k] = e;
+            k = parent;
+        }
+        heap[k] = node;
+    }
+
+    /**
+     * Remove and return the head of the open list.
+     */
+    private int poll()
+    {
+        final int result = heap[0];
+        final int n = --heapSize;
+        if (n > 0)
+        {
+            // sift down, exactly as java.util.PriorityQueue does
+            final int node = heap[n];
+            final int cost = cost(node);
+            final int half = n >>> 1;
+            int k = 0;
+            while (k < half)
+            {
+                int child = (k << 1) + 1;
+                int c = heap[child];
+                final int right = child + 1;
+                if (right < n && cost(c) > cost(heap[right]))
+                {
+                    c = heap[child = right];
+                }
+                if (cost <= cost(c))
+                {
+                    break;
+                }
+                heap[k] = c;
+                k = child;
+            }
+            heap[k] = node;
+        }
+        return result;
+    }
+
+    /**
+     * Return the key of a point with a stop list, creating it if necessary.
+     */
+    private int key(int x, int y, int stops)
+    {
+        int mask = keyBuckets.length - 1;
+        int bucket = hash(x * 31 + y, stops) & mask;
+        while (keyBucketStamps[bucket] == generation)
+        {
+            final int key = keyBuckets[bucket];
+            if (keyX[key] == x && keyY[key] == y && keyStops[key] == stops)
+            {
+                return key;
+            }
+            bucket = (bucket + 1) & mask;
+        }
+
+        if (keyCount == keyX.length)
+        {
+            final int capacity = keyCount * 2;
+            keyX = Arrays.copyOf(keyX, capacity);
+            keyY = Arrays.copyOf(keyY, capacity);
+            keyStops = Arrays.copyOf(keyStops, capacity);
+            keyState = Arrays.copyOf(keyState, capacity);
+            keyOpenNode = Arrays.copyOf(keyOpenNode, capacity);
+            keyClosedCost = Arrays.copyOf(keyClosedCost, capacity);
+        }
+
+        final int key = keyCount++;
+        keyX[key] = x;
+        keyY[key] = y;
+        keyStops[key] = stops;
+        keyState[key] = 0;
+
+        if (keyCount * 2 > keyBuckets.length)
+        {
+            rehashKeys();
+        }
+        else
+        {
+            keyBuckets[bucket] = key;
+            keyBucketStamps[bucket] = generation;
+        }
+        return key;
+    }
+
+    /*
+     *
+     */
+    private void rehashKeys()
+    {
+        keyBuckets = new int [keyBuckets.length * 2];
+        keyBucketStamps = new int [keyBuckets.length];
+
+        final int mask = keyBuckets.length - 1;
+        for (int key = 0; key < keyCount; key++)
+        {
+            int bucket = hash(keyX[key] * 31 + keyY[key], keyStops[key]) & mask;
+            while (keyBucketStamps[bucket] == generation)
+            {
+                bucket = (bucket + 1) & mask;
+            }
+            keyBuckets[bucket] = key;
+            keyBucketStamps[bucket] = generation;
+        }
+    }
+
+    /**
+     * Return the stop list made of <code>previous</code> list and a node key, creating
+     * it if necessary.
+     */
+    private int stops(int previous, int key)
+    {
+        final int mask = stopBuckets.length - 1;
+        int bucket = hash(previous, key) & mask;
+        while (stopBucketStamps[bucket] == generation)
+        {
+            final int stops = stopBuckets[bucket];
+            if (stopPrevious[stops] == previous && stopKey[stops] == key)
+            {
+                return stops;
+            }
+            bucket = (bucket + 1) & mask;
+        }
+
+        if (stopCount == stopPrevious.length)
+        {
+            final int capacity = stopCount * 2;
+            stopPrevious = Arrays.copyOf(stopPrevious, capacity);
+            stopKey = Arrays.copyOf(stopKey, capacity);
+        }
+
+        final int stops = stopCount++;
+        stopPrevious[stops] = previous;
+        stopKey[stops] = key;
+
+        if (stopCount * 2 > stopBuckets.length)
+        {
+            rehashStops();
+        }
+        else
+        {
+            stopBuckets[bucket] = stops;
+            stopBucketStamps[bucket] = generation;
+        }
+        return stops;
+    }
+
+    /*
+     *
+     */
+    private void rehashStops()
+    {
+        stopBuckets = new int [stopBuckets.length * 2];
+        stopBucketStamps = new int [stopBuckets.length];
+
+        final int mask = stopBuckets.length - 1;
+        for (int stops = 1; stops < stopCount; stops++)
+        {
+            int bucket = hash(stopPrevious[stops], stopKey[stops]) & mask;
+            while (stopBucketStamps[bucket] == generation)
+            {
+                bucket = (bucket + 1) & mask;
+            }
+            stopBuckets[bucket] = stops;
+            stopBucketStamps[bucket] = generation;
+        }
+    }
+
+    /*
+     *
+     */
+    private static int hash(int a, int b)
+    {
+        final int h = (a * 0x9E3779B9) ^ (b * 0x85EBCA6B);
+        return h ^ (h >>> 15);
+    }
+}
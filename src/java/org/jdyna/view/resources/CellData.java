@@ -19,8 +19,8 @@ class CellData
     /** Image infos. */
     public ImageSlice [] slices;
 
-    /** Prefetched frame images. */
-    public BufferedImage [] frames;
+    /** Frame images (loaded lazily, <code>null</code> until then). */
+    public volatile BufferedImage [] frames;
 
     /**
      * This method clones the superficial structures leaving images and image slices the
@@ -38,7 +38,8 @@ class CellData
         cloned.cellType = cellType;
 
         // clone arrays
-        cloned.frames = frames.clone();
+        final BufferedImage [] frames = this.frames;
+        cloned.frames = (frames == null ? null : frames.clone());
         cloned.slices = slices.clone();
 
         return cloned;
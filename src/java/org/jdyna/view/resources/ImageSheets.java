@@ -0,0 +1,321 @@
+package org.jdyna.view.resources;
+
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Source images (sheets) from which tiles and sprite frames are cut out. Sheets are
+ * decoded once, in parallel: the first request for any sheet starts decoding all
+ * registered sheets in the background and the requesting thread decodes the one it
+ * needs itself unless it is already being decoded.
+ * <p>
+ * Decoded sheets can be kept in an on-disk cache of raw ARGB rasters, so that later
+ * launches skip PNG decoding. The cache is enabled by setting the
+ * {@value #CACHE_DIR_PROPERTY} system property to a directory. Cached rasters are keyed
+ * with a checksum of the encoded sheet, so they are never stale. Failures of the cache
+ * are never fatal (the sheet is decoded instead).
+ */
+final class ImageSheets
+{
+    private final static Logger logger = LoggerFactory.getLogger(ImageSheets.class);
+
+    /**
+     * System property with the on-disk cache directory.
+     */
+    final static String CACHE_DIR_PROPERTY = "jdyna.image.cache";
+
+    /** Header of cached rasters. */
+    private final static int MAGIC = 0x4A445241;
+
+    /**
+     * Decoded (or decoding) sheets.
+     */
+    private final static ConcurrentHashMap<String, FutureTask<BufferedImage>> sheets =
+        new ConcurrentHashMap<String, FutureTask<BufferedImage>>();
+
+    /**
+     * Names of sheets to decode when any sheet is first requested.
+     */
+    private final static Set<String> registered =
+        new CopyOnWriteArraySet<String>();
+
+    /**
+     * Decoding threads; they time out when idle.
+     */
+    private final static ThreadPoolExecutor executor;
+    static
+    {
+        final int threads = Math.max(1, Math.min(4,
+            Runtime.getRuntime().availableProcessors()));
+        executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+            {
+                private final AtomicInteger count = new AtomicInteger();
+
+                public Thread newThread(Runnable r)
+                {
+                    final Thread t = new Thread(r, "image-loader-"
+                        + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /* */
+    private ImageSheets()
+    {
+        // No instances.
+    }
+
+    /**
+     * Register a sheet to be decoded along with the first requested one.
+     */
+    static void register(String imageName)
+    {
+        registered.add(imageName);
+    }
+
+    /**
+     * Start decoding all registered sheets in the background (if not decoded yet).
+     */
+    static void prefetch()
+    {
+        for (String imageName : registered)
+        {
+            final FutureTask<BufferedImage> task = task(imageName);
+            if (!task.isDone())
+            {
+                executor.execute(task);
+            }
+        }
+    }
+
+    /**
+     * @return Return the decoded sheet, waiting for it if it is being decoded.
+     */
+    static BufferedImage get(String imageName)
+    {
+        if (!sheets.containsKey(imageName))
+        {
+            prefetch();
+        }
+
+        final FutureTask<BufferedImage> task = task(imageName);
+
+        // A no-op if the task has been started already.
+        task.run();
+        try
+        {
+            return task.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted loading: " + imageName, e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new RuntimeException("Missing resource: " + imageName, e.getCause());
+        }
+    }
+
+    /**
+     * @return Return the (possibly not started) task decoding a sheet.
+     */
+    private static FutureTask<BufferedImage> task(final String imageName)
+    {
+        FutureTask<BufferedImage> task = sheets.get(imageName);
+        if (task == null)
+        {
+            final FutureTask<BufferedImage> created = new FutureTask<BufferedImage>(
+                new Callable<BufferedImage>()
+                {
+                    public BufferedImage call() throws IOException
+                    {
+                        return load(imageName);
+                    }
+                });
+            task = sheets.putIfAbsent(imageName, created);
+            if (task == null)
+            {
+                task = created;
+            }
+        }
+        return task;
+    }
+
+    /**
+     * Load a sheet from the on-disk cache or decode it (and cache it).
+     */
+    private static BufferedImage load(String imageName) throws IOException
+    {
+        final byte [] encoded = readResource(imageName);
+        final File cached = getCacheFile(imageName, encoded);
+        if (cached != null && cached.isFile())
+        {
+            try
+            {
+                return readRaster(cached);
+            }
+            catch (IOException e)
+            {
+                logger.debug("Ignoring cached image: " + cached, e);
+            }
+        }
+
+        final BufferedImage image = ImageIO.read(new ByteArrayInputStream(encoded));
+        if (image == null)
+        {
+            throw new IOException("Not an image: " + imageName);
+        }
+
+        final BufferedImage argb = toArgb(image);
+        if (cached != null)
+        {
+            writeRaster(cached, argb);
+        }
+        return argb;
+    }
+
+    /**
+     * @return Return the cache file of a sheet or <code>null</code> if the cache is
+     *         disabled.
+     */
+    static File getCacheFile(String imageName, byte [] encoded)
+    {
+        final String dir = System.getProperty(CACHE_DIR_PROPERTY);
+        if (dir == null || dir.length() == 0)
+        {
+            return null;
+        }
+
+        final CRC32 crc = new CRC32();
+        crc.update(encoded);
+        final String name = imageName.replaceAll("[^A-Za-z0-9._-]", "_") + "-"
+            + Long.toHexString(crc.getValue()) + ".raw";
+        return new File(dir, name);
+    }
+
+    /**
+     * Re-render an image into an ARGB image (a no-op if it is one already).
+     */
+    private static BufferedImage toArgb(BufferedImage image)
+    {
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB)
+        {
+            return image;
+        }
+
+        final BufferedImage argb = new BufferedImage(image.getWidth(), image.getHeight(),
+            BufferedImage.TYPE_INT_ARGB);
+        final Graphics g = argb.getGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return argb;
+    }
+
+    /**
+     * Read a cached raster: a header (magic, width, height) followed by ARGB pixels.
+     */
+    static BufferedImage readRaster(File file) throws IOException
+    {
+        final byte [] bytes = readFully(new FileInputStream(file));
+        final IntBuffer ints = ByteBuffer.wrap(bytes).asIntBuffer();
+        if (ints.remaining() < 3 || ints.get() != MAGIC)
+        {
+            throw new IOException("Not a cached image.");
+        }
+
+        final int w = ints.get();
+        final int h = ints.get();
+        if (w <= 0 || h <= 0 || bytes.length != 4 * (3 + w * h))
+        {
+            throw new IOException("Truncated cached image.");
+        }
+
+        final BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        ints.get(((DataBufferInt) image.getRaster().getDataBuffer()).getData());
+        return image;
+    }
+
+    /**
+     * Write a cached raster of an ARGB image. The file is replaced atomically (where
+     * supported), so concurrent launches never see partial files.
+     */
+    static void writeRaster(File file, BufferedImage argb)
+    {
+        final int [] pixels = ((DataBufferInt) argb.getRaster().getDataBuffer()).getData();
+        final ByteBuffer bytes = ByteBuffer.allocate(4 * (3 + pixels.length));
+        bytes.asIntBuffer().put(MAGIC).put(argb.getWidth()).put(argb.getHeight()).put(
+            pixels);
+
+        File temp = null;
+        try
+        {
+            file.getParentFile().mkdirs();
+            temp = File.createTempFile("image", ".tmp", file.getParentFile());
+            final OutputStream os = new FileOutputStream(temp);
+            try
+            {
+                os.write(bytes.array());
+            }
+            finally
+            {
+                os.close();
+            }
+
+            if (!temp.renameTo(file))
+            {
+                // Another launch may have cached it first.
+                temp.delete();
+            }
+        }
+        catch (IOException e)
+        {
+            logger.debug("Could not cache image: " + file, e);
+            if (temp != null)
+            {
+                temp.delete();
+            }
+        }
+    }
+
+    /*
+     *
+     */
+    private static byte [] readResource(String imageName) throws IOException
+    {
+        return readFully(ResourceUtilities.open(imageName));
+    }
+
+    /**
+     * Read and close a stream.
+     */
+    private static byte [] readFully(InputStream is) throws IOException
+    {
+        try
+        {
+            return IOUtils.toByteArray(is);
+        }
+        finally
+        {
+            is.close();
+        }
+    }
+}
@@ -20,6 +20,8 @@ final class ImageSliceBuilder
         this.gridSize = gridSize;
         this.w = gridSize;
         this.h = gridSize;
+
+        ImageSheets.register(imageName);
     }
 
     public ImageSlice [] tile(int x, int y)
@@ -45,6 +45,30 @@ public final class ImageUtilities
         return converted;
     }
 
+    /**
+     * Convert an image to graphic configuration mode, scaling it by an integer factor
+     * (each pixel becomes a <code>scale</code> by <code>scale</code> square).
+     */
+    public static BufferedImage scale(BufferedImage image, int scale,
+        GraphicsConfiguration conf)
+    {
+        if (scale == 1)
+        {
+            return convert(image, conf);
+        }
+
+        final int w = image.getWidth() * scale;
+        final int h = image.getHeight() * scale;
+        final BufferedImage scaled = conf.createCompatibleImage(w, h,
+            Transparency.TRANSLUCENT);
+        final Graphics2D graphics = scaled.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+            RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        graphics.drawImage(image, 0, 0, w, h, null);
+        graphics.dispose();
+        return scaled;
+    }
+
     /**
      * Load an image in the original raster and color mode.
      */
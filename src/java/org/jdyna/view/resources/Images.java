@@ -14,7 +14,11 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 /**
- * Images and image-related resources.
+ * Images and image-related resources. Frame images are loaded lazily, on the first
+ * request for a given {@link CellType} or {@link ISprite.Type}: cut out of source
+ * sheets (see {@link ImageSheets}) or, for images created with
+ * {@link #createCompatible(GraphicsConfiguration, int)}, converted from the images they
+ * were created from.
  */
 public final class Images
 {
@@ -27,18 +31,42 @@ public final class Images
     /** Sprite data */
     private final EnumMap<ISprite.Type, SpriteData> sprites;
 
-    /** Player images for status panels. */
-    private final BufferedImage [] playerStatuses;
+    /** Slices of player images for status panels. */
+    private final ImageSlice [] playerStatusSlices;
+
+    /** Player images for status panels (loaded lazily, <code>null</code> until then). */
+    private volatile BufferedImage [] playerStatuses;
 
     /** Offset in {@link #playerStatuses} depending on {@link ISprite.Type}. */
     private final EnumMap<ISprite.Type, Integer> playerStatusOffsets;
 
+    /**
+     * Images these images are converted from (<code>null</code> if they are cut out of
+     * source sheets), the target configuration and the scale factor.
+     */
+    private final Images source;
+    private final GraphicsConfiguration conf;
+    private final int scale;
+
     /*
      * 
      */
     Images(int cellSize, Collection<CellData> cellData, Collection<SpriteData> spriteData,
-        BufferedImage [] playerStatuses)
+        ImageSlice [] playerStatusSlices)
+    {
+        this(null, null, 1, cellSize, cellData, spriteData, playerStatusSlices);
+    }
+
+    /*
+     * 
+     */
+    private Images(Images source, GraphicsConfiguration conf, int scale, int cellSize,
+        Collection<CellData> cellData, Collection<SpriteData> spriteData,
+        ImageSlice [] playerStatusSlices)
     {
+        this.source = source;
+        this.conf = conf;
+        this.scale = scale;
         this.cellSize = cellSize;
 
         cells = Maps.newEnumMap(CellType.class);
@@ -47,15 +75,15 @@ public final class Images
         sprites = Maps.newEnumMap(ISprite.Type.class);
         for (SpriteData sd : spriteData) sprites.put(sd.spriteType, sd);
 
-        this.playerStatuses = playerStatuses;
+        this.playerStatusSlices = playerStatusSlices;
 
         final ISprite.Type [] playerTypes = ISprite.Type.getPlayerSprites();
-        if (playerStatuses.length != playerTypes.length)
+        if (playerStatusSlices.length != playerTypes.length)
             throw new RuntimeException("Player status data should match the number" +
             		" of player sprites.");
 
         playerStatusOffsets = Maps.newEnumMap(ISprite.Type.class);
-        for (int i = 0; i < playerStatuses.length; i++)
+        for (int i = 0; i < playerStatusSlices.length; i++)
             playerStatusOffsets.put(playerTypes[i], i);
     }
 
@@ -65,7 +93,24 @@ public final class Images
     public BufferedImage [] getCellImage(CellType cell)
     {
         final CellData cellData = cells.get(cell); 
-        return cellData == null ? null : cellData.frames;
+        if (cellData == null)
+            return null;
+
+        BufferedImage [] frames = cellData.frames;
+        if (frames == null)
+        {
+            synchronized (cellData)
+            {
+                frames = cellData.frames;
+                if (frames == null)
+                {
+                    frames = (source == null ? load(cellData.slices)
+                        : convert(source.getCellImage(cell)));
+                    cellData.frames = frames;
+                }
+            }
+        }
+        return frames;
     }
 
     /*
@@ -90,7 +135,33 @@ public final class Images
      */
     public BufferedImage getPlayerStatusImage(ISprite.Type playerType)
     {
-        return this.playerStatuses[playerStatusOffsets.get(playerType)];
+        BufferedImage [] statuses = this.playerStatuses;
+        if (statuses == null)
+        {
+            synchronized (this)
+            {
+                statuses = this.playerStatuses;
+                if (statuses == null)
+                {
+                    if (source == null)
+                    {
+                        statuses = load(playerStatusSlices);
+                    }
+                    else
+                    {
+                        final ISprite.Type [] playerTypes = ISprite.Type.getPlayerSprites();
+                        statuses = new BufferedImage [playerTypes.length];
+                        for (int i = 0; i < playerTypes.length; i++)
+                        {
+                            statuses[i] = ImageUtilities.scale(
+                                source.getPlayerStatusImage(playerTypes[i]), scale, conf);
+                        }
+                    }
+                    this.playerStatuses = statuses;
+                }
+            }
+        }
+        return statuses[playerStatusOffsets.get(playerType)];
     }
 
     /*
@@ -102,11 +173,11 @@ public final class Images
         if (data == null)
             return null;
 
-        if (state >= data.frames.length || data.frames[state].length == 0)
+        if (state >= data.slices.length || data.slices[state].length == 0)
             return null;
 
-        final int frames = data.frames[state].length;
-        return data.frames[state][frame % frames];
+        final BufferedImage [] stateFrames = getFrames(type, data)[state];
+        return stateFrames[frame % stateFrames.length];
     }
 
     /*
@@ -118,11 +189,11 @@ public final class Images
         if (data == null)
             return null;
 
-        if (state >= data.frames.length || data.frames[state].length == 0)
+        if (state >= data.slices.length || data.slices[state].length == 0)
             return null;
 
         final int frame = calculateFrame(frameCounter, data);
-        final int frames = data.frames[state].length;
+        final int frames = data.slices[state].length;
         return data.offsets[state][frame % frames];
     }
 
@@ -135,10 +206,10 @@ public final class Images
         if (data == null)
             return 0;
 
-        if (state >= data.frames.length || data.frames[state].length == 0)
+        if (state >= data.slices.length || data.slices[state].length == 0)
             return 0;
 
-        return data.frames[state].length * data.frameAdvanceRate;
+        return data.slices[state].length * data.frameAdvanceRate;
     }
 
     /*
@@ -158,19 +229,95 @@ public final class Images
         return frame;
     }
 
+    /**
+     * Return frames of all states of a sprite, loading them if needed.
+     */
+    private BufferedImage [][] getFrames(ISprite.Type type, SpriteData data)
+    {
+        BufferedImage [][] frames = data.frames;
+        if (frames == null)
+        {
+            synchronized (data)
+            {
+                frames = data.frames;
+                if (frames == null)
+                {
+                    frames = new BufferedImage [data.slices.length][];
+                    for (int state = 0; state < frames.length; state++)
+                    {
+                        final int count = data.slices[state].length;
+                        frames[state] = new BufferedImage [count];
+                        for (int f = 0; f < count; f++)
+                        {
+                            frames[state][f] = (source == null
+                                ? load(data.slices[state][f])
+                                : ImageUtilities.scale(source.getSpriteImage(type, state, f),
+                                    scale, conf));
+                        }
+                    }
+                    data.frames = frames;
+                }
+            }
+        }
+        return frames;
+    }
+
+    /**
+     * Cut out images from source sheets.
+     */
+    private static BufferedImage [] load(ImageSlice [] slices)
+    {
+        final BufferedImage [] images = new BufferedImage [slices.length];
+        for (int i = 0; i < slices.length; i++)
+        {
+            images[i] = load(slices[i]);
+        }
+        return images;
+    }
+
+    /**
+     * Cut out an image from its source sheet (without copying).
+     */
+    private static BufferedImage load(ImageSlice slice)
+    {
+        return ImageSheets.get(slice.imageName).getSubimage(slice.x, slice.y, slice.w,
+            slice.h);
+    }
+
+    /**
+     * Convert images from {@link #source}.
+     */
+    private BufferedImage [] convert(BufferedImage [] images)
+    {
+        final BufferedImage [] converted = new BufferedImage [images.length];
+        for (int i = 0; i < images.length; i++)
+        {
+            converted[i] = ImageUtilities.scale(images[i], scale, conf);
+        }
+        return converted;
+    }
+
     /**
      * Return a new set of buffered images, compatible with the given image device.
      */
     public Images createCompatible(GraphicsConfiguration conf)
+    {
+        return createCompatible(conf, 1);
+    }
+
+    /**
+     * Return a new set of buffered images, compatible with the given image device and
+     * pre-scaled by an integer factor (nearest neighbor). Cell size and sprite offsets
+     * are scaled as well, so frames can be composed directly at the target resolution.
+     * Images are converted lazily, when first requested.
+     */
+    public Images createCompatible(GraphicsConfiguration conf, int scale)
     {
         final List<CellData> cellData = Lists.newArrayList();
         for (CellData cd : this.cells.values())
         {
             final CellData c = cd.shallowClone();
-            for (int i = 0; i < c.frames.length; i++)
-            {
-                c.frames[i] = ImageUtilities.convert(c.frames[i], conf);
-            }
+            c.frames = null;
             cellData.add(c);
         }
 
@@ -178,21 +325,20 @@ public final class Images
         for (SpriteData sd : this.sprites.values())
         {
             final SpriteData c = sd.shallowClone();
-            for (int i = 0; i < c.frames.length; i++)
+            c.frames = null;
+            for (int i = 0; i < c.offsets.length; i++)
             {
-                for (int f = 0; f < c.frames[i].length; f++)
+                for (int f = 0; f < c.offsets[i].length; f++)
                 {
-                    c.frames[i][f] = ImageUtilities.convert(c.frames[i][f], conf);
+                    final Point offset = c.offsets[i][f];
+                    c.offsets[i][f] = new Point(offset.x * scale, offset.y * scale);
                 }
             }
             spriteData.add(c);
         }
-        
-        final BufferedImage [] pStatuses = new BufferedImage [playerStatuses.length];
-        for (int i = 0; i < pStatuses.length; i++)
-            pStatuses[i] = ImageUtilities.convert(playerStatuses[i], conf);
 
-        return new Images(cellSize, cellData, spriteData, pStatuses);
+        return new Images(this, conf, scale, cellSize * scale, cellData, spriteData,
+            playerStatusSlices);
     }
 
     /**
@@ -1,27 +1,19 @@
 package org.jdyna.view.resources;
 
 import java.awt.Point;
-import java.awt.image.BufferedImage;
-import java.io.IOException;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 
 import org.jdyna.*;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 
 /**
- * Static resource factory. 
+ * Static resource factory. Only image metadata is created here; images are loaded
+ * lazily (see {@link Images}).
  */
 public final class ImagesFactory
 {
-    /**
-     * Locally used image cache.
-     */
-    private static final HashMap<String, BufferedImage> imageCache = Maps.newHashMap();
-
     /**
      * Dyna classic resources.
      */
@@ -234,8 +226,8 @@ public final class ImagesFactory
         
         final ImageSliceBuilder sb3 = new ImageSliceBuilder("tiles/15.png", 8);
         sb3.h = sb3.w = 24;
-        final BufferedImage [] playerStatuses =
-            load(sb3.tile(new int [][] { {0, 8}, {12, 8}, {6, 8}, {9, 8}, /*  */ }));
+        final ImageSlice [] playerStatuses =
+            sb3.tile(new int [][] { {0, 8}, {12, 8}, {6, 8}, {9, 8}, /*  */ });
 
         return new Images(cellSize, cells, sprites, playerStatuses);
     }
@@ -250,31 +242,17 @@ public final class ImagesFactory
         data.frameAdvanceRate = frameRate;
         data.spriteType = type;
         data.slices = slices(stateSlices);
-        data.frames = load(data.slices);
 
-        data.offsets = new Point [data.frames.length][];
-        for (int i = 0; i < data.frames.length; i++)
+        data.offsets = new Point [data.slices.length][];
+        for (int i = 0; i < data.slices.length; i++)
         {
-            data.offsets[i] = new Point[data.frames[i].length];
+            data.offsets[i] = new Point[data.slices[i].length];
             Arrays.fill(data.offsets[i], offsetForAllFrames);
         }
 
         return data;
     }
 
-    /*
-     * 
-     */
-    private static BufferedImage [][] load(ImageSlice [][] slices)
-    {
-        BufferedImage [][] result = new BufferedImage [slices.length][];
-        for (int i = 0; i < slices.length; i++)
-        {
-            result[i] = load(slices[i]);
-        }
-        return result;
-    }
-
     /*
      * 
      */
@@ -312,42 +290,6 @@ public final class ImagesFactory
         cellData.cellType = cellType;
         cellData.frameAdvanceRate = advanceRate;
         cellData.slices = slices;
-        cellData.frames = load(slices);
         return cellData;
     }
-
-    /*
-     * 
-     */
-    private static BufferedImage [] load(ImageSlice [] slices)
-    {
-        final BufferedImage [] images = new BufferedImage[slices.length];
-        for (int i = 0; i < slices.length; i++)
-        {
-            final ImageSlice slice = slices[i];
-            final BufferedImage source = getCached(slice.imageName);
-            images[i] = source.getSubimage(slice.x, slice.y, slice.w, slice.h);
-        }
-        return images;
-    }
-
-    /*
-     * Cache intermediate images from which tiles are cut out.
-     */
-    private static BufferedImage getCached(String imageName)
-    {
-        try
-        {
-            if (!imageCache.containsKey(imageName))
-            {
-                imageCache.put(imageName, ImageUtilities.loadResourceImage(imageName));
-            }
-            return imageCache.get(imageName);
-        } 
-        catch (IOException e)
-        {
-            throw new RuntimeException("Missing resource: "
-                + imageName);
-        }
-    }    
 }
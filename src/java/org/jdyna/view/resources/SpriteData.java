@@ -20,8 +20,8 @@ class SpriteData
     /** Image infos. */
     public ImageSlice [][] slices;
 
-    /** Prefetched frame images. */
-    public BufferedImage [][] frames;
+    /** Frame images (loaded lazily, <code>null</code> until then). */
+    public volatile BufferedImage [][] frames;
 
     /** Precalculated offsets. */
     public Point [][] offsets;
@@ -42,7 +42,8 @@ class SpriteData
         cloned.spriteType = spriteType;
 
         // clone arrays
-        cloned.frames = frames.clone();
+        final BufferedImage [][] frames = this.frames;
+        cloned.frames = (frames == null ? null : frames.clone());
         cloned.offsets = offsets.clone();
         cloned.slices = slices.clone();
 
@@ -54,6 +55,7 @@ class SpriteData
         };
         for (Object [][] array : arrays)
         {
+            if (array == null) continue;
             for (int i = 0; i < array.length; i++)
             {
                 array[i] = array[i].clone();
@@ -0,0 +1,522 @@
+package org.jdyna.view.swing;
+
+import java.awt.Canvas;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.DisplayMode;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Toolkit;
+import java.awt.Window;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.swing.SwingUtilities;
+
+import org.jdyna.GameConfiguration;
+import org.jdyna.GameEvent;
+import org.jdyna.GameStartEvent;
+import org.jdyna.GameStateEvent;
+import org.jdyna.IGameEventListener;
+import org.jdyna.SampleWindow;
+import org.jdyna.view.resources.Images;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An AWT {@link Canvas} rendering the board actively. Game events are handed over to a
+ * dedicated render thread through a {@link LatestFrameSlot}; the render thread composes
+ * frames with an offscreen {@link BoardPanel} and presents them with a
+ * {@link BufferStrategy} (volatile back buffers on accelerated pipelines). The game
+ * thread only copies the game's state and never makes Java2D calls; the EDT does not
+ * take part in rendering frames at all.
+ * <p>
+ * If the render thread falls behind, frames are dropped (only the latest one is
+ * rendered) rather than rendered late.
+ * <p>
+ * With {@link #setInterpolation(boolean)} enabled, frames are presented at the display's
+ * refresh rate between game frames, with players moving from their previous towards
+ * their current positions (see {@link BoardPanel#interpolate(double)}) against a render
+ * clock. The clock estimates the time between game frames from their arrivals, so the
+ * game itself does no extra work and movement is shown at most a game frame late.
+ */
+@SuppressWarnings("serial")
+final class BoardCanvas extends Canvas implements IGameEventListener
+{
+    private final static Logger logger = LoggerFactory.getLogger(BoardCanvas.class);
+
+    /** The number of the most recent presented frames in statistics. */
+    private final static int STATISTICS_WINDOW = 256;
+
+    /** Refresh rate assumed if the display's is unknown. */
+    private final static int DEFAULT_REFRESH_RATE = 60;
+
+    /** Bounds of the estimated time between game frames. */
+    private final static long MIN_FRAME_PERIOD = TimeUnit.MILLISECONDS.toNanos(1);
+    private final static long MAX_FRAME_PERIOD = TimeUnit.MILLISECONDS.toNanos(250);
+
+    /**
+     * Composes frames offscreen (it is never displayed).
+     */
+    private final BoardPanel renderer;
+
+    /**
+     * Frames handed over from the game thread.
+     */
+    private final LatestFrameSlot slot = new LatestFrameSlot();
+
+    /**
+     * Present the last frame again (the canvas was exposed).
+     */
+    private final AtomicBoolean repaintRequested = new AtomicBoolean();
+
+    private final Thread renderThread;
+    private volatile boolean running = true;
+
+    /**
+     * Interpolate players' positions between game frames.
+     */
+    private volatile boolean interpolation;
+
+    /**
+     * The render clock: the time the last game frame was taken at, the estimated time
+     * between game frames and the time between refreshes of the display (in
+     * {@link System#nanoTime()} units). Accessed by the render thread only.
+     */
+    private long frameNanos;
+    private double framePeriodNanos = 1e9 / GameConfiguration.CLASSIC.DEFAULT_FRAME_RATE;
+    private final long refreshNanos;
+
+    /**
+     * The time of the next presentation of an interpolated frame and the fraction of the
+     * way to the last game frame presented so far (1 if there is nothing to
+     * interpolate).
+     */
+    private long nextPresentNanos;
+    private double alpha = 1;
+
+    /**
+     * Time from taking a frame to presenting it and the time it was presented at.
+     */
+    private final SampleWindow renderTimes = new SampleWindow(STATISTICS_WINDOW);
+    private final SampleWindow presentTimes = new SampleWindow(STATISTICS_WINDOW);
+
+    /**
+     * Performance counters updated by the render thread (if any) and the overlay
+     * showing them (<code>null</code> if hidden).
+     */
+    private PerformanceCounters counters;
+    private volatile PerformanceOverlay overlay;
+
+    /*
+     *
+     */
+    BoardCanvas(Images images, GraphicsConfiguration conf)
+    {
+        super(conf);
+
+        this.renderer = new BoardPanel(images, conf);
+        this.renderThread = new Thread("board-renderer")
+        {
+            public void run()
+            {
+                renderLoop();
+            }
+        };
+        renderThread.setDaemon(true);
+        this.refreshNanos = TimeUnit.SECONDS.toNanos(1) / getRefreshRate(conf);
+
+        setBackground(Color.BLACK);
+        setPreferredSize(renderer.getViewSize());
+    }
+
+    /**
+     * Copy game states and hand them over to the render thread.
+     *
+     * @see IGameEventListener
+     */
+    public void onFrame(int frame, List<? extends GameEvent> events)
+    {
+        GameStartEvent start = null;
+        GameStateEvent state = null;
+        for (GameEvent e : events)
+        {
+            if (e.type == GameEvent.Type.GAME_START)
+            {
+                start = (GameStartEvent) e;
+            }
+
+            if (e.type == GameEvent.Type.GAME_STATE)
+            {
+                state = ((GameStateEvent) e).copy();
+            }
+
+            if (e.type == GameEvent.Type.GAME_OVER && logger.isInfoEnabled())
+            {
+                logger.info(getStatistics());
+            }
+        }
+
+        if (start != null || state != null)
+        {
+            slot.offer(frame, start, state);
+            LockSupport.unpark(renderThread);
+        }
+    }
+
+    /**
+     * Render frames as they come until stopped.
+     */
+    private void renderLoop()
+    {
+        while (running)
+        {
+            final LatestFrameSlot.Frame frame = slot.poll();
+            try
+            {
+                if (frame != null)
+                {
+                    render(frame);
+                }
+                else if (alpha < 1)
+                {
+                    final long wait = nextPresentNanos - System.nanoTime();
+                    if (wait > 0)
+                    {
+                        // Woken up early by a new frame.
+                        LockSupport.parkNanos(this, wait);
+                    }
+                    else
+                    {
+                        interpolate();
+                    }
+                }
+                else if (repaintRequested.getAndSet(false))
+                {
+                    present();
+                }
+                else
+                {
+                    LockSupport.park(this);
+                }
+            }
+            catch (RuntimeException e)
+            {
+                logger.warn("Rendering failed.", e);
+                alpha = 1;
+            }
+        }
+    }
+
+    /**
+     * Present players on their way to the last game frame's positions.
+     */
+    private void interpolate()
+    {
+        final long start = System.nanoTime();
+        alpha = (interpolation ? Math.min(1, (start - frameNanos) / framePeriodNanos) : 1);
+        renderer.interpolate(alpha);
+        presented(start);
+    }
+
+    /**
+     * Present the latest composed frame and update statistics.
+     */
+    private void presented(long start)
+    {
+        nextPresentNanos = start + refreshNanos;
+        if (present())
+        {
+            final long now = System.nanoTime();
+            renderTimes.add(now - start);
+            presentTimes.add(now);
+            if (counters != null)
+            {
+                counters.painted(now);
+            }
+        }
+    }
+
+    /**
+     * Compose and present a frame.
+     */
+    private void render(LatestFrameSlot.Frame frame)
+    {
+        if (frame.start != null)
+        {
+            renderer.onFrame(frame.frame, Collections.singletonList(frame.start));
+            sizeChanged(renderer.getViewSize());
+
+            final GameConfiguration conf = frame.start.getConfiguration();
+            if (conf != null)
+            {
+                framePeriodNanos = 1e9 / conf.DEFAULT_FRAME_RATE;
+                if (counters != null)
+                {
+                    counters.setFrameRate(conf.DEFAULT_FRAME_RATE);
+                }
+            }
+            frameNanos = 0;
+        }
+
+        if (frame.state != null)
+        {
+            final long start = System.nanoTime();
+            if (frameNanos != 0)
+            {
+                final long period = Math.max(MIN_FRAME_PERIOD,
+                    Math.min(MAX_FRAME_PERIOD, start - frameNanos));
+                framePeriodNanos = 0.8 * framePeriodNanos + 0.2 * period;
+            }
+            frameNanos = start;
+
+            final boolean interpolate = interpolation;
+            renderer.setInterpolation(interpolate);
+            renderer.updateBoard(frame.state);
+            if (counters != null)
+            {
+                counters.frameRendered(frame.frame, System.nanoTime() - start);
+            }
+            alpha = (interpolate ? 0 : 1);
+            presented(start);
+        }
+    }
+
+    /**
+     * Present the latest composed frame.
+     *
+     * @return Return <code>false</code> if there was nothing to present or nowhere to
+     *         present it.
+     */
+    private boolean present()
+    {
+        final BufferStrategy strategy = getBufferStrategy();
+        final BufferedImage image = renderer.getBackgroundImage();
+        if (strategy == null || image == null || !isDisplayable())
+        {
+            return false;
+        }
+
+        final PerformanceOverlay overlay = this.overlay;
+        try
+        {
+            do
+            {
+                do
+                {
+                    final Graphics g = strategy.getDrawGraphics();
+                    if (getWidth() > image.getWidth() || getHeight() > image.getHeight())
+                    {
+                        g.setColor(Color.BLACK);
+                        g.fillRect(0, 0, getWidth(), getHeight());
+                    }
+                    g.drawImage(image, 0, 0, null);
+                    if (overlay != null)
+                    {
+                        overlay.paint((Graphics2D) g);
+                    }
+                    g.dispose();
+                }
+                while (strategy.contentsRestored());
+
+                strategy.show();
+            }
+            while (strategy.contentsLost());
+            Toolkit.getDefaultToolkit().sync();
+            return true;
+        }
+        catch (IllegalStateException e)
+        {
+            // The canvas has just been removed from its window.
+            return false;
+        }
+    }
+
+    /**
+     * Resize the canvas (and its window) to the view's size.
+     */
+    private void sizeChanged(final Dimension size)
+    {
+        SwingUtilities.invokeLater(new Runnable()
+        {
+            public void run()
+            {
+                setPreferredSize(size);
+                final Window window = SwingUtilities.getWindowAncestor(BoardCanvas.this);
+                if (window != null)
+                {
+                    window.pack();
+                }
+            }
+        });
+    }
+
+    /**
+     * Create the buffer strategy and start rendering once the canvas is displayable.
+     */
+    @Override
+    public void addNotify()
+    {
+        super.addNotify();
+        createBufferStrategy(2);
+
+        if (renderThread.getState() == Thread.State.NEW)
+        {
+            renderThread.start();
+        }
+    }
+
+    /**
+     * Ask the render thread to present the last frame again.
+     */
+    @Override
+    public void paint(Graphics g)
+    {
+        repaintRequested.set(true);
+        LockSupport.unpark(renderThread);
+    }
+
+    /*
+     *
+     */
+    @Override
+    public void update(Graphics g)
+    {
+        paint(g);
+    }
+
+    /**
+     * @see BoardCanvas
+     */
+    void setInterpolation(boolean interpolation)
+    {
+        this.interpolation = interpolation;
+        LockSupport.unpark(renderThread);
+    }
+
+    /**
+     * @return Return the display's refresh rate (in Hz) or a default if unknown.
+     */
+    private static int getRefreshRate(GraphicsConfiguration conf)
+    {
+        int rate = DisplayMode.REFRESH_RATE_UNKNOWN;
+        try
+        {
+            rate = conf.getDevice().getDisplayMode().getRefreshRate();
+        }
+        catch (RuntimeException e)
+        {
+            // Not a screen device.
+        }
+        return (rate > 0 ? rate : DEFAULT_REFRESH_RATE);
+    }
+
+    /**
+     * Stop the render thread (waiting for it a while).
+     */
+    void stop()
+    {
+        running = false;
+        LockSupport.unpark(renderThread);
+        if (renderThread.isAlive() && Thread.currentThread() != renderThread)
+        {
+            try
+            {
+                renderThread.join(1000);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Update the given counters with render times and presented frames. Must be called
+     * before the canvas is displayed.
+     */
+    void setPerformanceCounters(PerformanceCounters counters)
+    {
+        this.counters = counters;
+    }
+
+    /**
+     * @see BoardPanel#setPerformanceOverlay(boolean)
+     */
+    void setPerformanceOverlay(boolean show)
+    {
+        this.overlay = (show && counters != null ? new PerformanceOverlay(counters) : null);
+        repaintRequested.set(true);
+        LockSupport.unpark(renderThread);
+    }
+
+    /**
+     * @see BoardPanel#trackPlayer(String)
+     */
+    void trackPlayer(String playerName)
+    {
+        renderer.trackPlayer(playerName);
+    }
+
+    /**
+     * @return Return the number of frames presented so far.
+     */
+    long getPresentedFrames()
+    {
+        return presentTimes.getCount();
+    }
+
+    /**
+     * @return Return the number of frames dropped (replaced by later frames before the
+     *         render thread took them).
+     */
+    long getDroppedFrames()
+    {
+        return slot.getDropped();
+    }
+
+    /**
+     * @return Return render times (composing and presenting a frame) of the most
+     *         recent frames, in nanoseconds.
+     */
+    SampleWindow getRenderTimes()
+    {
+        return renderTimes;
+    }
+
+    /**
+     * @return Return the rate of presenting the most recent frames (in frames per
+     *         second) or zero if there were too few frames.
+     */
+    double getPresentedFps()
+    {
+        final long [] times = presentTimes.getSorted();
+        if (times.length < 2 || times[times.length - 1] == times[0])
+        {
+            return 0;
+        }
+        return (times.length - 1) * 1e9 / (times[times.length - 1] - times[0]);
+    }
+
+    /**
+     * @return Return presented and dropped frames and render time percentiles, as a
+     *         single line of text.
+     */
+    String getStatistics()
+    {
+        final long [] sorted = renderTimes.getSorted();
+        return String.format(Locale.US, "Active rendering: presented: %d (%.1f fps), "
+            + "dropped: %d, render time [ms] p50: %.2f, p99: %.2f, max: %.2f",
+            getPresentedFrames(), getPresentedFps(), getDroppedFrames(),
+            SampleWindow.percentile(sorted, 50) / 1e6,
+            SampleWindow.percentile(sorted, 99) / 1e6,
+            SampleWindow.percentile(sorted, 100) / 1e6);
+    }
+}
@@ -10,6 +10,8 @@ import javax.swing.*;
 
 import org.jdyna.*;
 import org.jdyna.view.resources.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Lists;
 
@@ -19,8 +21,20 @@ import com.google.common.collect.Lists;
 @SuppressWarnings("serial")
 public final class BoardFrame extends JFrame implements IGameEventListener
 {
+    private final static Logger logger = LoggerFactory.getLogger(BoardFrame.class);
+
+    /**
+     * Key toggling the performance overlay.
+     */
+    public final static int OVERLAY_KEY = KeyEvent.VK_F3;
+
     private BoardPanel gamePanel;
 
+    /**
+     * The board view for active rendering (instead of {@link #gamePanel}).
+     */
+    private BoardCanvas gameCanvas;
+
     /**
      * Attached score frame, if any.
      */
@@ -41,6 +55,29 @@ public final class BoardFrame extends JFrame implements IGameEventListener
      */
     private final JPanel statuses;
 
+    /**
+     * Performance counters of the board view and network client (if any).
+     */
+    private final PerformanceCounters counters = new PerformanceCounters();
+    private boolean performanceOverlay;
+
+    /**
+     * Toggles the performance overlay with {@link #OVERLAY_KEY}.
+     */
+    private final KeyEventDispatcher overlayToggle = new KeyEventDispatcher()
+    {
+        public boolean dispatchKeyEvent(KeyEvent e)
+        {
+            if (e.getID() == KeyEvent.KEY_PRESSED && e.getKeyCode() == OVERLAY_KEY
+                && isFocused())
+            {
+                setPerformanceOverlay(!performanceOverlay);
+                return true;
+            }
+            return false;
+        }
+    };
+
     /*
      * 
      */
@@ -53,20 +90,42 @@ public final class BoardFrame extends JFrame implements IGameEventListener
      * 
      */
     public BoardFrame(GraphicsConfiguration conf)
+    {
+        this(conf, false);
+    }
+
+    /**
+     * @param activeRendering If <code>true</code>, the board is rendered by a dedicated
+     *            thread on a {@link Canvas} (see {@link BoardCanvas}) instead of being
+     *            repainted by Swing.
+     */
+    public BoardFrame(GraphicsConfiguration conf, boolean activeRendering)
     {
         this.images = ImagesFactory.DYNA_CLASSIC;
 
-        gamePanel = new BoardPanel(images, conf);
-        gamePanel.addComponentListener(new ComponentAdapter() {
-            public void componentResized(ComponentEvent e)
-            {
-                /*
-                 * Resize the entire frame when the game panel changes size.
-                 */
-                BoardFrame.this.validate();
-                BoardFrame.this.setSize(BoardFrame.this.getPreferredSize());
-            }
-        });
+        final Component board;
+        if (activeRendering)
+        {
+            gameCanvas = new BoardCanvas(images, conf);
+            gameCanvas.setPerformanceCounters(counters);
+            board = gameCanvas;
+        }
+        else
+        {
+            gamePanel = new BoardPanel(images, conf);
+            gamePanel.setPerformanceCounters(counters);
+            gamePanel.addComponentListener(new ComponentAdapter() {
+                public void componentResized(ComponentEvent e)
+                {
+                    /*
+                     * Resize the entire frame when the game panel changes size.
+                     */
+                    BoardFrame.this.validate();
+                    BoardFrame.this.setSize(BoardFrame.this.getPreferredSize());
+                }
+            });
+            board = gamePanel;
+        }
 
         /*
          * Create the score frame.
@@ -79,7 +138,7 @@ public final class BoardFrame extends JFrame implements IGameEventListener
         final JPanel panel = new JPanel();
         panel.setLayout(new BorderLayout());
         getContentPane().add(panel);
-        panel.add(gamePanel, BorderLayout.CENTER);
+        panel.add(board, BorderLayout.CENTER);
 
         this.statuses = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 10));
         panel.add(statuses, BorderLayout.SOUTH);
@@ -117,9 +176,12 @@ public final class BoardFrame extends JFrame implements IGameEventListener
             }
         });
 
-        sublisteners.add(gamePanel);
+        sublisteners.add((IGameEventListener) board);
         sublisteners.add(scoreFrame);
 
+        KeyboardFocusManager.getCurrentKeyboardFocusManager().addKeyEventDispatcher(
+            overlayToggle);
+
         pack();
     }
 
@@ -139,7 +201,14 @@ public final class BoardFrame extends JFrame implements IGameEventListener
      */
     public void trackPlayer(String playerName)
     {
-        gamePanel.trackPlayer(playerName);
+        if (gameCanvas != null)
+        {
+            gameCanvas.trackPlayer(playerName);
+        }
+        else
+        {
+            gamePanel.trackPlayer(playerName);
+        }
     }
 
     /**
@@ -166,6 +235,59 @@ public final class BoardFrame extends JFrame implements IGameEventListener
         statuses.add(p);
     }
 
+    /**
+     * Interpolate players' movement between game frames at the display's refresh rate
+     * (shown a game frame late). Available with active rendering only, ignored otherwise.
+     */
+    public void setInterpolation(boolean interpolation)
+    {
+        if (gameCanvas != null)
+        {
+            gameCanvas.setInterpolation(interpolation);
+        }
+    }
+
+    /**
+     * @return Return the performance counters shown in the overlay. Network clients
+     *         report received frames here.
+     */
+    public PerformanceCounters getPerformanceCounters()
+    {
+        return counters;
+    }
+
+    /**
+     * Show a performance overlay (HUD) over the board or not. It can also be toggled
+     * with {@link #OVERLAY_KEY}.
+     */
+    public void setPerformanceOverlay(boolean show)
+    {
+        this.performanceOverlay = show;
+        if (gameCanvas != null)
+        {
+            gameCanvas.setPerformanceOverlay(show);
+        }
+        else
+        {
+            gamePanel.setPerformanceOverlay(show);
+        }
+    }
+
+    /**
+     * Stop the render thread of active rendering, if any.
+     */
+    @Override
+    public void dispose()
+    {
+        KeyboardFocusManager.getCurrentKeyboardFocusManager().removeKeyEventDispatcher(
+            overlayToggle);
+        if (gameCanvas != null)
+        {
+            gameCanvas.stop();
+        }
+        super.dispose();
+    }
+
     /**
      * Do the cleanup. Needed to stop running timers of statuses.
      */
@@ -178,5 +300,10 @@ public final class BoardFrame extends JFrame implements IGameEventListener
                 ((PlayerStatusPanel) l).clearStatuses();
             }
         }
+
+        if (logger.isInfoEnabled())
+        {
+            logger.info(UiClock.getInstance().toString());
+        }
     }
 }
@@ -2,11 +2,10 @@ package org.jdyna.view.swing;
 
 import java.awt.*;
 import java.awt.RenderingHints.Key;
-import java.awt.geom.AffineTransform;
-import java.awt.image.AffineTransformOp;
 import java.awt.image.BufferedImage;
-import java.awt.image.BufferedImageOp;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 
@@ -20,6 +19,7 @@ import org.jdyna.*;
 import org.jdyna.view.resources.Images;
 import org.jdyna.view.swing.SwingUtils.VisibilityTracker;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 /**
@@ -43,40 +43,101 @@ public final class BoardPanel extends JPanel implements IGameEventListener
      * Maximum width for the displayed player name.
      */
     private final static int MAX_PLAYER_NAME_WIDTH = 10;
-    
+
+    /**
+     * Default limit of the view's size: a fraction of the usable area of the screen,
+     * leaving room for the window's decorations and status panels.
+     */
+    private final static double MAX_SCREEN_FRACTION = 0.8;
+
+    /**
+     * The fraction of the distance to the tracked player the camera moves by in a frame.
+     */
+    private final static double CAMERA_GAIN = 0.25;
+
+    /**
+     * Immortal (and tracked) players flicker with this period (in frames).
+     */
+    final static int FLICKER_PERIOD = 8;
+
+    /**
+     * Marks positions of players who were not painted in a frame.
+     */
+    private final static int NOT_PAINTED = Integer.MIN_VALUE;
+
     /**
      * Exclusive lock so that drawing and updating does not take place at the same time.
      */
     private final Object exclusiveLock = new Object();
 
     /**
-     * The latest board's background state.
+     * The latest board's background state (of the {@link #viewport}).
      */
     private BufferedImage background;
 
+    /**
+     * The part of the board shown (in pixels at the current magnification): the whole
+     * board or, if it is larger than {@link #maxViewSize}, a window following the tracked
+     * player. Only cells and players intersecting the viewport are painted, so the cost
+     * of a frame is bounded by the size of the view rather than the board.
+     */
+    private final Rectangle viewport = new Rectangle();
+    private Dimension maxViewSize;
+
+    /**
+     * The viewport's location {@link #background} was composed at.
+     */
+    private final Point composed = new Point();
+
+    /**
+     * The camera (the viewport's location, smoothed) and its location in the previous
+     * and the last frame (the range of {@link #interpolate(double)}). The camera follows
+     * {@link #cameraTarget}, the tracked player's position, once there is one.
+     */
+    private double cameraX, cameraY;
+    private boolean cameraValid;
+    private final Point cameraFrom = new Point();
+    private final Point cameraTo = new Point();
+    private final Point cameraTarget = new Point();
+    private boolean hasCameraTarget;
+
     /*
      * Board information.
      */
     private BoardInfo boardInfo;
 
     /**
-     * A set of required images.
+     * Source images, scaled to {@link #magnification} in {@link #images}.
+     */
+    private final Images sourceImages;
+
+    /**
+     * A set of required images, compatible with {@link #conf} and pre-scaled to
+     * {@link #magnification}.
      */
     private Images images;
 
+    /**
+     * Pre-scaled images for magnifications used so far.
+     */
+    private final EnumMap<Magnification, Images> scaledImages =
+        Maps.newEnumMap(Magnification.class);
+
     /**
      * When a player dies we need to display its 'dying' state sequence. This is not
      * propagated from the controller because the controller does not know how many frames
      * it would take to display such sequence.
      * <p>
-     * This map stores the index of a given player and its 'dead' status frame count.
+     * This map stores the name of a given player and its 'dead' status frame count
+     * (players may join and leave, so their indexes change).
      */
-    private HashMap<Integer, Integer> dyingPlayers = Maps.newHashMap();
+    private HashMap<String, Integer> dyingPlayers = Maps.newHashMap();
 
     /**
-     * Label font for players.
+     * Label font for players (unscaled and at {@link #magnification}).
      */
-    private final Font labelFont;
+    private final Font sourceLabelFont;
+    private Font labelFont;
 
     /**
      * Should player labels be painted or not?
@@ -90,15 +151,16 @@ public final class BoardPanel extends JPanel implements IGameEventListener
     private Magnification magnification;
 
     /**
-     * Hardware graphics configuration.
+     * Integer scale factor of {@link #magnification} and the size of a cell at this
+     * scale. Frames are composed directly at the target resolution.
      */
-    private final GraphicsConfiguration conf;
+    private int scale;
+    private int cellSize;
 
     /**
-     * Affine transformation scaling to {@link #magnification} or <code>null</code>
-     * if 1:1 rendering is to be used.
+     * Hardware graphics configuration.
      */
-    private BufferedImageOp magnificationOp;
+    private final GraphicsConfiguration conf;
 
     /**
      * Global frame counter, used for flickering.
@@ -112,6 +174,90 @@ public final class BoardPanel extends JPanel implements IGameEventListener
 
     private String trackedPlayer;
 
+    /**
+     * Render incrementally: repaint only cells whose images changed since the last
+     * frame and regions under players (see {@link #setIncremental(boolean)}).
+     */
+    private boolean incremental = true;
+
+    /**
+     * Grid cells without players, the static layer of incremental rendering. The layer
+     * covers the cells under the viewport with a margin of a cell, starting at column
+     * {@link #layerCol} and row {@link #layerRow}. Images of cells drawn on it are kept
+     * in {@link #drawnCells} (indexed by <code>x + y * layerCols</code> relative to the
+     * layer, <code>null</code> for the background).
+     */
+    private BufferedImage boardLayer;
+    private BufferedImage [] drawnCells;
+    private BufferedImage [] shiftedCells;
+    private int layerCol, layerRow, layerCols, layerRows;
+    private boolean layerValid;
+
+    /**
+     * Players of the current frame.
+     */
+    private final List<Sprite> sprites = Lists.newArrayList();
+    private int spritesCount;
+
+    /**
+     * Bounds of players painted in the last frame.
+     */
+    private Rectangle [] lastSpriteBounds = new Rectangle [0];
+    private int lastSpritesCount;
+
+    /**
+     * Regions repainted in the current frame (in board pixels) and their bounds (in
+     * panel pixels).
+     */
+    private Rectangle [] dirtyRegions = new Rectangle [16];
+    private int dirtyRegionsCount;
+    private final Rectangle dirty = new Rectangle();
+
+    /**
+     * Approximated background color.
+     */
+    private Color backgroundColor;
+
+    /**
+     * Interpolate positions of players between frames (see {@link #interpolate(double)}).
+     */
+    private boolean interpolation;
+
+    /**
+     * Cells of the last frame and positions of players painted in it (by player name, at
+     * the current magnification). These are the starting points of interpolation in the
+     * next frame. Positions of the current frame are collected in {@link #nextPositions}.
+     * Both maps keep one point per player, players who were not painted have their
+     * point's x set to {@link #NOT_PAINTED}.
+     */
+    private Cell [][] lastCells;
+    private HashMap<String, Point> lastPositions = Maps.newHashMap();
+    private HashMap<String, Point> nextPositions = Maps.newHashMap();
+
+    /**
+     * Performance counters updated by this panel (if any) and the overlay showing them
+     * (<code>null</code> if hidden).
+     */
+    private PerformanceCounters counters;
+    private volatile PerformanceOverlay overlay;
+
+    /**
+     * A player to be painted: image, location, label and bounds of everything painted.
+     */
+    private final static class Sprite
+    {
+        BufferedImage image;
+        final Point position = new Point();
+        final Point from = new Point();
+        int shiftX, shiftY;
+        int x, y;
+        boolean immortal;
+        boolean tracked;
+        String label;
+        int labelX, labelY;
+        final Rectangle bounds = new Rectangle();
+    }
+
     /**
      * Rendering hints that disable bilinear or bicubic interpolation and in general
      * go for "pixelized" style. 
@@ -130,16 +276,17 @@ public final class BoardPanel extends JPanel implements IGameEventListener
      */
     public BoardPanel(Images images, GraphicsConfiguration conf)
     {
-        this.images = images.createCompatible(conf);
+        this.sourceImages = images;
         this.conf = conf;
         this.tracker = SwingUtils.createVisibilityTracker(this);
+        this.maxViewSize = getScreenViewSize(conf);
 
         InputStream is = null;
         try
         {
             is = Thread.currentThread().getContextClassLoader().getResourceAsStream(
                 "fonts/5px2bus.ttf");
-            this.labelFont = Font.createFont(Font.TRUETYPE_FONT, is).deriveFont(5f);
+            this.sourceLabelFont = Font.createFont(Font.TRUETYPE_FONT, is).deriveFont(5f);
             is.close();
         }
         catch (Exception e)
@@ -164,152 +311,591 @@ public final class BoardPanel extends JPanel implements IGameEventListener
         final Graphics2D g = background.createGraphics();
         g.setRenderingHints(hints);
 
-        final BufferedImage backgroundImage = getCellImage(CellType.CELL_EMPTY, 0);
-        final Color backgroundColor = new Color(backgroundImage.getRGB(0, 0));
+        synchronized (exclusiveLock)
+        {
+            // Interpolated frames flicker in the same phase as their game frame.
+            globalFrameCounter++;
+            prepareSprites(g, gameState.getPlayers());
+            moveCamera();
+            if (interpolation)
+            {
+                // Start from the previous positions, interpolate() moves players on.
+                moveSprites(0);
+            }
+            moveViewport(interpolation ? 0 : 1);
+
+            lastCells = gameState.getCells();
+            if (incremental)
+            {
+                paintChanges(g, lastCells);
+            }
+            else
+            {
+                paintAll(g, lastCells);
+            }
+        }
+        g.dispose();
+    }
 
+    /**
+     * Move players between their positions in the previous frame (<code>alpha</code>
+     * equal to 0) and the last frame (<code>alpha</code> equal to 1) passed to
+     * {@link #updateBoard(GameStateEvent)} and repaint them (the view scrolls along with
+     * the tracked player). Grid cells and animation
+     * frames stay as in the last frame, so the game state passed to
+     * {@link #updateBoard(GameStateEvent)} must not change in the meantime. Players are
+     * interpolated only if {@link #setInterpolation(boolean)} is enabled.
+     */
+    public void interpolate(double alpha)
+    {
         synchronized (exclusiveLock)
         {
-            /*
-             * Erase the background with approximated background color.
-             */
-            g.setColor(backgroundColor);
-            g.fillRect(0, 0, boardInfo.pixelSize.width, boardInfo.pixelSize.height);
+            if (!interpolation || lastCells == null)
+            {
+                return;
+            }
 
-            /*
-             * Paint grid cells.
-             */
-            final Cell [][] cells = gameState.getCells();
-            final int cellSize = boardInfo.cellSize;
-            for (int y = boardInfo.gridSize.height - 1; y >= 0; y--)
+            final Graphics2D g = background.createGraphics();
+            g.setRenderingHints(hints);
+            alpha = Math.max(0, Math.min(1, alpha));
+            moveSprites(alpha);
+            moveViewport(alpha);
+            if (incremental)
             {
-                for (int x = boardInfo.gridSize.width - 1; x >= 0; x--)
-                {
-                    final Cell cell = cells[x][y];
-                    final CellType type = cell.type;
+                paintChanges(g, lastCells);
+            }
+            else
+            {
+                paintAll(g, lastCells);
+            }
+            g.dispose();
+        }
+    }
 
-                    final BufferedImage image = getCellImage(type, cell.counter);
-                    if (image != null)
-                    {
-                        g.drawImage(image, null, x * cellSize, y * cellSize);
-                    }
+    /**
+     * Shift players from their positions in the last frame towards their positions in
+     * the previous frame by <code>1 - alpha</code> of the distance.
+     */
+    private void moveSprites(double alpha)
+    {
+        for (int i = 0; i < spritesCount; i++)
+        {
+            final Sprite sprite = sprites.get(i);
+            final int x = sprite.position.x - sprite.shiftX;
+            final int y = sprite.position.y - sprite.shiftY;
+            final int shiftX = (int) Math.round((sprite.from.x - x) * (1 - alpha));
+            final int shiftY = (int) Math.round((sprite.from.y - y) * (1 - alpha));
+
+            final int dx = shiftX - sprite.shiftX;
+            final int dy = shiftY - sprite.shiftY;
+            sprite.position.translate(dx, dy);
+            sprite.bounds.translate(dx, dy);
+            sprite.x += dx;
+            sprite.y += dy;
+            sprite.labelX += dx;
+            sprite.labelY += dy;
+            sprite.shiftX = shiftX;
+            sprite.shiftY = shiftY;
+        }
+    }
+
+    /**
+     * Move the camera towards the tracked player (centered in the viewport, as far as the
+     * board's edges permit), by a fraction of the distance per frame so that the view
+     * scrolls smoothly. Without a tracked player the camera stays in the board's center.
+     */
+    private void moveCamera()
+    {
+        final int maxX = Math.max(0, boardInfo.pixelSize.width * scale - viewport.width);
+        final int maxY = Math.max(0, boardInfo.pixelSize.height * scale - viewport.height);
+
+        double x = maxX / 2.0;
+        double y = maxY / 2.0;
+        if (hasCameraTarget)
+        {
+            x = Math.max(0, Math.min(maxX, cameraTarget.x - viewport.width / 2));
+            y = Math.max(0, Math.min(maxY, cameraTarget.y - viewport.height / 2));
+        }
+
+        if (cameraValid)
+        {
+            cameraX += (x - cameraX) * CAMERA_GAIN;
+            cameraY += (y - cameraY) * CAMERA_GAIN;
+        }
+        else
+        {
+            // Jump to the target in the first frame.
+            cameraX = x;
+            cameraY = y;
+            cameraTo.setLocation((int) Math.round(x), (int) Math.round(y));
+            cameraValid = true;
+        }
+
+        cameraFrom.setLocation(cameraTo);
+        cameraTo.setLocation((int) Math.round(cameraX), (int) Math.round(cameraY));
+    }
+
+    /**
+     * Place the viewport between the camera's location in the previous frame
+     * (<code>alpha</code> equal to 0) and the last frame (<code>alpha</code> equal to 1).
+     */
+    private void moveViewport(double alpha)
+    {
+        viewport.setLocation(
+            cameraFrom.x + (int) Math.round((cameraTo.x - cameraFrom.x) * alpha),
+            cameraFrom.y + (int) Math.round((cameraTo.y - cameraFrom.y) * alpha));
+    }
+
+    /**
+     * Move the board layer's window of cells so that it covers the viewport with a
+     * margin of a cell. Cells drawn already are shifted along, so scrolling by a cell
+     * repaints only a row or column of cells.
+     */
+    private void moveLayer()
+    {
+        final int col = Math.max(0, Math.min(boardInfo.gridSize.width - layerCols,
+            viewport.x / cellSize - 1));
+        final int row = Math.max(0, Math.min(boardInfo.gridSize.height - layerRows,
+            viewport.y / cellSize - 1));
+        final int dx = col - layerCol;
+        final int dy = row - layerRow;
+        layerCol = col;
+        layerRow = row;
+
+        if (!layerValid || (dx == 0 && dy == 0))
+        {
+            return;
+        }
+
+        if (Math.abs(dx) >= layerCols || Math.abs(dy) >= layerRows)
+        {
+            layerValid = false;
+            return;
+        }
+
+        final int w = boardLayer.getWidth();
+        final int h = boardLayer.getHeight();
+        final Graphics2D lg = boardLayer.createGraphics();
+        lg.copyArea(0, 0, w, h, -dx * cellSize, -dy * cellSize);
+        lg.setColor(getBackgroundColor());
+        if (dx != 0)
+        {
+            lg.fillRect(dx > 0 ? w - dx * cellSize : 0, 0, Math.abs(dx) * cellSize, h);
+        }
+        if (dy != 0)
+        {
+            lg.fillRect(0, dy > 0 ? h - dy * cellSize : 0, w, Math.abs(dy) * cellSize);
+        }
+        lg.dispose();
+
+        Arrays.fill(shiftedCells, null);
+        for (int y = Math.max(0, -dy); y < Math.min(layerRows, layerRows - dy); y++)
+        {
+            System.arraycopy(drawnCells, Math.max(0, dx) + (y + dy) * layerCols,
+                shiftedCells, Math.max(0, -dx) + y * layerCols, layerCols - Math.abs(dx));
+        }
+
+        final BufferedImage [] tmp = drawnCells;
+        drawnCells = shiftedCells;
+        shiftedCells = tmp;
+    }
+
+    /**
+     * Repaint the whole board: grid cells and players.
+     */
+    private void paintAll(Graphics2D g, Cell [][] cells)
+    {
+        g.translate(-viewport.x, -viewport.y);
+
+        /*
+         * Erase the background with approximated background color.
+         */
+        g.setColor(getBackgroundColor());
+        g.fillRect(viewport.x, viewport.y, viewport.width, viewport.height);
+
+        /*
+         * Paint grid cells under the viewport (and a margin of a cell, as the board layer).
+         */
+        moveLayer();
+        for (int y = layerRow + layerRows - 1; y >= layerRow; y--)
+        {
+            for (int x = layerCol + layerCols - 1; x >= layerCol; x--)
+            {
+                final Cell cell = cells[x][y];
+                final BufferedImage image = getCellImage(cell.type, cell.counter);
+                if (image != null)
+                {
+                    g.drawImage(image, null, x * cellSize, y * cellSize);
                 }
             }
+        }
 
-            /*
-             * Paint players.
-             */
-            final List<? extends IPlayerSprite> players = gameState.getPlayers();
-            for (int playerIndex = 0; playerIndex < players.size(); playerIndex++)
+        final Rectangle visible = new Rectangle(viewport);
+        visible.grow(cellSize, cellSize);
+        for (int i = 0; i < spritesCount; i++)
+        {
+            final Sprite sprite = sprites.get(i);
+            if (sprite.bounds.intersects(visible))
             {
-                final IPlayerSprite player = players.get(playerIndex);
-                int state = player.getAnimationState();
-                int frame = player.getAnimationFrame();
+                paintSprite(g, sprite);
+            }
+        }
 
-                /*
-                 * Special handing of the 'dying' state. This is a bit more complex because
-                 * upon joining an existing game we should not display the dying sequence for
-                 * players that are dead and will never recover from such state.
-                 */
-                final int deadState = Player.State.DEAD.ordinal();
-                final int dyingState = Player.State.DYING.ordinal();
-                if (state == deadState)
-                {
-                    final int max = images.getMaxSpriteImageFrame(player.getType(), dyingState);
+        dirty.setBounds(0, 0, background.getWidth(), background.getHeight());
+        composed.setLocation(viewport.getLocation());
+        layerValid = false;
+    }
+
+    /**
+     * Repaint cells whose images changed since the last frame (on {@link #boardLayer})
+     * and regions under players (in this and the last frame). If the viewport moved,
+     * the whole viewport is restored from the board layer.
+     */
+    private void paintChanges(Graphics2D g, Cell [][] cells)
+    {
+        g.translate(-viewport.x, -viewport.y);
+        dirtyRegionsCount = 0;
+        moveLayer();
 
-                    Integer f = dyingPlayers.get(playerIndex);
-                    if (f == null)
+        final int layerX = layerCol * cellSize;
+        final int layerY = layerRow * cellSize;
+        final Graphics2D lg = boardLayer.createGraphics();
+        lg.setRenderingHints(hints);
+        lg.setColor(getBackgroundColor());
+        if (!layerValid)
+        {
+            lg.fillRect(0, 0, boardLayer.getWidth(), boardLayer.getHeight());
+            Arrays.fill(drawnCells, null);
+            addDirtyRegion(layerX, layerY, boardLayer.getWidth(), boardLayer.getHeight());
+        }
+
+        for (int y = layerRows - 1; y >= 0; y--)
+        {
+            for (int x = layerCols - 1; x >= 0; x--)
+            {
+                final Cell cell = cells[layerCol + x][layerRow + y];
+                final BufferedImage image = getCellImage(cell.type, cell.counter);
+                if (image != drawnCells[x + y * layerCols])
+                {
+                    drawnCells[x + y * layerCols] = image;
+                    lg.fillRect(x * cellSize, y * cellSize, cellSize, cellSize);
+                    if (image != null)
                     {
-                        /*
-                         * We did not see this player previously and it is in the dying state?
-                         * Must be a stone-dead fella, so we don't display the dying sequence for him.
-                         */
-                        f = max;
-                        dyingPlayers.put(playerIndex, f);
+                        lg.drawImage(image, null, x * cellSize, y * cellSize);
                     }
 
-                    if (f < max)
+                    if (layerValid)
                     {
-                        state = dyingState;
-                        frame = f;
-                        dyingPlayers.put(playerIndex, f + 1);
+                        addDirtyRegion(layerX + x * cellSize, layerY + y * cellSize,
+                            cellSize, cellSize);
                     }
                 }
-                else
+            }
+        }
+        lg.dispose();
+        layerValid = true;
+
+        /*
+         * Players move, animate and flicker: repaint where they were and where they are.
+         */
+        for (int i = 0; i < lastSpritesCount; i++)
+        {
+            final Rectangle r = lastSpriteBounds[i];
+            addDirtyRegion(r.x, r.y, r.width, r.height);
+        }
+        if (lastSpriteBounds.length < spritesCount)
+        {
+            lastSpriteBounds = Arrays.copyOf(lastSpriteBounds, spritesCount);
+        }
+        for (int i = 0; i < spritesCount; i++)
+        {
+            final Rectangle r = sprites.get(i).bounds;
+            addDirtyRegion(r.x, r.y, r.width, r.height);
+
+            if (lastSpriteBounds[i] == null)
+            {
+                lastSpriteBounds[i] = new Rectangle();
+            }
+            lastSpriteBounds[i].setBounds(r);
+        }
+        lastSpritesCount = spritesCount;
+
+        if (!viewport.getLocation().equals(composed))
+        {
+            dirtyRegionsCount = 0;
+            addDirtyRegion(viewport.x, viewport.y, viewport.width, viewport.height);
+            composed.setLocation(viewport.getLocation());
+        }
+
+        /*
+         * Restore dirty regions from the board layer and paint players over them.
+         * Regions may overlap, each is repainted from scratch.
+         */
+        dirty.setBounds(0, 0, 0, 0);
+        for (int i = 0; i < dirtyRegionsCount; i++)
+        {
+            final Rectangle r = dirtyRegions[i];
+            g.setClip(r.x, r.y, r.width, r.height);
+            g.drawImage(boardLayer, layerX, layerY, null);
+            for (int j = 0; j < spritesCount; j++)
+            {
+                final Sprite sprite = sprites.get(j);
+                if (sprite.bounds.intersects(r))
                 {
-                    dyingPlayers.put(playerIndex, 0);
+                    paintSprite(g, sprite);
                 }
+            }
 
-                /*
-                 * Paint the player. Players should immediately advance to the next
-                 * animation frame if they move. However, if they keep moving, we need
-                 * to cycle through all the animation frames. The logic below tries
-                 * to express this.
-                 */
-                int animFrame = 0;
-                if (frame > 0)
+            if (dirty.isEmpty())
+            {
+                dirty.setBounds(r);
+            }
+            else
+            {
+                dirty.add(r);
+            }
+        }
+        dirty.translate(-viewport.x, -viewport.y);
+        g.setClip(null);
+    }
+
+    /**
+     * Add a region (in board pixels, clipped to the viewport) to repaint.
+     */
+    private void addDirtyRegion(int x, int y, int w, int h)
+    {
+        final int x1 = Math.max(viewport.x, x);
+        final int y1 = Math.max(viewport.y, y);
+        final int x2 = Math.min(viewport.x + viewport.width, x + w);
+        final int y2 = Math.min(viewport.y + viewport.height, y + h);
+        if (x1 >= x2 || y1 >= y2)
+        {
+            return;
+        }
+
+        if (dirtyRegionsCount == dirtyRegions.length)
+        {
+            dirtyRegions = Arrays.copyOf(dirtyRegions, dirtyRegionsCount * 2);
+        }
+        if (dirtyRegions[dirtyRegionsCount] == null)
+        {
+            dirtyRegions[dirtyRegionsCount] = new Rectangle();
+        }
+        dirtyRegions[dirtyRegionsCount++].setBounds(x1, y1, x2 - x1, y2 - y1);
+    }
+
+    /**
+     * Pick images, positions and labels of players for the current frame (and advance
+     * dying sequences).
+     */
+    private void prepareSprites(Graphics2D g, List<? extends IPlayerSprite> players)
+    {
+        final FontMetrics fm = g.getFontMetrics(labelFont);
+
+        spritesCount = 0;
+        for (Point position : nextPositions.values())
+        {
+            position.x = NOT_PAINTED;
+        }
+        for (int playerIndex = 0; playerIndex < players.size(); playerIndex++)
+        {
+            final IPlayerSprite player = players.get(playerIndex);
+            if (trackedPlayer != null && StringUtils.equals(trackedPlayer, player.getName()))
+            {
+                cameraTarget.setLocation(player.getPosition().x * scale,
+                    player.getPosition().y * scale);
+                hasCameraTarget = true;
+            }
+
+            final String name = player.getName();
+            final Point lastPosition = lastPositions.get(name);
+            int state = player.getAnimationState();
+            int frame = player.getAnimationFrame();
+
+            /*
+             * Special handing of the 'dying' state. This is a bit more complex because
+             * upon joining an existing game we should not display the dying sequence for
+             * players that are dead and will never recover from such state.
+             */
+            final int deadState = Player.State.DEAD.ordinal();
+            final int dyingState = Player.State.DYING.ordinal();
+            if (state == deadState)
+            {
+                final int max = images.getMaxSpriteImageFrame(player.getType(), dyingState);
+
+                Integer f = dyingPlayers.get(name);
+                if (f == null)
                 {
-                    animFrame = (frame - 1) / images.getSpriteAdvanceRate(player.getType());
+                    /*
+                     * We did not see this player previously and it is in the dying state?
+                     * Must be a stone-dead fella, so we don't display the dying sequence for him.
+                     */
+                    f = max;
+                    dyingPlayers.put(name, f);
+                }
 
-                    if (state != dyingState && state != deadState)
-                    {
-                        animFrame++;
-                    }
+                if (f < max)
+                {
+                    state = dyingState;
+                    frame = f;
+                    dyingPlayers.put(name, f + 1);
                 }
+            }
+            else
+            {
+                dyingPlayers.put(name, 0);
+            }
 
-                BufferedImage image = images.getSpriteImage(player.getType(), state, animFrame);
-                
-                if (image != null)
+            /*
+             * Paint the player. Players should immediately advance to the next
+             * animation frame if they move. However, if they keep moving, we need
+             * to cycle through all the animation frames. The logic below tries
+             * to express this.
+             */
+            int animFrame = 0;
+            if (frame > 0)
+            {
+                animFrame = (frame - 1) / images.getSpriteAdvanceRate(player.getType());
+
+                if (state != dyingState && state != deadState)
                 {
-                    final Composite c = g.getComposite();
-                    final Point p = new Point(player.getPosition());
-                    final Point offset = images.getSpriteOffset(player.getType(), state, frame);
+                    animFrame++;
+                }
+            }
 
-                    if (player.isImmortal())
-                    {
-                        /*
-                         * Add a tracked, if this is our player.
-                         */
-                        if (trackedPlayer != null && StringUtils.equals(trackedPlayer, player.getName()))
-                        {
-                            final float alpha = (globalFrameCounter & 4) != 0 ? 0.25f : 0.8f;
-                            final int BAR = cellSize;
-                            g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha));
-
-                            g.setColor(Color.RED);
-                            g.fillRect(p.x - BAR * 2, p.y - BAR/2, BAR * 4, BAR);
-                            g.fillRect(p.x - BAR/2,   p.y - BAR * 2, BAR, BAR * 4);
-
-                            g.setComposite(c);
-                        }
-
-                        /*
-                         * Flicker immortal players.
-                         */
-                        final float alpha = (globalFrameCounter & 4) != 0 ? 0.25f : 0.8f;
-                        g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha));
-                    }
+            final BufferedImage image = images.getSpriteImage(player.getType(), state, animFrame);
+            if (image == null)
+            {
+                continue;
+            }
 
-                    g.drawImage(image, null, p.x + offset.x, p.y + offset.y);
+            if (spritesCount == sprites.size())
+            {
+                sprites.add(new Sprite());
+            }
+            final Sprite sprite = sprites.get(spritesCount++);
+            final Point p = sprite.position;
+            final Point offset = images.getSpriteOffset(player.getType(), state, frame);
 
-                    if (paintPlayerLabels)
-                    {
-                        final Point label = p;
-                        final String playerLabel = StringUtils.abbreviate(
-                            player.getName().toUpperCase(), MAX_PLAYER_NAME_WIDTH);
-                        g.setFont(labelFont);
-                        final FontMetrics fm = g.getFontMetrics();
-                        label.translate(0, -image.getHeight() / 2);
-                        label.translate(-fm.stringWidth(player.getName()) / 2, -(fm
-                            .getDescent() + 2));
-                        g.setColor(Color.YELLOW);
-                        g.drawString(playerLabel, label.x, label.y);
-                    }
-                    
-                    g.setComposite(c);
-                }
+            sprite.image = image;
+            p.setLocation(player.getPosition().x * scale, player.getPosition().y * scale);
+
+            /*
+             * Interpolate from the last position, unless the player jumped (resurrected
+             * or was not painted).
+             */
+            sprite.shiftX = sprite.shiftY = 0;
+            sprite.from.setLocation(p);
+            if (lastPosition != null && lastPosition.x != NOT_PAINTED
+                && Math.abs(lastPosition.x - p.x) <= cellSize
+                && Math.abs(lastPosition.y - p.y) <= cellSize)
+            {
+                sprite.from.setLocation(lastPosition);
+            }
+            Point nextPosition = nextPositions.get(name);
+            if (nextPosition == null)
+            {
+                nextPosition = new Point();
+                nextPositions.put(name, nextPosition);
+            }
+            nextPosition.setLocation(p);
+            sprite.x = p.x + offset.x;
+            sprite.y = p.y + offset.y;
+            sprite.immortal = player.isImmortal();
+            sprite.tracked = sprite.immortal && trackedPlayer != null
+                && StringUtils.equals(trackedPlayer, player.getName());
+            sprite.bounds.setBounds(sprite.x, sprite.y, image.getWidth(), image.getHeight());
+
+            if (sprite.tracked)
+            {
+                sprite.bounds.add(p.x - cellSize * 2, p.y - cellSize * 2);
+                sprite.bounds.add(p.x + cellSize * 2, p.y + cellSize * 2);
+            }
+
+            sprite.label = null;
+            if (paintPlayerLabels)
+            {
+                sprite.label = StringUtils.abbreviate(player.getName().toUpperCase(),
+                    MAX_PLAYER_NAME_WIDTH);
+                sprite.labelX = p.x - fm.stringWidth(player.getName()) / 2;
+                sprite.labelY = p.y - image.getHeight() / 2 - (fm.getDescent() + 2 * scale);
+
+                // A pixel of margin for glyphs reaching out of their metrics.
+                sprite.bounds.add(sprite.labelX - scale, sprite.labelY - fm.getAscent() - scale);
+                sprite.bounds.add(sprite.labelX + fm.stringWidth(sprite.label) + scale,
+                    sprite.labelY + fm.getDescent() + scale);
             }
         }
-        g.dispose();
+
+        final HashMap<String, Point> tmp = lastPositions;
+        lastPositions = nextPositions;
+        nextPositions = tmp;
+    }
+
+    /**
+     * Paint a player prepared by {@link #prepareSprites(Graphics2D, List)}.
+     */
+    private void paintSprite(Graphics2D g, Sprite sprite)
+    {
+        final Composite c = g.getComposite();
+        final Point p = sprite.position;
+
+        if (sprite.immortal)
+        {
+            /*
+             * Add a tracked, if this is our player.
+             */
+            if (sprite.tracked)
+            {
+                final float alpha = isFlickerOff() ? 0.25f : 0.8f;
+                final int BAR = cellSize;
+                g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha));
+
+                g.setColor(Color.RED);
+                g.fillRect(p.x - BAR * 2, p.y - BAR/2, BAR * 4, BAR);
+                g.fillRect(p.x - BAR/2,   p.y - BAR * 2, BAR, BAR * 4);
+
+                g.setComposite(c);
+            }
+
+            /*
+             * Flicker immortal players.
+             */
+            final float alpha = isFlickerOff() ? 0.25f : 0.8f;
+            g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha));
+        }
+
+        g.drawImage(sprite.image, null, sprite.x, sprite.y);
+
+        if (sprite.label != null)
+        {
+            g.setFont(labelFont);
+            g.setColor(Color.YELLOW);
+            g.drawString(sprite.label, sprite.labelX, sprite.labelY);
+        }
+
+        g.setComposite(c);
+    }
+
+    /**
+     * @return Return <code>true</code> in the dim half of the flickering period.
+     */
+    private boolean isFlickerOff()
+    {
+        return (globalFrameCounter % FLICKER_PERIOD) >= FLICKER_PERIOD / 2;
+    }
+
+    /**
+     * Approximated background color (of an empty cell).
+     */
+    private Color getBackgroundColor()
+    {
+        if (backgroundColor == null)
+        {
+            final BufferedImage backgroundImage = getCellImage(CellType.CELL_EMPTY, 0);
+            backgroundColor = new Color(backgroundImage.getRGB(0, 0));
+        }
+        return backgroundColor;
     }
 
     /**
@@ -317,6 +903,7 @@ public final class BoardPanel extends JPanel implements IGameEventListener
      */
     public void onFrame(int frame, List<? extends GameEvent> events)
     {
+        boolean updated = false;
         for (GameEvent e : events)
         {
             if (e.type == GameEvent.Type.GAME_START)
@@ -327,11 +914,40 @@ public final class BoardPanel extends JPanel implements IGameEventListener
 
             if (e.type == GameEvent.Type.GAME_STATE && tracker.isVisibleNotMinimized())
             {
+                final long start = System.nanoTime();
                 updateBoard((GameStateEvent) e);
-                globalFrameCounter++;
+                if (counters != null)
+                {
+                    counters.frameRendered(frame, System.nanoTime() - start);
+                }
+                updated = true;
             }
         }
-        BoardPanel.this.repaint();
+
+        if (updated && overlay == null)
+        {
+            final Rectangle r = getDirtyRegion();
+            if (!r.isEmpty())
+            {
+                BoardPanel.this.repaint(r);
+            }
+        }
+        else
+        {
+            BoardPanel.this.repaint();
+        }
+    }
+
+    /**
+     * @return Return the region of the panel changed by the last
+     *         {@link #updateBoard(GameStateEvent)}.
+     */
+    Rectangle getDirtyRegion()
+    {
+        synchronized (exclusiveLock)
+        {
+            return new Rectangle(dirty);
+        }
     }
 
     /**
@@ -340,24 +956,52 @@ public final class BoardPanel extends JPanel implements IGameEventListener
     private void initializeBoard(GameStartEvent e)
     {
         this.boardInfo = e.getBoardInfo();
+        if (counters != null && e.getConfiguration() != null)
+        {
+            counters.setFrameRate(e.getConfiguration().DEFAULT_FRAME_RATE);
+        }
 
         synchronized (exclusiveLock)
         {
-            /*
-             * Create the background image for the board.
-             */
-            final Dimension size = getBoardSize();
-            background = conf.createCompatibleImage(size.width, size.height);
-    
-            final Graphics2D g = (Graphics2D) background.getGraphics();
-            g.setColor(Color.BLACK);
-            g.fillRect(0, 0, size.width, size.height);
-            g.dispose();
+            hasCameraTarget = false;
+            dyingPlayers.clear();
+            createBuffers();
         }
 
         sizeChanged();
     }
 
+    /**
+     * Create the background image and the board layer at the current magnification and
+     * view size.
+     */
+    private void createBuffers()
+    {
+        final Dimension size = getViewSize();
+        background = conf.createCompatibleImage(size.width, size.height);
+        viewport.setSize(size);
+
+        final Graphics2D g = (Graphics2D) background.getGraphics();
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, size.width, size.height);
+        g.dispose();
+
+        cellSize = boardInfo.cellSize * scale;
+        layerCols = Math.min(boardInfo.gridSize.width,
+            (size.width + cellSize - 1) / cellSize + 3);
+        layerRows = Math.min(boardInfo.gridSize.height,
+            (size.height + cellSize - 1) / cellSize + 3);
+        boardLayer = conf.createCompatibleImage(layerCols * cellSize, layerRows * cellSize);
+        drawnCells = new BufferedImage [layerCols * layerRows];
+        shiftedCells = new BufferedImage [layerCols * layerRows];
+        layerValid = false;
+        cameraValid = false;
+        lastSpritesCount = 0;
+        lastCells = null;
+        lastPositions.clear();
+        nextPositions.clear();
+    }
+
     /**
      * Return an image for a given cell at the given counter.
      */
@@ -386,17 +1030,31 @@ public final class BoardPanel extends JPanel implements IGameEventListener
 
         synchronized (exclusiveLock)
         {
+            final Rectangle r = g.getClipBounds();
             if (this.background == null)
             {
-                final Rectangle r = g.getClipBounds();
                 g.setColor(Color.BLACK);
                 g.fillRect(r.x, r.y, r.width, r.height);
             }
             else
             {
-                g2d.drawImage(background, magnificationOp, 0, 0);
+                /*
+                 * The background is composed at the target resolution, no scaling here.
+                 */
+                g2d.drawImage(background, 0, 0, null);
             }
         }
+
+        final PerformanceOverlay overlay = this.overlay;
+        if (overlay != null)
+        {
+            overlay.paint(g2d);
+        }
+
+        if (counters != null)
+        {
+            counters.painted(System.nanoTime());
+        }
     }
 
     /*
@@ -426,6 +1084,61 @@ public final class BoardPanel extends JPanel implements IGameEventListener
             return size;
         }
     }
+
+    /**
+     * @return Return the size of the view: the board's size, limited to the maximum view
+     *         size (see {@link #setMaxViewSize(Dimension)}).
+     */
+    public Dimension getViewSize()
+    {
+        synchronized (exclusiveLock)
+        {
+            final Dimension size = getBoardSize();
+            if (maxViewSize != null)
+            {
+                size.width = Math.min(size.width, maxViewSize.width);
+                size.height = Math.min(size.height, maxViewSize.height);
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Limit the size of the view. Boards larger than the view are scrolled, following the
+     * tracked player (see {@link #trackPlayer(String)}). <code>null</code> shows whole
+     * boards. By default, views on screen are limited to most of the screen.
+     */
+    public void setMaxViewSize(Dimension size)
+    {
+        synchronized (exclusiveLock)
+        {
+            this.maxViewSize = (size == null ? null : new Dimension(size));
+            if (boardInfo != null)
+            {
+                createBuffers();
+            }
+        }
+
+        sizeChanged();
+    }
+
+    /**
+     * The default view size limit for a screen (<code>null</code> for offscreen
+     * configurations).
+     */
+    private static Dimension getScreenViewSize(GraphicsConfiguration conf)
+    {
+        if (conf.getDevice().getType() != GraphicsDevice.TYPE_RASTER_SCREEN)
+        {
+            return null;
+        }
+
+        final Rectangle bounds = conf.getBounds();
+        final Insets insets = Toolkit.getDefaultToolkit().getScreenInsets(conf);
+        return new Dimension(
+            (int) ((bounds.width - insets.left - insets.right) * MAX_SCREEN_FRACTION),
+            (int) ((bounds.height - insets.top - insets.bottom) * MAX_SCREEN_FRACTION));
+    }
     
     /**
      * Set board pixel doubling to the desired value.
@@ -437,14 +1150,22 @@ public final class BoardPanel extends JPanel implements IGameEventListener
             if (ObjectUtils.equals(this.magnification, magnification)) return;
             this.magnification = magnification;
 
-            magnificationOp = null;
-            if (magnification != Magnification.TIMES_1)
+            /*
+             * Pre-scale images once per magnification, so that the zoom level does not
+             * affect per-frame cost.
+             */
+            images = scaledImages.get(magnification);
+            if (images == null)
+            {
+                images = sourceImages.createCompatible(conf, (int) magnification.scaleFactor);
+                scaledImages.put(magnification, images);
+            }
+            scale = (int) magnification.scaleFactor;
+            labelFont = sourceLabelFont.deriveFont(sourceLabelFont.getSize2D() * scale);
+
+            if (boardInfo != null)
             {
-                final double scale = magnification.scaleFactor;
-                
-                magnificationOp = new AffineTransformOp(
-                    AffineTransform.getScaleInstance(scale, scale),
-                    AffineTransformOp.TYPE_NEAREST_NEIGHBOR);
+                createBuffers();
             }
         }
 
@@ -460,13 +1181,94 @@ public final class BoardPanel extends JPanel implements IGameEventListener
             new Runnable() {
                 public void run()
                 {
-                    setPreferredSize(getBoardSize());
+                    setPreferredSize(getViewSize());
                 }
             });
     }
 
+    /**
+     * Switch between incremental rendering (the default) and repainting the whole board
+     * every frame. Incremental rendering keeps a layer of grid cells and repaints only
+     * cells whose images changed and regions under players, so its cost depends on the
+     * changes rather than on the size of the board.
+     */
+    public void setIncremental(boolean incremental)
+    {
+        synchronized (exclusiveLock)
+        {
+            this.incremental = incremental;
+            this.layerValid = false;
+        }
+    }
+
+    /**
+     * Enable or disable interpolation of players' positions between frames (disabled by
+     * default). When enabled, {@link #updateBoard(GameStateEvent)} paints players where
+     * they were in the previous frame and {@link #interpolate(double)} moves them to their
+     * current positions, so movement is shown a frame late but smoothly at any rate of
+     * repainting.
+     */
+    public void setInterpolation(boolean interpolation)
+    {
+        synchronized (exclusiveLock)
+        {
+            this.interpolation = interpolation;
+        }
+    }
+
+    /**
+     * Board image of the last frame (of the viewport, at the current magnification).
+     */
+    BufferedImage getBackgroundImage()
+    {
+        return background;
+    }
+
+    /**
+     * The part of the board shown in the last frame (in board pixels at the current
+     * magnification).
+     */
+    Rectangle getViewport()
+    {
+        synchronized (exclusiveLock)
+        {
+            return new Rectangle(viewport);
+        }
+    }
+
+    /**
+     * Update the given counters with render times (of
+     * {@link #onFrame(int, List)}) and paints.
+     */
+    void setPerformanceCounters(PerformanceCounters counters)
+    {
+        this.counters = counters;
+    }
+
+    /**
+     * Show the performance counters (see {@link #setPerformanceCounters}) over the board
+     * or not.
+     */
+    void setPerformanceOverlay(boolean show)
+    {
+        this.overlay = (show && counters != null ? new PerformanceOverlay(counters) : null);
+        repaint();
+    }
+
+    /**
+     * Paint player names over their sprites or not.
+     */
+    public void setPaintPlayerLabels(boolean paintPlayerLabels)
+    {
+        synchronized (exclusiveLock)
+        {
+            this.paintPlayerLabels = paintPlayerLabels;
+        }
+    }
+
     /**
      * Enable player position tracker (in immutable state) for player named <code>name</code>.
+     * Views smaller than the board follow this player.
      */
     public void trackPlayer(String playerName)
     {
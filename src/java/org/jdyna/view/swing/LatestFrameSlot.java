@@ -0,0 +1,79 @@
+package org.jdyna.view.swing;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jdyna.GameStartEvent;
+import org.jdyna.GameStateEvent;
+
+/**
+ * A lock-free hand-over of the latest frame from the game thread to a render thread.
+ * A frame not taken before the next one is offered is dropped, except for its game start
+ * event, which is carried over to the next frame (the board must be initialized before
+ * any state of the new game is rendered).
+ */
+final class LatestFrameSlot
+{
+    /**
+     * A frame to render: a game start event, a game state or both.
+     */
+    static final class Frame
+    {
+        final int frame;
+        final GameStartEvent start;
+        final GameStateEvent state;
+
+        Frame(int frame, GameStartEvent start, GameStateEvent state)
+        {
+            this.frame = frame;
+            this.start = start;
+            this.state = state;
+        }
+    }
+
+    private final AtomicReference<Frame> slot = new AtomicReference<Frame>();
+
+    /** Frames with game states replaced before they were taken. */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Offer a frame, replacing the one not taken yet (if any).
+     *
+     * @return Return <code>true</code> if a game state not taken yet was dropped.
+     */
+    boolean offer(int frame, GameStartEvent start, GameStateEvent state)
+    {
+        while (true)
+        {
+            final Frame previous = slot.get();
+            final GameStartEvent pendingStart =
+                (start == null && previous != null ? previous.start : start);
+            if (slot.compareAndSet(previous, new Frame(frame, pendingStart, state)))
+            {
+                if (previous != null && previous.state != null)
+                {
+                    dropped.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return Return the latest frame and empty the slot or return <code>null</code> if
+     *         no frame was offered since the last call.
+     */
+    Frame poll()
+    {
+        return slot.getAndSet(null);
+    }
+
+    /**
+     * @return Return the number of game states dropped so far.
+     */
+    long getDropped()
+    {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,214 @@
+package org.jdyna.view.swing;
+
+import org.jdyna.GameConfiguration;
+import org.jdyna.SampleWindow;
+
+/**
+ * Counters of a board view's performance: frames received over the network (if any),
+ * frames rendered and painted. Updating the counters is cheap (no allocation, no
+ * locking), so they are always on; {@link PerformanceOverlay} shows them on demand.
+ * <p>
+ * Each group of counters has a single writer: the thread receiving frames, the thread
+ * rendering frames and the thread painting them, respectively.
+ */
+public final class PerformanceCounters
+{
+    /** The number of the most recent samples kept. */
+    final static int WINDOW = 128;
+
+    /**
+     * A frame this many frames older than the last received one starts a new game (late
+     * frames are only a few frames behind).
+     */
+    final static int RESTART_GAP = 100;
+
+    /** Weight of a new sample in the jitter estimate (as in RFC 3550). */
+    private final static double JITTER_GAIN = 1 / 16.0;
+
+    /**
+     * Expected time between frames, in nanoseconds.
+     */
+    private volatile double framePeriodNanos =
+        1e9 / GameConfiguration.CLASSIC.DEFAULT_FRAME_RATE;
+
+    /*
+     * Received frames.
+     */
+    private volatile int receivedFrame = -1;
+    private volatile long receivedFrames;
+    private volatile long droppedFrames;
+    private volatile long lateFrames;
+    private volatile double jitterNanos;
+    private long lastArrivalNanos;
+    private final SampleWindow decodeTimes = new SampleWindow(WINDOW);
+
+    /*
+     * Rendered and painted frames.
+     */
+    private volatile int renderedFrame = -1;
+    private final SampleWindow renderTimes = new SampleWindow(WINDOW);
+    private final SampleWindow paintTimes = new SampleWindow(WINDOW);
+
+    /**
+     * Set the expected frame rate (for the jitter estimate and the frame budget).
+     */
+    public void setFrameRate(int framesPerSecond)
+    {
+        if (framesPerSecond > 0)
+        {
+            this.framePeriodNanos = 1e9 / framesPerSecond;
+        }
+    }
+
+    /**
+     * A new game has started, frame numbers start over. Received frames of the new game
+     * are not compared with frames of the previous one.
+     */
+    public void gameStarted()
+    {
+        receivedFrame = -1;
+    }
+
+    /**
+     * A frame has been received and decoded (taking <code>decodeNanos</code>). Frames
+     * skipped in the sequence are counted as dropped, frames older than the last
+     * received one as late. Jitter is the mean deviation of the time between arrivals
+     * from the time between the frames' simulation. A frame much older than the last
+     * received one (see {@link #RESTART_GAP}) is taken as the start of a new game, in case
+     * the game start was missed.
+     */
+    public void frameReceived(int frame, long decodeNanos)
+    {
+        final long now = System.nanoTime();
+        int last = receivedFrame;
+        if (last - frame >= RESTART_GAP)
+        {
+            gameStarted();
+            last = -1;
+        }
+
+        if (last >= 0)
+        {
+            final int gap = frame - last;
+            if (gap <= 0)
+            {
+                lateFrames++;
+                return;
+            }
+
+            droppedFrames += gap - 1;
+            final double deviation = Math.abs((now - lastArrivalNanos) - gap
+                * framePeriodNanos);
+            jitterNanos += (deviation - jitterNanos) * JITTER_GAIN;
+        }
+
+        lastArrivalNanos = now;
+        receivedFrame = frame;
+        receivedFrames++;
+        decodeTimes.add(decodeNanos);
+    }
+
+    /**
+     * A frame has been rendered (taking <code>renderNanos</code>).
+     */
+    void frameRendered(int frame, long renderNanos)
+    {
+        renderedFrame = frame;
+        renderTimes.add(renderNanos);
+    }
+
+    /**
+     * A frame has been painted (shown) at the given time.
+     */
+    void painted(long nanos)
+    {
+        paintTimes.add(nanos);
+    }
+
+    /*
+     *
+     */
+    public double getFramePeriodNanos()
+    {
+        return framePeriodNanos;
+    }
+
+    /**
+     * @return Return the last frame received over the network or -1 if none.
+     */
+    public int getReceivedFrame()
+    {
+        return receivedFrame;
+    }
+
+    /*
+     *
+     */
+    public long getReceivedFrames()
+    {
+        return receivedFrames;
+    }
+
+    /**
+     * @return Return the number of frames never received (gaps in the sequence).
+     */
+    public long getDroppedFrames()
+    {
+        return droppedFrames;
+    }
+
+    /**
+     * @return Return the number of frames received out of order (older than the last
+     *         received frame).
+     */
+    public long getLateFrames()
+    {
+        return lateFrames;
+    }
+
+    /*
+     *
+     */
+    public double getJitterNanos()
+    {
+        return jitterNanos;
+    }
+
+    /*
+     *
+     */
+    public SampleWindow getDecodeTimes()
+    {
+        return decodeTimes;
+    }
+
+    /**
+     * @return Return the last frame rendered or -1 if none.
+     */
+    public int getRenderedFrame()
+    {
+        return renderedFrame;
+    }
+
+    /*
+     *
+     */
+    public SampleWindow getRenderTimes()
+    {
+        return renderTimes;
+    }
+
+    /**
+     * @return Return the rate of painting the most recent frames (in frames per second)
+     *         or zero if there were too few frames.
+     */
+    public double getPaintRate()
+    {
+        final long [] times = paintTimes.getSorted();
+        if (times.length < 2 || times[times.length - 1] == times[0])
+        {
+            return 0;
+        }
+        return (times.length - 1) * 1e9 / (times[times.length - 1] - times[0]);
+    }
+}
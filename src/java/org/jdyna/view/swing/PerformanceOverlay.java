@@ -0,0 +1,149 @@
+package org.jdyna.view.swing;
+
+import java.awt.*;
+import java.util.List;
+import java.util.Locale;
+
+import org.jdyna.SampleWindow;
+
+import com.google.common.collect.Lists;
+
+/**
+ * A heads-up display of {@link PerformanceCounters} (and the {@link UiClock}'s
+ * statistics) painted over a board view: frames received and rendered, network drops,
+ * jitter and decode times, render times and the paint rate, with a rolling graph of
+ * render times against the frame budget.
+ * <p>
+ * The text is refreshed a few times per second only; an instance is used by a single
+ * painting thread.
+ */
+final class PerformanceOverlay
+{
+    /** Text refresh interval in milliseconds. */
+    private final static int REFRESH_INTERVAL = 250;
+
+    /** Graph bar count and height (in pixels, equal to the frame budget). */
+    private final static int GRAPH_SAMPLES = 64;
+    private final static int GRAPH_HEIGHT = 24;
+
+    private final static int MARGIN = 4;
+
+    private final static Color BACKGROUND = new Color(0, 0, 0, 160);
+    private final static Color TEXT = new Color(220, 220, 220);
+    private final static Color BAR = new Color(80, 200, 80);
+    private final static Color OVER_BUDGET = new Color(230, 60, 60);
+
+    private final static Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 10);
+
+    private final PerformanceCounters counters;
+
+    /**
+     * Cached text lines and the time they were formatted at.
+     */
+    private String [] lines = new String [0];
+    private long linesMillis;
+
+    /**
+     * Render times shown in the graph.
+     */
+    private final long [] graph = new long [GRAPH_SAMPLES];
+
+    /*
+     *
+     */
+    PerformanceOverlay(PerformanceCounters counters)
+    {
+        this.counters = counters;
+    }
+
+    /**
+     * Paint the overlay in the top left corner.
+     */
+    void paint(Graphics2D g)
+    {
+        final long now = System.currentTimeMillis();
+        if (now - linesMillis >= REFRESH_INTERVAL)
+        {
+            lines = format();
+            linesMillis = now;
+        }
+
+        g.setFont(FONT);
+        final FontMetrics fm = g.getFontMetrics();
+        int width = GRAPH_SAMPLES * 2;
+        for (String line : lines)
+        {
+            width = Math.max(width, fm.stringWidth(line));
+        }
+        final int lineHeight = fm.getHeight();
+        final int height = lines.length * lineHeight + MARGIN + GRAPH_HEIGHT;
+
+        g.setColor(BACKGROUND);
+        g.fillRect(0, 0, width + 2 * MARGIN, height + 2 * MARGIN);
+
+        g.setColor(TEXT);
+        int y = MARGIN + fm.getAscent();
+        for (String line : lines)
+        {
+            g.drawString(line, MARGIN, y);
+            y += lineHeight;
+        }
+
+        paintGraph(g, MARGIN, MARGIN + lines.length * lineHeight + MARGIN);
+    }
+
+    /**
+     * Paint render times as bars, scaled so that the frame budget is the graph's height.
+     */
+    private void paintGraph(Graphics2D g, int x, int y)
+    {
+        final int n = counters.getRenderTimes().getRecent(graph);
+        final double budget = counters.getFramePeriodNanos();
+        for (int i = 0; i < n; i++)
+        {
+            final double fraction = graph[i] / budget;
+            final int h = (int) Math.max(1, Math.min(GRAPH_HEIGHT, fraction * GRAPH_HEIGHT));
+            g.setColor(fraction > 1 ? OVER_BUDGET : BAR);
+            g.fillRect(x + 2 * i, y + GRAPH_HEIGHT - h, 1, h);
+        }
+    }
+
+    /**
+     * Format the counters.
+     */
+    private String [] format()
+    {
+        final List<String> lines = Lists.newArrayList();
+
+        final int rendered = counters.getRenderedFrame();
+        final int received = counters.getReceivedFrame();
+        if (received >= 0)
+        {
+            lines.add(String.format(Locale.US, "frame  rendered %d, received %d (lag %d)",
+                rendered, received, Math.max(0, received - rendered)));
+            lines.add(String.format(Locale.US,
+                "net    dropped %d, late %d, jitter %.1f ms, decode %.2f ms",
+                counters.getDroppedFrames(), counters.getLateFrames(),
+                counters.getJitterNanos() / 1e6,
+                counters.getDecodeTimes().getPercentile(50) / 1e6));
+        }
+        else
+        {
+            lines.add(String.format(Locale.US, "frame  rendered %d", rendered));
+        }
+
+        final long [] renderTimes = counters.getRenderTimes().getSorted();
+        lines.add(String.format(Locale.US,
+            "render p50 %.2f ms, p99 %.2f ms, paint %.1f fps",
+            SampleWindow.percentile(renderTimes, 50) / 1e6,
+            SampleWindow.percentile(renderTimes, 99) / 1e6, counters.getPaintRate()));
+
+        final UiClock clock = UiClock.getInstance();
+        final long ticks = clock.getTicks();
+        lines.add(String.format(Locale.US, "ui     EDT %.2f ms/tick, saved ~%.1f ms",
+            ticks == 0 ? 0 : clock.getUpdateNanos() / 1e6 / ticks,
+            clock.getSavedNanos() / 1e6));
+
+        return lines.toArray(new String [lines.size()]);
+    }
+}
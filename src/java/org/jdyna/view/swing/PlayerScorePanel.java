@@ -82,16 +82,24 @@ public final class PlayerScorePanel extends JPanel implements IGameEventListener
             return null;
         }
 
-        public void setModelData(final List<PlayerStatus> modelData)
+        /**
+         * The latest data, shown on the next tick of the {@link UiClock}.
+         */
+        private volatile List<PlayerStatus> latestData;
+
+        private final Runnable updater = new Runnable()
         {
-            SwingUtilities.invokeLater(new Runnable()
+            public void run()
             {
-                public void run()
-                {
-                    PlayersTableModel.this.modelData = modelData;
-                    fireTableDataChanged();
-                }
-            });
+                PlayersTableModel.this.modelData = latestData;
+                fireTableDataChanged();
+            }
+        };
+
+        public void setModelData(final List<PlayerStatus> modelData)
+        {
+            this.latestData = modelData;
+            UiClock.getInstance().post(updater);
         }
 
         public void updateColumns(TableColumnModel columnModel)
@@ -0,0 +1,522 @@
+package org.jdyna.view.swing;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.jdyna.*;
+import org.jdyna.serialization.FrameData;
+import org.jdyna.serialization.GameWriter;
+import org.jdyna.view.resources.Images;
+import org.jdyna.view.resources.ImagesFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Exports a game saved with {@link GameWriter} to numbered PNG images or an animated GIF,
+ * rendered offscreen by {@link BoardPanel} (the whole board, as
+ * {@link BoardPanel#updateBoard(GameStateEvent)} draws it). No display is required.
+ * <p>
+ * Frames are rendered in chunks by a pool of workers, each with its own renderer.
+ * Rendering is stateful (dying sequences, flickering), so a worker replays a few frames
+ * preceding its chunk first; the result is the same as rendering all frames in order.
+ * PNG images are encoded by the workers, GIF frames are reduced to a palette by the
+ * workers and written in order by the calling thread.
+ */
+public final class ReplayExporter
+{
+    private final static Logger logger = LoggerFactory.getLogger(ReplayExporter.class);
+
+    /**
+     * Default number of frames rendered by a worker at once.
+     */
+    final static int DEFAULT_CHUNK_FRAMES = 100;
+
+    /**
+     * The game's start and states (and their frame numbers) in the replay.
+     */
+    private final GameStartEvent start;
+    private final List<GameStateEvent> states = Lists.newArrayList();
+    private final List<Integer> stateFrames = Lists.newArrayList();
+
+    /**
+     * Frames replayed before a chunk: longer than any dying sequence and a multiple of
+     * the flickering period.
+     */
+    private final int warmupFrames;
+
+    private Magnification magnification = BoardPanel.DEFAULT_VIEW_MAGNIFICATION;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int chunkFrames = DEFAULT_CHUNK_FRAMES;
+    private int fromFrame = 0;
+    private int toFrame = Integer.MAX_VALUE;
+
+    /**
+     * Offscreen renderers of the current export, one per worker thread.
+     */
+    private ThreadLocal<BoardPanel> renderers;
+
+    /**
+     * A sink of frames rendered by a worker (the image is reused for the next frame).
+     */
+    private interface IFrameSink
+    {
+        void frame(int frame, BufferedImage image) throws IOException;
+    }
+
+    /**
+     * @param frames Frames of a saved game (see {@link GameWriter}).
+     */
+    public ReplayExporter(List<FrameData> frames) throws IOException
+    {
+        GameStartEvent start = null;
+        for (FrameData fd : frames)
+        {
+            for (GameEvent e : fd.events)
+            {
+                if (e.type == GameEvent.Type.GAME_START && start == null)
+                {
+                    start = (GameStartEvent) e;
+                }
+
+                if (e.type == GameEvent.Type.GAME_STATE && start != null)
+                {
+                    states.add((GameStateEvent) e);
+                    stateFrames.add(fd.frame);
+                }
+            }
+        }
+
+        if (start == null)
+        {
+            throw new IOException("No board info in the replay stream.");
+        }
+        this.start = start;
+
+        final Images images = ImagesFactory.DYNA_CLASSIC;
+        int dying = 0;
+        for (ISprite.Type type : ISprite.Type.getPlayerSprites())
+        {
+            dying = Math.max(dying, images.getMaxSpriteImageFrame(type,
+                Player.State.DYING.ordinal()));
+        }
+        this.warmupFrames = (dying / BoardPanel.FLICKER_PERIOD + 1)
+            * BoardPanel.FLICKER_PERIOD;
+    }
+
+    /*
+     *
+     */
+    public void setMagnification(Magnification magnification)
+    {
+        this.magnification = magnification;
+    }
+
+    /**
+     * Set the number of worker threads (the number of processors by default).
+     */
+    public void setThreads(int threads)
+    {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Export game frames from <code>fromFrame</code> (inclusive) to
+     * <code>toFrame</code> (exclusive) only.
+     */
+    public void setFrameRange(int fromFrame, int toFrame)
+    {
+        this.fromFrame = fromFrame;
+        this.toFrame = toFrame;
+    }
+
+    /*
+     *
+     */
+    void setChunkFrames(int chunkFrames)
+    {
+        this.chunkFrames = Math.max(1, chunkFrames);
+    }
+
+    /**
+     * Write frames to <code>dir</code> as <code>frame-000000.png</code> images, named
+     * after game frame numbers.
+     *
+     * @return Return the number of frames written.
+     */
+    public int exportPNG(final File dir) throws IOException
+    {
+        if (!dir.isDirectory() && !dir.mkdirs())
+        {
+            throw new IOException("Could not create directory: " + dir.getAbsolutePath());
+        }
+
+        final ExecutorService executor = createExecutor();
+        try
+        {
+            final List<Future<Integer>> chunks = Lists.newArrayList();
+            for (final int [] range : getChunks())
+            {
+                chunks.add(executor.submit(new Callable<Integer>()
+                {
+                    public Integer call() throws IOException
+                    {
+                        render(range[0], range[1], new IFrameSink()
+                        {
+                            public void frame(int frame, BufferedImage image)
+                                throws IOException
+                            {
+                                ImageIO.write(image, "png", new File(dir,
+                                    String.format("frame-%06d.png", frame)));
+                            }
+                        });
+                        return range[1] - range[0];
+                    }
+                }));
+            }
+
+            int written = 0;
+            for (Future<Integer> chunk : chunks)
+            {
+                written += get(chunk);
+            }
+            return written;
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Write frames to an animated GIF, looped and timed at the game's frame rate.
+     *
+     * @return Return the number of frames written.
+     */
+    public int exportGIF(File file) throws IOException
+    {
+        final ImageWriter writer = ImageIO.getImageWritersByFormatName("gif").next();
+        final ImageOutputStream ios = ImageIO.createImageOutputStream(file);
+        if (ios == null)
+        {
+            throw new IOException("Could not open: " + file.getAbsolutePath());
+        }
+
+        final ExecutorService executor = createExecutor();
+        try
+        {
+            writer.setOutput(ios);
+            writer.prepareWriteSequence(null);
+
+            /*
+             * Keep a bounded number of chunks in flight: frames are held in memory until
+             * written in order.
+             */
+            final ArrayDeque<Future<List<BufferedImage>>> pending =
+                new ArrayDeque<Future<List<BufferedImage>>>();
+            final List<int []> chunks = getChunks();
+            int submitted = 0;
+            int written = 0;
+            while (submitted < chunks.size() || !pending.isEmpty())
+            {
+                while (submitted < chunks.size() && pending.size() <= threads)
+                {
+                    final int [] range = chunks.get(submitted++);
+                    pending.add(executor.submit(new Callable<List<BufferedImage>>()
+                    {
+                        public List<BufferedImage> call() throws IOException
+                        {
+                            final List<BufferedImage> images = Lists.newArrayList();
+                            render(range[0], range[1], new IFrameSink()
+                            {
+                                public void frame(int frame, BufferedImage image)
+                                {
+                                    images.add(toIndexed(image));
+                                }
+                            });
+                            return images;
+                        }
+                    }));
+                }
+
+                for (BufferedImage image : get(pending.poll()))
+                {
+                    final IIOMetadata metadata = writer.getDefaultImageMetadata(
+                        new ImageTypeSpecifier(image), null);
+                    setFrameMetadata(metadata, getFrameDelay(), written == 0);
+                    writer.writeToSequence(new IIOImage(image, null, metadata), null);
+                    written++;
+                }
+            }
+
+            writer.endWriteSequence();
+            return written;
+        }
+        finally
+        {
+            executor.shutdownNow();
+            ios.close();
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Render states from index <code>from</code> (inclusive) to <code>to</code>
+     * (exclusive) on the calling worker's renderer, after replaying the warmup frames.
+     */
+    private void render(int from, int to, IFrameSink sink) throws IOException
+    {
+        final BoardPanel renderer = renderers.get();
+        renderer.onFrame(stateFrames.get(from), Collections.singletonList(start));
+
+        // Frames since the start modulo the flickering period are the same.
+        int warmup = Math.max(0, from - warmupFrames);
+        warmup -= warmup % BoardPanel.FLICKER_PERIOD;
+        for (int i = warmup; i < from; i++)
+        {
+            renderer.updateBoard(states.get(i));
+        }
+
+        for (int i = from; i < to; i++)
+        {
+            renderer.updateBoard(states.get(i));
+            sink.frame(stateFrames.get(i), renderer.getBackgroundImage());
+        }
+    }
+
+    /**
+     * @return Return ranges of state indexes within the frame range, split into chunks.
+     */
+    private List<int []> getChunks()
+    {
+        int first = 0;
+        while (first < states.size() && stateFrames.get(first) < fromFrame)
+        {
+            first++;
+        }
+        int last = first;
+        while (last < states.size() && stateFrames.get(last) < toFrame)
+        {
+            last++;
+        }
+
+        final List<int []> chunks = Lists.newArrayList();
+        for (int i = first; i < last; i += chunkFrames)
+        {
+            chunks.add(new int [] {i, Math.min(last, i + chunkFrames)});
+        }
+        logger.debug("Exporting " + (last - first) + " frames in " + chunks.size()
+            + " chunks, " + threads + " threads.");
+        return chunks;
+    }
+
+    /**
+     * Create worker threads and their renderers.
+     */
+    private ExecutorService createExecutor()
+    {
+        final GraphicsConfiguration conf = getOffscreenConfiguration();
+        final Magnification magnification = this.magnification;
+        renderers = new ThreadLocal<BoardPanel>()
+        {
+            protected BoardPanel initialValue()
+            {
+                final BoardPanel renderer = new BoardPanel(ImagesFactory.DYNA_CLASSIC, conf);
+                renderer.setMagnification(magnification);
+                renderer.setMaxViewSize(null);
+                return renderer;
+            }
+        };
+
+        return Executors.newFixedThreadPool(threads, new ThreadFactory()
+        {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable r)
+            {
+                final Thread t = new Thread(r, "replay-exporter-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * Wait for a chunk, rethrowing its failure.
+     */
+    private static <T> T get(Future<T> chunk) throws IOException
+    {
+        try
+        {
+            return chunk.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted exporting frames.");
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof IOException)
+            {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException("Failed exporting frames.", e.getCause());
+        }
+    }
+
+    /**
+     * GIF frame delay in hundredths of a second (at the game's frame rate).
+     */
+    private int getFrameDelay()
+    {
+        final GameConfiguration conf = start.getConfiguration();
+        final int frameRate = (conf != null ? conf.DEFAULT_FRAME_RATE
+            : GameConfiguration.CLASSIC.DEFAULT_FRAME_RATE);
+        return Math.max(1, Math.round(100f / frameRate));
+    }
+
+    /**
+     * Convert an image to an indexed image with an exact palette (the board's images use
+     * few colors) or, failing that, the default palette.
+     */
+    static BufferedImage toIndexed(BufferedImage image)
+    {
+        final int w = image.getWidth();
+        final int h = image.getHeight();
+        final int [] rgb = image.getRGB(0, 0, w, h, null, 0, w);
+        final byte [] pixels = new byte [rgb.length];
+
+        final HashMap<Integer, Integer> palette = Maps.newHashMap();
+        int lastColor = 0;
+        int lastIndex = -1;
+        for (int i = 0; i < rgb.length; i++)
+        {
+            final int color = rgb[i] & 0xffffff;
+            if (color != lastColor || lastIndex < 0)
+            {
+                Integer index = palette.get(color);
+                if (index == null)
+                {
+                    if (palette.size() == 256)
+                    {
+                        final BufferedImage indexed = new BufferedImage(w, h,
+                            BufferedImage.TYPE_BYTE_INDEXED);
+                        final Graphics2D g = indexed.createGraphics();
+                        g.drawImage(image, 0, 0, null);
+                        g.dispose();
+                        return indexed;
+                    }
+                    index = palette.size();
+                    palette.put(color, index);
+                }
+                lastColor = color;
+                lastIndex = index;
+            }
+            pixels[i] = (byte) lastIndex;
+        }
+
+        final int size = Math.max(2, palette.size());
+        final byte [] r = new byte [size];
+        final byte [] g = new byte [size];
+        final byte [] b = new byte [size];
+        for (Map.Entry<Integer, Integer> e : palette.entrySet())
+        {
+            final int color = e.getKey();
+            r[e.getValue()] = (byte) (color >> 16);
+            g[e.getValue()] = (byte) (color >> 8);
+            b[e.getValue()] = (byte) color;
+        }
+
+        final BufferedImage indexed = new BufferedImage(w, h,
+            BufferedImage.TYPE_BYTE_INDEXED, new IndexColorModel(8, size, r, g, b));
+        final byte [] data = ((DataBufferByte) indexed.getRaster().getDataBuffer()).getData();
+        System.arraycopy(pixels, 0, data, 0, pixels.length);
+        return indexed;
+    }
+
+    /**
+     * Set a GIF frame's delay (and looping, on the first frame).
+     */
+    private static void setFrameMetadata(IIOMetadata metadata, int delay, boolean first)
+        throws IOException
+    {
+        final String format = metadata.getNativeMetadataFormatName();
+        final IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(format);
+
+        final IIOMetadataNode control = getNode(root, "GraphicControlExtension");
+        control.setAttribute("disposalMethod", "none");
+        control.setAttribute("userInputFlag", "FALSE");
+        control.setAttribute("transparentColorFlag", "FALSE");
+        control.setAttribute("transparentColorIndex", "0");
+        control.setAttribute("delayTime", Integer.toString(delay));
+
+        if (first)
+        {
+            final IIOMetadataNode loop = new IIOMetadataNode("ApplicationExtension");
+            loop.setAttribute("applicationID", "NETSCAPE");
+            loop.setAttribute("authenticationCode", "2.0");
+            loop.setUserObject(new byte [] {1, 0, 0});
+            getNode(root, "ApplicationExtensions").appendChild(loop);
+        }
+
+        metadata.setFromTree(format, root);
+    }
+
+    /**
+     * @return Return the child node of a given name, created if missing.
+     */
+    private static IIOMetadataNode getNode(IIOMetadataNode parent, String name)
+    {
+        for (int i = 0; i < parent.getLength(); i++)
+        {
+            if (parent.item(i).getNodeName().equals(name))
+            {
+                return (IIOMetadataNode) parent.item(i);
+            }
+        }
+
+        final IIOMetadataNode node = new IIOMetadataNode(name);
+        parent.appendChild(node);
+        return node;
+    }
+
+    /**
+     * A graphics configuration of in-memory images (available without a display).
+     */
+    private static GraphicsConfiguration getOffscreenConfiguration()
+    {
+        final Graphics2D g = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB)
+            .createGraphics();
+        final GraphicsConfiguration conf = g.getDeviceConfiguration();
+        g.dispose();
+        return conf;
+    }
+}
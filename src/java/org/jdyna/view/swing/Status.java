@@ -1,36 +1,25 @@
 package org.jdyna.view.swing;
 
 import java.awt.BorderLayout;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.awt.image.BufferedImage;
-import java.util.List;
 
 import javax.swing.ImageIcon;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.SwingConstants;
-import javax.swing.SwingUtilities;
-import javax.swing.Timer;
-
-import com.google.common.collect.Lists;
 
 /**
- * A single "status" on the {@link PlayerStatusPanel}.
+ * A single "status" on the {@link PlayerStatusPanel}. Updates and blinking are driven
+ * by the shared {@link UiClock}.
  */
 @SuppressWarnings("serial")
-final class Status extends JPanel
+final class Status extends JPanel implements UiClock.IBlinking
 {
     /**
      * The time (seconds) from which the icon should start blinking.
      */
     private final static int BLINK_THRESHOLD = 3;
 
-    /**
-     * Blinking interval (on/off) in milliseconds.
-     */
-    private final static int BLINK_INTERVAL = 250;
-
     /**
      * Name of this status indicator.
      */
@@ -54,30 +43,9 @@ final class Status extends JPanel
     public boolean hideWhenZero = true;
 
     /**
-     * A list of {@link Status} objects which should be blinking.
+     * Is this status on the clock's blinking list? Accessed from the EDT only.
      */
-    private static List<Status> blinking = Lists.newArrayList();
-
-    /**
-     * A single timer toggling the blinking of all icons.
-     */
-    private static Timer timer;
-    static
-    {
-        timer = new Timer(BLINK_INTERVAL, new ActionListener() {
-            public void actionPerformed(ActionEvent e)
-            {
-                if (blinking.isEmpty())
-                {
-                    timer.stop();
-                }
-
-                for (Status s : blinking)
-                    s.icon.setEnabled(!s.icon.isEnabled());
-            }
-        });  
-        timer.setRepeats(true);
-    }
+    private boolean blinking;
 
     /**
      * The icon and label associated with this statistic.
@@ -103,7 +71,8 @@ final class Status extends JPanel
     }
 
     /**
-     * Update the value and dispatch update to the swing thread.
+     * Update the value and dispatch update to the swing thread (on the next tick of
+     * the {@link UiClock}).
      */
     public void updateValue(int value)
     {
@@ -111,15 +80,43 @@ final class Status extends JPanel
             return;
 
         this.value = value;
-        SwingUtilities.invokeLater(updater);
+        UiClock.getInstance().post(updater);
     }
 
     /**
-     * Stop status timer if it's running.
+     * Stop blinking (on the next tick of the {@link UiClock}).
      */
     public void stopTimer() {
-        if (timer.isRunning())
-            timer.stop();
+        UiClock.getInstance().post(new Runnable()
+        {
+            public void run()
+            {
+                setBlinking(false);
+            }
+        });
+    }
+
+    /**
+     * @see UiClock.IBlinking
+     */
+    public void blink(boolean on)
+    {
+        icon.setEnabled(on);
+    }
+
+    /*
+     * 
+     */
+    private void setBlinking(boolean blinks)
+    {
+        if (blinks == this.blinking)
+            return;
+
+        this.blinking = blinks;
+        if (blinks)
+            UiClock.getInstance().startBlinking(this);
+        else
+            UiClock.getInstance().stopBlinking(this);
     }
     
     /*
@@ -134,7 +131,6 @@ final class Status extends JPanel
                 setVisible(visible);
             }
 
-            final Status me = Status.this;
             if (visible)
             {
                 icon.setText(value == Integer.MAX_VALUE 
@@ -143,33 +139,14 @@ final class Status extends JPanel
 
                 if (blinks)
                 {
-                    // This could be cached as a field, but the list will be so short
-                    // it doesn't make much sense to do it.
-                    final boolean onBlinkingList = blinking.contains(me);
-                    if (value < BLINK_THRESHOLD)
-                    {
-                        if (!onBlinkingList)
-                        {
-                            blinking.add(me);
-                            if (!timer.isRunning()) timer.start();
-                        }
-                    }
-                    else
-                    {
-                        if (onBlinkingList)
-                        {
-                            blinking.remove(me);
-                            icon.setEnabled(true);
-                        }
-                    }
+                    setBlinking(value < BLINK_THRESHOLD);
                 }
             }
             else
             {
                 if (blinks)
                 {
-                    blinking.remove(me);
-                    icon.setEnabled(true);
+                    setBlinking(false);
                 }
             }
         };
@@ -81,16 +81,24 @@ public final class TeamScorePanel extends JPanel implements IGameEventListener
             return null;
         }
 
-        public void setModelData(final List<TeamStatus> modelData)
+        /**
+         * The latest data, shown on the next tick of the {@link UiClock}.
+         */
+        private volatile List<TeamStatus> latestData;
+
+        private final Runnable updater = new Runnable()
         {
-            SwingUtilities.invokeLater(new Runnable()
+            public void run()
             {
-                public void run()
-                {
-                    TeamsTableModel.this.modelData = modelData;
-                    fireTableDataChanged();
-                }
-            });
+                TeamsTableModel.this.modelData = latestData;
+                fireTableDataChanged();
+            }
+        };
+
+        public void setModelData(final List<TeamStatus> modelData)
+        {
+            this.latestData = modelData;
+            UiClock.getInstance().post(updater);
         }
 
         public void updateColumns(TableColumnModel columnModel)
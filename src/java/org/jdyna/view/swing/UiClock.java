@@ -0,0 +1,238 @@
+package org.jdyna.view.swing;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.swing.Timer;
+
+import org.jdyna.GameConfiguration;
+
+import com.google.common.collect.Sets;
+
+/**
+ * A single clock for animating and updating Swing status components (status panels,
+ * score tables, blinking icons). Updates posted from any thread are run on the EDT in
+ * batches, once per tick (a game frame), so all components changed in a tick are
+ * repainted in a single pass of the {@link javax.swing.RepaintManager}. An update
+ * posted again before it is run is run only once, with the latest state.
+ * <p>
+ * Blinking components are toggled by the same clock, all in phase. The clock's timer
+ * runs only when there are pending updates or blinking components.
+ */
+final class UiClock
+{
+    /**
+     * A component blinking with the clock.
+     */
+    interface IBlinking
+    {
+        /**
+         * Show (<code>on</code>) or hide the blinking part of the component.
+         */
+        void blink(boolean on);
+    }
+
+    /**
+     * Ticks interval in milliseconds (one game frame).
+     */
+    final static int TICK_INTERVAL = 1000 / GameConfiguration.CLASSIC.DEFAULT_FRAME_RATE;
+
+    /**
+     * Blinking interval (on/off) in milliseconds.
+     */
+    final static int BLINK_INTERVAL = 250;
+
+    /**
+     * The shared clock.
+     */
+    private final static UiClock instance = new UiClock();
+
+    /**
+     * Updates to run on the next tick. Guarded by itself.
+     */
+    private final LinkedHashSet<Runnable> pending = Sets.newLinkedHashSet();
+
+    /**
+     * Blinking components (EDT only) and the current blinking phase.
+     */
+    private final Set<IBlinking> blinking = Sets.newLinkedHashSet();
+    private boolean blinkOn = true;
+
+    private final Timer timer;
+
+    /**
+     * Statistics: ticks, updates posted and run and the EDT time spent in updates (in
+     * nanoseconds).
+     */
+    private volatile long ticks;
+    private volatile long posted;
+    private volatile long run;
+    private volatile long updateNanos;
+
+    /*
+     *
+     */
+    private UiClock()
+    {
+        timer = new Timer(TICK_INTERVAL, new ActionListener()
+        {
+            public void actionPerformed(ActionEvent e)
+            {
+                tick();
+            }
+        });
+        timer.setRepeats(true);
+        timer.setCoalesce(true);
+    }
+
+    /*
+     *
+     */
+    static UiClock getInstance()
+    {
+        return instance;
+    }
+
+    /**
+     * Run an update on the EDT on the next tick (unless it is pending already). May be
+     * called from any thread.
+     */
+    void post(Runnable update)
+    {
+        synchronized (pending)
+        {
+            pending.add(update);
+            posted++;
+        }
+
+        if (!timer.isRunning())
+        {
+            timer.start();
+        }
+    }
+
+    /**
+     * Start blinking a component (EDT only).
+     */
+    void startBlinking(IBlinking component)
+    {
+        if (blinking.add(component))
+        {
+            component.blink(blinkOn);
+            timer.start();
+        }
+    }
+
+    /**
+     * Stop blinking a component and show it (EDT only).
+     */
+    void stopBlinking(IBlinking component)
+    {
+        if (blinking.remove(component))
+        {
+            component.blink(true);
+        }
+    }
+
+    /**
+     * Run pending updates and advance blinking, stopping the timer if idle.
+     */
+    private void tick()
+    {
+        final Runnable [] updates;
+        synchronized (pending)
+        {
+            updates = pending.toArray(new Runnable [pending.size()]);
+            pending.clear();
+        }
+
+        final long start = System.nanoTime();
+        for (Runnable update : updates)
+        {
+            update.run();
+        }
+        updateNanos += System.nanoTime() - start;
+        run += updates.length;
+        ticks++;
+
+        final boolean on = ((System.currentTimeMillis() / BLINK_INTERVAL) & 1) == 0;
+        if (on != blinkOn)
+        {
+            blinkOn = on;
+            for (IBlinking b : blinking.toArray(new IBlinking [blinking.size()]))
+            {
+                b.blink(on);
+            }
+        }
+
+        if (blinking.isEmpty())
+        {
+            synchronized (pending)
+            {
+                if (pending.isEmpty())
+                {
+                    timer.stop();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Return the number of ticks so far.
+     */
+    long getTicks()
+    {
+        return ticks;
+    }
+
+    /**
+     * @return Return the number of updates posted so far.
+     */
+    long getPostedUpdates()
+    {
+        return posted;
+    }
+
+    /**
+     * @return Return the number of updates run so far (fewer than posted, since updates
+     *         posted again before a tick are run once).
+     */
+    long getRunUpdates()
+    {
+        return run;
+    }
+
+    /**
+     * @return Return the EDT time spent in updates so far (in nanoseconds).
+     */
+    long getUpdateNanos()
+    {
+        return updateNanos;
+    }
+
+    /**
+     * @return Return an estimate of the EDT time saved by coalescing updates (in
+     *         nanoseconds): coalesced updates at the average cost of an update run.
+     */
+    long getSavedNanos()
+    {
+        final long run = this.run;
+        return run == 0 ? 0 : (posted - run) * (updateNanos / run);
+    }
+
+    /*
+     *
+     */
+    @Override
+    public String toString()
+    {
+        final long ticks = this.ticks;
+        return String.format(Locale.US, "UI clock: ticks: %d, updates posted: %d, "
+            + "run: %d, EDT time [ms]: %.1f (%.2f per tick), saved: ~%.1f",
+            ticks, posted, run, updateNanos / 1e6,
+            ticks == 0 ? 0 : updateNanos / 1e6 / ticks, getSavedNanos() / 1e6);
+    }
+}
@@ -0,0 +1,116 @@
+package org.jdyna;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+
+import org.jdyna.IFramePhaseListener.Phase;
+
+/**
+ * Measures heap allocation (bytes) of each {@link Phase} of a {@link Game}'s frame using
+ * {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}. The game must be
+ * run on the thread the probe is attached to (the probe only measures the game thread).
+ * The first few frames are skipped (class loading, lazy initialization).
+ */
+final class AllocationProbe implements IFramePhaseListener
+{
+    /**
+     * Per-phase statistics.
+     */
+    static final class PhaseStats
+    {
+        long frames;
+        long totalBytes;
+        long maxBytes;
+
+        /** Mean number of bytes allocated per frame. */
+        public double getMeanBytes()
+        {
+            return frames == 0 ? 0 : totalBytes / (double) frames;
+        }
+
+        /** Maximum number of bytes allocated in a single frame. */
+        public long getMaxBytes()
+        {
+            return maxBytes;
+        }
+    }
+
+    private final com.sun.management.ThreadMXBean threads;
+    private final int warmupFrames;
+    private final long threadId;
+
+    /** Measurement overhead of two consecutive probes (subtracted from each sample). */
+    private final long overhead;
+
+    private final EnumMap<Phase, PhaseStats> stats = new EnumMap<Phase, PhaseStats>(Phase.class);
+    private long phaseStart;
+
+    /*
+     * 
+     */
+    AllocationProbe(int warmupFrames)
+    {
+        this.threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported())
+        {
+            throw new UnsupportedOperationException("Thread allocation counters not supported.");
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        this.warmupFrames = warmupFrames;
+        this.threadId = Thread.currentThread().getId();
+
+        for (Phase p : Phase.values())
+        {
+            stats.put(p, new PhaseStats());
+        }
+
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < 1000; i++)
+        {
+            final long a = threads.getThreadAllocatedBytes(threadId);
+            final long b = threads.getThreadAllocatedBytes(threadId);
+            min = Math.min(min, b - a);
+        }
+        this.overhead = min;
+    }
+
+    public void phaseStarted(int frame, Phase phase)
+    {
+        phaseStart = threads.getThreadAllocatedBytes(threadId);
+    }
+
+    public void phaseFinished(int frame, Phase phase)
+    {
+        final long bytes = Math.max(0,
+            threads.getThreadAllocatedBytes(threadId) - phaseStart - overhead);
+
+        if (frame < warmupFrames) return;
+
+        final PhaseStats s = stats.get(phase);
+        s.frames++;
+        s.totalBytes += bytes;
+        s.maxBytes = Math.max(s.maxBytes, bytes);
+    }
+
+    /**
+     * Return statistics for a given phase.
+     */
+    public PhaseStats get(Phase phase)
+    {
+        return stats.get(phase);
+    }
+
+    @Override
+    public String toString()
+    {
+        final StringBuilder b = new StringBuilder();
+        for (Phase p : Phase.values())
+        {
+            final PhaseStats s = stats.get(p);
+            b.append(String.format("%-12s mean: %10.1f B/frame, max: %8d B%n", p,
+                s.getMeanBytes(), s.getMaxBytes()));
+        }
+        return b.toString();
+    }
+}
@@ -0,0 +1,88 @@
+package org.jdyna;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.EnumMap;
+
+import org.jdyna.IFramePhaseListener.Phase;
+import org.junit.Test;
+
+/**
+ * Allocation-budget regression tests for the game loop. Scripted games are run headless
+ * (no frame delays) and the mean number of bytes allocated per frame in each
+ * {@link Phase} is compared against a budget. Budgets can be overridden with system
+ * properties named <code>jdyna.allocation.budget.PHASE</code> (bytes per frame).
+ */
+public class GameAllocationTest
+{
+    /** Frames to skip before measuring (class loading, JIT compilation). */
+    private final static int WARMUP_FRAMES = 1000;
+
+    /** Total number of frames of each scripted game. */
+    private final static int FRAMES = 6000;
+
+    /**
+     * Default budgets: mean bytes allocated per frame. The only expected allocations in
+     * steady state are the frame's events (state, sounds, explosions) and periodic work
+     * (bonuses, crates, status updates).
+     */
+    private final static EnumMap<Phase, Integer> BUDGETS = new EnumMap<Phase, Integer>(Phase.class);
+    static
+    {
+        BUDGETS.put(Phase.BOARD_CELLS, 64);
+        BUDGETS.put(Phase.PLAYERS, 64);
+        BUDGETS.put(Phase.BONUSES, 32);
+        BUDGETS.put(Phase.CRATES, 64);
+        BUDGETS.put(Phase.EVENTS, 64);
+        BUDGETS.put(Phase.LISTENERS, 32);
+    }
+
+    @Test
+    public void testClassicBoard() throws IOException
+    {
+        checkBudgets("classic-empty", GameConfiguration.CLASSIC);
+    }
+
+    @Test
+    public void testLargeBoardWithBonuses() throws IOException
+    {
+        checkBudgets("classic-big", GameConfiguration.MORE_BONUSES);
+    }
+
+    /**
+     * Run a scripted game on the given board and check allocation budgets.
+     */
+    private void checkBudgets(String boardName, GameConfiguration template)
+        throws IOException
+    {
+        final AllocationProbe probe = runScriptedGame(boardName, template);
+
+        for (Phase phase : Phase.values())
+        {
+            final long budget = Long.getLong("jdyna.allocation.budget." + phase.name(),
+                BUDGETS.get(phase));
+            final double mean = probe.get(phase).getMeanBytes();
+
+            assertTrue("Allocation budget exceeded in phase " + phase + " on " + boardName
+                + ": " + mean + " > " + budget + " bytes/frame.\n" + probe, mean <= budget);
+        }
+    }
+
+    /**
+     * Run a headless game with scripted players and return the allocation probe.
+     */
+    static AllocationProbe runScriptedGame(String boardName, GameConfiguration template)
+        throws IOException
+    {
+        final Game game = GameFixtures.newGame(boardName, template.clone());
+        GameFixtures.addScriptedPlayers(game, "player-", GameFixtures.SCRIPTS_WITH_IDLER);
+        game.setFrameLimit(FRAMES);
+
+        final AllocationProbe probe = new AllocationProbe(WARMUP_FRAMES);
+        game.setPhaseListener(probe);
+        game.run(Game.Mode.INFINITE_DEATHMATCH);
+
+        return probe;
+    }
+}
@@ -0,0 +1,201 @@
+package org.jdyna;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Player controllers called in parallel on a fork/join pool.
+ */
+public class GameControllerPoolTest
+{
+    private final static int PLAYERS = 4;
+    private final static int FRAMES = 200;
+
+    @Test
+    public void testControllersRunInParallel() throws Exception
+    {
+        final ForkJoinPool pool = new ForkJoinPool(PLAYERS);
+        try
+        {
+            final Game game = newGame("classic-empty");
+            final CountDownLatch latch = new CountDownLatch(PLAYERS);
+            final List<WanderingController> controllers = Lists.newArrayList();
+            for (int i = 0; i < PLAYERS; i++)
+            {
+                final WanderingController c = new WanderingController("p" + i, latch);
+                controllers.add(c);
+                game.addPlayer(new Player(c.name, c));
+            }
+
+            /*
+             * Listener exceptions are swallowed by the game, so we record what we see.
+             */
+            final Thread gameThread = Thread.currentThread();
+            final boolean [] onGameThread = {true};
+            game.addListener(new IGameEventListener()
+            {
+                public void onFrame(int frame, List<? extends GameEvent> events)
+                {
+                    onGameThread[0] &= (Thread.currentThread() == gameThread);
+                }
+            });
+            game.setControllerPool(pool);
+            game.run(Game.Mode.INFINITE_DEATHMATCH);
+
+            assertTrue("Other listeners on the game thread", onGameThread[0]);
+            for (WanderingController c : controllers)
+            {
+                assertTrue("All controllers thinking at once", c.metOthers);
+                assertTrue("Controllers off the game thread", c.offGameThread);
+                assertEquals("Decisions made before moves", 0, c.late);
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testSameGameAsSequential() throws Exception
+    {
+        final List<String> sequential = play(null);
+        final ForkJoinPool pool = new ForkJoinPool(PLAYERS);
+        try
+        {
+            assertEquals(sequential, play(pool));
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Play a game of wandering controllers and record the positions of players.
+     */
+    private static List<String> play(ForkJoinPool pool) throws IOException
+    {
+        final Game game = newGame("classic-empty");
+        for (int i = 0; i < PLAYERS; i++)
+        {
+            final WanderingController c = new WanderingController("p" + i, null);
+            game.addPlayer(new Player(c.name, c));
+        }
+
+        final List<String> positions = Lists.newArrayList();
+        game.addListener(new IGameEventListener()
+        {
+            public void onFrame(int frame, List<? extends GameEvent> events)
+            {
+                for (GameEvent e : events)
+                {
+                    if (e.type == GameEvent.Type.GAME_STATE)
+                    {
+                        for (IPlayerSprite p : ((GameStateEvent) e).getPlayers())
+                        {
+                            positions.add(frame + ":" + p.getName() + "@" + p.getPosition());
+                        }
+                    }
+                }
+            }
+        });
+        game.setControllerPool(pool);
+        game.run(Game.Mode.INFINITE_DEATHMATCH);
+        return positions;
+    }
+
+    /**
+     * Moves depending on its position and the frame only. Optionally waits for all
+     * other controllers to start thinking about the first frame.
+     */
+    private final static class WanderingController implements IPlayerController,
+        IGameEventListener
+    {
+        final String name;
+        final CountDownLatch latch;
+        final Thread gameThread = Thread.currentThread();
+
+        volatile Direction current;
+        int decided = -1;
+        int polled = -1;
+        int late;
+        boolean metOthers;
+        boolean offGameThread = true;
+
+        WanderingController(String name, CountDownLatch latch)
+        {
+            this.name = name;
+            this.latch = latch;
+        }
+
+        public void onFrame(int frame, List<? extends GameEvent> events)
+        {
+            offGameThread &= (Thread.currentThread() != gameThread);
+            if (latch != null && frame == 0)
+            {
+                latch.countDown();
+                try
+                {
+                    metOthers = latch.await(5, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            for (GameEvent e : events)
+            {
+                if (e.type == GameEvent.Type.GAME_STATE)
+                {
+                    for (IPlayerSprite p : ((GameStateEvent) e).getPlayers())
+                    {
+                        if (name.equals(p.getName()))
+                        {
+                            final int x = p.getPosition().x;
+                            final int y = p.getPosition().y;
+                            current = Direction.values()[(x / 7 + y / 3 + frame / 10) % 4];
+                        }
+                    }
+                }
+            }
+            decided = frame;
+        }
+
+        public Direction getCurrent()
+        {
+            // Called once a frame, after the decision for the previous frame.
+            if (decided != polled++)
+            {
+                late++;
+            }
+            return current;
+        }
+
+        public boolean dropsBomb()
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Create a headless game (no frame delays, no bonuses) on a given board.
+     */
+    private static Game newGame(String boardName) throws IOException
+    {
+        final Game game = GameFixtures.newGame(boardName, GameFixtures.noBonuses());
+        game.setFrameLimit(FRAMES);
+        return game;
+    }
+}
@@ -0,0 +1,113 @@
+package org.jdyna;
+
+import java.awt.Dimension;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+/**
+ * Shared, deterministic inputs for tests and benchmarks: boards from the default board
+ * set, headless games and scripts for {@link ScriptedController}s.
+ */
+public final class GameFixtures
+{
+    /**
+     * Scripts for four players walking around the board, dropping bombs on their way.
+     * Players burn crates and get killed on larger boards.
+     */
+    public final static String [] SCRIPTS = {
+        "RRRRRRRRRRRRRRRRDDDDDDDDB....UUUUUUUUUUUUUUUULLLLLLLLLLLLLLLLB...",
+        "LLLLLLLLLLLLLLLLLLLLLLLLUUUUUUUUB......RRRRRRRRRRRRRRRRRRRRRRRR..",
+        "UUUUUUUUUUUUUUUUUUUURRRRRRRRRRRRRRRRRB...DDDDDDDDDDDDDDDDDLLLLLL.",
+        "DRDRDRDRDRDRDRDRDRDRDRDRDRDRDRDRB.LULULULULULULULULULULULULULU...",
+    };
+
+    /**
+     * Scripts for four players: three walk around and drop a bomb each, the last one
+     * idles.
+     */
+    public final static String [] SCRIPTS_WITH_IDLER = {
+        "RRRRRRRRRRRRRRRRB........LLLLLLLLLLLLLLLL....DDDDDDDDDDDDDDDDUUUUUUUUUUUUUUUU",
+        "LLLLLLLLLLLLLLLLLLLLLLLLLLLLLLLLB......RRRRRRRRRRRRRRRRRRRRRRRRRRRRR....",
+        "UUUUUUUUUUUUUUUUUUUUUUUUUUUUUUUB.....DDDDDDDDDDDDDDDDDDDDDDDDDDDDDDD..",
+        "................",
+    };
+
+    /*
+     *
+     */
+    private GameFixtures()
+    {
+        // No instances.
+    }
+
+    /**
+     * Load a fresh copy of a board from the default board set.
+     */
+    public static Board board(String boardName) throws IOException
+    {
+        final ClassLoader cl = Thread.currentThread().getContextClassLoader();
+        return Boards.read(new InputStreamReader(cl
+            .getResourceAsStream("boards.conf"), "UTF-8")).get(boardName);
+    }
+
+    /**
+     * Board information for a board with the default cell size.
+     */
+    public static BoardInfo boardInfo(Board board)
+    {
+        return new BoardInfo(new Dimension(board.width, board.height),
+            Constants.DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Classic game configuration without bonuses.
+     */
+    public static GameConfiguration noBonuses()
+    {
+        final GameConfiguration conf = GameConfiguration.CLASSIC.clone();
+        conf.DEFAULT_BONUS_PERIOD = Integer.MAX_VALUE;
+        return conf;
+    }
+
+    /**
+     * Create a headless game (no frame delays) on a given board. The configuration is
+     * used as is (not cloned).
+     */
+    public static Game newGame(Board board, GameConfiguration conf)
+    {
+        final Game game = new Game(conf, board, boardInfo(board));
+        game.setFrameRate(0);
+        return game;
+    }
+
+    /**
+     * Create a headless game (no frame delays) on a fresh copy of a board from the
+     * default board set.
+     */
+    public static Game newGame(String boardName, GameConfiguration conf)
+        throws IOException
+    {
+        return newGame(board(boardName), conf);
+    }
+
+    /**
+     * Create a headless classic game (no frame delays) on a fresh copy of a board from
+     * the default board set.
+     */
+    public static Game newGame(String boardName) throws IOException
+    {
+        return newGame(boardName, GameConfiguration.CLASSIC.clone());
+    }
+
+    /**
+     * Add a {@link ScriptedController} player for every script, named
+     * <code>namePrefix</code> followed by the script's index.
+     */
+    public static void addScriptedPlayers(Game game, String namePrefix, String [] scripts)
+    {
+        for (int i = 0; i < scripts.length; i++)
+        {
+            game.addPlayer(new Player(namePrefix + i, new ScriptedController(scripts[i])));
+        }
+    }
+}
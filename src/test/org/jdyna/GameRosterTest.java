@@ -0,0 +1,163 @@
+package org.jdyna;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Join and leave requests are applied at frame boundaries.
+ */
+public class GameRosterTest
+{
+    @Test
+    public void testJoinAndLeaveAtFrameBoundary() throws IOException
+    {
+        final Game game = GameFixtures.newGame("classic-empty");
+        game.addPlayer(new Player("first", new ScriptedController(".")));
+        game.setFrameLimit(30);
+
+        final int [] playersInFrame = new int [31];
+
+        /*
+         * Listener exceptions are swallowed by the game, so we record what we see.
+         */
+        final boolean [] seen = new boolean [3];
+        game.addListener(new IGameEventListener()
+        {
+            public void onFrame(int frame, List<? extends GameEvent> events)
+            {
+                for (GameEvent e : events)
+                {
+                    if (e.type == GameEvent.Type.GAME_STATE)
+                    {
+                        playersInFrame[frame] = ((GameStateEvent) e).getPlayers().size();
+                    }
+                }
+
+                if (frame == 10)
+                {
+                    game.requestJoin(new Player("second", new ScriptedController(".")));
+                    seen[0] = game.hasPlayer("second");
+                }
+
+                if (frame == 20)
+                {
+                    seen[1] = game.requestLeave("first") && !game.hasPlayer("first");
+                    seen[2] = !game.requestLeave("first");
+                }
+            }
+        });
+        game.run(Game.Mode.INFINITE_DEATHMATCH);
+
+        assertTrue("Pending join visible", seen[0]);
+        assertTrue("Leave accepted", seen[1]);
+        assertTrue("Second leave rejected", seen[2]);
+        assertEquals(1, playersInFrame[10]);
+        assertEquals(2, playersInFrame[11]);
+        assertEquals(2, playersInFrame[20]);
+        assertEquals(1, playersInFrame[21]);
+        assertEquals(1, game.getPlayerNames().size());
+        assertEquals("second", game.getPlayerNames().get(0));
+    }
+
+    @Test
+    public void testJoinAfterLeaveTakesFreeSlot() throws IOException
+    {
+        final Game game = GameFixtures.newGame("classic-empty");
+        for (String name : new String [] {"a", "b", "c"})
+        {
+            game.addPlayer(new Player(name, new ScriptedController(".")));
+        }
+        game.setFrameLimit(15);
+
+        final List<IPlayerSprite> players = Lists.newArrayList();
+        game.addListener(new IGameEventListener()
+        {
+            public void onFrame(int frame, List<? extends GameEvent> events)
+            {
+                for (GameEvent e : events)
+                {
+                    if (e.type == GameEvent.Type.GAME_STATE && frame == 11)
+                    {
+                        players.addAll(((GameStateEvent) e).getPlayers());
+                    }
+                }
+
+                if (frame == 5) game.requestLeave("b");
+                if (frame == 10) game.requestJoin(new Player("d", new ScriptedController(".")));
+            }
+        });
+        game.run(Game.Mode.INFINITE_DEATHMATCH);
+
+        assertEquals(3, players.size());
+        final IPlayerSprite joined = players.get(2);
+        assertEquals("d", joined.getName());
+        for (IPlayerSprite other : players.subList(0, 2))
+        {
+            assertTrue(other.getName(), other.getType() != joined.getType());
+            assertFalse(other.getName(), other.getPosition().equals(joined.getPosition()));
+        }
+    }
+
+    @Test
+    public void testRejoinAfterLeaveInSameFrame() throws IOException
+    {
+        final Game game = GameFixtures.newGame("classic-empty");
+        game.addPlayer(new Player("first", new ScriptedController(".")));
+        game.setFrameLimit(15);
+
+        final List<String> names = Lists.newArrayList();
+        game.addListener(new IGameEventListener()
+        {
+            public void onFrame(int frame, List<? extends GameEvent> events)
+            {
+                for (GameEvent e : events)
+                {
+                    if (e.type == GameEvent.Type.GAME_STATE && frame == 11)
+                    {
+                        for (IPlayerSprite p : ((GameStateEvent) e).getPlayers())
+                        {
+                            names.add(p.getName());
+                        }
+                    }
+                }
+
+                // Changes are applied in the order they were requested.
+                if (frame == 10)
+                {
+                    game.requestLeave("first");
+                    game.requestJoin(new Player("first", new ScriptedController(".")));
+                }
+            }
+        });
+        game.run(Game.Mode.INFINITE_DEATHMATCH);
+
+        assertEquals(Lists.newArrayList("first"), names);
+        assertEquals(Lists.newArrayList("first"), game.getPlayerNames());
+    }
+
+    @Test
+    public void testDuplicateNameRejected() throws IOException
+    {
+        final Game game = GameFixtures.newGame("classic-empty");
+        game.requestJoin(new Player("first", new ScriptedController(".")));
+
+        try
+        {
+            game.requestJoin(new Player("first", new ScriptedController(".")));
+            fail();
+        }
+        catch (IllegalArgumentException e)
+        {
+            // Expected.
+        }
+    }
+}
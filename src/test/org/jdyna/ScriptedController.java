@@ -0,0 +1,43 @@
+package org.jdyna;
+
+/**
+ * A deterministic {@link IPlayerController} replaying a script, one character per
+ * frame, cyclically. Script characters are: <code>L, R, U, D</code> (move in a
+ * direction), <code>B</code> (drop a bomb without moving) and any other character (stay
+ * idle).
+ */
+public final class ScriptedController implements IPlayerController
+{
+    private final String script;
+    private int step = -1;
+
+    /*
+     * 
+     */
+    public ScriptedController(String script)
+    {
+        assert script.length() > 0;
+        this.script = script;
+    }
+
+    /*
+     * The game calls this method exactly once per frame (for alive and dead players).
+     */
+    public Direction getCurrent()
+    {
+        step = (step + 1) % script.length();
+        switch (script.charAt(step))
+        {
+            case 'L': return Direction.LEFT;
+            case 'R': return Direction.RIGHT;
+            case 'U': return Direction.UP;
+            case 'D': return Direction.DOWN;
+            default:  return null;
+        }
+    }
+
+    public boolean dropsBomb()
+    {
+        return step >= 0 && script.charAt(step) == 'B';
+    }
+}
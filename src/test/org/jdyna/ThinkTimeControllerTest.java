@@ -0,0 +1,265 @@
+package org.jdyna;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jdyna.IPlayerController.Direction;
+import org.junit.Test;
+
+/**
+ * Think time budget of player controllers.
+ */
+public class ThinkTimeControllerTest
+{
+    private final static List<GameEvent> NO_EVENTS = Collections.emptyList();
+
+    @Test
+    public void testOverrunDoesNotStallFrame()
+    {
+        final SlowController slow = new SlowController(
+            new Direction [] {Direction.LEFT, Direction.UP},
+            new long [] {0, 200}, 0);
+        final ThinkTimeController c = new ThinkTimeController(slow, 20, TimeUnit.MILLISECONDS);
+
+        c.onFrame(0, NO_EVENTS);
+        assertEquals(Direction.LEFT, c.getState().direction);
+        assertTrue(c.dropsBomb());
+
+        // Over budget: the player keeps going left, but doesn't drop another bomb.
+        final long start = System.nanoTime();
+        c.onFrame(1, NO_EVENTS);
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(150));
+        assertEquals(Direction.LEFT, c.getState().direction);
+        assertFalse(c.getState().dropsBomb);
+        assertEquals(Direction.LEFT, c.getCurrent());
+        assertFalse(c.dropsBomb());
+        assertEquals(1, c.getOverruns());
+    }
+
+    @Test
+    public void testLateDecisionUsedFromNextFrame() throws InterruptedException
+    {
+        final SlowController slow = new SlowController(
+            new Direction [] {Direction.LEFT, Direction.UP, Direction.DOWN, Direction.RIGHT},
+            new long [] {0, 100, 100, 0}, -1);
+        final ThinkTimeController c = new ThinkTimeController(slow, 20, TimeUnit.MILLISECONDS);
+
+        c.onFrame(0, NO_EVENTS);
+        assertEquals(Direction.LEFT, c.getState().direction);
+
+        c.onFrame(1, NO_EVENTS);
+        assertEquals(Direction.LEFT, c.getState().direction);
+        awaitThinkTimes(c, 2);
+
+        // The decision about frame 1 came too late for it, but is the freshest one.
+        c.onFrame(2, NO_EVENTS);
+        assertEquals(Direction.UP, c.getState().direction);
+        assertEquals(2, c.getOverruns());
+        awaitThinkTimes(c, 3);
+
+        c.onFrame(3, NO_EVENTS);
+        assertEquals(Direction.RIGHT, c.getState().direction);
+        assertEquals(2, c.getOverruns());
+
+        assertEquals(4, c.getThinkTimes().getCount());
+        assertTrue(c.getThinkTimes().getPercentile(100) >= TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(c.getThinkTimes().getPercentile(50) < TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void testNoChangeKeptWithinBudget()
+    {
+        final IPlayerController2 undecided = new IPlayerController2()
+        {
+            public ControllerState getState()
+            {
+                return null;
+            }
+        };
+        final SlowController first = new SlowController(
+            new Direction [] {Direction.DOWN}, new long [] {0}, -1);
+
+        final ThinkTimeController c = new ThinkTimeController(new DualController(first,
+            undecided), 1, TimeUnit.SECONDS);
+        c.onFrame(0, NO_EVENTS);
+        assertNull(c.getState());
+        assertSame(ControllerState.DO_NOTHING.direction, c.getCurrent());
+    }
+
+    @Test
+    public void testDeadlineAwareControllerStaysWithinBudget()
+    {
+        final AnytimeController anytime = new AnytimeController();
+        final ThinkTimeController c = new ThinkTimeController(anytime, 50,
+            TimeUnit.MILLISECONDS);
+        assertSame(c.getDeadline(), anytime.deadline);
+
+        for (int frame = 0; frame < 20; frame++)
+        {
+            c.onFrame(frame, NO_EVENTS);
+            assertEquals(Direction.RIGHT, c.getState().direction);
+        }
+        assertEquals(0, c.getOverruns());
+        assertTrue(anytime.iterations > 0);
+    }
+
+    @Test
+    public void testThreadStopsWhenPlayerLeaves() throws IOException, InterruptedException
+    {
+        final Direction [] directions = new Direction [32];
+        Arrays.fill(directions, Direction.LEFT);
+        final SlowController slow = new SlowController(directions, new long [32], -1);
+
+        final Game game = GameFixtures.newGame("classic-empty");
+        game.addPlayer(new Player("bot", new ThinkTimeController(slow, 1, TimeUnit.SECONDS)));
+        game.addPlayer(new Player("other", new ScriptedController(".")));
+        game.setFrameLimit(20);
+        game.addListener(new IGameEventListener()
+        {
+            public void onFrame(int frame, List<? extends GameEvent> events)
+            {
+                if (frame == 5) game.requestLeave("bot");
+            }
+        });
+        game.run(Game.Mode.INFINITE_DEATHMATCH);
+
+        // The controller left before the game was over, it never saw the game end.
+        assertNotNull(slow.thread);
+        slow.thread.join(5000);
+        assertFalse(slow.thread.isAlive());
+    }
+
+    /**
+     * Wait until the controller has decided about a given number of frames.
+     */
+    private static void awaitThinkTimes(ThinkTimeController c, long count)
+        throws InterruptedException
+    {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (c.getThinkTimes().getCount() < count)
+        {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Sleeps for a given time in each frame before it decides.
+     */
+    private final static class SlowController implements IPlayerController,
+        IGameEventListener
+    {
+        private final Direction [] directions;
+        private final long [] sleepMillis;
+        private final int bombFrame;
+
+        private volatile int frame;
+        volatile Thread thread;
+
+        SlowController(Direction [] directions, long [] sleepMillis, int bombFrame)
+        {
+            this.directions = directions;
+            this.sleepMillis = sleepMillis;
+            this.bombFrame = bombFrame;
+        }
+
+        public void onFrame(int frame, List<? extends GameEvent> events)
+        {
+            this.frame = frame;
+            this.thread = Thread.currentThread();
+            try
+            {
+                Thread.sleep(sleepMillis[frame]);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        public Direction getCurrent()
+        {
+            return directions[frame];
+        }
+
+        public boolean dropsBomb()
+        {
+            return frame == bombFrame;
+        }
+    }
+
+    /**
+     * Decides with {@link IPlayerController2} only.
+     */
+    private final static class DualController implements IPlayerController,
+        IPlayerController2
+    {
+        private final IPlayerController c1;
+        private final IPlayerController2 c2;
+
+        DualController(IPlayerController c1, IPlayerController2 c2)
+        {
+            this.c1 = c1;
+            this.c2 = c2;
+        }
+
+        public Direction getCurrent()
+        {
+            return c1.getCurrent();
+        }
+
+        public boolean dropsBomb()
+        {
+            return c1.dropsBomb();
+        }
+
+        public ControllerState getState()
+        {
+            return c2.getState();
+        }
+    }
+
+    /**
+     * Keeps thinking until the deadline is close.
+     */
+    private final static class AnytimeController implements IPlayerController,
+        IGameEventListener, IThinkDeadlineAware
+    {
+        ThinkDeadline deadline;
+        long iterations;
+
+        public void setThinkDeadline(ThinkDeadline deadline)
+        {
+            this.deadline = deadline;
+        }
+
+        public void onFrame(int frame, List<? extends GameEvent> events)
+        {
+            // Leave most of the budget as a margin for slow machines.
+            while (deadline.getRemainingNanos() > TimeUnit.MILLISECONDS.toNanos(40))
+            {
+                iterations++;
+            }
+        }
+
+        public Direction getCurrent()
+        {
+            return Direction.RIGHT;
+        }
+
+        public boolean dropsBomb()
+        {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.jdyna;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Threats predicted by {@link ThreatMap} match explosions actually happening in the game.
+ */
+public class ThreatMapTest
+{
+    /** Frames to observe, enough for all bombs to explode and flames to disappear. */
+    private final static int FRAMES = 120;
+
+    @Test
+    public void testChainReactionsAndCrates() throws IOException
+    {
+        final Board board = GameFixtures.board("classic-empty");
+
+        /*
+         * Bomb A sets off bomb B (chain reaction), B bombs out a crate, bomb D's flames pass
+         * through the crate's cell later on. Bomb E's flames reach D's cell again after D's
+         * flames are gone (the dangerous period spans both). Bomb F never explodes.
+         */
+        bomb(board, 1, 1, 10, 3);
+        bomb(board, 4, 1, 50, 3);
+        board.cellAt(6, 1, Cell.getInstance(CellType.CELL_CRATE));
+        bomb(board, 9, 1, 30, 3);
+        bomb(board, 9, 3, 60, 2);
+        bomb(board, 13, 11, Integer.MAX_VALUE, 3);
+
+        checkPredictions(board);
+    }
+
+    @Test
+    public void testBoardWithCratesAndBombs() throws IOException
+    {
+        final Board board = GameFixtures.board("classic-big");
+
+        /*
+         * Both bombs are next to the same crate (2, 3), the second one's flames pass
+         * through it. The crate at (4, 3) stops the flames.
+         */
+        bomb(board, 1, 3, 5, 3);
+        bomb(board, 3, 3, 40, 2);
+
+        checkPredictions(board);
+    }
+
+    /**
+     * Run a game without players on the board and compare the threat map after the first
+     * frame with explosions observed in subsequent frames.
+     */
+    private void checkPredictions(Board board)
+    {
+        final GameConfiguration conf = GameConfiguration.CLASSIC.clone();
+        conf.ENABLE_THREAT_MAP = true;
+
+        final Game game = GameFixtures.newGame(board, conf);
+        game.setFrameLimit(FRAMES);
+
+        final int cells = board.width * board.height;
+        final int [] firstFlames = new int [cells];
+        final int [] lastFlames = new int [cells];
+        Arrays.fill(firstFlames, ThreatMap.NONE);
+
+        final ThreatMap [] predicted = new ThreatMap [1];
+        game.addListener(new IGameEventListener()
+        {
+            public void onFrame(int frame, List<? extends GameEvent> events)
+            {
+                for (GameEvent e : events)
+                {
+                    if (e.type == GameEvent.Type.THREAT_MAP && frame == 0)
+                    {
+                        predicted[0] = ((ThreatMapEvent) e).getThreatMap();
+                    }
+
+                    if (e.type == GameEvent.Type.GAME_STATE)
+                    {
+                        final Cell [][] c = ((GameStateEvent) e).getCells();
+                        for (int x = 0; x < c.length; x++)
+                        {
+                            for (int y = 0; y < c[x].length; y++)
+                            {
+                                if (c[x][y].type.isExplosion())
+                                {
+                                    final int i = x + y * c.length;
+                                    firstFlames[i] = Math.min(firstFlames[i], frame);
+                                    lastFlames[i] = frame + 1;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        });
+        game.run(Game.Mode.INFINITE_DEATHMATCH);
+
+        final ThreatMap map = predicted[0];
+        assertNotNull(map);
+        for (int y = 0; y < board.height; y++)
+        {
+            for (int x = 0; x < board.width; x++)
+            {
+                final int i = x + y * board.width;
+                final String cell = "(" + x + "," + y + ")";
+                assertEquals("Explosion at " + cell, firstFlames[i], map.getFramesToExplosion(x, y));
+                assertEquals("Flames end at " + cell, lastFlames[i], map.getFramesToFlamesEnd(x, y));
+            }
+        }
+    }
+
+    /*
+     *
+     */
+    private static void bomb(Board board, int x, int y, int fuse, int range)
+    {
+        final BombCell bomb = (BombCell) Cell.getInstance(CellType.CELL_BOMB);
+        bomb.fuseCounter = fuse;
+        bomb.range = range;
+        board.cellAt(x, y, bomb);
+    }
+}
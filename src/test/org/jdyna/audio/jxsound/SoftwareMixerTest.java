@@ -0,0 +1,106 @@
+package org.jdyna.audio.jxsound;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+
+import org.jdyna.SoundEffect;
+import org.junit.Test;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Mixing of voices in {@link SoftwareMixer} (without an output line).
+ */
+public class SoftwareMixerTest
+{
+    @Test
+    public void testVoicesMixed()
+    {
+        final SoftwareMixer<SoundEffect> mixer = newMixer(4, 2 * SoftwareMixer.BLOCK_FRAMES);
+        mixer.play(SoundEffect.BOMB, 1);
+        mixer.play(SoundEffect.BONUS, 1);
+
+        mixer.mix();
+        assertEquals(2, mixer.getActiveVoices());
+        assertEquals(100 + 10, frame(mixer, 0));
+
+        mixer.mix();
+        mixer.mix();
+        assertEquals(0, mixer.getActiveVoices());
+        assertEquals(0, frame(mixer, 0));
+    }
+
+    @Test
+    public void testCountsCoalesced()
+    {
+        final SoftwareMixer<SoundEffect> mixer = newMixer(4, 2 * SoftwareMixer.BLOCK_FRAMES);
+        mixer.play(SoundEffect.BOMB, 3);
+        mixer.play(SoundEffect.BOMB, 1);
+
+        mixer.mix();
+        assertEquals(1, mixer.getActiveVoices());
+        assertEquals(200, frame(mixer, 0));
+    }
+
+    @Test
+    public void testVoicesCapped()
+    {
+        final SoftwareMixer<SoundEffect> mixer = newMixer(2, 10 * SoftwareMixer.BLOCK_FRAMES);
+        mixer.play(SoundEffect.BOMB, 1);
+        mixer.mix();
+        mixer.play(SoundEffect.BONUS, 1);
+        mixer.mix();
+        mixer.play(SoundEffect.DYING, 1);
+        mixer.mix();
+
+        // The bomb (closest to its end) was replaced.
+        assertEquals(2, mixer.getActiveVoices());
+        assertEquals(10 + 1000, frame(mixer, 0));
+    }
+
+    @Test
+    public void testClipped()
+    {
+        final EnumMap<SoundEffect, short []> samples = Maps.newEnumMap(SoundEffect.class);
+        samples.put(SoundEffect.BOMB, sample(Short.MAX_VALUE, SoftwareMixer.BLOCK_FRAMES));
+        final SoftwareMixer<SoundEffect> loud = new SoftwareMixer<SoundEffect>(
+            SoundEffect.class, samples, 4);
+
+        loud.play(SoundEffect.BOMB, 4);
+        loud.mix();
+        assertEquals(Short.MAX_VALUE, frame(loud, 0));
+    }
+
+    /*
+     *
+     */
+    private static SoftwareMixer<SoundEffect> newMixer(int voices, int length)
+    {
+        final EnumMap<SoundEffect, short []> samples = Maps.newEnumMap(SoundEffect.class);
+        samples.put(SoundEffect.BOMB, sample(100, length));
+        samples.put(SoundEffect.BONUS, sample(10, length));
+        samples.put(SoundEffect.DYING, sample(1000, length));
+        return new SoftwareMixer<SoundEffect>(SoundEffect.class, samples, voices);
+    }
+
+    /*
+     *
+     */
+    private static short [] sample(int value, int length)
+    {
+        final short [] sample = new short [length];
+        Arrays.fill(sample, (short) value);
+        return sample;
+    }
+
+    /*
+     *
+     */
+    private static int frame(SoftwareMixer<SoundEffect> mixer, int index)
+    {
+        final byte [] block = mixer.getBlock();
+        return (short) ((block[2 * index] & 0xff) | (block[2 * index + 1] << 8));
+    }
+}
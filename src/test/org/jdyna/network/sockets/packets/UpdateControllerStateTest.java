@@ -0,0 +1,89 @@
+package org.jdyna.network.sockets.packets;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.jdyna.ControllerState;
+import org.jdyna.IPlayerController;
+import org.junit.Test;
+
+/**
+ * Serialization compatibility of {@link UpdateControllerState} packets.
+ */
+public class UpdateControllerStateTest
+{
+    /**
+     * An update serialized by a client from before frame numbers were sent.
+     */
+    private final static String OLD_UPDATE =
+        "aced0005737200376f72672e6a64796e612e6e6574776f726b2e736f636b6574732e7061"
+        + "636b6574732e557064617465436f6e74726f6c6c6572537461746556518b6a5fa77c9302"
+        + "000349000667616d654944490008706c6179657249444c0005737461746574001b4c6f72"
+        + "672f6a64796e612f436f6e74726f6c6c657253746174653b787000000003000000057372"
+        + "00196f72672e6a64796e612e436f6e74726f6c6c65725374617465638e12bd9541e6b902"
+        + "00035a000964726f7073426f6d6249000b76616c69644672616d65734c00096469726563"
+        + "74696f6e7400274c6f72672f6a64796e612f49506c61796572436f6e74726f6c6c657224"
+        + "446972656374696f6e3b787001000000027e7200256f72672e6a64796e612e49506c6179"
+        + "6572436f6e74726f6c6c657224446972656374696f6e0000000000000000120000787200"
+        + "0e6a6176612e6c616e672e456e756d000000000000000012000078707400044c454654";
+
+    @Test
+    public void testUpdateFromOlderClient() throws Exception
+    {
+        final UpdateControllerState update = (UpdateControllerState) read(parseHex(OLD_UPDATE));
+
+        assertEquals(3, update.gameID);
+        assertEquals(5, update.playerID);
+        assertEquals(new ControllerState(IPlayerController.Direction.LEFT, true, 2),
+            update.state);
+        assertEquals(-1, update.frame);
+    }
+
+    @Test
+    public void testFrameRoundTrip() throws Exception
+    {
+        final UpdateControllerState update = (UpdateControllerState) read(write(
+            new UpdateControllerState(3, 5, ControllerState.DO_NOTHING, 42)));
+
+        assertEquals(ControllerState.DO_NOTHING, update.state);
+        assertEquals(42, update.frame);
+    }
+
+    /*
+     * 
+     */
+    private static byte [] write(Object o) throws IOException
+    {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        final ObjectOutputStream oos = new ObjectOutputStream(os);
+        oos.writeObject(o);
+        oos.close();
+        return os.toByteArray();
+    }
+
+    /*
+     * 
+     */
+    private static Object read(byte [] bytes) throws Exception
+    {
+        return new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject();
+    }
+
+    /*
+     * 
+     */
+    private static byte [] parseHex(String hex)
+    {
+        final byte [] bytes = new byte [hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++)
+        {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,173 @@
+package org.jdyna.players;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jdyna.Board;
+import org.jdyna.Cell;
+import org.jdyna.CellType;
+import org.jdyna.Game;
+import org.jdyna.GameConfiguration;
+import org.jdyna.GameEvent;
+import org.jdyna.GameFixtures;
+import org.jdyna.GameStateEvent;
+import org.jdyna.IGameEventListener;
+import org.jdyna.ThreatMap;
+import org.jdyna.ThreatMapEvent;
+import org.junit.Test;
+
+/**
+ * Blasts and flood fills of {@link BitBoard} agree with the game's {@link ThreatMap}
+ * and with a plain breadth-first search.
+ */
+public class BitBoardTest
+{
+    @Test
+    public void testChainBlastMatchesThreatMap() throws IOException
+    {
+        final Board board = GameFixtures.board("classic-big");
+
+        /*
+         * Bomb A sets off bomb B (chain reaction), B's flames stop at a crate. Bomb C is
+         * on its own, right next to the board's edge. The board is wider than a word of
+         * a plane, so rays cross words. All bombs have the default range.
+         */
+        board.cellAt(1, 1, Cell.getInstance(CellType.CELL_BOMB));
+        board.cellAt(4, 1, Cell.getInstance(CellType.CELL_BOMB));
+        board.cellAt(6, 1, Cell.getInstance(CellType.CELL_CRATE));
+        board.cellAt(23, 7, Cell.getInstance(CellType.CELL_BOMB));
+
+        final GameConfiguration conf = GameConfiguration.CLASSIC.clone();
+        conf.ENABLE_THREAT_MAP = true;
+        final Game game = GameFixtures.newGame(board, conf);
+        game.setFrameLimit(1);
+
+        final BitBoard bitBoard = new BitBoard();
+        final ThreatMap [] threats = new ThreatMap [1];
+        game.addListener(new IGameEventListener()
+        {
+            public void onFrame(int frame, List<? extends GameEvent> events)
+            {
+                for (GameEvent e : events)
+                {
+                    if (e.type == GameEvent.Type.THREAT_MAP && frame == 0)
+                    {
+                        threats[0] = ((ThreatMapEvent) e).getThreatMap();
+                    }
+                    if (e.type == GameEvent.Type.GAME_STATE && frame == 0)
+                    {
+                        bitBoard.update((GameStateEvent) e);
+                    }
+                }
+            }
+        });
+        game.run(Game.Mode.INFINITE_DEATHMATCH);
+
+        final ThreatMap map = threats[0];
+        assertNotNull(map);
+
+        // Bomb A alone sets off B.
+        final long [] first = bitBoard.newPlane();
+        bitBoard.set(first, 1, 1);
+        final long [] flames = bitBoard.newPlane();
+        assertEquals(2, bitBoard.chainBlast(first, flames));
+        assertEquals(true, bitBoard.get(flames, 6, 1));
+        assertEquals(false, bitBoard.get(flames, 7, 1));
+
+        // All bombs: flames (not counting bombed out crates) are where threats are.
+        bitBoard.chainBlast(bitBoard.getBombs(), flames);
+        BitBoard.andNot(flames, bitBoard.getCrates());
+        for (int y = 0; y < board.height; y++)
+        {
+            for (int x = 0; x < board.width; x++)
+            {
+                assertEquals("Flames at (" + x + "," + y + ")", map
+                    .getFramesToExplosion(x, y) != ThreatMap.NONE, bitBoard.get(flames, x, y));
+            }
+        }
+
+        // Bombs of different ranges.
+        bitBoard.setBombRange(23, 7, 1);
+        BitBoard.clear(flames);
+        bitBoard.blast(bitBoard.getBombs(), flames);
+        assertEquals(true, bitBoard.get(flames, 22, 7));
+        assertEquals(false, bitBoard.get(flames, 21, 7));
+        assertEquals(true, bitBoard.get(flames, 1, 4));
+    }
+
+    @Test
+    public void testFloodFillMatchesBreadthFirstSearch() throws IOException
+    {
+        final Board board = GameFixtures.board("classic-big");
+        final BitBoard bitBoard = new BitBoard();
+        final Cell [][] cells = new Cell [board.width] [board.height];
+        for (int x = 0; x < board.width; x++)
+        {
+            for (int y = 0; y < board.height; y++)
+            {
+                cells[x][y] = board.cellAt(x, y);
+            }
+        }
+        bitBoard.update(cells);
+
+        final int [] distances = distances(board, 1, 1);
+        final long [] seeds = bitBoard.newPlane();
+        bitBoard.set(seeds, 1, 1);
+        final long [] reached = bitBoard.newPlane();
+
+        for (int steps : new int [] {0, 1, 5, 17, 1000})
+        {
+            bitBoard.floodFill(seeds, bitBoard.getWalkable(), reached, steps);
+            for (int y = 0; y < board.height; y++)
+            {
+                for (int x = 0; x < board.width; x++)
+                {
+                    assertEquals("Steps " + steps + " (" + x + "," + y + ")",
+                        distances[x + y * board.width] <= steps, bitBoard.get(reached, x, y));
+                }
+            }
+        }
+    }
+
+    /**
+     * Breadth-first distances over walkable cells.
+     */
+    private static int [] distances(Board board, int x, int y)
+    {
+        final int [] distances = new int [board.width * board.height];
+        Arrays.fill(distances, Integer.MAX_VALUE);
+        distances[x + y * board.width] = 0;
+
+        final ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+        queue.add(x + y * board.width);
+        while (!queue.isEmpty())
+        {
+            final int current = queue.poll();
+            final int cx = current % board.width;
+            final int cy = current / board.width;
+            final int [][] moves = { {-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+            for (int [] move : moves)
+            {
+                final int nx = cx + move[0];
+                final int ny = cy + move[1];
+                if (nx < 0 || ny < 0 || nx >= board.width || ny >= board.height
+                    || !board.cellAt(nx, ny).type.isWalkable())
+                {
+                    continue;
+                }
+                final int next = nx + ny * board.width;
+                if (distances[next] == Integer.MAX_VALUE)
+                {
+                    distances[next] = distances[current] + 1;
+                    queue.add(next);
+                }
+            }
+        }
+        return distances;
+    }
+}
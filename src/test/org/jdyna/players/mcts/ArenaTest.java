@@ -0,0 +1,215 @@
+package org.jdyna.players.mcts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jdyna.Board;
+import org.jdyna.BoardInfo;
+import org.jdyna.Game;
+import org.jdyna.GameConfiguration;
+import org.jdyna.GameEvent;
+import org.jdyna.GameFixtures;
+import org.jdyna.GameStateEvent;
+import org.jdyna.IGameEventListener;
+import org.jdyna.IPlayerController;
+import org.jdyna.Player;
+import org.jdyna.ScriptedController;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * The forward model against the game: scripted players walk around, drop bombs, burn
+ * crates and kill each other while the model predicts every frame.
+ */
+public class ArenaTest
+{
+    private final static int FRAMES = 1200;
+
+    private BoardInfo boardInfo;
+    private GameConfiguration conf;
+
+    @Test
+    public void testPredictsEveryFrame() throws IOException
+    {
+        final Game game = newGame("classic-big");
+        final List<RecordingController> controllers = Lists.newArrayList();
+        for (int i = 0; i < GameFixtures.SCRIPTS.length; i++)
+        {
+            final RecordingController c = new RecordingController(GameFixtures.SCRIPTS[i]);
+            controllers.add(c);
+            game.addPlayer(new Player("p" + i, c));
+        }
+
+        final List<String> mismatches = Lists.newArrayList();
+        final int [] stats = new int [3];
+
+        game.addListener(new IGameEventListener()
+        {
+            private final Arena observed = new Arena(boardInfo, conf);
+            private Arena predicted;
+
+            /** A model of the whole game, restarted when players resurrect. */
+            private Arena free;
+
+            private final int [] actions = new int [GameFixtures.SCRIPTS.length];
+
+            public void onFrame(int frame, List<? extends GameEvent> events)
+            {
+                for (GameEvent e : events)
+                {
+                    if (e.type != GameEvent.Type.GAME_STATE)
+                    {
+                        continue;
+                    }
+
+                    for (int i = 0; i < actions.length; i++)
+                    {
+                        actions[i] = controllers.get(i).last;
+                    }
+
+                    observed.update(frame, (GameStateEvent) e, "p0");
+                    if (predicted != null)
+                    {
+                        predicted.step(actions);
+                        compare(frame, "next frame", predicted, observed);
+                    }
+                    predicted = observed.newCopy();
+
+                    if (free == null)
+                    {
+                        free = observed.newCopy();
+                    }
+                    else
+                    {
+                        free.step(actions);
+                        compare(frame, "whole game", free, observed);
+                        if (resurrected(free, observed))
+                        {
+                            stats[2]++;
+                            free = observed.newCopy();
+                        }
+                    }
+
+                    for (byte kind : observed.kinds)
+                    {
+                        if (kind == Arena.FLAME) stats[0]++;
+                        if (kind == Arena.CRATE_OUT) stats[1]++;
+                    }
+                }
+            }
+
+            private void compare(int frame, String what, Arena model, Arena game)
+            {
+                if (!Arrays.equals(model.kinds, game.kinds))
+                {
+                    mismatches.add(frame + " " + what + ", cells:\n" + model + "\n" + game);
+                }
+
+                for (int i = 0; i < game.players; i++)
+                {
+                    if (model.dead[i] && !game.dead[i])
+                    {
+                        // Resurrected, the model does not bring the dead back.
+                        continue;
+                    }
+
+                    if (model.dead[i] != game.dead[i])
+                    {
+                        mismatches.add(frame + " " + what + ", dead: " + i);
+                    }
+                    else if (!game.dead[i] && (model.xs[i] != game.xs[i]
+                        || model.ys[i] != game.ys[i]))
+                    {
+                        mismatches.add(frame + " " + what + ", position: " + i);
+                    }
+                }
+
+                for (int x = 0; x < game.width; x++)
+                {
+                    for (int y = 0; y < game.height; y++)
+                    {
+                        if (game.kinds[x + y * game.width] == Arena.BOMB
+                            && model.getFuse(x, y) != game.getFuse(x, y))
+                        {
+                            mismatches.add(frame + " " + what + ", fuse: " + x + "," + y);
+                        }
+                    }
+                }
+            }
+        });
+        game.run(Game.Mode.INFINITE_DEATHMATCH);
+
+        assertEquals("", mismatches.isEmpty() ? "" : mismatches.size() + " mismatches, first: "
+            + mismatches.get(0));
+        assertTrue("Explosions", stats[0] > 0);
+        assertTrue("Crates burnt", stats[1] > 0);
+        assertTrue("Resurrections", stats[2] > 0);
+    }
+
+    /*
+     *
+     */
+    private static boolean resurrected(Arena model, Arena game)
+    {
+        for (int i = 0; i < game.players; i++)
+        {
+            if (model.dead[i] && !game.dead[i])
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Plays a script and remembers the last action taken.
+     */
+    private final static class RecordingController implements IPlayerController
+    {
+        private final ScriptedController script;
+        private Direction direction;
+        int last;
+
+        RecordingController(String script)
+        {
+            this.script = new ScriptedController(script);
+        }
+
+        public Direction getCurrent()
+        {
+            // Called first in a frame.
+            direction = script.getCurrent();
+            last = (direction == null ? Arena.STAY : direction.ordinal() + 1);
+            return direction;
+        }
+
+        public boolean dropsBomb()
+        {
+            final boolean drops = script.dropsBomb();
+            if (drops)
+            {
+                last += Arena.BOMB_ACTION;
+            }
+            return drops;
+        }
+    }
+
+    /**
+     * Create a headless game (no frame delays, no bonuses) on a given board.
+     */
+    private Game newGame(String boardName) throws IOException
+    {
+        final Board board = GameFixtures.board(boardName);
+        boardInfo = GameFixtures.boardInfo(board);
+        conf = GameFixtures.noBonuses();
+
+        final Game game = GameFixtures.newGame(board, conf);
+        game.setFrameLimit(FRAMES);
+        return game;
+    }
+}
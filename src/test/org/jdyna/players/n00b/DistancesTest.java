@@ -0,0 +1,118 @@
+package org.jdyna.players.n00b;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.jdyna.Game;
+import org.jdyna.GameConfiguration;
+import org.jdyna.GameEvent;
+import org.jdyna.GameFixtures;
+import org.jdyna.GameStartEvent;
+import org.jdyna.GameStateEvent;
+import org.jdyna.IGameEventListener;
+import org.jdyna.Player;
+import org.jdyna.ScriptedController;
+import org.jdyna.IPlayerController.Direction;
+import org.jdyna.players.n00b.state.GameState;
+import org.junit.Test;
+
+/**
+ * Distances of all moves derived from a single {@link DistanceField} search agree with
+ * separate searches from every move's destination.
+ */
+public class DistancesTest
+{
+    /** Number of observed frames. */
+    private final static int FRAMES = 60;
+
+    @Test
+    public void testDerivedDistancesMatchSeparateSearches() throws IOException
+    {
+        /*
+         * Players can't drop bombs while immortal. The first player drops a bomb and
+         * stands on it for a while (its space cannot be walked over then).
+         */
+        final GameConfiguration conf = GameConfiguration.CLASSIC.clone();
+        conf.DEFAULT_IMMORTALITY_FRAMES = 0;
+        conf.DEFAULT_JOINING_IMMORTALITY_FRAMES = 0;
+
+        final Game game = GameFixtures.newGame("classic-big", conf);
+        game.addPlayer(new Player("player-0", new ScriptedController(StringUtils.repeat(
+            "R", 10)
+            + "B" + StringUtils.repeat(".", 10) + StringUtils.repeat("D", FRAMES))));
+        game.addPlayer(new Player("player-1", new ScriptedController(StringUtils.repeat(
+            "L", FRAMES))));
+        game.setFrameLimit(FRAMES);
+
+        final int [] mismatches = new int [1];
+        final int [] checks = new int [1];
+        final int [] onBomb = new int [1];
+        game.addListener(new IGameEventListener()
+        {
+            private GameState state;
+            private final DistanceField field = new DistanceField();
+            private final Distances derived = new Distances();
+
+            public void onFrame(int frame, List<? extends GameEvent> events)
+            {
+                for (GameEvent e : events)
+                {
+                    if (e.type == GameEvent.Type.GAME_START)
+                    {
+                        state = new GameState((GameStartEvent) e);
+                    }
+                    else if (e.type == GameEvent.Type.GAME_STATE)
+                    {
+                        state.update(frame, (GameStateEvent) e);
+                        check(state.getPlayer("player-0"));
+                    }
+                }
+            }
+
+            private void check(org.jdyna.players.n00b.state.Player me)
+            {
+                final Point origin = state.getPlayerSpace(me).toPoint();
+                field.compute(state, origin);
+                if (!state.spaceAt(origin).isWalkable())
+                {
+                    onBomb[0]++;
+                }
+
+                check(me, origin, null);
+                for (Direction direction : Direction.values())
+                {
+                    check(me, origin, direction);
+                }
+            }
+
+            private void check(org.jdyna.players.n00b.state.Player me, Point origin,
+                Direction direction)
+            {
+                final Point start = Distances.getNeighbourPointByDirection(origin,
+                    direction);
+                if (state.isPointOutsideBoard(start))
+                {
+                    return;
+                }
+
+                derived.compute(field, direction, state, me);
+                final Distances separate = new Distances(start, state, me);
+                checks[0]++;
+                if (!derived.toString().equals(separate.toString()))
+                {
+                    mismatches[0]++;
+                }
+            }
+        });
+        game.run(Game.Mode.INFINITE_DEATHMATCH);
+
+        assertTrue(checks[0] >= FRAMES * 5);
+        assertTrue(onBomb[0] > 0);
+        assertEquals(0, mismatches[0]);
+    }
+}
@@ -0,0 +1,131 @@
+package org.jdyna.players.tyson.emulator.gamestate;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.jdyna.Cell;
+import org.jdyna.CellType;
+import org.jdyna.GameConfiguration;
+import org.jdyna.GameStateEvent;
+import org.jdyna.IPlayerSprite;
+import org.junit.Test;
+
+/**
+ * Updates of the game state from changes of cells on a small, empty board.
+ */
+public class GameStateTest
+{
+    private final static int WIDTH = 10;
+    private final static int HEIGHT = 10;
+
+    private final GameConfiguration conf = GameConfiguration.CLASSIC.clone();
+    private final Cell [][] cells = new Cell [WIDTH] [HEIGHT];
+
+    @Test
+    public void testChainReactionFollowsEarliestFuse()
+    {
+        /*
+         * Bomb Z sets off X, X sets off Y and Y sets off W. Bombs are dropped in the order
+         * Z, W, Y, X, so W and Y would explode before X on their own, yet all of them
+         * explode together with Z.
+         */
+        final GridCoord z = new GridCoord(0, 0);
+        final GridCoord w = new GridCoord(6, 3);
+        final GridCoord y = new GridCoord(3, 3);
+        final GridCoord x = new GridCoord(3, 0);
+
+        fill(CellType.CELL_EMPTY);
+        set(z, CellType.CELL_BOMB);
+        final GameState gs = new GameState(conf, 0, event(), "player-0");
+
+        int frame = 1;
+        for (GridCoord bomb : new GridCoord [] {w, y, x})
+        {
+            for (int i = 0; i < 10; i++, frame++)
+            {
+                gs.update(frame, event());
+            }
+            set(bomb, CellType.CELL_BOMB);
+            gs.update(frame++, event());
+        }
+
+        final int explosion = conf.DEFAULT_FUSE_FRAMES - 1 - gs.getFrame();
+        for (GridCoord bomb : new GridCoord [] {z, w, y, x})
+        {
+            assertTrue(gs.isSafe(bomb, explosion));
+            assertFalse(gs.isSafe(bomb, explosion + 1));
+            assertFalse(gs.hasBomb(explosion + 15, bomb));
+        }
+
+        // Cells threatened by W only.
+        assertFalse(gs.isSafe(new GridCoord(9, 3), explosion + 1));
+        assertTrue(gs.isUltimatelySafe(new GridCoord(9, 3), explosion + 15));
+        assertTrue(gs.isUltimatelySafe(new GridCoord(9, 4), 0));
+    }
+
+    @Test
+    public void testBonusCellsFollowChanges()
+    {
+        fill(CellType.CELL_EMPTY);
+        set(new GridCoord(5, 5), CellType.CELL_BONUS_BOMB);
+        final GameState gs = new GameState(conf, 0, event(), "player-0");
+        assertEquals(Collections.singletonList(new GridCoord(5, 5)), gs.getBonusCells());
+
+        set(new GridCoord(5, 2), CellType.CELL_BONUS_RANGE);
+        set(new GridCoord(7, 1), CellType.CELL_BONUS_BOMB);
+        set(new GridCoord(1, 8), CellType.CELL_BONUS_BOMB);
+        gs.update(1, event());
+        assertArrayEquals(new GridCoord [] {
+            new GridCoord(1, 8), new GridCoord(5, 2), new GridCoord(5, 5),
+            new GridCoord(7, 1)}, gs.getBonusCells().toArray());
+
+        set(new GridCoord(5, 5), CellType.CELL_EMPTY);
+        gs.update(2, event());
+        assertArrayEquals(new GridCoord [] {
+            new GridCoord(1, 8), new GridCoord(5, 2), new GridCoord(7, 1)}, gs
+            .getBonusCells().toArray());
+        assertEquals(1, gs.getBoard().getChangedCellsCount());
+
+        gs.update(3, event());
+        assertEquals(0, gs.getBoard().getChangedCellsCount());
+    }
+
+    /*
+     *
+     */
+    private void fill(CellType type)
+    {
+        for (Cell [] column : cells)
+        {
+            for (int j = 0; j < column.length; j++)
+            {
+                column[j] = Cell.getInstance(type);
+            }
+        }
+    }
+
+    /*
+     *
+     */
+    private void set(GridCoord grid, CellType type)
+    {
+        cells[grid.x][grid.y] = Cell.getInstance(type);
+    }
+
+    /*
+     *
+     */
+    private GameStateEvent event()
+    {
+        final Cell [][] copy = new Cell [WIDTH] [];
+        for (int i = 0; i < WIDTH; i++)
+        {
+            copy[i] = cells[i].clone();
+        }
+        return new GameStateEvent(copy, Collections.<IPlayerSprite> emptyList());
+    }
+}
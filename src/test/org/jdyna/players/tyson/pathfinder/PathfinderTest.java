@@ -0,0 +1,389 @@
+package org.jdyna.players.tyson.pathfinder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.lang.SerializationUtils;
+import org.apache.commons.lang.StringUtils;
+import org.jdyna.Board;
+import org.jdyna.Constants;
+import org.jdyna.Game;
+import org.jdyna.GameConfiguration;
+import org.jdyna.GameEvent;
+import org.jdyna.GameFixtures;
+import org.jdyna.GameStartEvent;
+import org.jdyna.GameStateEvent;
+import org.jdyna.IGameEventListener;
+import org.jdyna.Player;
+import org.jdyna.ScriptedController;
+import org.jdyna.IPlayerController.Direction;
+import org.jdyna.players.tyson.emulator.gamestate.GameState;
+import org.jdyna.players.tyson.emulator.gamestate.GridCoord;
+import org.jdyna.players.tyson.emulator.gamestate.PointCoord;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Path searches on states of a real game: the first player drops a bomb after a few
+ * frames and waits on it, the second player idles in the opposite corner.
+ */
+public class PathfinderTest
+{
+    /** Number of recorded frames. */
+    private final static int FRAMES = 20;
+
+    /** The frame in which the first player drops a bomb. */
+    private final static int BOMB_FRAME = 5;
+
+    @Test
+    public void testShelterFromOwnBomb() throws IOException
+    {
+        final GameState gs = gameState(FRAMES - 1);
+        final Pathfinder pathfinder = new Pathfinder();
+
+        final List<Direction> shelter = pathfinder.findShelter(gs, gs.getPlayerPosition());
+        assertNotNull(shelter);
+        assertFalse(shelter.isEmpty());
+
+        // Repeated searches (with memoized answers) and fresh path finders agree.
+        assertEquals(shelter, pathfinder.findShelter(gs, gs.getPlayerPosition()));
+        assertEquals(shelter, new Pathfinder().findShelter(gs, gs.getPlayerPosition()));
+    }
+
+    @Test
+    public void testUpdatedStateInvalidatesAnswers() throws IOException
+    {
+        final Recorded recorded = record();
+        final GameState gs = new GameState(recorded.conf, 0, recorded.states[0],
+            "player-0");
+        final Pathfinder pathfinder = new Pathfinder();
+
+        // No bombs yet, the player is safe where it stands.
+        assertEquals(0, pathfinder.findShelter(gs, gs.getPlayerPosition()).size());
+
+        for (int frame = 1; frame < FRAMES; frame++)
+        {
+            gs.update(frame, recorded.states[frame]);
+        }
+        assertFalse(pathfinder.findShelter(gs, gs.getPlayerPosition()).isEmpty());
+    }
+
+    @Test
+    public void testTripLimits() throws IOException
+    {
+        final GameState gs = gameState(0);
+        final GridCoord destination = new GridCoord(1, 11);
+
+        // Straight down, until the player enters the destination cell.
+        final List<Direction> trip = new Pathfinder().findTrip(gs, gs.getPlayerPosition(),
+            destination);
+        assertNotNull(trip);
+        assertEquals((destination.y * Constants.DEFAULT_CELL_SIZE - gs
+            .getPlayerPosition().y) / 2, trip.size());
+        assertEquals(Collections.nCopies(trip.size(), Direction.DOWN), trip);
+
+        assertNull(new Pathfinder().findTrip(gs, gs.getPlayerPosition(), destination, 10));
+        assertNull(new Pathfinder(1).findTrip(gs, gs.getPlayerPosition(), destination));
+    }
+
+    @Test
+    public void testNodeBudget() throws IOException
+    {
+        final GameState gs = gameState(FRAMES - 1);
+        final PointCoord position = gs.getPlayerPosition();
+        final GridCoord destination = new GridCoord(1, 11);
+
+        // A shelter and a trip exist, but a search giving up early does not find them.
+        assertNotNull(new Pathfinder().findShelter(gs, position));
+        assertNull(new Pathfinder(1).findShelter(gs, position));
+        assertNotNull(new Pathfinder().findTrip(gs, position, destination));
+        assertNull(new Pathfinder(1).findTrip(gs, position, destination));
+    }
+
+    @Test
+    public void testSamePathsAsReference() throws IOException
+    {
+        final List<String> mismatches = Lists.newArrayList();
+        int paths = 0;
+        for (String boardName : new String [] {"classic-big", "big-crates", "more-complex"})
+        {
+            for (int seed = 0; seed < 2; seed++)
+            {
+                paths += comparePaths(boardName, seed, mismatches);
+            }
+        }
+        assertEquals(Collections.emptyList(), mismatches);
+
+        // Make sure searches actually succeed, not just agree on failures.
+        assertTrue(paths > 1000);
+    }
+
+    @Test
+    public void testUnreachableTrip() throws IOException
+    {
+        final GameState gs = gameState(0);
+
+        // Walls can never be entered.
+        assertNull(new Pathfinder().findTrip(gs, gs.getPlayerPosition(), new GridCoord(0, 0)));
+    }
+
+    @Test
+    public void testReachabilityRepairMatchesRebuild() throws IOException
+    {
+        final Recorded recorded = record();
+        final GameState gs = new GameState(recorded.conf, 0, recorded.states[0],
+            "player-0");
+        final SafetyTable table = new SafetyTable.OpponentsBombs();
+        final ReachabilityMap repaired = new ReachabilityMap();
+
+        for (int frame = 0; frame < FRAMES; frame++)
+        {
+            if (frame > 0)
+            {
+                gs.update(frame, recorded.states[frame]);
+            }
+
+            // Alternate start cells to exercise repairs after moving, too.
+            final int startX = 1 + frame % 2;
+            table.reset(gs);
+            repaired.update(gs, table, startX, 1);
+
+            final SafetyTable freshTable = new SafetyTable.OpponentsBombs();
+            freshTable.reset(gs);
+            final ReachabilityMap rebuilt = new ReachabilityMap();
+            rebuilt.update(gs, freshTable, startX, 1);
+
+            for (int x = 0; x < table.getWidth(); x++)
+            {
+                for (int y = 0; y < table.getHeight(); y++)
+                {
+                    assertEquals("Frame " + frame + " (" + x + "," + y + ")", rebuilt
+                        .getBound(x, y), repaired.getBound(x, y));
+                }
+            }
+        }
+
+        // Walls are never reachable, the player's bomb blocks its cell for a while.
+        assertEquals(ReachabilityMap.UNREACHABLE, repaired.getBound(0, 0));
+        assertTrue(repaired.getBound(1, 1) > ReachabilityMap.CELL_TRANSIT_FRAMES);
+    }
+
+    /**
+     * Run a game of randomly moving players and compare searches of the reference
+     * implementation and a path finder on the first player's states.
+     * 
+     * @return The number of paths found.
+     */
+    private static int comparePaths(String boardName, int seed, final List<String> mismatches)
+        throws IOException
+    {
+        final int frames = 300;
+        final Random rnd = new Random(seed);
+        final Board board = GameFixtures.board(boardName);
+        final Game game = GameFixtures.newGame(board, GameConfiguration.CLASSIC.clone());
+        for (int i = 0; i < 4; i++)
+        {
+            final StringBuilder script = new StringBuilder();
+            char move = '.';
+            for (int frame = 0; frame < frames; frame++)
+            {
+                if (rnd.nextInt(6) == 0)
+                {
+                    move = "LRUDB..".charAt(rnd.nextInt(7));
+                }
+                script.append(move == 'B' && rnd.nextBoolean() ? '.' : move);
+            }
+            game.addPlayer(new Player("player-" + i, new ScriptedController(script
+                .toString())));
+        }
+        game.setFrameLimit(frames);
+
+        final int [] paths = new int [1];
+        game.addListener(new IGameEventListener()
+        {
+            private final ReferencePathfinder reference = new ReferencePathfinder();
+            private final Pathfinder pathfinder = new Pathfinder();
+            private GameConfiguration conf;
+            private GameState gs;
+
+            public void onFrame(int frame, List<? extends GameEvent> events)
+            {
+                for (GameEvent e : events)
+                {
+                    if (e.type == GameEvent.Type.GAME_START)
+                    {
+                        conf = ((GameStartEvent) e).getConfiguration();
+                    }
+
+                    if (e.type != GameEvent.Type.GAME_STATE)
+                    {
+                        continue;
+                    }
+
+                    final GameStateEvent state = (GameStateEvent) e;
+                    if (gs == null)
+                    {
+                        gs = new GameState(conf, frame, state, "player-0");
+                    }
+                    else
+                    {
+                        gs.update(frame, state);
+                    }
+
+                    if (!gs.amIAlive() || frame % 3 != 0)
+                    {
+                        continue;
+                    }
+
+                    final PointCoord p = gs.getPlayerPosition();
+                    final String at = boardName + "/" + seed + " frame " + frame + " ";
+                    compare(at + "shelter", reference.findShelter(gs, p),
+                        pathfinder.findShelter(gs, p));
+                    compare(at + "shelter+5", reference.findShelter(gs, p, 5),
+                        pathfinder.findShelter(gs, p, 5));
+                    compare(at + "desperately", reference.findShelterDesperately(gs, p),
+                        pathfinder.findShelterDesperately(gs, p));
+                    compare(at + "my bomb", reference.findShelterWithMyBomb(gs, p),
+                        pathfinder.findShelterWithMyBomb(gs, p));
+
+                    final GridCoord to = new GridCoord(rnd.nextInt(board.width), rnd
+                        .nextInt(board.height));
+                    final String trip = "trip to (" + to.x + "," + to.y + ")";
+                    compareTrips(at + trip, reference.findTrip(gs, p, to,
+                        Integer.MAX_VALUE), pathfinder.findTrip(gs, p, to));
+                    compareTrips(at + trip + " in 40 frames", reference.findTrip(gs, p,
+                        to, 40), pathfinder.findTrip(gs, p, to, 40));
+                }
+            }
+
+            private void compare(String query, List<?> expected, List<?> actual)
+            {
+                if (expected == null ? actual != null : !expected.equals(actual))
+                {
+                    mismatches.add(query);
+                }
+                if (expected != null)
+                {
+                    paths[0]++;
+                }
+            }
+
+            /*
+             * Trips may take another of equally short routes, compare their costs.
+             */
+            private void compareTrips(String query, List<Direction> expected,
+                List<Direction> actual)
+            {
+                compare(query, expected == null ? null : cost(expected),
+                    actual == null ? null : cost(actual));
+            }
+        });
+        game.run(Game.Mode.INFINITE_DEATHMATCH);
+
+        return paths[0];
+    }
+
+    /**
+     * @return Frames of a path, frames spent waiting and moving in each direction and the
+     *         number of changes (paths of equal cost agree on all of them).
+     */
+    private static List<Integer> cost(List<Direction> path)
+    {
+        final int [] frames = new int [Direction.values().length + 1];
+        int turns = 0;
+        Direction last = null;
+        for (Direction direction : path)
+        {
+            frames[direction == null ? 0 : direction.ordinal() + 1]++;
+            if (direction != last)
+            {
+                turns++;
+                last = direction;
+            }
+        }
+
+        final List<Integer> cost = Lists.newArrayList(path.size(), turns);
+        for (int f : frames)
+        {
+            cost.add(f);
+        }
+        return cost;
+    }
+
+    /**
+     * Recorded game states and the game's configuration.
+     */
+    private static class Recorded
+    {
+        GameConfiguration conf;
+        final GameStateEvent [] states = new GameStateEvent [FRAMES];
+    }
+
+    /*
+     *
+     */
+    private static GameState gameState(int frame) throws IOException
+    {
+        final Recorded recorded = record();
+        final GameState gs = new GameState(recorded.conf, 0, recorded.states[0], "player-0");
+        for (int i = 1; i <= frame; i++)
+        {
+            gs.update(i, recorded.states[i]);
+        }
+        return gs;
+    }
+
+    /**
+     * Run the game and record its states.
+     */
+    private static Recorded record() throws IOException
+    {
+        /*
+         * Players can't drop bombs while immortal.
+         */
+        final GameConfiguration conf = GameConfiguration.CLASSIC.clone();
+        conf.DEFAULT_IMMORTALITY_FRAMES = 0;
+        conf.DEFAULT_JOINING_IMMORTALITY_FRAMES = 0;
+
+        final Game game = GameFixtures.newGame("classic-empty", conf);
+        game.addPlayer(new Player("player-0", new ScriptedController(StringUtils
+            .repeat(".", BOMB_FRAME) + "B" + StringUtils.repeat(".", FRAMES))));
+        game.addPlayer(new Player("player-1", new ScriptedController(".")));
+        game.setFrameLimit(FRAMES);
+
+        final Recorded recorded = new Recorded();
+        game.addListener(new IGameEventListener()
+        {
+            public void onFrame(int frame, List<? extends GameEvent> events)
+            {
+                for (GameEvent e : events)
+                {
+                    if (e.type == GameEvent.Type.GAME_START)
+                    {
+                        recorded.conf = ((GameStartEvent) e).getConfiguration();
+                    }
+
+                    if (e.type == GameEvent.Type.GAME_STATE && frame < FRAMES)
+                    {
+                        /*
+                         * Events reflect the live board, clone them.
+                         */
+                        recorded.states[frame] = (GameStateEvent) SerializationUtils.clone(e);
+                    }
+                }
+            }
+        });
+        game.run(Game.Mode.INFINITE_DEATHMATCH);
+
+        return recorded;
+    }
+}
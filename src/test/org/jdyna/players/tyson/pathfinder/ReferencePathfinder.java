@@ -0,0 +1,489 @@
+package org.jdyna.players.tyson.pathfinder;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.jdyna.IPlayerController.Direction;
+import org.jdyna.players.tyson.emulator.gamestate.Board;
+import org.jdyna.players.tyson.emulator.gamestate.GameState;
+import org.jdyna.players.tyson.emulator.gamestate.GridCoord;
+import org.jdyna.players.tyson.emulator.gamestate.PointCoord;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * The object-based A* search {@link Pathfinder} used before it moved to
+ * {@link SearchSpace}s, kept as a reference for comparing paths. Searches are
+ * unbounded and nothing is memoized.
+ */
+final class ReferencePathfinder
+{
+    /** The cost of one frame. */
+    private final static int COST_FRAME = 100;
+
+    /** The cost of a turn. */
+    private final static int COST_TURN = 5;
+
+    /** The cost of moving straight. */
+    private final static int COST_STRAIGHT = 2;
+
+    /** The cost of waiting in one place. */
+    private final static int COST_STAY = 0;
+
+    /** Number of frames you can miss and still stay alive. */
+    private final static int MARGIN = 5;
+
+    /** Safety checks of one kind of search. */
+    private static abstract class Safety
+    {
+        /*
+         *
+         */
+        boolean canWalkOn(GameState gs, GridCoord cell, int frameShift)
+        {
+            return gs.canWalkOnExcludeOpponents(cell, frameShift);
+        }
+
+        abstract boolean isPeriodSafe(GameState gs, PointCoord point, int from, int to);
+
+        abstract List<Integer> safeFrames(GameState gs, PointCoord point, int frameShift);
+
+        abstract boolean isUltimatelySafe(GameState gs, PointCoord point, int frameShift);
+    }
+
+    /** No artificial bombs, walking through opponents is allowed. */
+    private final static Safety STANDARD = new Safety()
+    {
+        boolean canWalkOn(GameState gs, GridCoord cell, int frameShift)
+        {
+            return gs.canWalkOn(cell, frameShift);
+        }
+
+        boolean isPeriodSafe(GameState gs, PointCoord point, int from, int to)
+        {
+            return gs.isPeriodSafe(point, from, to);
+        }
+
+        List<Integer> safeFrames(GameState gs, PointCoord point, int frameShift)
+        {
+            return gs.safeFrames(point, frameShift);
+        }
+
+        boolean isUltimatelySafe(GameState gs, PointCoord point, int frameShift)
+        {
+            return gs.isUltimatelySafe(point, frameShift);
+        }
+    };
+
+    /** Artificial bombs in opponents' cells. */
+    private final static Safety OPPONENTS_BOMBS = new Safety()
+    {
+        boolean isPeriodSafe(GameState gs, PointCoord point, int from, int to)
+        {
+            return gs.isPeriodSafeWithOppBombs(point, from, to);
+        }
+
+        List<Integer> safeFrames(GameState gs, PointCoord point, int frameShift)
+        {
+            return gs.safeFramesWithOppBombs(point, frameShift);
+        }
+
+        boolean isUltimatelySafe(GameState gs, PointCoord point, int frameShift)
+        {
+            return gs.isUltimatelySafeWithOppBombs(point);
+        }
+    };
+
+    /** Artificial bombs in opponents' cells and in the player's cell. */
+    private final static Safety MY_AND_OPPONENTS_BOMBS = new Safety()
+    {
+        boolean isPeriodSafe(GameState gs, PointCoord point, int from, int to)
+        {
+            return gs.isPeriodSafeWithOppAndMyBombs(point, from, to);
+        }
+
+        List<Integer> safeFrames(GameState gs, PointCoord point, int frameShift)
+        {
+            return gs.safeFramesWithOppAndMyBombs(point, frameShift);
+        }
+
+        boolean isUltimatelySafe(GameState gs, PointCoord point, int frameShift)
+        {
+            return gs.isUltimatelySafeWithOppAndMyBombs(point);
+        }
+    };
+
+    /*
+     *
+     */
+    public List<Direction> findShelter(GameState gs, PointCoord start)
+    {
+        return findShelter(gs, start, 0, OPPONENTS_BOMBS);
+    }
+
+    /*
+     *
+     */
+    public List<Direction> findShelter(GameState gs, PointCoord start, int startFrame)
+    {
+        return findShelter(gs, start, startFrame, OPPONENTS_BOMBS);
+    }
+
+    /*
+     *
+     */
+    public List<Direction> findShelterDesperately(GameState gs, PointCoord start)
+    {
+        return findShelter(gs, start, 0, STANDARD);
+    }
+
+    /*
+     *
+     */
+    public List<Direction> findShelterWithMyBomb(GameState gs, PointCoord start)
+    {
+        return findShelter(gs, start, 1, MY_AND_OPPONENTS_BOMBS);
+    }
+
+    /*
+     *
+     */
+    public List<Direction> findTrip(GameState gs, PointCoord from, GridCoord to,
+        int maxFrames)
+    {
+        final PriorityQueue<Node> open = new PriorityQueue<Node>();
+        final Map<Node, Node> openNodes = Maps.newHashMap();
+        final Map<PointWithStopList, Integer> closed = new HashMap<PointWithStopList, Integer>();
+
+        final Node startNode = new Node(from, 0, COST_FRAME * Utils.estimateCost(from, to));
+        open.add(startNode);
+        openNodes.put(startNode, startNode);
+
+        while (!open.isEmpty())
+        {
+            final Node current = open.poll();
+            openNodes.remove(current);
+
+            if (Utils.isPointInsideCell(current, to)
+                && findShelter(gs, current, current.elapsedFrames + 1) != null)
+            {
+                return createPath(current);
+            }
+
+            for (Node neighbor : getNeighbors(gs, current, to, OPPONENTS_BOMBS))
+            {
+                if (neighbor.elapsedFrames > maxFrames)
+                {
+                    continue;
+                }
+
+                if (closed.containsKey(neighbor))
+                {
+                    if (closed.get(neighbor) > neighbor.getCost())
+                    {
+                        closed.remove(neighbor);
+                    }
+                    else
+                    {
+                        continue;
+                    }
+                }
+
+                if (openNodes.containsKey(neighbor))
+                {
+                    final Node oldNode = openNodes.get(neighbor);
+                    if (oldNode.getCost() > neighbor.getCost())
+                    {
+                        oldNode.update(neighbor);
+                    }
+                }
+                else
+                {
+                    open.add(neighbor);
+                    openNodes.put(neighbor, neighbor);
+                }
+            }
+
+            closed.put(current, current.getCost());
+        }
+
+        return null;
+    }
+
+    /*
+     *
+     */
+    private List<Direction> findShelter(GameState gs, PointCoord start, int startFrame,
+        Safety safety)
+    {
+        final Set<PointWithStopList> checked = Sets.newHashSet();
+        final PriorityQueue<Node> toCheck = new PriorityQueue<Node>();
+        final GridCoord dummyDestination = new GridCoord(0, 0);
+        toCheck.add(new Node(start, startFrame, 0));
+
+        while (!toCheck.isEmpty())
+        {
+            final Node current = toCheck.peek();
+            if (safety.isUltimatelySafe(gs, current, current.elapsedFrames))
+            {
+                return createPath(current);
+            }
+
+            for (Node node : getNeighbors(gs, current, dummyDestination, safety))
+            {
+                if (!checked.contains(node) && !toCheck.contains(node))
+                {
+                    toCheck.add(node);
+                }
+            }
+
+            checked.add(current);
+            toCheck.poll();
+        }
+
+        return null;
+    }
+
+    /*
+     *
+     */
+    private static List<Direction> createPath(Node node)
+    {
+        final LinkedList<Direction> result = Lists.newLinkedList();
+        while (node.parent != null)
+        {
+            final int frames = node.elapsedFrames - node.parent.elapsedFrames;
+            if (node.stopPoints.contains(node.parent))
+            {
+                result.addFirst(node.direction);
+                for (int i = 0; i < frames - 1; i++)
+                {
+                    result.addFirst(null);
+                }
+            }
+            else
+            {
+                for (int i = 0; i < frames; i++)
+                {
+                    result.addFirst(node.direction);
+                }
+            }
+            node = node.parent;
+        }
+        return result;
+    }
+
+    /**
+     * All nodes reachable from <code>node</code> without dying on the way.
+     */
+    private static List<Node> getNeighbors(GameState gs, Node node, GridCoord destination,
+        Safety safety)
+    {
+        final List<Node> result = Lists.newLinkedList();
+        final Direction oppositeDirection = Utils.getOpposite(node.direction);
+
+        for (Neighbor neighbor : getMoves(gs, node, safety))
+        {
+            int cost = node.costFromStart;
+            if (Utils.isTurning(node.direction, neighbor.direction))
+            {
+                cost += COST_TURN;
+            }
+            else
+            {
+                cost += COST_STRAIGHT;
+            }
+
+            if (neighbor.exitsCell)
+            {
+                int lastSafeFrame = node.elapsedFrames;
+                for (Integer safeFrame : safety.safeFrames(gs, neighbor, node.elapsedFrames))
+                {
+                    if (!safety.isPeriodSafe(gs, node, lastSafeFrame + 1, safeFrame + MARGIN))
+                    {
+                        break;
+                    }
+                    final int neighborCost = cost + (COST_FRAME + COST_STAY)
+                        * (safeFrame - node.elapsedFrames) - COST_STAY;
+                    result.add(new Node(neighbor, node, neighborCost, COST_FRAME
+                        * Utils.estimateCost(neighbor, destination), safeFrame));
+                    lastSafeFrame = safeFrame;
+                }
+            }
+            else
+            {
+                if (neighbor.direction.equals(oppositeDirection))
+                {
+                    continue;
+                }
+                if (!safety.isPeriodSafe(gs, neighbor, node.elapsedFrames + 1,
+                    node.elapsedFrames + neighbor.frames + 1 + MARGIN))
+                {
+                    continue;
+                }
+                final int neighborCost = cost + neighbor.frames * COST_FRAME;
+                result.add(new Node(neighbor, node, neighborCost, COST_FRAME
+                    * Utils.estimateCost(neighbor, destination), node.elapsedFrames
+                    + neighbor.frames));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Moves to the ends of the current cell or into the next cells, ignoring explosions.
+     */
+    private static List<Neighbor> getMoves(GameState gs, Node node, Safety safety)
+    {
+        final List<Neighbor> neighbors = Lists.newLinkedList();
+        final GridCoord cell = Utils.pixelToGrid(node);
+        final Board board = gs.getBoard();
+
+        addMove(gs, node, cell, board, Direction.LEFT, Utils.getLeftPoint(cell), -1, 0,
+            safety, neighbors);
+        addMove(gs, node, cell, board, Direction.RIGHT, Utils.getRightPoint(cell), 1, 0,
+            safety, neighbors);
+        addMove(gs, node, cell, board, Direction.UP, Utils.getUpPoint(cell), 0, -1,
+            safety, neighbors);
+        addMove(gs, node, cell, board, Direction.DOWN, Utils.getDownPoint(cell), 0, 1,
+            safety, neighbors);
+
+        return neighbors;
+    }
+
+    /*
+     *
+     */
+    private static void addMove(GameState gs, Node node, GridCoord cell, Board board,
+        Direction direction, PointCoord end, int dx, int dy, Safety safety,
+        List<Neighbor> neighbors)
+    {
+        final GridCoord next = board.nextCell(cell, direction);
+        if (next == null || !safety.canWalkOn(gs, next, node.elapsedFrames + 1))
+        {
+            return;
+        }
+
+        final int frames = (dx != 0 ? Math.abs(end.x - node.x) : Math.abs(end.y - node.y)) / 2;
+        if (!end.equals(node))
+        {
+            if (!node.inCell)
+            {
+                neighbors.add(new Neighbor(end, direction, frames, false));
+            }
+        }
+        else
+        {
+            final PointCoord beyond = new PointCoord(end);
+            beyond.translate(dx, dy);
+            neighbors.add(new Neighbor(beyond, direction, frames + 1, true));
+        }
+    }
+
+    /**
+     * A point next to the one we came from.
+     */
+    @SuppressWarnings("serial")
+    private final static class Neighbor extends PointCoord
+    {
+        final Direction direction;
+        final int frames;
+        final boolean exitsCell;
+
+        Neighbor(PointCoord point, Direction direction, int frames, boolean exitsCell)
+        {
+            super(point);
+            this.direction = direction;
+            this.frames = frames;
+            this.exitsCell = exitsCell;
+        }
+    }
+
+    /**
+     * A point with the points we stopped at on the way to get there.
+     */
+    @SuppressWarnings("serial")
+    private static class PointWithStopList extends PointCoord
+    {
+        final List<PointCoord> stopPoints;
+
+        PointWithStopList(PointCoord point, List<PointCoord> stopPoints)
+        {
+            super(point);
+            this.stopPoints = Lists.newLinkedList(stopPoints);
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj) return true;
+            if (!super.equals(obj)) return false;
+            if (!(obj instanceof PointWithStopList)) return false;
+            return stopPoints.equals(((PointWithStopList) obj).stopPoints);
+        }
+    }
+
+    /**
+     * A search node.
+     */
+    @SuppressWarnings("serial")
+    private final static class Node extends PointWithStopList implements Comparable<Node>
+    {
+        Node parent;
+        int costFromStart;
+        final int costToGoal;
+        int elapsedFrames;
+        Direction direction;
+        boolean inCell;
+
+        Node(PointCoord point, int firstFrame, int costToGoal)
+        {
+            super(point, Lists.<PointCoord> newLinkedList());
+            this.costFromStart = firstFrame;
+            this.elapsedFrames = firstFrame;
+            this.costToGoal = costToGoal;
+        }
+
+        Node(Neighbor neighbor, Node parent, int costFromStart, int costToGoal,
+            int elapsedFrames)
+        {
+            super(neighbor, parent.stopPoints);
+            this.costFromStart = costFromStart;
+            this.costToGoal = costToGoal;
+            this.direction = neighbor.direction;
+            this.parent = parent;
+            this.elapsedFrames = elapsedFrames;
+            this.inCell = !neighbor.exitsCell;
+            if (elapsedFrames > parent.elapsedFrames + neighbor.frames)
+            {
+                this.stopPoints.add(parent);
+            }
+        }
+
+        int getCost()
+        {
+            return costFromStart + costToGoal;
+        }
+
+        void update(Node node)
+        {
+            costFromStart = node.costFromStart;
+            elapsedFrames = node.elapsedFrames;
+            direction = node.direction;
+            parent = node.parent;
+            inCell = node.inCell;
+        }
+
+        public int compareTo(Node other)
+        {
+            return getCost() < other.getCost() ? -1 : (getCost() > other.getCost() ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.jdyna.view.resources;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.jdyna.CellType;
+import org.jdyna.ISprite;
+import org.junit.Test;
+
+/**
+ * Lazy loading of images and the on-disk cache of decoded sheets.
+ */
+public class ImageSheetsTest
+{
+    @Test
+    public void testRasterRoundTrip() throws IOException
+    {
+        final BufferedImage image = new BufferedImage(3, 2, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, 0x80FF0000);
+        image.setRGB(2, 1, 0xFF00FF00);
+
+        final File file = File.createTempFile("raster", ".raw");
+        try
+        {
+            ImageSheets.writeRaster(file, image);
+            final BufferedImage read = ImageSheets.readRaster(file);
+
+            assertEquals(3, read.getWidth());
+            assertEquals(2, read.getHeight());
+            assertArrayEquals(pixels(image), pixels(read));
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testTruncatedRasterRejected() throws IOException
+    {
+        final File file = File.createTempFile("raster", ".raw");
+        try
+        {
+            final BufferedImage image = new BufferedImage(4, 4,
+                BufferedImage.TYPE_INT_ARGB);
+            ImageSheets.writeRaster(file, image);
+
+            final FileOutputStream os = new FileOutputStream(file, true);
+            os.write(1);
+            os.close();
+
+            try
+            {
+                ImageSheets.readRaster(file);
+                fail();
+            }
+            catch (IOException e)
+            {
+                // Expected.
+            }
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testCacheFileKeyedByContent()
+    {
+        final String previous = System.getProperty(ImageSheets.CACHE_DIR_PROPERTY);
+        try
+        {
+            System.clearProperty(ImageSheets.CACHE_DIR_PROPERTY);
+            assertNull(ImageSheets.getCacheFile("tiles/05.png", new byte [] {1}));
+
+            System.setProperty(ImageSheets.CACHE_DIR_PROPERTY, "cache");
+            final File a = ImageSheets.getCacheFile("tiles/05.png", new byte [] {1});
+            final File b = ImageSheets.getCacheFile("tiles/05.png", new byte [] {2});
+            assertEquals("cache", a.getParent());
+            assertEquals(false, a.equals(b));
+        }
+        finally
+        {
+            if (previous == null)
+                System.clearProperty(ImageSheets.CACHE_DIR_PROPERTY);
+            else
+                System.setProperty(ImageSheets.CACHE_DIR_PROPERTY, previous);
+        }
+    }
+
+    @Test
+    public void testScaledImagesLoadedLazily()
+    {
+        final Images images = ImagesFactory.DYNA_CLASSIC;
+        final BufferedImage probe = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        final Images scaled = images.createCompatible(probe.createGraphics()
+            .getDeviceConfiguration(), 2);
+
+        final BufferedImage [] walls = scaled.getCellImage(CellType.CELL_WALL);
+        assertSame(walls, scaled.getCellImage(CellType.CELL_WALL));
+
+        final BufferedImage wall = images.getCellImage(CellType.CELL_WALL)[0];
+        assertEquals(wall.getWidth() * 2, walls[0].getWidth());
+        assertEquals(wall.getRGB(5, 7), walls[0].getRGB(10, 14));
+
+        final BufferedImage player = images.getSpriteImage(ISprite.Type.PLAYER_1, 0, 1);
+        final BufferedImage scaledPlayer =
+            scaled.getSpriteImage(ISprite.Type.PLAYER_1, 0, 1);
+        assertEquals(player.getHeight() * 2, scaledPlayer.getHeight());
+        assertEquals(images.getSpriteOffset(ISprite.Type.PLAYER_1, 0, 0).x * 2,
+            scaled.getSpriteOffset(ISprite.Type.PLAYER_1, 0, 0).x);
+    }
+
+    /*
+     *
+     */
+    private static int [] pixels(BufferedImage image)
+    {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+}
@@ -0,0 +1,439 @@
+package org.jdyna.view.swing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.jdyna.BoardInfo;
+import org.jdyna.Cell;
+import org.jdyna.Constants;
+import org.jdyna.Game;
+import org.jdyna.GameEvent;
+import org.jdyna.GameFixtures;
+import org.jdyna.GameStartEvent;
+import org.jdyna.GameStateEvent;
+import org.jdyna.IGameEventListener;
+import org.jdyna.IPlayerSprite;
+import org.jdyna.Player;
+import org.jdyna.view.resources.ImagesFactory;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Incremental rendering of the board against repainting it whole, rendering with
+ * pre-scaled images against scaling rendered frames up, scrolled views against the whole
+ * board and interpolation of players' positions.
+ */
+public class BoardPanelTest
+{
+    private final static int FRAMES = 600;
+
+    @Test
+    public void testSameImagesAsFullRepaint() throws IOException
+    {
+        final BoardPanel full = newPanel();
+        full.setIncremental(false);
+        final BoardPanel incremental = newPanel();
+
+        final List<String> mismatches = Lists.newArrayList();
+        final int [] smallerRegions = new int [1];
+        play(new BoardPanel [] {full, incremental}, new IFrameCheck()
+        {
+            public void check(int frame, GameStateEvent state)
+            {
+                final BufferedImage expected = full.getBackgroundImage();
+                final BufferedImage actual = incremental.getBackgroundImage();
+                for (int y = 0; y < expected.getHeight(); y++)
+                {
+                    for (int x = 0; x < expected.getWidth(); x++)
+                    {
+                        if (expected.getRGB(x, y) != actual.getRGB(x, y))
+                        {
+                            mismatches.add(frame + ": " + x + "," + y);
+                            return;
+                        }
+                    }
+                }
+
+                final Rectangle r = incremental.getDirtyRegion();
+                if (r.width * r.height < full.getDirtyRegion().width
+                    * full.getDirtyRegion().height)
+                {
+                    smallerRegions[0]++;
+                }
+            }
+        });
+
+        assertEquals(Collections.emptyList(), mismatches);
+        assertTrue(smallerRegions[0] > FRAMES / 2);
+    }
+
+    @Test
+    public void testViewportSameAsWholeBoard() throws IOException
+    {
+        final Dimension viewSize = new Dimension(100, 80);
+        final BoardPanel whole = newPanel();
+        whole.setIncremental(false);
+        final BoardPanel incremental = newPanel();
+        incremental.setMaxViewSize(viewSize);
+        final BoardPanel full = newPanel();
+        full.setIncremental(false);
+        full.setMaxViewSize(viewSize);
+
+        // Follow a player roaming across the board, then switch to another one.
+        final BoardPanel [] panels = new BoardPanel [] {whole, incremental, full};
+        for (BoardPanel panel : panels)
+        {
+            panel.trackPlayer("p1");
+        }
+
+        final List<String> mismatches = Lists.newArrayList();
+        final Rectangle [] scrolled = new Rectangle [1];
+        final boolean [] died = new boolean [1];
+        play(panels, new IFrameCheck()
+        {
+            public void check(int frame, GameStateEvent state)
+            {
+                final Rectangle viewport = incremental.getViewport();
+                assertEquals(viewport, full.getViewport());
+
+                // Players are resurrected at random, measure scrolling up to the first death.
+                for (IPlayerSprite p : state.getPlayers())
+                {
+                    died[0] |= p.isDead();
+                }
+                if (scrolled[0] == null)
+                {
+                    scrolled[0] = new Rectangle(viewport.getLocation());
+                }
+                if (!died[0])
+                {
+                    scrolled[0].add(viewport.getLocation());
+                }
+
+                if (frame == 60)
+                {
+                    for (BoardPanel panel : panels)
+                    {
+                        panel.trackPlayer("p2");
+                    }
+                }
+
+                final BufferedImage expected = whole.getBackgroundImage();
+                for (BoardPanel panel : new BoardPanel [] {incremental, full})
+                {
+                    final BufferedImage actual = panel.getBackgroundImage();
+                    if (actual.getWidth() != viewSize.width
+                        || actual.getHeight() != viewSize.height)
+                    {
+                        mismatches.add(frame + ": size " + actual.getWidth());
+                        return;
+                    }
+
+                    for (int y = 0; y < actual.getHeight(); y++)
+                    {
+                        for (int x = 0; x < actual.getWidth(); x++)
+                        {
+                            if (expected.getRGB(viewport.x + x, viewport.y + y) != actual
+                                .getRGB(x, y))
+                            {
+                                mismatches.add(frame + ": " + x + "," + y);
+                                return;
+                            }
+                        }
+                    }
+                }
+            }
+        });
+
+        assertEquals(Collections.emptyList(), mismatches);
+
+        // The view followed the tracked player across cells.
+        final int cellSize = Constants.DEFAULT_CELL_SIZE * 2;
+        assertTrue(scrolled[0].toString(), scrolled[0].width > cellSize * 2);
+        assertTrue(scrolled[0].toString(), scrolled[0].height > cellSize * 2);
+    }
+
+    @Test
+    public void testPreScaledSameAsScaledUp() throws IOException
+    {
+        final int scale = 3;
+        final BoardPanel original = newPanel();
+        original.setMagnification(Magnification.TIMES_1);
+        final BoardPanel magnified = newPanel();
+        magnified.setMagnification(Magnification.TIMES_3);
+
+        // Labels are rendered with a scaled font, not scaled pixels.
+        original.setPaintPlayerLabels(false);
+        magnified.setPaintPlayerLabels(false);
+
+        final List<String> mismatches = Lists.newArrayList();
+        play(new BoardPanel [] {original, magnified}, new IFrameCheck()
+        {
+            public void check(int frame, GameStateEvent state)
+            {
+                final BufferedImage expected = original.getBackgroundImage();
+                final BufferedImage actual = magnified.getBackgroundImage();
+                if (expected.getWidth() * scale != actual.getWidth())
+                {
+                    mismatches.add(frame + ": width " + actual.getWidth());
+                    return;
+                }
+                for (int y = 0; y < actual.getHeight(); y++)
+                {
+                    for (int x = 0; x < actual.getWidth(); x++)
+                    {
+                        if (expected.getRGB(x / scale, y / scale) != actual.getRGB(x, y))
+                        {
+                            mismatches.add(frame + ": " + x + "," + y);
+                            return;
+                        }
+                    }
+                }
+            }
+        });
+
+        assertEquals(Collections.emptyList(), mismatches);
+    }
+
+    @Test
+    public void testInterpolatedEndsAtLastFrame() throws IOException
+    {
+        final BoardPanel plain = newPanel();
+        final BoardPanel interpolated = newPanel();
+        interpolated.setInterpolation(true);
+
+        final List<String> mismatches = Lists.newArrayList();
+        final int [] moved = new int [1];
+        play(new BoardPanel [] {plain, interpolated}, new IFrameCheck()
+        {
+            public void check(int frame, GameStateEvent state)
+            {
+                interpolated.interpolate(0.5);
+                if (!interpolated.getDirtyRegion().isEmpty())
+                {
+                    moved[0]++;
+                }
+                interpolated.interpolate(1);
+
+                final BufferedImage expected = plain.getBackgroundImage();
+                final BufferedImage actual = interpolated.getBackgroundImage();
+                for (int y = 0; y < expected.getHeight(); y++)
+                {
+                    for (int x = 0; x < expected.getWidth(); x++)
+                    {
+                        if (expected.getRGB(x, y) != actual.getRGB(x, y))
+                        {
+                            mismatches.add(frame + ": " + x + "," + y);
+                            return;
+                        }
+                    }
+                }
+            }
+        });
+
+        assertEquals(Collections.emptyList(), mismatches);
+        assertTrue(moved[0] > FRAMES / 2);
+    }
+
+    @Test
+    public void testCopiedStatesSameAsLive() throws IOException
+    {
+        final BoardPanel live = newPanel();
+        final BoardPanel copied = newPanel();
+
+        final List<String> mismatches = Lists.newArrayList();
+        play(new BoardPanel [] {live}, new IFrameCheck()
+        {
+            public void check(int frame, GameStateEvent state)
+            {
+                if (frame == 0)
+                {
+                    copied.onFrame(frame, Collections.singletonList(
+                        new GameStartEvent(null, boardInfo(state))));
+                }
+                copied.updateBoard(state.copy());
+
+                final BufferedImage expected = live.getBackgroundImage();
+                final BufferedImage actual = copied.getBackgroundImage();
+                for (int y = 0; y < expected.getHeight(); y++)
+                {
+                    for (int x = 0; x < expected.getWidth(); x++)
+                    {
+                        if (expected.getRGB(x, y) != actual.getRGB(x, y))
+                        {
+                            mismatches.add(frame + ": " + x + "," + y);
+                            return;
+                        }
+                    }
+                }
+            }
+        });
+
+        assertEquals(Collections.emptyList(), mismatches);
+    }
+
+    @Test
+    public void testPlayerLeavingKeepsOthersState() throws IOException
+    {
+        final List<GameStateEvent> states = Lists.newArrayList();
+        play(new BoardPanel [0], new IFrameCheck()
+        {
+            public void check(int frame, GameStateEvent state)
+            {
+                states.add(state.copy());
+            }
+        });
+
+        // Let p0 leave while another player's dying sequence is in progress.
+        int leave = -1;
+        final int dead = Player.State.DEAD.ordinal();
+        for (int frame = 0; frame < states.size() && leave < 0; frame++)
+        {
+            final List<? extends IPlayerSprite> players = states.get(frame).getPlayers();
+            for (IPlayerSprite p : players.subList(1, players.size()))
+            {
+                if (p.getAnimationState() == dead
+                    && players.get(0).getAnimationState() != dead)
+                {
+                    leave = frame + 2;
+                }
+            }
+        }
+        assertTrue(leave > 0);
+
+        // The view of the game after p0 left against the view of a game without p0.
+        final BoardPanel left = newPanel();
+        final BoardPanel without = newPanel();
+        final List<String> mismatches = Lists.newArrayList();
+        for (BoardPanel panel : new BoardPanel [] {left, without})
+        {
+            panel.setIncremental(false);
+            panel.setInterpolation(true);
+            panel.onFrame(0, Collections.singletonList(new GameStartEvent(null,
+                boardInfo(states.get(0)))));
+        }
+
+        for (int frame = 0; frame < states.size(); frame++)
+        {
+            final GameStateEvent state = states.get(frame);
+            final List<? extends IPlayerSprite> players = state.getPlayers();
+            final GameStateEvent others = new GameStateEvent(state.getCells(), players
+                .subList(1, players.size()));
+
+            left.updateBoard(frame < leave ? state : others);
+            without.updateBoard(others);
+            if (frame < leave) continue;
+
+            for (double alpha : new double [] {0.5, 1})
+            {
+                left.interpolate(alpha);
+                without.interpolate(alpha);
+                if (!samePixels(without.getBackgroundImage(), left.getBackgroundImage()))
+                {
+                    mismatches.add(frame + ": " + alpha);
+                }
+            }
+        }
+
+        assertEquals(Collections.emptyList(), mismatches);
+    }
+
+    /**
+     * Checks panels after each frame.
+     */
+    private interface IFrameCheck
+    {
+        void check(int frame, GameStateEvent state);
+    }
+
+    /**
+     * Play a scripted game, rendering each frame on the given panels.
+     */
+    private static void play(final BoardPanel [] panels, final IFrameCheck check)
+        throws IOException
+    {
+        final Game game = GameFixtures.newGame("classic-big", GameFixtures.noBonuses());
+        GameFixtures.addScriptedPlayers(game, "p", GameFixtures.SCRIPTS);
+        game.setFrameLimit(FRAMES);
+
+        game.addListener(new IGameEventListener()
+        {
+            public void onFrame(int frame, List<? extends GameEvent> events)
+            {
+                for (GameEvent e : events)
+                {
+                    if (e.type == GameEvent.Type.GAME_START)
+                    {
+                        for (BoardPanel panel : panels)
+                        {
+                            panel.onFrame(frame, Collections.singletonList(e));
+                        }
+                    }
+
+                    if (e.type == GameEvent.Type.GAME_STATE)
+                    {
+                        for (BoardPanel panel : panels)
+                        {
+                            panel.updateBoard((GameStateEvent) e);
+                        }
+                        check.check(frame, (GameStateEvent) e);
+                    }
+                }
+            }
+        });
+        game.run(Game.Mode.INFINITE_DEATHMATCH);
+    }
+
+    /*
+     *
+     */
+    private static BoardPanel newPanel()
+    {
+        final Graphics2D g = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB)
+            .createGraphics();
+        final GraphicsConfiguration conf = g.getDeviceConfiguration();
+        g.dispose();
+
+        final BoardPanel panel = new BoardPanel(ImagesFactory.DYNA_CLASSIC, conf);
+        panel.trackPlayer("p0");
+        return panel;
+    }
+
+    /*
+     *
+     */
+    private static boolean samePixels(BufferedImage expected, BufferedImage actual)
+    {
+        for (int y = 0; y < expected.getHeight(); y++)
+        {
+            for (int x = 0; x < expected.getWidth(); x++)
+            {
+                if (expected.getRGB(x, y) != actual.getRGB(x, y))
+                {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /*
+     *
+     */
+    private static BoardInfo boardInfo(GameStateEvent state)
+    {
+        final Cell [][] cells = state.getCells();
+        return new BoardInfo(new Dimension(cells.length, cells[0].length),
+            Constants.DEFAULT_CELL_SIZE);
+    }
+}
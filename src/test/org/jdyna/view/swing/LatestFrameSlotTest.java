@@ -0,0 +1,105 @@
+package org.jdyna.view.swing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+
+import org.jdyna.Cell;
+import org.jdyna.GameStartEvent;
+import org.jdyna.GameStateEvent;
+import org.jdyna.IPlayerSprite;
+import org.junit.Test;
+
+/**
+ * Hand-over of frames to the render thread of active rendering.
+ */
+public class LatestFrameSlotTest
+{
+    @Test
+    public void testLatestFrameTaken()
+    {
+        final LatestFrameSlot slot = new LatestFrameSlot();
+        final GameStateEvent first = newState();
+        final GameStateEvent second = newState();
+
+        assertFalse(slot.offer(1, null, first));
+        assertTrue(slot.offer(2, null, second));
+
+        final LatestFrameSlot.Frame frame = slot.poll();
+        assertEquals(2, frame.frame);
+        assertSame(second, frame.state);
+        assertNull(slot.poll());
+        assertEquals(1, slot.getDropped());
+    }
+
+    @Test
+    public void testGameStartCarriedOver()
+    {
+        final LatestFrameSlot slot = new LatestFrameSlot();
+        final GameStartEvent start = new GameStartEvent(null, null);
+        final GameStateEvent state = newState();
+
+        assertFalse(slot.offer(0, start, null));
+        assertFalse(slot.offer(1, null, newState()));
+        assertTrue(slot.offer(2, null, state));
+
+        final LatestFrameSlot.Frame frame = slot.poll();
+        assertSame(start, frame.start);
+        assertSame(state, frame.state);
+
+        slot.offer(3, null, newState());
+        assertNull(slot.poll().start);
+    }
+
+    @Test
+    public void testEveryFrameTakenOrDropped() throws Exception
+    {
+        final int frames = 100000;
+        final LatestFrameSlot slot = new LatestFrameSlot();
+        final GameStateEvent state = newState();
+        final CountDownLatch done = new CountDownLatch(1);
+
+        final long [] taken = new long [1];
+        final Thread consumer = new Thread()
+        {
+            public void run()
+            {
+                int last = -1;
+                while (last < frames - 1)
+                {
+                    final LatestFrameSlot.Frame frame = slot.poll();
+                    if (frame != null)
+                    {
+                        // Frames are taken in order.
+                        if (frame.frame <= last) break;
+                        last = frame.frame;
+                        taken[0]++;
+                    }
+                }
+                done.countDown();
+            }
+        };
+        consumer.start();
+
+        for (int i = 0; i < frames; i++)
+        {
+            slot.offer(i, null, state);
+        }
+        done.await();
+
+        assertEquals(frames, taken[0] + slot.getDropped());
+    }
+
+    /*
+     *
+     */
+    private static GameStateEvent newState()
+    {
+        return new GameStateEvent(new Cell [0][0], Collections.<IPlayerSprite> emptyList());
+    }
+}
@@ -0,0 +1,108 @@
+package org.jdyna.view.swing;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+/**
+ * Counters shown by the {@link PerformanceOverlay}.
+ */
+public class PerformanceCountersTest
+{
+    @Test
+    public void testDroppedAndLateFrames()
+    {
+        final PerformanceCounters counters = new PerformanceCounters();
+        for (int frame : new int [] {1, 2, 3, 6, 7, 5, 8, 10})
+        {
+            counters.frameReceived(frame, 1000);
+        }
+
+        assertEquals(10, counters.getReceivedFrame());
+        assertEquals(7, counters.getReceivedFrames());
+        assertEquals(3, counters.getDroppedFrames());
+        assertEquals(1, counters.getLateFrames());
+        assertEquals(1000, counters.getDecodeTimes().getLast());
+    }
+
+    @Test
+    public void testNewGame()
+    {
+        final PerformanceCounters counters = new PerformanceCounters();
+        for (int frame : new int [] {1, 2, 3, 4})
+        {
+            counters.frameReceived(frame, 0);
+        }
+
+        // Frames of the next game, its start announced.
+        counters.gameStarted();
+        counters.frameReceived(0, 0);
+        counters.frameReceived(1, 0);
+
+        // Frames of another game, its start missed.
+        for (int frame : new int [] {
+            PerformanceCounters.RESTART_GAP, PerformanceCounters.RESTART_GAP + 1, 0, 1, 3})
+        {
+            counters.frameReceived(frame, 0);
+        }
+
+        assertEquals(3, counters.getReceivedFrame());
+        assertEquals(11, counters.getReceivedFrames());
+        assertEquals(PerformanceCounters.RESTART_GAP - 2 + 1, counters.getDroppedFrames());
+        assertEquals(0, counters.getLateFrames());
+    }
+
+    @Test
+    public void testJitterOfBurstyArrivals() throws Exception
+    {
+        final PerformanceCounters counters = new PerformanceCounters();
+        counters.setFrameRate(1000);
+
+        // Frames arriving in bursts deviate from the 1 ms frame period.
+        for (int frame = 0; frame < 20; frame++)
+        {
+            if (frame % 2 == 0) Thread.sleep(2);
+            counters.frameReceived(frame, 0);
+        }
+
+        assertTrue(counters.getJitterNanos() > 0);
+    }
+
+    @Test
+    public void testRecentRenderTimes()
+    {
+        final PerformanceCounters counters = new PerformanceCounters();
+        for (int i = 0; i < PerformanceCounters.WINDOW + 3; i++)
+        {
+            counters.frameRendered(i, i);
+        }
+
+        final long [] recent = new long [3];
+        assertEquals(3, counters.getRenderTimes().getRecent(recent));
+        assertArrayEquals(new long [] {
+            PerformanceCounters.WINDOW, PerformanceCounters.WINDOW + 1,
+            PerformanceCounters.WINDOW + 2}, recent);
+        assertEquals(PerformanceCounters.WINDOW + 2, counters.getRenderedFrame());
+    }
+
+    @Test
+    public void testOverlayPainted()
+    {
+        final PerformanceCounters counters = new PerformanceCounters();
+        counters.frameReceived(1, 0);
+        counters.frameRendered(1, 1000000);
+
+        final BufferedImage image = new BufferedImage(320, 200, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D g = image.createGraphics();
+        new PerformanceOverlay(counters).paint(g);
+        g.dispose();
+
+        // The graph's bar and the background are painted.
+        assertTrue(image.getRGB(1, 1) != 0 || image.getRGB(10, 10) != 0);
+    }
+}
@@ -0,0 +1,232 @@
+package org.jdyna.view.swing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.util.Collections;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.jdyna.*;
+import org.jdyna.serialization.FrameData;
+import org.jdyna.serialization.GameReader;
+import org.jdyna.serialization.GameWriter;
+import org.jdyna.view.resources.ImagesFactory;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Replays exported in parallel chunks against rendering all frames in order.
+ */
+public class ReplayExporterTest
+{
+    private final static int FRAMES = 300;
+
+    /**
+     * Frames of a saved game.
+     */
+    private static List<FrameData> frames;
+
+    @BeforeClass
+    public static void saveGame() throws IOException
+    {
+        final Game game = GameFixtures.newGame("classic-big");
+        game.setFrameLimit(FRAMES);
+        GameFixtures.addScriptedPlayers(game, "p", GameFixtures.SCRIPTS);
+
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        game.addListener(new GameWriter(os));
+        game.run(Game.Mode.INFINITE_DEATHMATCH);
+
+        final GameReader reader = new GameReader(new ByteArrayInputStream(os.toByteArray()));
+        frames = Lists.newArrayList();
+        while (reader.nextFrame())
+        {
+            frames.add(new FrameData(reader.getFrame(), Lists.newArrayList(
+                reader.getEvents())));
+        }
+        reader.close();
+    }
+
+    @Test
+    public void testParallelPNGSameAsSequential() throws IOException
+    {
+        final File dir = createTempDir();
+        try
+        {
+            final ReplayExporter exporter = new ReplayExporter(frames);
+            exporter.setThreads(3);
+            exporter.setChunkFrames(37);
+            assertEquals(FRAMES + 1, exporter.exportPNG(dir));
+
+            final List<String> mismatches = Lists.newArrayList();
+            replay(Magnification.TIMES_2, new IFrameCheck()
+            {
+                public void check(int frame, BufferedImage expected) throws IOException
+                {
+                    final BufferedImage actual = ImageIO.read(new File(dir, String.format(
+                        "frame-%06d.png", frame)));
+                    if (!samePixels(expected, actual))
+                    {
+                        mismatches.add(Integer.toString(frame));
+                    }
+                }
+            });
+            assertEquals(Collections.emptyList(), mismatches);
+        }
+        finally
+        {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    @Test
+    public void testFrameRange() throws IOException
+    {
+        final File dir = createTempDir();
+        try
+        {
+            final ReplayExporter exporter = new ReplayExporter(frames);
+            exporter.setFrameRange(100, 150);
+            assertEquals(50, exporter.exportPNG(dir));
+            assertEquals(50, dir.list().length);
+            assertTrue(new File(dir, "frame-000100.png").isFile());
+            assertTrue(new File(dir, "frame-000149.png").isFile());
+        }
+        finally
+        {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    @Test
+    public void testAnimatedGIFSameAsSequential() throws IOException
+    {
+        final File file = File.createTempFile("replay", ".gif");
+        try
+        {
+            final ReplayExporter exporter = new ReplayExporter(frames);
+            exporter.setMagnification(Magnification.TIMES_1);
+            exporter.setThreads(2);
+            exporter.setChunkFrames(50);
+            assertEquals(FRAMES + 1, exporter.exportGIF(file));
+
+            final ImageReader reader = ImageIO.getImageReadersByFormatName("gif").next();
+            final ImageInputStream iis = ImageIO.createImageInputStream(file);
+            reader.setInput(iis);
+            try
+            {
+                assertEquals(FRAMES + 1, reader.getNumImages(true));
+
+                // Palettes are exact.
+                final List<String> mismatches = Lists.newArrayList();
+                final int [] index = new int [1];
+                replay(Magnification.TIMES_1, new IFrameCheck()
+                {
+                    public void check(int frame, BufferedImage expected) throws IOException
+                    {
+                        if (!samePixels(expected, reader.read(index[0]++)))
+                        {
+                            mismatches.add(Integer.toString(frame));
+                        }
+                    }
+                });
+                assertEquals(Collections.emptyList(), mismatches);
+            }
+            finally
+            {
+                iis.close();
+                reader.dispose();
+            }
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    /**
+     * Checks frames rendered in order.
+     */
+    private interface IFrameCheck
+    {
+        void check(int frame, BufferedImage expected) throws IOException;
+    }
+
+    /**
+     * Render all frames in order on a single panel.
+     */
+    private static void replay(Magnification magnification, IFrameCheck check)
+        throws IOException
+    {
+        final Graphics2D g = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB)
+            .createGraphics();
+        final BoardPanel panel = new BoardPanel(ImagesFactory.DYNA_CLASSIC,
+            g.getDeviceConfiguration());
+        g.dispose();
+        panel.setMagnification(magnification);
+
+        for (FrameData fd : frames)
+        {
+            for (GameEvent e : fd.events)
+            {
+                if (e.type == GameEvent.Type.GAME_START)
+                {
+                    panel.onFrame(fd.frame, Collections.singletonList(e));
+                }
+
+                if (e.type == GameEvent.Type.GAME_STATE)
+                {
+                    panel.updateBoard((GameStateEvent) e);
+                    check.check(fd.frame, panel.getBackgroundImage());
+                }
+            }
+        }
+    }
+
+    /*
+     *
+     */
+    private static boolean samePixels(BufferedImage expected, BufferedImage actual)
+    {
+        if (expected.getWidth() != actual.getWidth()
+            || expected.getHeight() != actual.getHeight())
+        {
+            return false;
+        }
+
+        for (int y = 0; y < expected.getHeight(); y++)
+        {
+            for (int x = 0; x < expected.getWidth(); x++)
+            {
+                if ((expected.getRGB(x, y) & 0xffffff) != (actual.getRGB(x, y) & 0xffffff))
+                {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /*
+     *
+     */
+    private static File createTempDir() throws IOException
+    {
+        final File dir = File.createTempFile("replay", "");
+        if (!dir.delete() || !dir.mkdir())
+        {
+            throw new IOException("Could not create: " + dir);
+        }
+        return dir;
+    }
+}
@@ -0,0 +1,130 @@
+package org.jdyna.view.swing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+/**
+ * Batching of Swing updates by the {@link UiClock}.
+ */
+public class UiClockTest
+{
+    @Test
+    public void testPendingUpdatesCoalesced() throws Exception
+    {
+        final UiClock clock = UiClock.getInstance();
+        final AtomicInteger runs = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(1);
+        final boolean [] onEdt = new boolean [1];
+
+        final Runnable update = new Runnable()
+        {
+            public void run()
+            {
+                onEdt[0] = SwingUtilities.isEventDispatchThread();
+                runs.incrementAndGet();
+            }
+        };
+
+        final long posted = clock.getPostedUpdates();
+        final long run = clock.getRunUpdates();
+
+        // Post from the EDT, so that no tick runs in between.
+        SwingUtilities.invokeAndWait(new Runnable()
+        {
+            public void run()
+            {
+                for (int i = 0; i < 10; i++)
+                {
+                    clock.post(update);
+                }
+                clock.post(new Runnable()
+                {
+                    public void run()
+                    {
+                        done.countDown();
+                    }
+                });
+            }
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        // Wait for the tick to complete.
+        SwingUtilities.invokeAndWait(new Runnable()
+        {
+            public void run()
+            {
+            }
+        });
+
+        assertEquals(1, runs.get());
+        assertTrue(onEdt[0]);
+        assertEquals(11, clock.getPostedUpdates() - posted);
+        assertEquals(2, clock.getRunUpdates() - run);
+    }
+
+    @Test
+    public void testBlinkingInPhase() throws Exception
+    {
+        final UiClock clock = UiClock.getInstance();
+        final boolean [][] states = new boolean [2][1];
+        final UiClock.IBlinking [] blinking = new UiClock.IBlinking [2];
+        for (int i = 0; i < blinking.length; i++)
+        {
+            final boolean [] state = states[i];
+            blinking[i] = new UiClock.IBlinking()
+            {
+                public void blink(boolean on)
+                {
+                    state[0] = on;
+                }
+            };
+        }
+
+        SwingUtilities.invokeAndWait(new Runnable()
+        {
+            public void run()
+            {
+                clock.startBlinking(blinking[0]);
+            }
+        });
+        Thread.sleep(UiClock.BLINK_INTERVAL / 2);
+        SwingUtilities.invokeAndWait(new Runnable()
+        {
+            public void run()
+            {
+                clock.startBlinking(blinking[1]);
+            }
+        });
+
+        for (int i = 0; i < 10; i++)
+        {
+            Thread.sleep(UiClock.BLINK_INTERVAL / 3);
+            SwingUtilities.invokeAndWait(new Runnable()
+            {
+                public void run()
+                {
+                    assertEquals(states[0][0], states[1][0]);
+                }
+            });
+        }
+
+        SwingUtilities.invokeAndWait(new Runnable()
+        {
+            public void run()
+            {
+                clock.stopBlinking(blinking[0]);
+                clock.stopBlinking(blinking[1]);
+            }
+        });
+        assertTrue(states[0][0] && states[1][0]);
+    }
+}